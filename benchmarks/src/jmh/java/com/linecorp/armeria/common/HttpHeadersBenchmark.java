@@ -19,12 +19,37 @@ package com.linecorp.armeria.common;
 import javax.annotation.Nullable;
 
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
 
 /**
- * Microbenchmarks of {@link DefaultHttpHeaders} construction.
+ * Microbenchmarks of {@link DefaultHttpHeaders} construction and lookup. Run with {@code -prof gc} to see
+ * the allocation rate of the construction.
  */
+@State(Scope.Benchmark)
 public class HttpHeadersBenchmark {
 
+    /**
+     * The number of the extra headers added to a typical set of request headers.
+     */
+    @Param({ "0", "10", "30" })
+    private int numExtraHeaders;
+
+    private String[] extraHeaderNames;
+    private RequestHeaders requestHeaders;
+
+    @Setup
+    public void setUp() {
+        extraHeaderNames = new String[numExtraHeaders];
+        for (int i = 0; i < numExtraHeaders; i++) {
+            extraHeaderNames[i] = "x-extra-header-" + i;
+        }
+        requestHeaders = buildRequestHeaders();
+    }
+
     @Nullable
     @Benchmark
     public MediaType parseKnown() {
@@ -40,4 +65,60 @@ public class HttpHeadersBenchmark {
                 HttpHeaderNames.CONTENT_TYPE, "application/grpc+oroto");
         return headers.contentType();
     }
+
+    @Benchmark
+    public RequestHeaders build() {
+        return buildRequestHeaders();
+    }
+
+    @Benchmark
+    public void getKnown(Blackhole bh) {
+        final RequestHeaders headers = requestHeaders;
+        bh.consume(headers.path());
+        bh.consume(headers.get(HttpHeaderNames.ACCEPT_ENCODING));
+        bh.consume(headers.get(HttpHeaderNames.USER_AGENT));
+        bh.consume(headers.get(HttpHeaderNames.COOKIE));
+    }
+
+    @Benchmark
+    public void getString(Blackhole bh) {
+        // Lookup with the names which are not AsciiString, so that the names are not compared by identity.
+        final RequestHeaders headers = requestHeaders;
+        bh.consume(headers.get("accept-encoding"));
+        bh.consume(headers.get("User-Agent"));
+        bh.consume(headers.get("cookie"));
+    }
+
+    @Nullable
+    @Benchmark
+    public String getAbsent() {
+        return requestHeaders.get(HttpHeaderNames.AUTHORIZATION);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        requestHeaders.forEach((name, value) -> {
+            bh.consume(name);
+            bh.consume(value);
+        });
+    }
+
+    private RequestHeaders buildRequestHeaders() {
+        final RequestHeadersBuilder builder =
+                RequestHeaders.builder(HttpMethod.GET, "/api/v1/items?page=1")
+                              .scheme("https")
+                              .authority("example.com")
+                              .add(HttpHeaderNames.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64)")
+                              .add(HttpHeaderNames.ACCEPT, "application/json")
+                              .add(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate, br")
+                              .add(HttpHeaderNames.ACCEPT_LANGUAGE, "en-US,en;q=0.9")
+                              .add(HttpHeaderNames.CACHE_CONTROL, "no-cache")
+                              .add(HttpHeaderNames.COOKIE, "session=0123456789abcdef")
+                              .add(HttpHeaderNames.REFERER, "https://example.com/")
+                              .add("x-request-id", "f81d4fae-7dec-11d0-a765-00a0c91e6bf6");
+        for (String name : extraHeaderNames) {
+            builder.add(name, "value");
+        }
+        return builder.build();
+    }
 }
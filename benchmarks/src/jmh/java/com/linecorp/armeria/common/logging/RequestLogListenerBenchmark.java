@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.logging;
+
+import static com.linecorp.armeria.common.logging.RequestLogAvailability.COMPLETE;
+import static com.linecorp.armeria.common.logging.RequestLogAvailability.REQUEST_END;
+import static com.linecorp.armeria.common.logging.RequestLogAvailability.REQUEST_HEADERS;
+import static com.linecorp.armeria.common.logging.RequestLogAvailability.RESPONSE_END;
+import static com.linecorp.armeria.common.logging.RequestLogAvailability.RESPONSE_HEADERS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.ServiceRequestContextBuilder;
+
+/**
+ * Microbenchmarks of the {@link RequestLogListener} registration and notification of a request which
+ * goes through a typical stack of five decorators, i.e. metrics, logging, tracing, retry and
+ * circuit breaker. Run with {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Benchmark)
+public class RequestLogListenerBenchmark {
+
+    private static final RequestHeaders REQUEST_HEADERS_VALUE = RequestHeaders.of(HttpMethod.GET, "/");
+    private static final ResponseHeaders RESPONSE_HEADERS_VALUE = ResponseHeaders.of(HttpStatus.OK);
+
+    private ServiceRequestContext ctx;
+
+    @Setup
+    public void setUp() {
+        ctx = ServiceRequestContextBuilder.of(HttpRequest.of(REQUEST_HEADERS_VALUE)).build();
+    }
+
+    @Benchmark
+    public void fiveDecorators(Blackhole bh) {
+        runFiveDecorators(new DefaultRequestLog(ctx), bh);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void fiveDecoratorsConcurrent(Blackhole bh) {
+        runFiveDecorators(new DefaultRequestLog(ctx), bh);
+    }
+
+    private static void runFiveDecorators(DefaultRequestLog log, Blackhole bh) {
+        // Metrics
+        log.addListener(bh::consume, REQUEST_HEADERS);
+        log.addListener(bh::consume, COMPLETE);
+        // Logging
+        log.addListener(bh::consume, REQUEST_END);
+        log.addListener(bh::consume, RESPONSE_END);
+        // Tracing
+        log.addListener(bh::consume, REQUEST_HEADERS);
+        log.addListener(bh::consume, COMPLETE);
+        // Retry
+        log.addListener(bh::consume, RESPONSE_HEADERS);
+        // Circuit breaker
+        log.addListener(bh::consume, RESPONSE_HEADERS);
+        log.addListener(bh::consume, COMPLETE);
+
+        log.requestHeaders(REQUEST_HEADERS_VALUE);
+        log.endRequest();
+        log.responseHeaders(RESPONSE_HEADERS_VALUE);
+        // A listener added after its availability is satisfied, e.g. by a decorator of a late stage.
+        log.addListener(bh::consume, REQUEST_END);
+        log.endResponse();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.multipart;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.linecorp.armeria.common.AggregatedHttpRequest;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestHeaders;
+
+/**
+ * Decodes a {@code multipart/form-data} upload of a file which arrives in {@value #CHUNK_SIZE}-byte
+ * chunks, either by aggregating the request and then decoding the aggregated body, or by decoding the
+ * request as it arrives with {@link Multipart}. Run with {@code -prof gc} to compare the allocation rate.
+ * {@code aggregated} holds the whole upload in memory, while {@code streaming} holds a chunk at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MultipartDecodingBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final String BOUNDARY = "----benchmarkBoundary3f9a1c";
+
+    @Param({ "65536", "16777216" })
+    private int fileSize;
+
+    private RequestHeaders headers;
+    private HttpData[] chunks;
+
+    @Setup
+    public void setUp() {
+        final byte[] file = new byte[fileSize];
+        ThreadLocalRandom.current().nextBytes(file);
+        final byte[] head = ("--" + BOUNDARY + "\r\n" +
+                             "Content-Disposition: form-data; name=\"description\"\r\n\r\n" +
+                             "benchmark\r\n" +
+                             "--" + BOUNDARY + "\r\n" +
+                             "Content-Disposition: form-data; name=\"file\"; filename=\"random.bin\"\r\n" +
+                             "Content-Type: application/octet-stream\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        final byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        final byte[] body = new byte[head.length + file.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(file, 0, body, head.length, file.length);
+        System.arraycopy(tail, 0, body, head.length + file.length, tail.length);
+
+        final List<HttpData> chunks = new ArrayList<>();
+        for (int i = 0; i < body.length; i += CHUNK_SIZE) {
+            chunks.add(HttpData.wrap(body, i, Math.min(CHUNK_SIZE, body.length - i)));
+        }
+        this.chunks = chunks.toArray(new HttpData[0]);
+        headers = RequestHeaders.of(HttpMethod.POST, "/upload", HttpHeaderNames.CONTENT_TYPE,
+                                    "multipart/form-data; boundary=" + BOUNDARY);
+    }
+
+    @Benchmark
+    public long aggregated() {
+        final AggregatedHttpRequest aggregated = HttpRequest.of(headers, chunks).aggregate().join();
+        return PartConsumer.consume(Multipart.from(HttpRequest.of(aggregated))).join();
+    }
+
+    @Benchmark
+    public long streaming() {
+        return PartConsumer.consume(Multipart.from(HttpRequest.of(headers, chunks))).join();
+    }
+
+    /**
+     * Consumes the parts one by one and counts the bytes of their content.
+     */
+    private static final class PartConsumer implements Subscriber<BodyPart> {
+
+        static CompletableFuture<Long> consume(Multipart multipart) {
+            final PartConsumer consumer = new PartConsumer();
+            multipart.parts().subscribe(consumer);
+            return consumer.future;
+        }
+
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        private Subscription subscription;
+        private long length;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(BodyPart part) {
+            part.content().subscribe(new Subscriber<HttpData>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    s.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(HttpData data) {
+                    length += data.length();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    future.completeExceptionally(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscription.request(1);
+                }
+            });
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            future.completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+            future.complete(length);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal.annotation;
+
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.linecorp.armeria.server.annotation.Get;
+import com.linecorp.armeria.server.annotation.Param;
+
+/**
+ * Compares {@link Method#invoke(Object, Object...)} with {@link AnnotatedMethodInvoker} for
+ * a simple {@link Get} endpoint which takes a boxed primitive argument.
+ */
+@State(Scope.Benchmark)
+public class AnnotatedMethodInvokerBenchmark {
+
+    public static class HelloService {
+        @Get("/hello/:name")
+        public String hello(@Param String name, @Param int count) {
+            return name.length() + count > 0 ? name : "";
+        }
+    }
+
+    private final HelloService service = new HelloService();
+    private final Object[] arguments = { "armeria", 1 };
+
+    private Method method;
+    private AnnotatedMethodInvoker invoker;
+
+    @Setup
+    public void setUp() throws Exception {
+        method = HelloService.class.getMethod("hello", String.class, int.class);
+        method.setAccessible(true);
+        invoker = AnnotatedMethodInvoker.of(service, method);
+    }
+
+    @Benchmark
+    public Object reflective() throws Exception {
+        return method.invoke(service, arguments);
+    }
+
+    @Benchmark
+    public Object bound() throws Throwable {
+        return invoker.invoke(arguments);
+    }
+}
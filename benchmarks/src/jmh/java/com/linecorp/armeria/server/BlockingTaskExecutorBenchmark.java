@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.Flags;
+import com.linecorp.armeria.common.metric.NoopMeterRegistry;
+import com.linecorp.armeria.common.util.BlockingTaskExecutors;
+import com.linecorp.armeria.server.annotation.Get;
+
+/**
+ * Sends {@value #NUM_REQUESTS} concurrent requests to an annotated service method which sleeps for
+ * {@value #SLEEP_MILLIS} milliseconds, and measures how long it takes to receive all responses. With the
+ * platform thread pool, the requests are served by {@link Flags#numCommonBlockingTaskThreads()} threads at
+ * a time. Note that {@code VIRTUAL} falls back to the platform thread pool when run on a JVM older than 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingTaskExecutorBenchmark {
+
+    private static final int NUM_REQUESTS = 10000;
+    private static final long SLEEP_MILLIS = 50;
+
+    public enum ExecutorType {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @Param
+    private ExecutorType executorType;
+
+    private ExecutorService executor;
+    private Server server;
+    private HttpClient client;
+
+    @Setup
+    public void startServer() {
+        if (executorType == ExecutorType.VIRTUAL) {
+            executor = BlockingTaskExecutors.newVirtualThreadExecutor("benchmark-blocking-tasks");
+        } else {
+            executor = BlockingTaskExecutors.newPlatformThreadExecutor(
+                    "benchmark-blocking-tasks", Flags.numCommonBlockingTaskThreads());
+        }
+
+        server = new ServerBuilder()
+                .http(0)
+                .blockingTaskExecutor(executor, true)
+                .annotatedService(new Object() {
+                    @Get("/sleep")
+                    public String sleep() throws InterruptedException {
+                        Thread.sleep(SLEEP_MILLIS);
+                        return "OK";
+                    }
+                })
+                .requestTimeout(Duration.ZERO)
+                .meterRegistry(NoopMeterRegistry.get())
+                .build();
+        server.start().join();
+        client = HttpClient.of("h2c://127.0.0.1:" + server.activeLocalPort() + '/');
+    }
+
+    @TearDown
+    public void stopServer() {
+        server.stop().join();
+    }
+
+    @Benchmark
+    public void sleepingHandlers() {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[NUM_REQUESTS];
+        for (int i = 0; i < NUM_REQUESTS; i++) {
+            futures[i] = client.get("/sleep").aggregate();
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.ServiceRequestContextBuilder;
+
+/**
+ * Microbenchmarks of formatting an access log message with a compiled {@link AccessLogFormatter}, compared
+ * with interpreting the list of {@link AccessLogComponent}s for every message. Run with {@code -prof gc} to
+ * see the allocation rate.
+ */
+@State(Scope.Benchmark)
+public class AccessLogFormatterBenchmark {
+
+    private static final String CUSTOM_FORMAT =
+            "%a %t \"%r\" %s %b %{requestDurationNanos}L %{responseLength}L \"%{User-Agent}i\"";
+
+    @Param({ "common", "combined", "custom" })
+    private String format;
+
+    private List<AccessLogComponent> components;
+    private AccessLogFormatter formatter;
+    private RequestLog log;
+
+    @Setup
+    public void setUp() {
+        switch (format) {
+            case "common":
+                components = AccessLogFormats.COMMON;
+                break;
+            case "combined":
+                components = AccessLogFormats.COMBINED;
+                break;
+            default:
+                components = AccessLogFormats.parseCustom(CUSTOM_FORMAT);
+        }
+        formatter = AccessLogFormatter.compile(components);
+
+        final HttpRequest req = HttpRequest.of(
+                RequestHeaders.of(HttpMethod.GET, "/armeria/log",
+                                  HttpHeaderNames.USER_AGENT, "armeria/x.y.z",
+                                  HttpHeaderNames.REFERER, "http://log.example.com",
+                                  HttpHeaderNames.COOKIE, "a=1;b=2"));
+        final ServiceRequestContext ctx = ServiceRequestContextBuilder.of(req).build();
+        final RequestLogBuilder logBuilder = ctx.logBuilder();
+        logBuilder.endRequest();
+        logBuilder.responseHeaders(ResponseHeaders.of(HttpStatus.OK));
+        logBuilder.responseLength(1024);
+        logBuilder.endResponse();
+        log = ctx.log();
+    }
+
+    @Benchmark
+    public String interpreted() {
+        // How a message was formatted before the format was compiled.
+        final StringBuilder message = new StringBuilder();
+        for (final AccessLogComponent component : components) {
+            final boolean addQuote = component.addQuote();
+            final Object text = component.getMessage(log);
+            if (text != null) {
+                if (addQuote) {
+                    AccessLogger.escapeAndQuote(message, text.toString());
+                } else {
+                    message.append(text);
+                }
+            } else {
+                message.append(addQuote ? "\"-\"" : "-");
+            }
+        }
+        return message.toString();
+    }
+
+    @Benchmark
+    public String compiled() {
+        return formatter.format(log);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.metric;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.prometheus.client.Collector;
+import io.prometheus.client.Collector.MetricFamilySamples.Sample;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
+/**
+ * Microbenchmarks of rendering a large synthetic {@link CollectorRegistry} with {@link TextFormat}, compared
+ * with the chunked rendering of {@link PrometheusExpositionService}. Run with {@code -prof gc} to see the
+ * allocation rate.
+ */
+@State(Scope.Benchmark)
+public class PrometheusExpositionBenchmark {
+
+    private static final int SERIES_PER_FAMILY = 10;
+
+    @Param({ "1000", "50000" })
+    private int numSeries;
+
+    private CollectorRegistry registry;
+
+    @Setup
+    public void setUp() {
+        final List<Collector.MetricFamilySamples> families =
+                IntStream.range(0, numSeries / SERIES_PER_FAMILY).mapToObj(i -> {
+                    final String name = "armeria_server_requests_" + i + "_total";
+                    final List<Sample> samples =
+                            IntStream.range(0, SERIES_PER_FAMILY)
+                                     .mapToObj(j -> new Sample(
+                                             name, ImmutableList.of("method", "service", "result"),
+                                             ImmutableList.of("GET", "com.example.Service" + j, "success"),
+                                             i * 31 + j))
+                                     .collect(Collectors.toList());
+                    return new Collector.MetricFamilySamples(name, Collector.Type.COUNTER,
+                                                             "The number of requests", samples);
+                }).collect(Collectors.toList());
+
+        registry = new CollectorRegistry();
+        new Collector() {
+            @Override
+            public List<MetricFamilySamples> collect() {
+                return families;
+            }
+        }.register(registry);
+    }
+
+    @Benchmark
+    public void textFormat(Blackhole bh) throws IOException {
+        final OutputStreamWriter writer = new OutputStreamWriter(ByteStreams.nullOutputStream(),
+                                                                 StandardCharsets.UTF_8);
+        TextFormat.write004(writer, registry.metricFamilySamples());
+        writer.flush();
+        bh.consume(writer);
+    }
+
+    @Benchmark
+    public void streaming(Blackhole bh) {
+        render(bh, false);
+    }
+
+    @Benchmark
+    public void streamingGzip(Blackhole bh) {
+        render(bh, true);
+    }
+
+    private void render(Blackhole bh, boolean gzip) {
+        final PrometheusExpositionWriter writer = new PrometheusExpositionWriter(
+                registry, false, gzip, PooledByteBufAllocator.DEFAULT, 32 * 1024);
+        try {
+            while (!writer.isEndOfStream()) {
+                final ByteBuf chunk = writer.nextChunk();
+                bh.consume(chunk.readableBytes());
+                chunk.release();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
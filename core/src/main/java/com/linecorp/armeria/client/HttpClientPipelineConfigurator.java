@@ -52,6 +52,8 @@ import com.linecorp.armeria.internal.Http1ClientCodec;
 import com.linecorp.armeria.internal.ReadSuppressingHandler;
 import com.linecorp.armeria.internal.SslContextUtil;
 import com.linecorp.armeria.internal.TrafficLoggingHandler;
+import com.linecorp.armeria.internal.TransportMetrics;
+import com.linecorp.armeria.internal.TransportMetricsHandler;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
@@ -147,6 +149,7 @@ final class HttpClientPipelineConfigurator extends ChannelDuplexHandler {
         ChannelUtil.disableWriterBufferWatermark(ch);
 
         final ChannelPipeline p = ch.pipeline();
+        p.addLast(new TransportMetricsHandler(TransportMetrics.ofClient(clientFactory.meterRegistry())));
         p.addLast(new FlushConsolidationHandler());
         p.addLast(ReadSuppressingHandler.INSTANCE);
 
@@ -191,6 +194,7 @@ final class HttpClientPipelineConfigurator extends ChannelDuplexHandler {
                 }
 
                 final SslHandshakeCompletionEvent handshakeEvent = (SslHandshakeCompletionEvent) evt;
+                TransportMetricsHandler.onHandshakeCompletion(p, handshakeEvent);
                 if (!handshakeEvent.isSuccess()) {
                     // The connection will be closed automatically by SslHandler.
                     logger.warn("{} TLS handshake failed:", ctx.channel(), handshakeEvent.cause());
@@ -605,11 +609,16 @@ final class HttpClientPipelineConfigurator extends ChannelDuplexHandler {
     }
 
     private Http2ClientConnectionHandler newHttp2ConnectionHandler(Channel ch) {
-        return new Http2ClientConnectionHandlerBuilder(ch, clientFactory)
-                .server(false)
-                .validateHeaders(false)
-                .initialSettings(http2Settings())
-                .build();
+        final TransportMetrics transportMetrics = TransportMetrics.ofClient(clientFactory.meterRegistry());
+        final Http2ClientConnectionHandler handler =
+                new Http2ClientConnectionHandlerBuilder(ch, clientFactory)
+                        .server(false)
+                        .validateHeaders(false)
+                        .initialSettings(http2Settings())
+                        .frameLogger(transportMetrics.frameLogger())
+                        .build();
+        transportMetrics.monitorFlowControl(handler.encoder());
+        return handler;
     }
 
     private Http2Settings http2Settings() {
@@ -17,13 +17,10 @@
 package com.linecorp.armeria.common;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import com.linecorp.armeria.client.ClientFactoryBuilder;
+import com.linecorp.armeria.common.util.BlockingTaskExecutors;
 import com.linecorp.armeria.common.util.EventLoopGroups;
-import com.linecorp.armeria.common.util.ThreadFactories;
 import com.linecorp.armeria.server.ServerBuilder;
 
 import io.netty.channel.EventLoopGroup;
@@ -37,14 +34,15 @@ public final class CommonPools {
     private static final EventLoopGroup WORKER_GROUP;
 
     static {
-        // Threads spawned as needed and reused, with a 60s timeout and unbounded work queue.
-        final ThreadPoolExecutor blockingTaskExecutor = new ThreadPoolExecutor(
-                Flags.numCommonBlockingTaskThreads(), Flags.numCommonBlockingTaskThreads(),
-                60, TimeUnit.SECONDS, new LinkedTransferQueue<>(),
-                ThreadFactories.newThreadFactory("armeria-common-blocking-tasks", true));
-
-        blockingTaskExecutor.allowCoreThreadTimeOut(true);
-        BLOCKING_TASK_EXECUTOR = blockingTaskExecutor;
+        if (Flags.useVirtualThreadBlockingTaskExecutor()) {
+            // A new virtual thread for each task, or a platform thread pool if not supported by the JVM.
+            BLOCKING_TASK_EXECUTOR =
+                    BlockingTaskExecutors.newVirtualThreadExecutor("armeria-common-blocking-tasks");
+        } else {
+            // Threads spawned as needed and reused, with a 60s timeout and unbounded work queue.
+            BLOCKING_TASK_EXECUTOR = BlockingTaskExecutors.newPlatformThreadExecutor(
+                    "armeria-common-blocking-tasks", Flags.numCommonBlockingTaskThreads());
+        }
 
         WORKER_GROUP = EventLoopGroups.newEventLoopGroup(Flags.numCommonWorkers(),
                                                          "armeria-common-worker", true);
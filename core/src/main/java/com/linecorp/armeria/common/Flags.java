@@ -123,6 +123,8 @@ public final class Flags {
 
     private static final boolean DUMP_OPENSSL_INFO = getBoolean("dumpOpenSslInfo", false);
 
+    private static final boolean USE_ZERO_COPY_FILE_TRANSFER = getBoolean("useZeroCopyFileTransfer", true);
+
     private static final int DEFAULT_MAX_NUM_CONNECTIONS = Integer.MAX_VALUE;
     private static final int MAX_NUM_CONNECTIONS =
             getInt("maxNumConnections", DEFAULT_MAX_NUM_CONNECTIONS, value -> value > 0);
@@ -137,6 +139,9 @@ public final class Flags {
                    DEFAULT_NUM_COMMON_BLOCKING_TASK_THREADS,
                    value -> value > 0);
 
+    private static final boolean USE_VIRTUAL_THREAD_BLOCKING_TASK_EXECUTOR =
+            getBoolean("useVirtualThreadBlockingTaskExecutor", false);
+
     private static final long DEFAULT_DEFAULT_MAX_REQUEST_LENGTH = 10 * 1024 * 1024; // 10 MiB
     private static final long DEFAULT_MAX_REQUEST_LENGTH =
             getLong("defaultMaxRequestLength",
@@ -432,6 +437,18 @@ public final class Flags {
         return DUMP_OPENSSL_INFO;
     }
 
+    /**
+     * Returns whether a large static file is served without copying its content into the heap. When enabled,
+     * Armeria transfers a large file from a file system via {@code sendfile()} over a cleartext HTTP/1
+     * connection, and via memory-mapped buffers over a TLS or HTTP/2 connection.
+     *
+     * <p>This flag is enabled by default. Specify the
+     * {@code -Dcom.linecorp.armeria.useZeroCopyFileTransfer=false} JVM option to disable it.
+     */
+    public static boolean useZeroCopyFileTransfer() {
+        return USE_ZERO_COPY_FILE_TRANSFER;
+    }
+
     /**
      * Returns the default server-side maximum number of connections.
      *
@@ -466,6 +483,18 @@ public final class Flags {
         return NUM_COMMON_BLOCKING_TASK_THREADS;
     }
 
+    /**
+     * Returns whether the {@linkplain CommonPools#blockingTaskExecutor() common blocking task executor}
+     * runs each task in a new virtual thread rather than in a pool of {@link #numCommonBlockingTaskThreads()}
+     * platform threads. This flag has no effect if the JVM does not support virtual threads.
+     *
+     * <p>This flag is disabled by default. Specify the
+     * {@code -Dcom.linecorp.armeria.useVirtualThreadBlockingTaskExecutor=true} JVM option to enable it.
+     */
+    public static boolean useVirtualThreadBlockingTaskExecutor() {
+        return USE_VIRTUAL_THREAD_BLOCKING_TASK_EXECUTOR;
+    }
+
     /**
      * Returns the default server-side maximum length of a request. Note that this value has effect
      * only if a user did not specify it.
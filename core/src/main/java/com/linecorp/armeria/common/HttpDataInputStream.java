@@ -0,0 +1,336 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.linecorp.armeria.common.stream.StreamMessage;
+import com.linecorp.armeria.common.stream.SubscriptionOption;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * A blocking {@link InputStream} which reads the content of an {@link HttpRequest} or an {@link HttpResponse}
+ * as it arrives, without aggregating it. The {@link HttpData}s are buffered in a bounded queue, and the next
+ * {@link HttpData} is requested from the stream only when the reader has consumed one, so a slow reader
+ * slows down the peer instead of growing the memory footprint. {@link HttpHeaders} and trailers are skipped.
+ *
+ * <p>The stream subscribes when it is created, so it should be created in the I/O thread and then handed
+ * over to a thread which may block, such as a virtual thread or
+ * {@link com.linecorp.armeria.server.ServiceRequestContext#blockingTaskExecutor()}:
+ * <pre>{@code
+ * HttpService service = (ctx, req) -> {
+ *     final HttpDataInputStream in = HttpDataInputStream.of(req);
+ *     return HttpResponse.from(CompletableFuture.supplyAsync(() -> {
+ *         try (InputStream body = in) {
+ *             Files.copy(body, uploadPath);
+ *             return HttpResponse.of(HttpStatus.OK);
+ *         } catch (IOException e) {
+ *             return HttpResponse.of(HttpStatus.INTERNAL_SERVER_ERROR);
+ *         }
+ *     }, ctx.blockingTaskExecutor()));
+ * };
+ * }</pre>
+ *
+ * <p>{@link #read(byte[], int, int)} throws an {@link IOException} once the buffered content is consumed
+ * if the stream was closed with a cause. Closing this {@link InputStream} before the end of the content
+ * cancels the subscription, which aborts the underlying stream.
+ */
+public final class HttpDataInputStream extends InputStream {
+
+    private static final int DEFAULT_MAX_BUFFERED_CHUNKS = 8;
+
+    /**
+     * Returns a new {@link HttpDataInputStream} which reads the content of the specified
+     * {@link StreamMessage}, buffering up to 8 {@link HttpData}s.
+     */
+    public static HttpDataInputStream of(StreamMessage<? extends HttpObject> message) {
+        return of(message, DEFAULT_MAX_BUFFERED_CHUNKS);
+    }
+
+    /**
+     * Returns a new {@link HttpDataInputStream} which reads the content of the specified
+     * {@link StreamMessage}, buffering up to {@code maxBufferedChunks} {@link HttpData}s.
+     */
+    public static HttpDataInputStream of(StreamMessage<? extends HttpObject> message, int maxBufferedChunks) {
+        requireNonNull(message, "message");
+        checkArgument(maxBufferedChunks > 0,
+                      "maxBufferedChunks: %s (expected: > 0)", maxBufferedChunks);
+        final HttpDataInputStream in = new HttpDataInputStream(maxBufferedChunks);
+        message.subscribe(in.subscriber, SubscriptionOption.WITH_POOLED_OBJECTS);
+        return in;
+    }
+
+    // Not using 'synchronized' so that a reader on a virtual thread does not pin its carrier thread.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readable = lock.newCondition();
+    private final Queue<HttpData> queue;
+    private final int maxBufferedChunks;
+    private final HttpDataSubscriber subscriber = new HttpDataSubscriber();
+
+    @Nullable
+    private HttpData current;
+    @Nullable
+    private ByteBuf currentBuf;
+    @Nullable
+    private Throwable cause;
+    private boolean completed;
+    private boolean closed;
+
+    @Nullable
+    private byte[] singleByte;
+
+    private HttpDataInputStream(int maxBufferedChunks) {
+        this.maxBufferedChunks = maxBufferedChunks;
+        queue = new ArrayDeque<>(maxBufferedChunks);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] singleByte = this.singleByte;
+        if (singleByte == null) {
+            singleByte = this.singleByte = new byte[1];
+        }
+        return read(singleByte, 0, 1) < 0 ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        requireNonNull(b, "b");
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException(
+                    "off: " + off + ", len: " + len + ", b.length: " + b.length);
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        final int readBytes;
+        boolean consumed = false;
+        lock.lock();
+        try {
+            final ByteBuf buf = awaitReadable();
+            if (buf == null) {
+                return -1;
+            }
+
+            readBytes = Math.min(len, buf.readableBytes());
+            buf.readBytes(b, off, readBytes);
+            if (!buf.isReadable()) {
+                releaseCurrent();
+                consumed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (consumed) {
+            // Make room for the next chunk only after the reader has consumed this one.
+            subscriber.request();
+        }
+        return readBytes;
+    }
+
+    /**
+     * Waits until there is a chunk to read and returns it, or returns {@code null} at the end of the stream.
+     */
+    @Nullable
+    private ByteBuf awaitReadable() throws IOException {
+        for (;;) {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (currentBuf != null) {
+                return currentBuf;
+            }
+
+            final HttpData next = queue.poll();
+            if (next != null) {
+                current = next;
+                currentBuf = next instanceof ByteBufHolder ? ((ByteBufHolder) next).content()
+                                                           : Unpooled.wrappedBuffer(next.array());
+                continue;
+            }
+
+            if (completed) {
+                if (cause != null) {
+                    throw new IOException(cause);
+                }
+                return null;
+            }
+
+            try {
+                readable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            long available = currentBuf != null ? currentBuf.readableBytes() : 0;
+            for (HttpData data : queue) {
+                available += data.length();
+            }
+            return (int) Math.min(available, Integer.MAX_VALUE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        final boolean cancel;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancel = !completed;
+
+            releaseCurrent();
+            for (;;) {
+                final HttpData data = queue.poll();
+                if (data == null) {
+                    break;
+                }
+                ReferenceCountUtil.safeRelease(data);
+            }
+            // Wake up the reader blocked in another thread, if any.
+            readable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (cancel) {
+            subscriber.cancel();
+        }
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            ReferenceCountUtil.safeRelease(current);
+            current = null;
+            currentBuf = null;
+        }
+    }
+
+    private final class HttpDataSubscriber implements Subscriber<HttpObject> {
+
+        @Nullable
+        private volatile Subscription subscription;
+        private volatile boolean cancelled;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            if (cancelled) {
+                s.cancel();
+            } else {
+                s.request(maxBufferedChunks);
+            }
+        }
+
+        @Override
+        public void onNext(HttpObject obj) {
+            if (!(obj instanceof HttpData)) {
+                // Headers and trailers do not take a slot in the queue.
+                request();
+                return;
+            }
+
+            final HttpData data = (HttpData) obj;
+            final boolean closed;
+            lock.lock();
+            try {
+                closed = HttpDataInputStream.this.closed;
+                if (!closed && !data.isEmpty()) {
+                    queue.add(data);
+                    readable.signalAll();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            ReferenceCountUtil.safeRelease(data);
+            if (!closed) {
+                request();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            complete(t);
+        }
+
+        @Override
+        public void onComplete() {
+            complete(null);
+        }
+
+        private void complete(@Nullable Throwable cause) {
+            lock.lock();
+            try {
+                completed = true;
+                HttpDataInputStream.this.cause = cause;
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void request() {
+            final Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.request(1);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            final Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
@@ -53,6 +53,7 @@ public final class HttpHeaderNames {
     // - Added Accept-Patch
     // - Added Content-Base
     // - Added Prefer
+    // - Added Sec-WebSocket-* headers
     // - Removed the ancient CSP headers
     //   - X-Content-Security-Policy
     //   - X-Content-Security-Policy-Report-Only
@@ -542,6 +543,31 @@ public final class HttpHeaderNames {
      * Sec-Referred-Token-Binding-ID}</a> header field name.
      */
     public static final AsciiString SEC_REFERRED_TOKEN_BINDING_ID = create("Sec-Referred-Token-Binding-ID");
+    /**
+     * The HTTP <a href="https://tools.ietf.org/html/rfc6455#section-11.3.1">{@code
+     * Sec-WebSocket-Key}</a> header field name.
+     */
+    public static final AsciiString SEC_WEBSOCKET_KEY = create("Sec-WebSocket-Key");
+    /**
+     * The HTTP <a href="https://tools.ietf.org/html/rfc6455#section-11.3.2">{@code
+     * Sec-WebSocket-Extensions}</a> header field name.
+     */
+    public static final AsciiString SEC_WEBSOCKET_EXTENSIONS = create("Sec-WebSocket-Extensions");
+    /**
+     * The HTTP <a href="https://tools.ietf.org/html/rfc6455#section-11.3.3">{@code
+     * Sec-WebSocket-Accept}</a> header field name.
+     */
+    public static final AsciiString SEC_WEBSOCKET_ACCEPT = create("Sec-WebSocket-Accept");
+    /**
+     * The HTTP <a href="https://tools.ietf.org/html/rfc6455#section-11.3.4">{@code
+     * Sec-WebSocket-Protocol}</a> header field name.
+     */
+    public static final AsciiString SEC_WEBSOCKET_PROTOCOL = create("Sec-WebSocket-Protocol");
+    /**
+     * The HTTP <a href="https://tools.ietf.org/html/rfc6455#section-11.3.5">{@code
+     * Sec-WebSocket-Version}</a> header field name.
+     */
+    public static final AsciiString SEC_WEBSOCKET_VERSION = create("Sec-WebSocket-Version");
 
     private static final Map<CharSequence, AsciiString> map;
 
@@ -64,6 +64,13 @@ import io.netty.util.AsciiString;
 
 /**
  * The base container implementation of HTTP/2 headers.
+ *
+ * <p>The headers are stored in the parallel arrays of names, values and name hash codes in iteration order,
+ * with the pseudo headers first. A lookup is a linear scan over the hash codes while the number of headers is
+ * small, which is the most common case. Once the number of headers exceeds
+ * {@value #HASH_INDEX_THRESHOLD}, a hash index is built on top of the arrays. The names are normalized with
+ * {@link HttpHeaderNames#of(CharSequence)}, so that the well-known names are shared and usually compared by
+ * identity.
  */
 class HttpHeadersBase implements HttpHeaderGetters {
 
@@ -74,44 +81,69 @@ class HttpHeadersBase implements HttpHeaderGetters {
      */
     static final int HASH_CODE_SEED = 0xc2b2ae35;
 
-    // XXX(anuraaga): It could be an interesting future optimization if we can use something similar
-    //                to an EnumSet when it's applicable, with just one each of commonly known header names.
-    //                It should be very common.
+    /**
+     * The maximum number of headers which are looked up with a linear scan rather than with a hash index.
+     */
     @VisibleForTesting
-    final HeaderEntry[] entries;
-    private final byte hashMask;
+    static final int HASH_INDEX_THRESHOLD = 16;
 
-    private final HeaderEntry head;
-    private HeaderEntry firstNonPseudo;
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    @VisibleForTesting
+    AsciiString[] names;
+    private String[] values;
+    private int[] hashes;
+
+    /**
+     * The heads of the hash buckets. Each element is the position of the last added header in the bucket
+     * plus one, or {@code 0} if the bucket is empty. {@code null} if the number of headers does not exceed
+     * {@link #HASH_INDEX_THRESHOLD}.
+     */
+    @Nullable
+    private int[] buckets;
+
+    /**
+     * The position of the previous header in the same bucket plus one, or {@code 0} if there's no previous
+     * header, for each header. {@code null} if {@link #buckets} is {@code null}.
+     */
+    @Nullable
+    private int[] nextInBucket;
+
+    /**
+     * The number of the pseudo headers, which is also the position of the first non-pseudo header.
+     */
+    private int numPseudoHeaders;
 
     int size;
     private boolean endOfStream;
 
     HttpHeadersBase(int sizeHint) {
-        // Enforce a bound of [2, 128] because hashMask is a byte. The max possible value of hashMask is
-        // one less than the length of this array, and we want the mask to be > 0.
-        entries = new HeaderEntry[findNextPositivePowerOfTwo(max(2, min(sizeHint, 128)))];
-        hashMask = (byte) (entries.length - 1);
-        head = firstNonPseudo = new HeaderEntry();
+        final int capacity = findNextPositivePowerOfTwo(max(2, min(sizeHint, MAX_INITIAL_CAPACITY)));
+        names = new AsciiString[capacity];
+        values = new String[capacity];
+        hashes = new int[capacity];
     }
 
     /**
      * Creates a shallow or deep copy of the specified {@link HttpHeadersBase}.
      */
     HttpHeadersBase(HttpHeadersBase headers, boolean shallowCopy) {
-        hashMask = headers.hashMask;
         endOfStream = headers.endOfStream;
+        numPseudoHeaders = headers.numPseudoHeaders;
+        size = headers.size;
 
         if (shallowCopy) {
-            entries = headers.entries;
-            head = headers.head;
-            firstNonPseudo = headers.firstNonPseudo;
-            size = headers.size;
+            names = headers.names;
+            values = headers.values;
+            hashes = headers.hashes;
+            buckets = headers.buckets;
+            nextInBucket = headers.nextInBucket;
         } else {
-            entries = new HeaderEntry[headers.entries.length];
-            head = firstNonPseudo = new HeaderEntry();
-            final boolean succeeded = addFast(headers);
-            assert succeeded;
+            names = headers.names.clone();
+            values = headers.values.clone();
+            hashes = headers.hashes.clone();
+            buckets = headers.buckets != null ? headers.buckets.clone() : null;
+            nextInBucket = headers.nextInBucket != null ? headers.nextInBucket.clone() : null;
         }
     }
 
@@ -236,18 +268,8 @@ class HttpHeadersBase implements HttpHeaderGetters {
     @Override
     public final String get(CharSequence name) {
         requireNonNull(name, "name");
-        final int h = AsciiString.hashCode(name);
-        final int i = index(h);
-        HeaderEntry e = entries[i];
-        String value = null;
-        // loop until the first header was found
-        while (e != null) {
-            if (e.hash == h && keyEquals(e.key, name)) {
-                value = e.value;
-            }
-            e = e.next;
-        }
-        return value;
+        final int i = indexOf(AsciiString.hashCode(name), name);
+        return i >= 0 ? values[i] : null;
     }
 
     @Override
@@ -260,21 +282,25 @@ class HttpHeadersBase implements HttpHeaderGetters {
     @Override
     public final List<String> getAll(CharSequence name) {
         requireNonNull(name, "name");
-        return getAllReversed(name).reverse();
-    }
-
-    private ImmutableList<String> getAllReversed(CharSequence name) {
-        final ImmutableList.Builder<String> builder = ImmutableList.builder();
         final int h = AsciiString.hashCode(name);
-        final int i = index(h);
-        HeaderEntry e = entries[i];
-        while (e != null) {
-            if (e.hash == h && keyEquals(e.key, name)) {
-                builder.add(e.getValue());
+        final ImmutableList.Builder<String> builder = ImmutableList.builder();
+        if (buckets == null) {
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] == h && keyEquals(names[i], name)) {
+                    builder.add(values[i]);
+                }
             }
-            e = e.next;
+            return builder.build();
         }
-        return builder.build();
+
+        // A bucket is in the reverse order of the positions.
+        assert nextInBucket != null;
+        for (int i = buckets[bucket(h)] - 1; i >= 0; i = nextInBucket[i] - 1) {
+            if (hashes[i] == h && keyEquals(names[i], name)) {
+                builder.add(values[i]);
+            }
+        }
+        return builder.build().reverse();
     }
 
     @Nullable
@@ -345,17 +371,7 @@ class HttpHeadersBase implements HttpHeaderGetters {
     @Override
     public final boolean contains(CharSequence name) {
         requireNonNull(name, "name");
-        final int h = AsciiString.hashCode(name);
-        final int i = index(h);
-        HeaderEntry e = entries[i];
-        // loop until the first header was found
-        while (e != null) {
-            if (e.hash == h && keyEquals(e.key, name)) {
-                return true;
-            }
-            e = e.next;
-        }
-        return false;
+        return indexOf(AsciiString.hashCode(name), name) >= 0;
     }
 
     @Override
@@ -363,14 +379,22 @@ class HttpHeadersBase implements HttpHeaderGetters {
         requireNonNull(name, "name");
         requireNonNull(value, "value");
         final int h = AsciiString.hashCode(name);
-        final int i = index(h);
-        HeaderEntry e = entries[i];
-        while (e != null) {
-            if (e.hash == h && keyEquals(e.key, name) &&
-                AsciiString.contentEquals(e.value, value)) {
+        if (buckets == null) {
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] == h && keyEquals(names[i], name) &&
+                    AsciiString.contentEquals(values[i], value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        assert nextInBucket != null;
+        for (int i = buckets[bucket(h)] - 1; i >= 0; i = nextInBucket[i] - 1) {
+            if (hashes[i] == h && keyEquals(names[i], name) &&
+                AsciiString.contentEquals(values[i], value)) {
                 return true;
             }
-            e = e.next;
         }
         return false;
     }
@@ -422,10 +446,8 @@ class HttpHeadersBase implements HttpHeaderGetters {
             return ImmutableSet.of();
         }
         final ImmutableSet.Builder<AsciiString> builder = ImmutableSet.builder();
-        HeaderEntry e = head.after;
-        while (e != head) {
-            builder.add(e.getKey());
-            e = e.after;
+        for (int i = 0; i < size; i++) {
+            builder.add(names[i]);
         }
         return builder.build();
     }
@@ -443,8 +465,8 @@ class HttpHeadersBase implements HttpHeaderGetters {
     @Override
     public final void forEach(BiConsumer<AsciiString, String> action) {
         requireNonNull(action, "action");
-        for (Entry<AsciiString, String> e : this) {
-            action.accept(e.getKey(), e.getValue());
+        for (int i = 0; i < size; i++) {
+            action.accept(names[i], values[i]);
         }
     }
 
@@ -466,8 +488,7 @@ class HttpHeadersBase implements HttpHeaderGetters {
     @Nullable
     final String getAndRemove(CharSequence name) {
         requireNonNull(name, "name");
-        final int h = AsciiString.hashCode(name);
-        return remove0(h, index(h), name);
+        return remove0(AsciiString.hashCode(name), name);
     }
 
     final String getAndRemove(CharSequence name, String defaultValue) {
@@ -543,18 +564,16 @@ class HttpHeadersBase implements HttpHeaderGetters {
         final AsciiString normalizedName = normalizeName(name);
         requireNonNull(value, "value");
         final int h = normalizedName.hashCode();
-        final int i = index(h);
-        add0(h, i, normalizedName, value);
+        add0(h, normalizedName, value);
     }
 
     final void add(CharSequence name, Iterable<String> values) {
         final AsciiString normalizedName = normalizeName(name);
         requireNonNull(values, "values");
         final int h = normalizedName.hashCode();
-        final int i = index(h);
         for (String v : values) {
             requireNonNullElement(values, v);
-            add0(h, i, normalizedName, v);
+            add0(h, normalizedName, v);
         }
     }
 
@@ -562,10 +581,9 @@ class HttpHeadersBase implements HttpHeaderGetters {
         final AsciiString normalizedName = normalizeName(name);
         requireNonNull(values, "values");
         final int h = normalizedName.hashCode();
-        final int i = index(h);
         for (String v : values) {
             requireNonNullElement(values, v);
-            add0(h, i, normalizedName, v);
+            add0(h, normalizedName, v);
         }
     }
 
@@ -636,9 +654,8 @@ class HttpHeadersBase implements HttpHeaderGetters {
         final AsciiString normalizedName = normalizeName(name);
         requireNonNull(value, "value");
         final int h = normalizedName.hashCode();
-        final int i = index(h);
-        remove0(h, i, normalizedName);
-        add0(h, i, normalizedName, value);
+        remove0(h, normalizedName);
+        add0(h, normalizedName, value);
     }
 
     final void set(CharSequence name, Iterable<String> values) {
@@ -646,12 +663,11 @@ class HttpHeadersBase implements HttpHeaderGetters {
         requireNonNull(values, "values");
 
         final int h = normalizedName.hashCode();
-        final int i = index(h);
 
-        remove0(h, i, normalizedName);
+        remove0(h, normalizedName);
         for (String v : values) {
             requireNonNullElement(values, v);
-            add0(h, i, normalizedName, v);
+            add0(h, normalizedName, v);
         }
     }
 
@@ -660,12 +676,11 @@ class HttpHeadersBase implements HttpHeaderGetters {
         requireNonNull(values, "values");
 
         final int h = normalizedName.hashCode();
-        final int i = index(h);
 
-        remove0(h, i, normalizedName);
+        remove0(h, normalizedName);
         for (String v : values) {
             requireNonNullElement(values, v);
-            add0(h, i, normalizedName, v);
+            add0(h, normalizedName, v);
         }
     }
 
@@ -701,17 +716,15 @@ class HttpHeadersBase implements HttpHeaderGetters {
         }
 
         final HttpHeadersBase headersBase = (HttpHeadersBase) headers;
-        HeaderEntry e = headersBase.head.after;
-
-        while (e != headersBase.head) {
-            final AsciiString key = e.key;
-            final String value = e.value;
-            assert key != null;
-            assert value != null;
-            if (!existingNames.contains(key)) {
-                add0(e.hash, index(e.hash), key, value);
+        final AsciiString[] names = headersBase.names;
+        final String[] values = headersBase.values;
+        final int[] hashes = headersBase.hashes;
+        final int size = headersBase.size;
+        for (int i = 0; i < size; i++) {
+            final AsciiString name = names[i];
+            if (!existingNames.contains(name)) {
+                add0(hashes[i], name, values[i]);
             }
-            e = e.after;
         }
 
         return true;
@@ -738,12 +751,11 @@ class HttpHeadersBase implements HttpHeaderGetters {
         requireNonNull(values, "values");
 
         final int h = normalizedName.hashCode();
-        final int i = index(h);
 
-        remove0(h, i, normalizedName);
+        remove0(h, normalizedName);
         for (Object v: values) {
             requireNonNullElement(values, v);
-            add0(h, i, normalizedName, fromObject(v));
+            add0(h, normalizedName, fromObject(v));
         }
     }
 
@@ -752,12 +764,11 @@ class HttpHeadersBase implements HttpHeaderGetters {
         requireNonNull(values, "values");
 
         final int h = normalizedName.hashCode();
-        final int i = index(h);
 
-        remove0(h, i, normalizedName);
+        remove0(h, normalizedName);
         for (Object v: values) {
             requireNonNullElement(values, v);
-            add0(h, i, normalizedName, fromObject(v));
+            add0(h, normalizedName, fromObject(v));
         }
     }
 
@@ -799,12 +810,15 @@ class HttpHeadersBase implements HttpHeaderGetters {
     final boolean remove(CharSequence name) {
         requireNonNull(name, "name");
         final int h = AsciiString.hashCode(name);
-        return remove0(h, index(h), name) != null;
+        return remove0(h, name) != null;
     }
 
     final void clear() {
-        Arrays.fill(entries, null);
-        firstNonPseudo = head.before = head.after = head;
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        buckets = null;
+        nextInBucket = null;
+        numPseudoHeaders = 0;
         size = 0;
     }
 
@@ -819,14 +833,94 @@ class HttpHeadersBase implements HttpHeaderGetters {
         }
     }
 
-    private int index(int hash) {
-        return hash & hashMask;
+    /**
+     * Returns the position of the first header whose hash code equals {@code h} and whose name is equal to
+     * {@code name}, or {@code -1} if there is no such header.
+     */
+    private int indexOf(int h, CharSequence name) {
+        if (buckets == null) {
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] == h && keyEquals(names[i], name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // A bucket is in the reverse order of the positions, so the last match is the first header.
+        assert nextInBucket != null;
+        int index = -1;
+        for (int i = buckets[bucket(h)] - 1; i >= 0; i = nextInBucket[i] - 1) {
+            if (hashes[i] == h && keyEquals(names[i], name)) {
+                index = i;
+            }
+        }
+        return index;
     }
 
-    private void add0(int h, int i, AsciiString name, String value) {
-        // Update the hash table.
-        entries[i] = new HeaderEntry(h, name, value, entries[i]);
+    private int bucket(int hash) {
+        assert buckets != null;
+        return hash & (buckets.length - 1);
+    }
+
+    private void add0(int h, AsciiString name, String value) {
+        boolean rebuildIndex = false;
+        if (size == names.length) {
+            final int newCapacity = names.length << 1;
+            names = Arrays.copyOf(names, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+            hashes = Arrays.copyOf(hashes, newCapacity);
+            rebuildIndex = true;
+        }
+
+        // Make sure the pseudo headers fields are first in iteration order.
+        final int i;
+        if (hasPseudoHeaderFormat(name)) {
+            i = numPseudoHeaders++;
+            if (i != size) {
+                final int length = size - i;
+                System.arraycopy(names, i, names, i + 1, length);
+                System.arraycopy(values, i, values, i + 1, length);
+                System.arraycopy(hashes, i, hashes, i + 1, length);
+                rebuildIndex = true;
+            }
+        } else {
+            i = size;
+        }
+
+        names[i] = name;
+        values[i] = value;
+        hashes[i] = h;
         ++size;
+
+        if (rebuildIndex || (buckets == null && size > HASH_INDEX_THRESHOLD)) {
+            rebuildIndex();
+        } else if (buckets != null) {
+            assert nextInBucket != null;
+            final int b = bucket(h);
+            nextInBucket[i] = buckets[b];
+            buckets[b] = i + 1;
+        }
+    }
+
+    private void rebuildIndex() {
+        if (size <= HASH_INDEX_THRESHOLD) {
+            buckets = null;
+            nextInBucket = null;
+            return;
+        }
+
+        // The capacity is always a power of two.
+        final int[] buckets = new int[names.length];
+        final int[] nextInBucket = new int[names.length];
+        final int mask = buckets.length - 1;
+        for (int i = 0; i < size; i++) {
+            final int b = hashes[i] & mask;
+            nextInBucket[i] = buckets[b];
+            buckets[b] = i + 1;
+        }
+        this.buckets = buckets;
+        this.nextInBucket = nextInBucket;
     }
 
     private boolean addFast(Iterable<? extends Entry<? extends CharSequence, ?>> headers) {
@@ -835,14 +929,12 @@ class HttpHeadersBase implements HttpHeaderGetters {
         }
 
         final HttpHeadersBase headersBase = (HttpHeadersBase) headers;
-        HeaderEntry e = headersBase.head.after;
-        while (e != headersBase.head) {
-            final AsciiString key = e.key;
-            final String value = e.value;
-            assert key != null;
-            assert value != null;
-            add0(e.hash, index(e.hash), key, value);
-            e = e.after;
+        final AsciiString[] names = headersBase.names;
+        final String[] values = headersBase.values;
+        final int[] hashes = headersBase.hashes;
+        final int size = headersBase.size;
+        for (int i = 0; i < size; i++) {
+            add0(hashes[i], names[i], values[i]);
         }
 
         return true;
@@ -868,37 +960,33 @@ class HttpHeadersBase implements HttpHeaderGetters {
      * @return the first value inserted, or {@code null} if there is no such header.
      */
     @Nullable
-    private String remove0(int h, int i, CharSequence name) {
-        HeaderEntry e = entries[i];
-        if (e == null) {
+    private String remove0(int h, CharSequence name) {
+        final int first = indexOf(h, name);
+        if (first < 0) {
             return null;
         }
 
-        String value = null;
-        HeaderEntry next = e.next;
-        while (next != null) {
-            if (next.hash == h && keyEquals(next.key, name)) {
-                value = next.value;
-                e.next = next.next;
-                next.remove();
-                --size;
-            } else {
-                e = next;
-            }
-
-            next = e.next;
-        }
-
-        e = entries[i];
-        if (e.hash == h && keyEquals(e.key, name)) {
-            if (value == null) {
-                value = e.value;
+        final String value = values[first];
+        int numRemovedPseudoHeaders = 0;
+        int j = first;
+        for (int i = first; i < size; i++) {
+            if (hashes[i] == h && keyEquals(names[i], name)) {
+                if (i < numPseudoHeaders) {
+                    numRemovedPseudoHeaders++;
+                }
+                continue;
             }
-            entries[i] = e.next;
-            e.remove();
-            --size;
+            names[j] = names[i];
+            values[j] = values[i];
+            hashes[j] = hashes[i];
+            j++;
         }
 
+        Arrays.fill(names, j, size, null);
+        Arrays.fill(values, j, size, null);
+        numPseudoHeaders -= numRemovedPseudoHeaders;
+        size = j;
+        rebuildIndex();
         return value;
     }
 
@@ -1006,25 +1094,21 @@ class HttpHeadersBase implements HttpHeaderGetters {
     }
 
     private boolean equalsFast(HttpHeadersBase that) {
-        HeaderEntry e = head.after;
-        while (e != head) {
-            final AsciiString name = e.getKey();
-            if (!getAllReversed(name).equals(that.getAllReversed(name))) {
+        for (int i = 0; i < size; i++) {
+            final AsciiString name = names[i];
+            if (!getAll(name).equals(that.getAll(name))) {
                 return false;
             }
-            e = e.after;
         }
         return true;
     }
 
     private boolean equalsSlow(HttpHeaderGetters that) {
-        HeaderEntry e = head.after;
-        while (e != head) {
-            final AsciiString name = e.getKey();
+        for (int i = 0; i < size; i++) {
+            final AsciiString name = names[i];
             if (!Iterators.elementsEqual(valueIterator(name), that.valueIterator(name))) {
                 return false;
             }
-            e = e.after;
         }
         return true;
     }
@@ -1042,10 +1126,8 @@ class HttpHeadersBase implements HttpHeaderGetters {
             sb.append('[');
         }
 
-        HeaderEntry e = head.after;
-        while (e != head) {
-            sb.append(e.key).append('=').append(e.value).append(", ");
-            e = e.after;
+        for (int i = 0; i < size; i++) {
+            sb.append(names[i]).append('=').append(values[i]).append(", ");
         }
 
         final int length = sb.length();
@@ -1056,22 +1138,21 @@ class HttpHeadersBase implements HttpHeaderGetters {
     // Iterator implementations
 
     private final class HeaderIterator implements Iterator<Map.Entry<AsciiString, String>> {
-        private HeaderEntry current = head;
+        private int index;
 
         @Override
         public boolean hasNext() {
-            return current.after != head;
+            return index < size;
         }
 
         @Override
         public Entry<AsciiString, String> next() {
-            current = current.after;
-
-            if (current == head) {
+            if (index >= size) {
                 throw new NoSuchElementException();
             }
 
-            return current;
+            final int i = index++;
+            return new HeaderEntry(names[i], values[i]);
         }
 
         @Override
@@ -1080,77 +1161,23 @@ class HttpHeadersBase implements HttpHeaderGetters {
         }
     }
 
-    private final class HeaderEntry implements Map.Entry<AsciiString, String> {
+    private static final class HeaderEntry implements Map.Entry<AsciiString, String> {
 
-        final int hash;
-        @Nullable
         final AsciiString key;
-        @Nullable
         final String value;
-        /**
-         * In bucket linked list.
-         */
-        @Nullable
-        HeaderEntry next;
-        /**
-         * Overall insertion order linked list.
-         */
-        HeaderEntry before;
-        HeaderEntry after;
-
-        /**
-         * Creates a new head node.
-         */
-        HeaderEntry() {
-            hash = -1;
-            key = null;
-            value = null;
-            before = after = this;
-        }
-
-        HeaderEntry(int hash, AsciiString key, String value, HeaderEntry next) {
-            this.hash = hash;
+
+        HeaderEntry(AsciiString key, String value) {
             this.key = key;
             this.value = value;
-            this.next = next;
-
-            // Make sure the pseudo headers fields are first in iteration order
-            if (hasPseudoHeaderFormat(key)) {
-                after = firstNonPseudo;
-                before = firstNonPseudo.before;
-            } else {
-                after = head;
-                before = head.before;
-                if (firstNonPseudo == head) {
-                    firstNonPseudo = this;
-                }
-            }
-            pointNeighborsToThis();
-        }
-
-        void pointNeighborsToThis() {
-            before.after = this;
-            after.before = this;
-        }
-
-        void remove() {
-            if (this == firstNonPseudo) {
-                firstNonPseudo = firstNonPseudo.after;
-            }
-
-            before.after = after;
-            after.before = before;
         }
 
         @Override
         public AsciiString getKey() {
-            assert key != null;
             return key;
         }
 
         @Override
         public String getValue() {
-            assert value != null;
             return value;
         }
 
@@ -1161,7 +1188,7 @@ class HttpHeadersBase implements HttpHeaderGetters {
 
         @Override
         public int hashCode() {
-            return (key == null ? 0 : key.hashCode()) ^ AsciiString.hashCode(value);
+            return key.hashCode() ^ AsciiString.hashCode(value);
         }
 
         @Override
@@ -1183,11 +1210,6 @@ class HttpHeadersBase implements HttpHeaderGetters {
 
         @Override
         public String toString() {
-            if (key == null) {
-                return "<HEAD>";
-            }
-
-            assert value != null;
             return new StringBuilder(key.length() + value.length() + 1)
                     .append(key)
                     .append('=')
@@ -117,6 +117,7 @@ public final class MediaType {
     private static final String APPLICATION_TYPE = "application";
     private static final String AUDIO_TYPE = "audio";
     private static final String IMAGE_TYPE = "image";
+    private static final String MULTIPART_TYPE = "multipart";
     private static final String TEXT_TYPE = "text";
     private static final String VIDEO_TYPE = "video";
 
@@ -603,6 +604,14 @@ public final class MediaType {
 
     public static final MediaType ZIP = createConstant(APPLICATION_TYPE, "zip");
 
+    /* multipart types */
+
+    /**
+     * As described in <a href="https://tools.ietf.org/html/rfc7578">RFC 7578</a>, this constant
+     * ({@code multipart/form-data}) is used when submitting a form which contains files.
+     */
+    public static final MediaType MULTIPART_FORM_DATA = createConstant(MULTIPART_TYPE, "form-data");
+
     private final String type;
     private final String subtype;
     private final ImmutableListMultimap<String, String> parameters;
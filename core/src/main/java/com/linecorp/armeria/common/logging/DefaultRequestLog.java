@@ -37,6 +37,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -72,6 +73,10 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
     private static final AtomicIntegerFieldUpdater<DefaultRequestLog> flagsUpdater =
             AtomicIntegerFieldUpdater.newUpdater(DefaultRequestLog.class, "flags");
 
+    private static final AtomicReferenceFieldUpdater<DefaultRequestLog, ListenerEntry> firstListenerUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultRequestLog.class, ListenerEntry.class,
+                                                   "firstListener");
+
     private static final int FLAGS_REQUEST_END_WITHOUT_CONTENT =
             REQUEST_END.setterFlags() & ~REQUEST_CONTENT.setterFlags();
     private static final int FLAGS_RESPONSE_END_WITHOUT_CONTENT =
@@ -100,7 +105,22 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
      */
     @SuppressWarnings("unused")
     private volatile int flags;
-    private final List<ListenerEntry> listeners = new ArrayList<>(4);
+
+    /**
+     * The head of the linked list of the registered listeners. Listeners are appended to the tail and
+     * unlinked once notified, except for the tail which is kept so that an append always has a place to go.
+     * Updated by {@link #firstListenerUpdater}.
+     */
+    @Nullable
+    private volatile ListenerEntry firstListener;
+
+    /**
+     * The last listener seen by the last append, so that an append does not have to traverse the whole list.
+     * It may lag behind the actual tail of the list, or even refer to an unlinked entry, whose {@code next}
+     * still leads to the tail.
+     */
+    @Nullable
+    private volatile ListenerEntry lastListener;
     private volatile boolean requestContentDeferred;
     private volatile boolean responseContentDeferred;
 
@@ -341,18 +361,46 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
         }
 
         if (isAvailable(interestedFlags)) {
-            // No need to add to 'listeners'.
+            // No need to add to the listener list.
             RequestLogListenerInvoker.invokeOnRequestLog(listener, this);
             return;
         }
 
         final ListenerEntry e = new ListenerEntry(listener, interestedFlags);
-        final RequestLogListener[] satisfiedListeners;
-        synchronized (listeners) {
-            listeners.add(e);
-            satisfiedListeners = removeSatisfiedListeners();
+        appendListener(e);
+
+        // The availability might have been updated before 'e' became visible to 'updateAvailability()'.
+        // If so, notify the listener by ourselves. 'e.tryNotify()' makes sure the listener is notified
+        // only once even if 'updateAvailability()' sees 'e' as well.
+        if (isAvailable(interestedFlags) && e.tryNotify()) {
+            e.notifyListener(this);
+        }
+    }
+
+    private void appendListener(ListenerEntry e) {
+        if (firstListener == null && firstListenerUpdater.compareAndSet(this, null, e)) {
+            lastListener = e;
+            return;
+        }
+
+        ListenerEntry tail = lastListener;
+        if (tail == null) {
+            // The first listener has been added, but 'lastListener' has not been updated yet.
+            tail = firstListener;
+            assert tail != null;
+        }
+
+        for (;;) {
+            final ListenerEntry next = tail.next;
+            if (next != null) {
+                tail = next;
+                continue;
+            }
+            if (ListenerEntry.nextUpdater.compareAndSet(tail, null, e)) {
+                lastListener = e;
+                return;
+            }
         }
-        notifyListeners(satisfiedListeners);
     }
 
     private static int getterFlags(RequestLogAvailability[] availabilities) {
@@ -986,54 +1034,36 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
             final int newAvailability = oldAvailability | flags;
             if (flagsUpdater.compareAndSet(this, oldAvailability, newAvailability)) {
                 if (oldAvailability != newAvailability) {
-                    final RequestLogListener[] satisfiedListeners;
-                    synchronized (listeners) {
-                        satisfiedListeners = removeSatisfiedListeners();
-                    }
-                    notifyListeners(satisfiedListeners);
+                    notifySatisfiedListeners();
                 }
                 break;
             }
         }
     }
 
-    @Nullable
-    private RequestLogListener[] removeSatisfiedListeners() {
-        if (listeners.isEmpty()) {
-            return null;
-        }
-
+    private void notifySatisfiedListeners() {
         final int flags = this.flags;
-        final int maxNumListeners = listeners.size();
-        final Iterator<ListenerEntry> i = listeners.iterator();
-        RequestLogListener[] satisfied = null;
-        int numSatisfied = 0;
-
-        do {
-            final ListenerEntry e = i.next();
+        ListenerEntry prev = null;
+        for (ListenerEntry e = firstListener; e != null;) {
             final int interestedFlags = e.interestedFlags;
-            if ((flags & interestedFlags) == interestedFlags) {
-                i.remove();
-                if (satisfied == null) {
-                    satisfied = new RequestLogListener[maxNumListeners];
-                }
-                satisfied[numSatisfied++] = e.listener;
+            if ((flags & interestedFlags) == interestedFlags && e.tryNotify()) {
+                e.notifyListener(this);
             }
-        } while (i.hasNext());
 
-        return satisfied;
-    }
-
-    private void notifyListeners(@Nullable RequestLogListener[] listeners) {
-        if (listeners == null) {
-            return;
-        }
-
-        for (RequestLogListener l : listeners) {
-            if (l == null) {
-                break;
+            final ListenerEntry next = e.next;
+            if (next != null && e.isNotified()) {
+                // Unlink the notified entry so that a long-lived log does not keep it reachable.
+                // An append never modifies a non-tail entry, so only a concurrent unlink can make this fail,
+                // in which case the entry is left to the next traversal.
+                if (prev == null) {
+                    firstListenerUpdater.compareAndSet(this, e, next);
+                } else {
+                    ListenerEntry.nextUpdater.compareAndSet(prev, e, next);
+                }
+            } else {
+                prev = e;
             }
-            RequestLogListenerInvoker.invokeOnRequestLog(l, this);
+            e = next;
         }
     }
 
@@ -1302,12 +1332,57 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
     }
 
     private static final class ListenerEntry {
-        final RequestLogListener listener;
+
+        static final AtomicReferenceFieldUpdater<ListenerEntry, ListenerEntry> nextUpdater =
+                AtomicReferenceFieldUpdater.newUpdater(ListenerEntry.class, ListenerEntry.class, "next");
+
+        private static final AtomicIntegerFieldUpdater<ListenerEntry> notifiedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(ListenerEntry.class, "notified");
+
         final int interestedFlags;
 
+        /**
+         * Cleared once notified, because the entry may still be reachable until it is unlinked.
+         */
+        @Nullable
+        private RequestLogListener listener;
+
+        /**
+         * Updated by {@link #nextUpdater}.
+         */
+        @Nullable
+        volatile ListenerEntry next;
+
+        /**
+         * Updated by {@link #notifiedUpdater}.
+         */
+        private volatile int notified;
+
         ListenerEntry(RequestLogListener listener, int interestedFlags) {
             this.listener = listener;
             this.interestedFlags = interestedFlags;
         }
+
+        /**
+         * Returns {@code true} if the caller is the first one who attempts to notify the listener.
+         */
+        boolean tryNotify() {
+            return notified == 0 && notifiedUpdater.compareAndSet(this, 0, 1);
+        }
+
+        boolean isNotified() {
+            return notified != 0;
+        }
+
+        /**
+         * Notifies the listener. Must be invoked only by the caller who got {@code true} from
+         * {@link #tryNotify()}.
+         */
+        void notifyListener(RequestLog log) {
+            final RequestLogListener listener = this.listener;
+            assert listener != null;
+            this.listener = null;
+            RequestLogListenerInvoker.invokeOnRequestLog(listener, log);
+        }
     }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.metric;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * A {@link MeterIdPrefixFunction} which limits the number of distinct values of the {@link Tag}s
+ * produced by another {@link MeterIdPrefixFunction}.
+ *
+ * <p>The first {@code maxTagValues} distinct values of each tag key of each meter name are accepted as
+ * they are, and any other values are replaced with {@value #OTHER}. The number of the distinct values
+ * which have been replaced is estimated with a HyperLogLog sketch, so that the memory footprint stays
+ * constant no matter how many distinct values are produced.
+ *
+ * @see MeterIdPrefixFunction#withMaxTagValues(int, String...)
+ */
+final class CardinalityLimitingMeterIdPrefixFunction implements MeterIdPrefixFunction {
+
+    @VisibleForTesting
+    static final String OTHER = "other";
+
+    private final MeterIdPrefixFunction delegate;
+    private final int maxTagValues;
+    private final Set<String> tagKeys;
+
+    /**
+     * The {@link TagValues} of each {@link MeterRegistry}, mapped by the meter names and then the tag keys,
+     * so that a meter does not use up the budget of the other meters with the same tag key.
+     */
+    private final ConcurrentMap<MeterRegistry, ConcurrentMap<String, ConcurrentMap<String, TagValues>>>
+            registryStates = new ConcurrentHashMap<>();
+
+    CardinalityLimitingMeterIdPrefixFunction(MeterIdPrefixFunction delegate, int maxTagValues,
+                                             Iterable<String> tagKeys) {
+        this.delegate = delegate;
+        this.maxTagValues = maxTagValues;
+        this.tagKeys = ImmutableSet.copyOf(tagKeys);
+    }
+
+    @Override
+    public MeterIdPrefix activeRequestPrefix(MeterRegistry registry, RequestLog log) {
+        return limit(registry, delegate.activeRequestPrefix(registry, log));
+    }
+
+    @Override
+    public MeterIdPrefix apply(MeterRegistry registry, RequestLog log) {
+        return limit(registry, delegate.apply(registry, log));
+    }
+
+    private MeterIdPrefix limit(MeterRegistry registry, MeterIdPrefix prefix) {
+        final List<Tag> tags = prefix.tags();
+        if (tags.isEmpty()) {
+            return prefix;
+        }
+
+        ConcurrentMap<String, ConcurrentMap<String, TagValues>> registryState = registryStates.get(registry);
+        if (registryState == null) {
+            registryState = registryStates.computeIfAbsent(registry, unused -> new ConcurrentHashMap<>());
+        }
+        final String name = prefix.name();
+        ConcurrentMap<String, TagValues> state = registryState.get(name);
+        if (state == null) {
+            state = registryState.computeIfAbsent(name, unused -> new ConcurrentHashMap<>());
+        }
+
+        List<Tag> newTags = null;
+        for (int i = 0; i < tags.size(); i++) {
+            final Tag tag = tags.get(i);
+            final String key = tag.getKey();
+            if (!tagKeys.isEmpty() && !tagKeys.contains(key)) {
+                continue;
+            }
+
+            TagValues values = state.get(key);
+            if (values == null) {
+                values = state.computeIfAbsent(key, unused -> newTagValues(registry, prefix, key));
+            }
+
+            if (!values.admit(tag.getValue())) {
+                if (newTags == null) {
+                    newTags = new ArrayList<>(tags);
+                }
+                newTags.set(i, Tag.of(key, OTHER));
+            }
+        }
+
+        return newTags != null ? new MeterIdPrefix(prefix.name(), newTags) : prefix;
+    }
+
+    private TagValues newTagValues(MeterRegistry registry, MeterIdPrefix prefix, String key) {
+        final TagValues values = new TagValues(maxTagValues);
+        final Tags gaugeTags = Tags.of("tag", key);
+        registry.gauge(prefix.name("tagValues"), gaugeTags, values, TagValues::numAdmitted);
+        registry.gauge(prefix.name("collapsedTagValues"), gaugeTags, values, TagValues::numCollapsed);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("delegate", delegate)
+                          .add("maxTagValues", maxTagValues)
+                          .add("tagKeys", tagKeys)
+                          .toString();
+    }
+
+    /**
+     * The distinct values of a tag key.
+     */
+    private static final class TagValues {
+
+        private final int maxTagValues;
+        private final Set<String> admitted = ConcurrentHashMap.newKeySet();
+        private final HyperLogLog collapsed = new HyperLogLog();
+        private volatile int numAdmitted;
+
+        TagValues(int maxTagValues) {
+            this.maxTagValues = maxTagValues;
+        }
+
+        boolean admit(String value) {
+            if (admitted.contains(value)) {
+                return true;
+            }
+
+            if (numAdmitted < maxTagValues) {
+                synchronized (this) {
+                    if (admitted.contains(value)) {
+                        return true;
+                    }
+                    if (numAdmitted < maxTagValues) {
+                        admitted.add(value);
+                        numAdmitted++;
+                        return true;
+                    }
+                }
+            }
+
+            collapsed.add(value);
+            return false;
+        }
+
+        double numAdmitted() {
+            return numAdmitted;
+        }
+
+        double numCollapsed() {
+            return collapsed.estimate();
+        }
+    }
+
+    /**
+     * A minimal thread-safe HyperLogLog sketch with 1024 registers, whose standard error is about 3.25%.
+     */
+    @VisibleForTesting
+    static final class HyperLogLog {
+
+        private static final HashFunction hashFunction = Hashing.murmur3_128();
+        private static final int PRECISION = 10;
+        private static final int NUM_REGISTERS = 1 << PRECISION;
+        private static final double ALPHA_MM = 0.7213 / (1 + 1.079 / NUM_REGISTERS) *
+                                               NUM_REGISTERS * NUM_REGISTERS;
+
+        private final AtomicIntegerArray registers = new AtomicIntegerArray(NUM_REGISTERS);
+
+        void add(String value) {
+            final long hash = hashFunction.hashString(value, StandardCharsets.UTF_8).asLong();
+            final int index = (int) (hash >>> (Long.SIZE - PRECISION));
+            // Set the lowest bit of the remaining bits so that the rank does not exceed 64 - PRECISION + 1.
+            final int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+            for (;;) {
+                final int oldRank = registers.get(index);
+                if (oldRank >= rank || registers.compareAndSet(index, oldRank, rank)) {
+                    break;
+                }
+            }
+        }
+
+        double estimate() {
+            double sum = 0;
+            int numZeros = 0;
+            for (int i = 0; i < NUM_REGISTERS; i++) {
+                final int rank = registers.get(i);
+                sum += 1.0 / (1L << rank);
+                if (rank == 0) {
+                    numZeros++;
+                }
+            }
+
+            final double estimate = ALPHA_MM / sum;
+            if (numZeros != 0 && estimate <= 2.5 * NUM_REGISTERS) {
+                // Use linear counting for small cardinalities.
+                return NUM_REGISTERS * Math.log((double) NUM_REGISTERS / numZeros);
+            }
+            return estimate;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Keeps track of the {@link MeterRegistry}s which enabled compact histograms and creates their meters.
+ *
+ * <p>A compact histogram is a {@link Timer} or a {@link DistributionSummary} which publishes neither
+ * percentiles nor a percentile histogram but only the fixed exponential buckets, two per power of two, as
+ * its service level objectives. A Prometheus registry keeps such buckets in a single cumulative histogram
+ * which is never rotated, rather than the time-windowed HdrHistograms behind the percentiles.
+ *
+ * <p>Note that this class must not refer to any Prometheus classes directly because Prometheus is an
+ * optional dependency.
+ *
+ * @see PrometheusMeterRegistries#enableCompactHistograms(io.micrometer.prometheus.PrometheusMeterRegistry)
+ */
+final class CompactHistograms {
+
+    /**
+     * The minimum and maximum exponents of the histograms of {@link Timer}s, which cover from about
+     * 1 microsecond to 137 seconds.
+     */
+    private static final int TIMER_MIN_EXPONENT = 10;
+    private static final int TIMER_MAX_EXPONENT = 37;
+
+    /**
+     * The minimum and maximum exponents of the histograms of {@link DistributionSummary}s, which cover
+     * from 16 to 4294967296.
+     */
+    private static final int SUMMARY_MIN_EXPONENT = 4;
+    private static final int SUMMARY_MAX_EXPONENT = 32;
+
+    private static final Duration[] TIMER_BUCKETS =
+            Arrays.stream(bucketBoundaries(TIMER_MIN_EXPONENT, TIMER_MAX_EXPONENT))
+                  .mapToObj(Duration::ofNanos)
+                  .toArray(Duration[]::new);
+
+    private static final long[] SUMMARY_BUCKETS = bucketBoundaries(SUMMARY_MIN_EXPONENT, SUMMARY_MAX_EXPONENT);
+
+    private static final Set<MeterRegistry> enabledRegistries =
+            Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+
+    static void enable(MeterRegistry registry) {
+        enabledRegistries.add(registry);
+    }
+
+    static boolean isEnabled(MeterRegistry registry) {
+        return enabledRegistries.contains(registry);
+    }
+
+    static Timer newTimer(MeterRegistry registry, String name, Iterable<Tag> tags) {
+        return Timer.builder(name)
+                    .tags(tags)
+                    .sla(TIMER_BUCKETS)
+                    .register(registry);
+    }
+
+    static DistributionSummary newDistributionSummary(MeterRegistry registry, String name,
+                                                      Iterable<Tag> tags) {
+        return DistributionSummary.builder(name)
+                                  .tags(tags)
+                                  .sla(SUMMARY_BUCKETS)
+                                  .register(registry);
+    }
+
+    /**
+     * Returns the inclusive upper bounds of the buckets, i.e. {@code 2^minExponent}, {@code 3 * 2^(e - 1)}
+     * and {@code 2^(e + 1)} for each {@code e} in {@code [minExponent, maxExponent)}. The values greater than
+     * {@code 2^maxExponent} fall into the {@code +Inf} bucket.
+     */
+    @VisibleForTesting
+    static long[] bucketBoundaries(int minExponent, int maxExponent) {
+        checkArgument(minExponent >= 1 && minExponent < maxExponent && maxExponent < 63,
+                      "minExponent: %s, maxExponent: %s (expected: 1 <= minExponent < maxExponent < 63)",
+                      minExponent, maxExponent);
+        final long[] boundaries = new long[(maxExponent - minExponent) * 2 + 1];
+        boundaries[0] = 1L << minExponent;
+        for (int e = minExponent, i = 1; e < maxExponent; e++) {
+            boundaries[i++] = 3L << (e - 1);
+            boundaries[i++] = 1L << (e + 1);
+        }
+        return boundaries;
+    }
+
+    private CompactHistograms() {}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.CommonPools;
+import com.linecorp.armeria.common.util.SafeCloseable;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+/**
+ * {@link MeterBinder} for the event loops of an {@link EventLoopGroup}, such as
+ * {@link CommonPools#workerGroup()}. The following meters are registered for each event loop, tagged with
+ * {@code eventLoop=<index>}:
+ * <ul>
+ *   <li>{@code pendingTasks} - the number of tasks waiting in the task queue</li>
+ *   <li>{@code registeredChannels} - the number of channels registered with the event loop, if the
+ *       transport supports it</li>
+ *   <li>{@code schedulingDelay} - how late a periodic probe task scheduled in the event loop ran,
+ *       which grows as the event loop is saturated by I/O or long-running tasks</li>
+ * </ul>
+ * The gauges cost nothing until they are read, and a probe is a single scheduled task per event loop
+ * and interval. A warning is logged when a probe is delayed more than the starvation threshold,
+ * at most once per 10 seconds for each event loop. {@link #close()} stops the probes.
+ *
+ * <pre>{@code
+ * EventLoopGroupMetrics.of(CommonPools.workerGroup(), new MeterIdPrefix("armeria.workerGroup"))
+ *                      .bindTo(meterRegistry);
+ * }</pre>
+ */
+public final class EventLoopGroupMetrics implements MeterBinder, SafeCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopGroupMetrics.class);
+
+    private static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofSeconds(1);
+    private static final long WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Returns a new {@link EventLoopGroupMetrics} which probes the event loops every second and does not
+     * log a warning when they are starved.
+     */
+    public static EventLoopGroupMetrics of(EventLoopGroup eventLoopGroup, MeterIdPrefix idPrefix) {
+        return new EventLoopGroupMetrics(eventLoopGroup, idPrefix, DEFAULT_PROBE_INTERVAL, Duration.ZERO);
+    }
+
+    /**
+     * Returns a new {@link EventLoopGroupMetrics}.
+     *
+     * @param probeInterval the interval between the probe tasks which measure the scheduling delay
+     * @param starvationThreshold the scheduling delay above which a warning is logged,
+     *                            or {@link Duration#ZERO} not to log a warning
+     */
+    public static EventLoopGroupMetrics of(EventLoopGroup eventLoopGroup, MeterIdPrefix idPrefix,
+                                           Duration probeInterval, Duration starvationThreshold) {
+        return new EventLoopGroupMetrics(eventLoopGroup, idPrefix, probeInterval, starvationThreshold);
+    }
+
+    private final EventLoopGroup eventLoopGroup;
+    private final MeterIdPrefix idPrefix;
+    private final long probeIntervalNanos;
+    private final long starvationThresholdNanos;
+    private final List<Probe> probes = new ArrayList<>();
+    private boolean closed;
+
+    private EventLoopGroupMetrics(EventLoopGroup eventLoopGroup, MeterIdPrefix idPrefix,
+                                  Duration probeInterval, Duration starvationThreshold) {
+        this.eventLoopGroup = requireNonNull(eventLoopGroup, "eventLoopGroup");
+        this.idPrefix = requireNonNull(idPrefix, "idPrefix");
+        requireNonNull(probeInterval, "probeInterval");
+        requireNonNull(starvationThreshold, "starvationThreshold");
+        checkArgument(!probeInterval.isNegative() && !probeInterval.isZero(),
+                      "probeInterval: %s (expected: > 0)", probeInterval);
+        checkArgument(!starvationThreshold.isNegative(),
+                      "starvationThreshold: %s (expected: >= 0)", starvationThreshold);
+        probeIntervalNanos = probeInterval.toNanos();
+        starvationThresholdNanos = starvationThreshold.toNanos();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        requireNonNull(registry, "registry");
+        final String pendingTasks = idPrefix.name("pendingTasks");
+        final String registeredChannels = idPrefix.name("registeredChannels");
+        final String schedulingDelay = idPrefix.name("schedulingDelay");
+
+        int index = 0;
+        final List<Probe> newProbes = new ArrayList<>();
+        for (EventExecutor executor : eventLoopGroup) {
+            final String eventLoop = String.valueOf(index++);
+            if (executor instanceof SingleThreadEventExecutor) {
+                registry.gauge(pendingTasks, idPrefix.tags("eventLoop", eventLoop),
+                               (SingleThreadEventExecutor) executor, SingleThreadEventExecutor::pendingTasks);
+            }
+            if (executor instanceof SingleThreadEventLoop &&
+                ((SingleThreadEventLoop) executor).registeredChannels() >= 0) {
+                registry.gauge(registeredChannels, idPrefix.tags("eventLoop", eventLoop),
+                               (SingleThreadEventLoop) executor, SingleThreadEventLoop::registeredChannels);
+            }
+            final Timer timer = MoreMeters.newTimer(registry, schedulingDelay,
+                                                    idPrefix.tags("eventLoop", eventLoop));
+            newProbes.add(new Probe(executor, eventLoop, timer));
+        }
+
+        synchronized (probes) {
+            if (closed) {
+                return;
+            }
+            probes.addAll(newProbes);
+        }
+        newProbes.forEach(Probe::schedule);
+    }
+
+    /**
+     * Stops the probe tasks. The gauges are kept registered.
+     */
+    @Override
+    public void close() {
+        final List<Probe> probes;
+        synchronized (this.probes) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            probes = new ArrayList<>(this.probes);
+            this.probes.clear();
+        }
+        probes.forEach(Probe::cancel);
+    }
+
+    private final class Probe implements Runnable {
+
+        private final EventExecutor executor;
+        private final String eventLoop;
+        private final Timer timer;
+
+        // Accessed only by the event loop once scheduled.
+        private long deadlineNanos;
+        private long lastWarningNanos;
+
+        @Nullable
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled;
+
+        Probe(EventExecutor executor, String eventLoop, Timer timer) {
+            this.executor = executor;
+            this.eventLoop = eventLoop;
+            this.timer = timer;
+        }
+
+        void schedule() {
+            if (cancelled || executor.isShuttingDown()) {
+                return;
+            }
+            deadlineNanos = System.nanoTime() + probeIntervalNanos;
+            future = executor.schedule(this, probeIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        void cancel() {
+            cancelled = true;
+            final ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            final long currentNanos = System.nanoTime();
+            final long delayNanos = Math.max(0, currentNanos - deadlineNanos);
+            timer.record(delayNanos, TimeUnit.NANOSECONDS);
+
+            if (starvationThresholdNanos > 0 && delayNanos >= starvationThresholdNanos &&
+                (lastWarningNanos == 0 || currentNanos - lastWarningNanos >= WARNING_INTERVAL_NANOS)) {
+                lastWarningNanos = currentNanos;
+                logger.warn("An event loop ({}, eventLoop={}) has been starved for {} ms with {} pending " +
+                            "task(s). Consider moving blocking or long-running tasks to the blocking " +
+                            "task executor.",
+                            idPrefix.name(), eventLoop, TimeUnit.NANOSECONDS.toMillis(delayNanos),
+                            executor instanceof SingleThreadEventExecutor ?
+                            ((SingleThreadEventExecutor) executor).pendingTasks() : "unknown");
+            }
+
+            schedule();
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.linecorp.armeria.common.metric;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 import java.util.function.BiFunction;
@@ -144,6 +145,30 @@ public interface MeterIdPrefixFunction {
         return andThen((registry, id) -> id.withTags(tags));
     }
 
+    /**
+     * Returns a {@link MeterIdPrefixFunction} that limits the number of distinct values of each {@link Tag}
+     * in the {@link MeterIdPrefix} returned by this function, so that a tag whose value is derived from
+     * a request, e.g. the {@code route} tag of a regex or glob route, does not create an unbounded number
+     * of {@link io.micrometer.core.instrument.Meter}s. Once {@code maxTagValues} distinct values have been
+     * seen for a tag key of a meter name, any other value is replaced with {@code "other"}.
+     *
+     * <p>The returned function also registers the following gauges for each limited tag key, tagged with
+     * {@code tag=<key>}:
+     * <ul>
+     *   <li>{@code <name>.tagValues} - the number of the distinct values accepted as they are</li>
+     *   <li>{@code <name>.collapsedTagValues} - the estimated number of the distinct values replaced with
+     *       {@code "other"}</li>
+     * </ul>
+     *
+     * @param maxTagValues the maximum number of distinct values of each tag key of each meter name
+     * @param tagKeys the keys of the {@link Tag}s to limit. All tags are limited if empty.
+     */
+    default MeterIdPrefixFunction withMaxTagValues(int maxTagValues, String... tagKeys) {
+        checkArgument(maxTagValues > 0, "maxTagValues: %s (expected: > 0)", maxTagValues);
+        requireNonNull(tagKeys, "tagKeys");
+        return new CardinalityLimitingMeterIdPrefixFunction(this, maxTagValues, ImmutableList.copyOf(tagKeys));
+    }
+
     /**
      * Returns a {@link MeterIdPrefixFunction} that applies transformation on the {@link MeterIdPrefix}
      * returned by this function.
@@ -33,6 +33,7 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 
 /**
  * Provides utilities for accessing {@link MeterRegistry}.
@@ -83,7 +84,10 @@ public final class MoreMeters {
 
     /**
      * Returns a newly-registered {@link DistributionSummary} configured by
-     * {@link #distributionStatisticConfig()}.
+     * {@link #distributionStatisticConfig()}, or a compact histogram if the specified {@link MeterRegistry}
+     * enabled it.
+     *
+     * @see PrometheusMeterRegistries#enableCompactHistograms(PrometheusMeterRegistry)
      */
     public static DistributionSummary newDistributionSummary(MeterRegistry registry,
                                                              String name, Iterable<Tag> tags) {
@@ -91,6 +95,10 @@ public final class MoreMeters {
         requireNonNull(name, "name");
         requireNonNull(tags, "tags");
 
+        if (CompactHistograms.isEnabled(registry)) {
+            return CompactHistograms.newDistributionSummary(registry, name, tags);
+        }
+
         return DistributionSummary.builder(name)
                                   .tags(tags)
                                   .publishPercentiles(distStatCfg.getPercentiles())
@@ -122,13 +130,20 @@ public final class MoreMeters {
     }
 
     /**
-     * Returns a newly-registered {@link Timer} configured by {@link #distributionStatisticConfig()}.
+     * Returns a newly-registered {@link Timer} configured by {@link #distributionStatisticConfig()},
+     * or a compact histogram if the specified {@link MeterRegistry} enabled it.
+     *
+     * @see PrometheusMeterRegistries#enableCompactHistograms(PrometheusMeterRegistry)
      */
     public static Timer newTimer(MeterRegistry registry, String name, Iterable<Tag> tags) {
         requireNonNull(registry, "registry");
         requireNonNull(name, "name");
         requireNonNull(tags, "tags");
 
+        if (CompactHistograms.isEnabled(registry)) {
+            return CompactHistograms.newTimer(registry, name, tags);
+        }
+
         final Duration maxExpectedValue =
                 Optional.ofNullable(distStatCfg.getMaximumExpectedValue())
                         .map(Duration::ofNanos).orElse(null);
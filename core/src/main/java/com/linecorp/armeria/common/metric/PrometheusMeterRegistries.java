@@ -19,6 +19,10 @@ package com.linecorp.armeria.common.metric;
 import static java.util.Objects.requireNonNull;
 
 import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
 import io.micrometer.core.instrument.config.NamingConvention;
 import io.micrometer.core.instrument.distribution.pause.NoPauseDetector;
 import io.micrometer.prometheus.PrometheusConfig;
@@ -74,5 +78,31 @@ public final class PrometheusMeterRegistries {
         return meterRegistry;
     }
 
+    /**
+     * Makes {@link MoreMeters#newTimer(MeterRegistry, String, Iterable)} and
+     * {@link MoreMeters#newDistributionSummary(MeterRegistry, String, Iterable)} create the meters which
+     * record into a compact cumulative histogram and are exposed as a Prometheus histogram, i.e.
+     * {@code _bucket}, {@code _count} and {@code _sum}, instead of the client-side percentiles configured by
+     * {@link MoreMeters#distributionStatisticConfig()}. This affects the request metrics collected by
+     * Armeria, such as {@code requestDuration} and {@code responseLength}.
+     *
+     * <p>A compact histogram has fixed exponential buckets, two per power of two, and its bucket counts
+     * are never rotated or reset, which means it takes only a few hundred bytes regardless of the recorded
+     * values, an order of magnitude less than the time-windowed HdrHistograms behind the percentiles.
+     * The percentiles can be computed on the Prometheus side with {@code histogram_quantile()}.
+     *
+     * <p>The meters are registered to the specified {@link PrometheusMeterRegistry} as usual, so they are
+     * affected by its {@link MeterFilter}s and their {@link Timer#takeSnapshot()} returns the bucket counts.
+     * This method should be invoked before any {@link Timer} or {@link DistributionSummary} is created,
+     * because the meters registered earlier keep their percentiles.
+     *
+     * @return the specified {@link PrometheusMeterRegistry}
+     */
+    public static <T extends PrometheusMeterRegistry> T enableCompactHistograms(T meterRegistry) {
+        requireNonNull(meterRegistry, "meterRegistry");
+        CompactHistograms.enable(meterRegistry);
+        return meterRegistry;
+    }
+
     private PrometheusMeterRegistries() {}
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.multipart;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.stream.StreamMessage;
+import com.linecorp.armeria.common.stream.SubscriptionOption;
+import com.linecorp.armeria.internal.MultipartParser;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * A part of a multipart body. The content of a part is streamed as it arrives, and the next part is not
+ * decoded until the content of this part is consumed, so the content must be subscribed to, or aborted
+ * with {@link StreamMessage#abort()} if it is not needed.
+ */
+public final class BodyPart {
+
+    private final HttpHeaders headers;
+    private final StreamMessage<HttpData> content;
+    private final EventExecutor executor;
+
+    @Nullable
+    private final String name;
+    @Nullable
+    private final String filename;
+
+    BodyPart(HttpHeaders headers, StreamMessage<HttpData> content, EventExecutor executor) {
+        this.headers = headers;
+        this.content = content;
+        this.executor = executor;
+
+        final String disposition = headers.get(HttpHeaderNames.CONTENT_DISPOSITION);
+        if (disposition != null) {
+            name = MultipartParser.dispositionParameter(disposition, "name");
+            filename = MultipartParser.dispositionParameter(disposition, "filename");
+        } else {
+            name = null;
+            filename = null;
+        }
+    }
+
+    /**
+     * Returns the headers of this part.
+     */
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * Returns the {@code name} parameter of the {@code content-disposition} header, which is the name of
+     * the form field.
+     */
+    @Nullable
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the {@code filename} parameter of the {@code content-disposition} header, which is specified
+     * when this part is the content of a file.
+     */
+    @Nullable
+    public String filename() {
+        return filename;
+    }
+
+    /**
+     * Returns the {@code content-type} of this part.
+     */
+    @Nullable
+    public MediaType contentType() {
+        return headers.contentType();
+    }
+
+    /**
+     * Returns the content of this part, which can be subscribed only once.
+     */
+    public StreamMessage<HttpData> content() {
+        return content;
+    }
+
+    /**
+     * Aggregates the content of this part. Use {@link #writeTo(Path)} for a large part.
+     */
+    public CompletableFuture<HttpData> aggregate() {
+        return content.drainAll(executor).thenApply(BodyPart::concat);
+    }
+
+    /**
+     * Writes the content of this part into the specified file using an {@link AsynchronousFileChannel},
+     * creating or truncating the file. The next {@link HttpData} is requested only after the previous one
+     * is written, so the memory footprint does not depend on the size of the part.
+     *
+     * @return the {@link CompletableFuture} which is completed with the number of written bytes
+     */
+    public CompletableFuture<Long> writeTo(Path path) {
+        requireNonNull(path, "path");
+        final AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(path, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.CREATE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            content.abort();
+            final CompletableFuture<Long> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        final BodyPartFileWriter writer = new BodyPartFileWriter(channel, executor);
+        content.subscribe(writer, executor, SubscriptionOption.WITH_POOLED_OBJECTS);
+        return writer.future();
+    }
+
+    private static HttpData concat(List<HttpData> contents) {
+        switch (contents.size()) {
+            case 0:
+                return HttpData.EMPTY_DATA;
+            case 1:
+                return contents.get(0);
+        }
+
+        int length = 0;
+        for (HttpData data : contents) {
+            length += data.length();
+        }
+        final byte[] merged = new byte[length];
+        int offset = 0;
+        for (HttpData data : contents) {
+            final byte[] array = data.array();
+            System.arraycopy(array, 0, merged, offset, array.length);
+            offset += array.length;
+        }
+        return HttpData.wrap(merged);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("headers", headers)
+                          .add("content", content)
+                          .toString();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.multipart;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.linecorp.armeria.common.HttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Writes the content of a {@link BodyPart} into an {@link AsynchronousFileChannel}, requesting the next
+ * {@link HttpData} only after the previous one has been written.
+ */
+final class BodyPartFileWriter implements Subscriber<HttpData>, CompletionHandler<Integer, ByteBuf> {
+
+    private final CompletableFuture<Long> future = new CompletableFuture<>();
+    private final AsynchronousFileChannel channel;
+    private final EventExecutor executor;
+
+    @Nullable
+    private Subscription subscription;
+    private long position;
+    private boolean writing;
+    private boolean contentComplete;
+
+    BodyPartFileWriter(AsynchronousFileChannel channel, EventExecutor executor) {
+        this.channel = channel;
+        this.executor = executor;
+    }
+
+    CompletableFuture<Long> future() {
+        return future;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        subscription = s;
+        s.request(1);
+    }
+
+    @Override
+    public void onNext(HttpData data) {
+        assert subscription != null;
+        final ByteBuf buf = data instanceof ByteBufHolder ? ((ByteBufHolder) data).content()
+                                                          : Unpooled.wrappedBuffer(data.array());
+        if (future.isDone() || !buf.isReadable()) {
+            buf.release();
+            if (!future.isDone()) {
+                subscription.request(1);
+            }
+            return;
+        }
+        write(buf);
+    }
+
+    private void write(ByteBuf buf) {
+        writing = true;
+        channel.write(buf.nioBuffer(), position, buf, this);
+    }
+
+    @Override
+    public void completed(Integer result, ByteBuf buf) {
+        executor.execute(() -> {
+            position += result;
+            buf.skipBytes(result);
+            if (buf.isReadable() && !future.isDone()) {
+                write(buf);
+                return;
+            }
+
+            buf.release();
+            writing = false;
+            if (contentComplete) {
+                finish(null);
+            } else if (!future.isDone()) {
+                assert subscription != null;
+                subscription.request(1);
+            }
+        });
+    }
+
+    @Override
+    public void failed(Throwable cause, ByteBuf buf) {
+        executor.execute(() -> {
+            buf.release();
+            writing = false;
+            assert subscription != null;
+            subscription.cancel();
+            finish(cause);
+        });
+    }
+
+    @Override
+    public void onError(Throwable cause) {
+        finish(cause);
+    }
+
+    @Override
+    public void onComplete() {
+        contentComplete = true;
+        if (!writing) {
+            finish(null);
+        }
+    }
+
+    private void finish(@Nullable Throwable cause) {
+        if (future.isDone()) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            if (cause == null) {
+                cause = e;
+            }
+        }
+        if (cause == null) {
+            future.complete(position);
+        } else {
+            future.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.multipart;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.CommonPools;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.common.stream.StreamMessage;
+import com.linecorp.armeria.common.stream.SubscriptionOption;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * A multipart body, such as {@code multipart/form-data}, which is decoded as it arrives without aggregating
+ * the request. The {@link BodyPart}s are emitted one by one, and the content of each {@link BodyPart} is
+ * streamed as slices of the received data, so an upload of any size is decoded at constant memory:
+ * <pre>{@code
+ * > Multipart.from(req).parts().subscribe(new Subscriber<BodyPart>() {
+ * >     ...
+ * >     public void onNext(BodyPart part) {
+ * >         if (part.filename() != null) {
+ * >             part.writeTo(uploadDir.resolve(UUID.randomUUID().toString()))
+ * >                 .thenRun(() -> subscription.request(1));
+ * >         } else {
+ * >             part.aggregate().thenAccept(value -> {
+ * >                 fields.put(part.name(), value.toStringUtf8());
+ * >                 subscription.request(1);
+ * >             });
+ * >         }
+ * >     }
+ * >     ...
+ * > });
+ * }</pre>
+ *
+ * <p>An annotated service method receives a {@link Multipart} if one of its parameters is of this type.
+ * The fields of a {@code multipart/form-data} request without a {@code filename} are also injected into
+ * the parameters annotated with {@link com.linecorp.armeria.server.annotation.Param}, but that aggregates
+ * the whole request, so do not mix them with a {@link Multipart} parameter for a large upload.
+ */
+public final class Multipart {
+
+    /**
+     * Returns the {@link Multipart} which decodes the content of the specified {@link HttpRequest}.
+     *
+     * @throws IllegalArgumentException if the {@code content-type} of the request is not a multipart type
+     *                                  with a {@code boundary} parameter
+     */
+    public static Multipart from(HttpRequest request) {
+        requireNonNull(request, "request");
+        final MediaType contentType = request.contentType();
+        checkArgument(contentType != null && "multipart".equals(contentType.type()),
+                      "content-type: %s (expected: multipart/*)", contentType);
+        final String boundary = boundary(contentType);
+        checkArgument(boundary != null, "content-type: %s (expected: a boundary parameter)", contentType);
+        return of(boundary, request);
+    }
+
+    /**
+     * Returns the {@link Multipart} which decodes the specified {@link StreamMessage} using the specified
+     * {@code boundary}. {@link com.linecorp.armeria.common.HttpHeaders} in the {@link StreamMessage} are
+     * ignored.
+     */
+    public static Multipart of(String boundary, StreamMessage<? extends HttpObject> content) {
+        requireNonNull(boundary, "boundary");
+        requireNonNull(content, "content");
+        return new Multipart(boundary, content);
+    }
+
+    @Nullable
+    private static String boundary(MediaType contentType) {
+        final List<String> values = contentType.parameters().get("boundary");
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private final String boundary;
+    private final StreamMessage<BodyPart> parts;
+
+    private Multipart(String boundary, StreamMessage<? extends HttpObject> content) {
+        this.boundary = boundary;
+        final EventExecutor executor =
+                RequestContext.mapCurrent(RequestContext::eventLoop, () -> CommonPools.workerGroup().next());
+        final MultipartDecoder decoder = new MultipartDecoder(boundary, executor);
+        parts = decoder.parts();
+        content.subscribe(decoder, executor, SubscriptionOption.WITH_POOLED_OBJECTS);
+    }
+
+    /**
+     * Returns the {@code boundary} of this multipart body.
+     */
+    public String boundary() {
+        return boundary;
+    }
+
+    /**
+     * Returns the {@link StreamMessage} which emits the {@link BodyPart}s of this multipart body. It fails
+     * with a {@link com.linecorp.armeria.common.ProtocolViolationException} if the body is malformed.
+     */
+    public StreamMessage<BodyPart> parts() {
+        return parts;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("boundary", boundary)
+                          .add("parts", parts)
+                          .toString();
+    }
+}
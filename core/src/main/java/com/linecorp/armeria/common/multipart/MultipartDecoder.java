@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.multipart;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.stream.DefaultStreamMessage;
+import com.linecorp.armeria.common.stream.StreamMessage;
+import com.linecorp.armeria.internal.MultipartParser;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Decodes a multipart body into a {@link StreamMessage} of {@link BodyPart}s. The next {@link HttpData} is
+ * requested from the body only when the subscriber of the current {@link BodyPart}, or the subscriber of
+ * the {@link BodyPart}s between two parts, has demand.
+ */
+final class MultipartDecoder implements Subscriber<HttpObject>, MultipartParser.Handler {
+
+    private final DefaultStreamMessage<BodyPart> parts = new DefaultStreamMessage<>();
+    private final MultipartParser parser;
+    private final EventExecutor executor;
+
+    @Nullable
+    private Subscription subscription;
+    @Nullable
+    private DefaultStreamMessage<HttpData> currentContent;
+
+    MultipartDecoder(String boundary, EventExecutor executor) {
+        parser = new MultipartParser(boundary, this, ByteBufAllocator.DEFAULT);
+        this.executor = executor;
+    }
+
+    StreamMessage<BodyPart> parts() {
+        return parts;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        subscription = s;
+        s.request(1);
+    }
+
+    @Override
+    public void onNext(HttpObject obj) {
+        assert subscription != null;
+        if (!(obj instanceof HttpData)) {
+            subscription.request(1);
+            return;
+        }
+
+        final HttpData data = (HttpData) obj;
+        final ByteBuf buf = data instanceof ByteBufHolder ? ((ByteBufHolder) data).content()
+                                                          : Unpooled.wrappedBuffer(data.array());
+        try {
+            parser.parse(buf);
+        } catch (Throwable t) {
+            subscription.cancel();
+            fail(t);
+            return;
+        }
+        requestNext();
+    }
+
+    private void requestNext() {
+        final Subscription subscription = this.subscription;
+        assert subscription != null;
+
+        if (parser.isEnded()) {
+            // Discard the epilogue.
+            subscription.request(Long.MAX_VALUE);
+            return;
+        }
+        if (!parts.isOpen()) {
+            // The subscriber of the parts cancelled the subscription.
+            subscription.cancel();
+            fail(null);
+            return;
+        }
+
+        final DefaultStreamMessage<HttpData> currentContent = this.currentContent;
+        if (currentContent != null) {
+            currentContent.onDemand(() -> subscription.request(1))
+                          .exceptionally(unused -> {
+                              // The content of the current part was aborted. Keep discarding it.
+                              subscription.request(1);
+                              return null;
+                          });
+        } else {
+            parts.onDemand(() -> subscription.request(1))
+                 .exceptionally(unused -> {
+                     subscription.cancel();
+                     return null;
+                 });
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            parser.finish();
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void fail(@Nullable Throwable cause) {
+        parser.destroy();
+        if (currentContent != null) {
+            if (cause != null) {
+                currentContent.close(cause);
+            } else {
+                currentContent.abort();
+            }
+            currentContent = null;
+        }
+        if (cause != null) {
+            parts.close(cause);
+        }
+    }
+
+    @Override
+    public void onPartStart(HttpHeaders headers) {
+        final DefaultStreamMessage<HttpData> content = new DefaultStreamMessage<>();
+        currentContent = content;
+        if (!parts.tryWrite(new BodyPart(headers, content, executor))) {
+            content.abort();
+        }
+    }
+
+    @Override
+    public void onPartContent(ByteBuf content) {
+        assert currentContent != null;
+        // Released by the stream if the content has been aborted.
+        currentContent.tryWrite(new ByteBufHttpData(content, false));
+    }
+
+    @Override
+    public void onPartEnd() {
+        assert currentContent != null;
+        currentContent.close();
+        currentContent = null;
+    }
+
+    @Override
+    public void onEnd() {
+        parts.close();
+    }
+}
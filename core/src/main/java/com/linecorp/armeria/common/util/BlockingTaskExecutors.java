@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.CommonPools;
+import com.linecorp.armeria.common.Flags;
+import com.linecorp.armeria.server.ServerBuilder;
+
+/**
+ * Provides the {@link ExecutorService}s which can be used as a blocking task executor, e.g.
+ * {@link ServerBuilder#blockingTaskExecutor(java.util.concurrent.Executor, boolean)}.
+ *
+ * <p>A virtual thread executor starts a new virtual thread for each task, so that a large number of
+ * tasks which block on I/O do not compete for a fixed number of platform threads. Virtual threads are
+ * available since Java 21. On a JVM which does not support them, {@link #newVirtualThreadExecutor(String)}
+ * falls back to a platform thread pool which is configured in the same way as
+ * {@link CommonPools#blockingTaskExecutor()}.
+ */
+public final class BlockingTaskExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockingTaskExecutors.class);
+
+    // Thread.ofVirtual().name(prefix, 0).factory() and Executors.newThreadPerTaskExecutor(factory),
+    // which are looked up reflectively because Armeria is compiled against Java 8.
+    @Nullable
+    private static final MethodHandle NEW_VIRTUAL_THREAD_FACTORY;
+    @Nullable
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle newVirtualThreadFactory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Class<?> ofVirtualClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+
+            final MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual",
+                                                             MethodType.methodType(ofVirtualClass));
+            final MethodHandle name = lookup.findVirtual(
+                    ofVirtualClass, "name", MethodType.methodType(ofVirtualClass, String.class, long.class));
+            final MethodHandle factory = lookup.findVirtual(builderClass, "factory",
+                                                            MethodType.methodType(ThreadFactory.class));
+
+            // (String, long) -> ThreadFactory
+            newVirtualThreadFactory = MethodHandles.filterReturnValue(
+                    MethodHandles.foldArguments(name, ofVirtual),
+                    factory.asType(MethodType.methodType(ThreadFactory.class, ofVirtualClass)));
+            newThreadPerTaskExecutor = lookup.findStatic(
+                    Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+
+            // Make sure virtual threads are really usable, e.g. they may be a disabled preview feature.
+            final ThreadFactory threadFactory =
+                    (ThreadFactory) newVirtualThreadFactory.invoke("armeria-virtual-thread-probe-", 0L);
+            final Thread thread = threadFactory.newThread(() -> {});
+            thread.start();
+            thread.join();
+        } catch (Throwable cause) {
+            logger.debug("Virtual threads are not available; falling back to platform threads:", cause);
+            newVirtualThreadFactory = null;
+            newThreadPerTaskExecutor = null;
+        }
+        NEW_VIRTUAL_THREAD_FACTORY = newVirtualThreadFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    /**
+     * Returns whether the current JVM supports virtual threads.
+     */
+    public static boolean isVirtualThreadAvailable() {
+        return NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Returns a new {@link ExecutorService} which runs each task in a new virtual thread. If the current
+     * JVM does not support virtual threads, a platform thread pool with up to
+     * {@link Flags#numCommonBlockingTaskThreads()} threads is returned instead.
+     *
+     * @param threadNamePrefix the prefix of the names of the threads created by the executor
+     */
+    public static ExecutorService newVirtualThreadExecutor(String threadNamePrefix) {
+        requireNonNull(threadNamePrefix, "threadNamePrefix");
+        if (NEW_VIRTUAL_THREAD_FACTORY == null || NEW_THREAD_PER_TASK_EXECUTOR == null) {
+            return newPlatformThreadExecutor(
+                    threadNamePrefix, Flags.numCommonBlockingTaskThreads());
+        }
+
+        try {
+            final ThreadFactory threadFactory =
+                    (ThreadFactory) NEW_VIRTUAL_THREAD_FACTORY.invoke(threadNamePrefix + '-', 0L);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable cause) {
+            return Exceptions.throwUnsafely(cause);
+        }
+    }
+
+    /**
+     * Returns a new {@link ExecutorService} which runs tasks in up to {@code maxThreads} daemon platform
+     * threads. Idle threads are terminated after 60 seconds and the work queue is unbounded, as
+     * {@link CommonPools#blockingTaskExecutor()} does.
+     *
+     * @param threadNamePrefix the prefix of the names of the threads created by the executor
+     * @param maxThreads the maximum number of threads
+     */
+    public static ExecutorService newPlatformThreadExecutor(String threadNamePrefix, int maxThreads) {
+        requireNonNull(threadNamePrefix, "threadNamePrefix");
+        checkArgument(maxThreads > 0, "maxThreads: %s (expected: > 0)", maxThreads);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedTransferQueue<>(),
+                ThreadFactories.newThreadFactory(threadNamePrefix, true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private BlockingTaskExecutors() {}
+}
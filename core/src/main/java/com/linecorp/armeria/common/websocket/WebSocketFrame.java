@@ -0,0 +1,316 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.websocket;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.stream.StreamMessage;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.buffer.Unpooled;
+
+/**
+ * A <a href="https://tools.ietf.org/html/rfc6455#section-5">WebSocket frame</a>. A message may be sent as
+ * a sequence of frames, which starts with a {@link WebSocketFrameType#TEXT} or
+ * {@link WebSocketFrameType#BINARY} frame, followed by zero or more {@link WebSocketFrameType#CONTINUATION}
+ * frames, the last of which is a {@linkplain #isFinalFragment() final fragment}.
+ *
+ * <p>The payload of a frame is a {@link ByteBuf}. A frame created with {@link #of(WebSocketFrameType, ByteBuf,
+ * boolean)} takes the ownership of the given {@link ByteBuf}, so that it can be a pooled buffer which is
+ * released when the frame is sent. See {@link StreamMessage} for the life cycle of a reference-counted
+ * object in a stream.
+ */
+public final class WebSocketFrame extends DefaultByteBufHolder {
+
+    /**
+     * The maximum length of the payload of a control frame.
+     */
+    public static final int MAX_CONTROL_FRAME_PAYLOAD_LENGTH = 125;
+
+    /**
+     * The status code which indicates a normal closure.
+     */
+    public static final int NORMAL_CLOSURE = 1000;
+
+    /**
+     * The status code which indicates that an endpoint is going away, e.g. a server is shutting down.
+     */
+    public static final int GOING_AWAY = 1001;
+
+    /**
+     * The status code which indicates that an endpoint received a frame which violates the protocol.
+     */
+    public static final int PROTOCOL_ERROR = 1002;
+
+    /**
+     * The status code which indicates that an endpoint received no status code in a close frame.
+     * This code is never sent in a close frame.
+     */
+    public static final int NO_STATUS_RECEIVED = 1005;
+
+    /**
+     * The status code which indicates that an endpoint received a message which is too big to process.
+     */
+    public static final int MESSAGE_TOO_BIG = 1009;
+
+    /**
+     * The status code which indicates that an endpoint encountered an unexpected condition.
+     */
+    public static final int INTERNAL_ERROR = 1011;
+
+    /**
+     * Returns a new final text frame with the specified {@code text}.
+     */
+    public static WebSocketFrame ofText(String text) {
+        return ofText(text, true);
+    }
+
+    /**
+     * Returns a new text frame with the specified {@code text}.
+     */
+    public static WebSocketFrame ofText(String text, boolean finalFragment) {
+        requireNonNull(text, "text");
+        return of(WebSocketFrameType.TEXT, Unpooled.wrappedBuffer(text.getBytes(StandardCharsets.UTF_8)),
+                  finalFragment);
+    }
+
+    /**
+     * Returns a new final binary frame with the specified {@code payload}.
+     */
+    public static WebSocketFrame ofBinary(byte[] payload) {
+        return ofBinary(payload, true);
+    }
+
+    /**
+     * Returns a new binary frame with the specified {@code payload}.
+     */
+    public static WebSocketFrame ofBinary(byte[] payload, boolean finalFragment) {
+        requireNonNull(payload, "payload");
+        return of(WebSocketFrameType.BINARY, Unpooled.wrappedBuffer(payload), finalFragment);
+    }
+
+    /**
+     * Returns a new ping frame with the specified {@code payload}.
+     */
+    public static WebSocketFrame ofPing(byte[] payload) {
+        requireNonNull(payload, "payload");
+        return of(WebSocketFrameType.PING, Unpooled.wrappedBuffer(payload), true);
+    }
+
+    /**
+     * Returns a new pong frame with the specified {@code payload}.
+     */
+    public static WebSocketFrame ofPong(byte[] payload) {
+        requireNonNull(payload, "payload");
+        return of(WebSocketFrameType.PONG, Unpooled.wrappedBuffer(payload), true);
+    }
+
+    /**
+     * Returns a new close frame with the specified {@code statusCode} and {@code reason}.
+     *
+     * @param statusCode the <a href="https://tools.ietf.org/html/rfc6455#section-7.4">status code</a>,
+     *                   e.g. {@link #NORMAL_CLOSURE}
+     * @param reason the human-readable reason of the closure, which may be empty
+     */
+    public static WebSocketFrame ofClose(int statusCode, String reason) {
+        checkArgument(statusCode >= 1000 && statusCode <= 4999 && statusCode != NO_STATUS_RECEIVED,
+                      "statusCode: %s (expected: 1000 <= statusCode <= 4999 && statusCode != 1005)",
+                      statusCode);
+        requireNonNull(reason, "reason");
+        final byte[] reasonBytes = reason.getBytes(StandardCharsets.UTF_8);
+        final ByteBuf payload = Unpooled.buffer(2 + reasonBytes.length);
+        payload.writeShort(statusCode);
+        payload.writeBytes(reasonBytes);
+        return of(WebSocketFrameType.CLOSE, payload, true);
+    }
+
+    /**
+     * Returns a new frame with the specified {@link WebSocketFrameType} and {@code payload}. The returned
+     * frame takes the ownership of the {@code payload}.
+     *
+     * @throws IllegalArgumentException if a control frame is not a final fragment or its {@code payload}
+     *                                  is longer than {@value #MAX_CONTROL_FRAME_PAYLOAD_LENGTH} bytes
+     */
+    public static WebSocketFrame of(WebSocketFrameType type, ByteBuf payload, boolean finalFragment) {
+        requireNonNull(type, "type");
+        requireNonNull(payload, "payload");
+        if (type.isControl()) {
+            checkArgument(finalFragment, "a control frame cannot be fragmented: %s", type);
+            checkArgument(payload.readableBytes() <= MAX_CONTROL_FRAME_PAYLOAD_LENGTH,
+                          "payload.readableBytes(): %s (expected: <= %s)",
+                          payload.readableBytes(), MAX_CONTROL_FRAME_PAYLOAD_LENGTH);
+        }
+        return new WebSocketFrame(type, payload, finalFragment);
+    }
+
+    private final WebSocketFrameType type;
+    private final boolean finalFragment;
+
+    private WebSocketFrame(WebSocketFrameType type, ByteBuf payload, boolean finalFragment) {
+        super(payload);
+        this.type = type;
+        this.finalFragment = finalFragment;
+    }
+
+    /**
+     * Returns the {@link WebSocketFrameType} of this frame.
+     */
+    public WebSocketFrameType type() {
+        return type;
+    }
+
+    /**
+     * Returns whether this frame is the last fragment of a message.
+     */
+    public boolean isFinalFragment() {
+        return finalFragment;
+    }
+
+    /**
+     * Returns the length of the payload of this frame.
+     */
+    public int length() {
+        return content().readableBytes();
+    }
+
+    /**
+     * Returns a copy of the payload of this frame.
+     */
+    public byte[] array() {
+        return ByteBufUtil.getBytes(content());
+    }
+
+    /**
+     * Decodes the payload of this frame as a UTF-8 string.
+     */
+    public String text() {
+        return content().toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the status code of this close frame, or {@link #NO_STATUS_RECEIVED} if this frame does not
+     * have a status code.
+     *
+     * @throws IllegalStateException if this frame is not a close frame
+     */
+    public int closeStatus() {
+        ensureClose();
+        final ByteBuf payload = content();
+        if (payload.readableBytes() < 2) {
+            return NO_STATUS_RECEIVED;
+        }
+        return payload.getUnsignedShort(payload.readerIndex());
+    }
+
+    /**
+     * Returns the reason of this close frame, which may be empty.
+     *
+     * @throws IllegalStateException if this frame is not a close frame
+     */
+    public String closeReason() {
+        ensureClose();
+        final ByteBuf payload = content();
+        if (payload.readableBytes() <= 2) {
+            return "";
+        }
+        return payload.toString(payload.readerIndex() + 2, payload.readableBytes() - 2,
+                                StandardCharsets.UTF_8);
+    }
+
+    private void ensureClose() {
+        if (type != WebSocketFrameType.CLOSE) {
+            throw new IllegalStateException("not a close frame: " + type);
+        }
+    }
+
+    @Override
+    public WebSocketFrame copy() {
+        return (WebSocketFrame) super.copy();
+    }
+
+    @Override
+    public WebSocketFrame duplicate() {
+        return (WebSocketFrame) super.duplicate();
+    }
+
+    @Override
+    public WebSocketFrame retainedDuplicate() {
+        return (WebSocketFrame) super.retainedDuplicate();
+    }
+
+    @Override
+    public WebSocketFrame replace(ByteBuf content) {
+        return new WebSocketFrame(type, content, finalFragment);
+    }
+
+    @Override
+    public WebSocketFrame retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public WebSocketFrame retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public WebSocketFrame touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public WebSocketFrame touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WebSocketFrame)) {
+            return false;
+        }
+        final WebSocketFrame that = (WebSocketFrame) o;
+        return type == that.type && finalFragment == that.finalFragment && super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return (type.hashCode() * 31 + Boolean.hashCode(finalFragment)) * 31 + super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("type", type)
+                          .add("finalFragment", finalFragment)
+                          .add("length", content().readableBytes())
+                          .toString();
+    }
+}
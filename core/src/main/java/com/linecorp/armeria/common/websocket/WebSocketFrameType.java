@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.websocket;
+
+import javax.annotation.Nullable;
+
+/**
+ * The type of a {@link WebSocketFrame}, which is identified by its
+ * <a href="https://tools.ietf.org/html/rfc6455#section-5.2">opcode</a>.
+ */
+public enum WebSocketFrameType {
+    /**
+     * A continuation frame, which carries a non-first fragment of a message.
+     */
+    CONTINUATION(0x0),
+    /**
+     * A text frame, which carries the first or only fragment of a UTF-8 text message.
+     */
+    TEXT(0x1),
+    /**
+     * A binary frame, which carries the first or only fragment of a binary message.
+     */
+    BINARY(0x2),
+    /**
+     * A close frame.
+     */
+    CLOSE(0x8),
+    /**
+     * A ping frame.
+     */
+    PING(0x9),
+    /**
+     * A pong frame.
+     */
+    PONG(0xA);
+
+    private static final WebSocketFrameType[] OPCODES = new WebSocketFrameType[16];
+
+    static {
+        for (WebSocketFrameType type : values()) {
+            OPCODES[type.opcode] = type;
+        }
+    }
+
+    /**
+     * Returns the {@link WebSocketFrameType} of the specified {@code opcode}, or {@code null} if
+     * the {@code opcode} is reserved.
+     */
+    @Nullable
+    public static WebSocketFrameType ofOpcode(int opcode) {
+        if (opcode < 0 || opcode >= OPCODES.length) {
+            return null;
+        }
+        return OPCODES[opcode];
+    }
+
+    private final int opcode;
+
+    WebSocketFrameType(int opcode) {
+        this.opcode = opcode;
+    }
+
+    /**
+     * Returns the opcode of this type.
+     */
+    public int opcode() {
+        return opcode;
+    }
+
+    /**
+     * Returns whether this type is a control frame type, i.e. {@link #CLOSE}, {@link #PING} or {@link #PONG}.
+     * A control frame cannot be fragmented and its payload cannot be longer than 125 bytes.
+     */
+    public boolean isControl() {
+        return (opcode & 0x8) != 0;
+    }
+}
@@ -35,6 +35,7 @@ import static io.netty.handler.codec.http.HttpUtil.isAsteriskForm;
 import static io.netty.handler.codec.http.HttpUtil.isOriginForm;
 import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
 import static io.netty.handler.codec.http2.Http2Exception.streamError;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.hasPseudoHeaderFormat;
 import static io.netty.util.AsciiString.EMPTY_STRING;
 import static io.netty.util.ByteProcessor.FIND_COMMA;
 import static io.netty.util.internal.StringUtil.decodeHexNibble;
@@ -62,6 +63,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Ascii;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 
 import com.linecorp.armeria.common.Flags;
 import com.linecorp.armeria.common.HttpData;
@@ -141,6 +143,11 @@ public final class ArmeriaHttpUtil {
      */
     private static final CharSequenceMap HTTP_TO_HTTP2_HEADER_BLACKLIST = new CharSequenceMap();
 
+    /**
+     * The names in {@link #HTTP_TO_HTTP2_HEADER_BLACKLIST}.
+     */
+    private static final List<AsciiString> HTTP_TO_HTTP2_HEADER_BLACKLIST_NAMES;
+
     /**
      * The set of headers that should not be directly copied when converting headers from HTTP/2 to HTTP/1.
      */
@@ -161,6 +168,7 @@ public final class ArmeriaHttpUtil {
         HTTP_TO_HTTP2_HEADER_BLACKLIST.add(ExtensionHeaderNames.STREAM_ID.text(), EMPTY_STRING);
         HTTP_TO_HTTP2_HEADER_BLACKLIST.add(ExtensionHeaderNames.SCHEME.text(), EMPTY_STRING);
         HTTP_TO_HTTP2_HEADER_BLACKLIST.add(ExtensionHeaderNames.PATH.text(), EMPTY_STRING);
+        HTTP_TO_HTTP2_HEADER_BLACKLIST_NAMES = ImmutableList.copyOf(HTTP_TO_HTTP2_HEADER_BLACKLIST.names());
 
         // https://tools.ietf.org/html/rfc7540#section-8.1.2.3
         HTTP2_TO_HTTP_HEADER_BLACKLIST.add(HttpHeaderNames.AUTHORITY, EMPTY_STRING);
@@ -576,8 +584,15 @@ public final class ArmeriaHttpUtil {
         final URI requestTargetUri = toUri(in);
 
         final io.netty.handler.codec.http.HttpHeaders inHeaders = in.headers();
-        final RequestHeadersBuilder out = RequestHeaders.builder();
-        out.sizeHint(inHeaders.size());
+        final boolean decodedInPlace = inHeaders instanceof Http1HeadersAdapter;
+        final RequestHeadersBuilder out;
+        if (decodedInPlace) {
+            // The headers have been decoded into a RequestHeadersBuilder already.
+            out = ((Http1HeadersAdapter) inHeaders).delegate();
+        } else {
+            out = RequestHeaders.builder();
+            out.sizeHint(inHeaders.size());
+        }
         out.add(HttpHeaderNames.METHOD, in.method().name());
         out.add(HttpHeaderNames.PATH, toHttp2Path(requestTargetUri));
 
@@ -595,11 +610,58 @@ public final class ArmeriaHttpUtil {
             out.add(HttpHeaderNames.AUTHORITY, defaultHostname + ':' + port);
         }
 
-        // Add the HTTP headers which have not been consumed above
-        toArmeria(inHeaders, out);
+        if (decodedInPlace) {
+            // Remove or convert the HTTP headers which have been consumed above or not allowed in HTTP/2.
+            toArmeriaInPlace(out);
+        } else {
+            // Add the HTTP headers which have not been consumed above
+            toArmeria(inHeaders, out);
+        }
         return out.build();
     }
 
+    /**
+     * Converts the HTTP/1 headers in the specified {@link HttpHeadersBuilder} into HTTP/2 headers in place,
+     * in the same way with {@link #toArmeria(io.netty.handler.codec.http.HttpHeaders, HttpHeadersBuilder)}.
+     */
+    private static void toArmeriaInPlace(HttpHeadersBuilder headers) {
+        final List<String> connectionValues = headers.getAll(HttpHeaderNames.CONNECTION);
+        if (!connectionValues.isEmpty()) {
+            final CharSequenceMap connectionBlacklist = toLowercaseMap(connectionValues.iterator(), 8);
+            for (AsciiString name : connectionBlacklist.names()) {
+                if (!hasPseudoHeaderFormat(name)) {
+                    headers.remove(name);
+                }
+            }
+        }
+        for (AsciiString name : HTTP_TO_HTTP2_HEADER_BLACKLIST_NAMES) {
+            headers.remove(name);
+        }
+
+        // https://tools.ietf.org/html/rfc7540#section-8.1.2.2 makes a special exception for TE
+        final List<String> teValues = headers.getAll(HttpHeaderNames.TE);
+        if (!teValues.isEmpty()) {
+            headers.remove(HttpHeaderNames.TE);
+            for (String teValue : teValues) {
+                toHttp2HeadersFilterTE(teValue, headers);
+            }
+        }
+
+        // Cookies must be concatenated into a single octet string.
+        // https://tools.ietf.org/html/rfc7540#section-8.1.2.5
+        final List<String> cookies = headers.getAll(HttpHeaderNames.COOKIE);
+        if (!cookies.isEmpty()) {
+            headers.remove(HttpHeaderNames.COOKIE);
+            final StringJoiner cookieJoiner = new StringJoiner(COOKIE_SEPARATOR);
+            for (String cookie : cookies) {
+                COOKIE_SPLITTER.split(cookie).forEach(cookieJoiner::add);
+            }
+            if (cookieJoiner.length() != 0) {
+                headers.add(HttpHeaderNames.COOKIE, cookieJoiner.toString());
+            }
+        }
+    }
+
     /**
      * Converts the headers of the given Netty HTTP/1.x response into Armeria HTTP/2 headers.
      */
@@ -646,7 +708,7 @@ public final class ArmeriaHttpUtil {
 
             // https://tools.ietf.org/html/rfc7540#section-8.1.2.2 makes a special exception for TE
             if (aName.equals(HttpHeaderNames.TE)) {
-                toHttp2HeadersFilterTE(entry, out);
+                toHttp2HeadersFilterTE(entry.getValue(), out);
                 continue;
             }
 
@@ -700,18 +762,17 @@ public final class ArmeriaHttpUtil {
     /**
      * Filter the {@link HttpHeaderNames#TE} header according to the
      * <a href="https://tools.ietf.org/html/rfc7540#section-8.1.2.2">special rules in the HTTP/2 RFC</a>.
-     * @param entry An entry whose name is {@link HttpHeaderNames#TE}.
+     * @param value the value of a {@link HttpHeaderNames#TE} header.
      * @param out the resulting HTTP/2 headers.
      */
-    private static void toHttp2HeadersFilterTE(Entry<CharSequence, CharSequence> entry,
-                                               HttpHeadersBuilder out) {
-        if (AsciiString.indexOf(entry.getValue(), ',', 0) == -1) {
-            if (AsciiString.contentEqualsIgnoreCase(AsciiString.trim(entry.getValue()),
+    private static void toHttp2HeadersFilterTE(CharSequence value, HttpHeadersBuilder out) {
+        if (AsciiString.indexOf(value, ',', 0) == -1) {
+            if (AsciiString.contentEqualsIgnoreCase(AsciiString.trim(value),
                                                     HttpHeaderValues.TRAILERS)) {
                 out.add(HttpHeaderNames.TE, HttpHeaderValues.TRAILERS.toString());
             }
         } else {
-            final List<CharSequence> teValues = StringUtil.unescapeCsvFields(entry.getValue());
+            final List<CharSequence> teValues = StringUtil.unescapeCsvFields(value);
             for (CharSequence teValue : teValues) {
                 if (AsciiString.contentEqualsIgnoreCase(AsciiString.trim(teValue),
                                                         HttpHeaderValues.TRAILERS)) {
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+
+/**
+ * An {@link HttpData} which refers to a region of a file rather than holding its content on heap.
+ * An {@link HttpObjectEncoder} transfers it without copying its content into the heap, i.e.
+ * via a {@link FileRegion} over a cleartext HTTP/1 connection and via its memory-mapped {@link #content()}
+ * otherwise.
+ *
+ * <p>The file is opened and the region is mapped by {@link #of(Path, long, int, boolean)}, which must be
+ * invoked from a blocking task executor, so that no file I/O is performed on an event loop even when
+ * a decorator reads the content. The file is closed and the region is unmapped when this data is released.
+ */
+public final class FileRegionHttpData extends ByteBufHttpData {
+
+    /**
+     * Opens the specified file and maps the specified region of it into memory. This method performs
+     * a blocking I/O.
+     *
+     * @param path the path to the file
+     * @param position the offset of the region in the file
+     * @param length the length of the region
+     * @param endOfStream whether this data is the last data of the stream
+     *
+     * @throws IOException if failed to open the file or to map the region of it
+     */
+    public static FileRegionHttpData of(Path path, long position, int length,
+                                        boolean endOfStream) throws IOException {
+        requireNonNull(path, "path");
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected: >= 0)");
+        }
+        if (length <= 0) {
+            throw new IllegalArgumentException("length: " + length + " (expected: > 0)");
+        }
+
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        boolean success = false;
+        try {
+            if (channel.size() < position + length) {
+                // Mapping beyond the end of the file leads to an unspecified behavior.
+                throw new EOFException("truncated file: " + path);
+            }
+            // The channel is kept open until the region is unmapped, so that it can be transferred
+            // via a FileRegion as well.
+            final ByteBuf content = MappedByteBufs.map(channel, position, length, channel);
+            success = true;
+            return new FileRegionHttpData(path, channel, position, content, endOfStream);
+        } finally {
+            if (!success) {
+                channel.close();
+            }
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long position;
+
+    private FileRegionHttpData(Path path, FileChannel channel, long position, ByteBuf content,
+                               boolean endOfStream) {
+        super(content, endOfStream);
+        this.path = path;
+        this.channel = channel;
+        this.position = position;
+    }
+
+    /**
+     * Returns the path to the file.
+     */
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Returns the offset of the region in the file.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns a new {@link FileRegion} which transfers the region of the file. The reference of this data
+     * is transferred to the returned {@link FileRegion}, i.e. this data is released when
+     * the {@link FileRegion} is released.
+     */
+    public FileRegion toFileRegion() {
+        return new DefaultFileRegion(channel, position, length()) {
+            @Override
+            protected void deallocate() {
+                // Do not close the channel here; it is closed when the region is unmapped.
+                FileRegionHttpData.this.release();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("path", path)
+                          .add("position", position)
+                          .add("length", length())
+                          .add("endOfStream", isEndOfStream())
+                          .toString();
+    }
+}
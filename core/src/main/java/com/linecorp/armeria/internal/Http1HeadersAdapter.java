@@ -0,0 +1,275 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableSet;
+
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.RequestHeadersBuilder;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.util.AsciiString;
+
+/**
+ * A Netty {@link HttpHeaders} which stores the headers into an Armeria {@link RequestHeadersBuilder}, so that
+ * the headers decoded by {@link HttpRequestDecoder} do not have to be copied from Netty {@link HttpHeaders}
+ * to Armeria {@link RequestHeaders}.
+ */
+public final class Http1HeadersAdapter extends HttpHeaders {
+
+    private final RequestHeadersBuilder delegate = RequestHeaders.builder();
+
+    /**
+     * Returns the {@link RequestHeadersBuilder} which contains the headers.
+     */
+    public RequestHeadersBuilder delegate() {
+        return delegate;
+    }
+
+    @Nullable
+    @Override
+    public String get(String name) {
+        return delegate.get(name);
+    }
+
+    @Nullable
+    @Override
+    public String get(CharSequence name) {
+        return delegate.get(name);
+    }
+
+    @Nullable
+    @Override
+    public Integer getInt(CharSequence name) {
+        return delegate.getInt(name);
+    }
+
+    @Override
+    public int getInt(CharSequence name, int defaultValue) {
+        return delegate.getInt(name, defaultValue);
+    }
+
+    @Nullable
+    @Override
+    public Short getShort(CharSequence name) {
+        final Integer value = delegate.getInt(name);
+        return value != null && value == value.shortValue() ? value.shortValue() : null;
+    }
+
+    @Override
+    public short getShort(CharSequence name, short defaultValue) {
+        final Short value = getShort(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Nullable
+    @Override
+    public Long getTimeMillis(CharSequence name) {
+        return delegate.getTimeMillis(name);
+    }
+
+    @Override
+    public long getTimeMillis(CharSequence name, long defaultValue) {
+        return delegate.getTimeMillis(name, defaultValue);
+    }
+
+    @Override
+    public List<String> getAll(String name) {
+        return delegate.getAll(name);
+    }
+
+    @Override
+    public List<String> getAll(CharSequence name) {
+        return delegate.getAll(name);
+    }
+
+    @Override
+    public List<Entry<String, String>> entries() {
+        final List<Entry<String, String>> entries = new ArrayList<>(delegate.size());
+        delegate.forEach((name, value) -> entries.add(new SimpleImmutableEntry<>(name.toString(), value)));
+        return entries;
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return delegate.contains(name);
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        return delegate.contains(name);
+    }
+
+    @Override
+    @Deprecated
+    public Iterator<Entry<String, String>> iterator() {
+        return entries().iterator();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<Entry<CharSequence, CharSequence>> iteratorCharSequence() {
+        // The entries are read-only, so it's safe to cast.
+        final Iterator<?> iterator = delegate.iterator();
+        return (Iterator<Entry<CharSequence, CharSequence>>) iterator;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public Set<String> names() {
+        return delegate.names().stream().map(AsciiString::toString).collect(ImmutableSet.toImmutableSet());
+    }
+
+    @Override
+    public HttpHeaders add(String name, Object value) {
+        return add((CharSequence) name, value);
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Object value) {
+        validateName(name);
+        delegate.addObject(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Iterable<?> values) {
+        validateName(name);
+        delegate.addObject(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addInt(CharSequence name, int value) {
+        validateName(name);
+        delegate.addInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addShort(CharSequence name, short value) {
+        validateName(name);
+        delegate.addInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Object value) {
+        return set((CharSequence) name, value);
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Object value) {
+        validateName(name);
+        delegate.setObject(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Iterable<?> values) {
+        validateName(name);
+        delegate.setObject(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setInt(CharSequence name, int value) {
+        validateName(name);
+        delegate.setInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setShort(CharSequence name, short value) {
+        validateName(name);
+        delegate.setInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders remove(String name) {
+        delegate.remove(name);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders remove(CharSequence name) {
+        delegate.remove(name);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders clear() {
+        delegate.clear();
+        return this;
+    }
+
+    /**
+     * Validates the header name in the same way with Netty's {@code DefaultHttpHeaders}.
+     */
+    private static void validateName(CharSequence name) {
+        requireNonNull(name, "name");
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            switch (c) {
+                case '\0':
+                case '\t':
+                case '\n':
+                case 0x0b:
+                case '\f':
+                case '\r':
+                case ' ':
+                case ',':
+                case ':':
+                case ';':
+                case '=':
+                    throw new IllegalArgumentException(
+                            "a header name cannot contain the following prohibited characters: " +
+                            "=,;: \\t\\r\\n\\v\\f: " + name);
+            }
+            if (c > 127) {
+                throw new IllegalArgumentException(
+                        "a header name cannot contain non-ASCII character: " + name);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
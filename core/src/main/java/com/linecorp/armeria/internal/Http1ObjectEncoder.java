@@ -38,6 +38,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpRequest;
@@ -203,6 +204,11 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
             final io.netty.handler.codec.http.HttpHeaders outHeaders = res.headers();
             convert(streamId, headers, outHeaders, false, false);
 
+            if (statusCode == HttpStatus.SWITCHING_PROTOCOLS.code()) {
+                // The 'connection' header has been removed by the conversion.
+                outHeaders.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.UPGRADE);
+            }
+
             if (HttpStatus.isContentAlwaysEmpty(statusCode)) {
                 outHeaders.remove(HttpHeaderNames.CONTENT_LENGTH);
             } else if (!headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
@@ -328,6 +334,12 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         try {
+            if (!isTls && data instanceof FileRegionHttpData) {
+                // Cleartext connection; transfer the file region with zero copy, e.g. sendfile().
+                // Over TLS, the content has to be encrypted in user space, so its mapped content is used.
+                return doWriteFileRegion(id, (FileRegionHttpData) data, endStream);
+            }
+
             if (!isTls || length <= MAX_TLS_DATA_LENGTH) {
                 // Cleartext connection or data.length() <= MAX_TLS_DATA_LENGTH
                 return doWriteUnsplitData(id, data, endStream);
@@ -362,6 +374,16 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
     }
 
+    private ChannelFuture doWriteFileRegion(int id, FileRegionHttpData data, boolean endStream) {
+        ChannelFuture future = write(id, data.toFileRegion(), false);
+        if (endStream) {
+            future = write(id, LastHttpContent.EMPTY_LAST_CONTENT, true);
+        }
+
+        ch.flush();
+        return future;
+    }
+
     private ChannelFuture doWriteSplitData(int id, HttpData data, boolean endStream) {
         try {
             int offset = 0;
@@ -398,7 +420,10 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
     }
 
-    private ChannelFuture write(int id, HttpObject obj, boolean endStream) {
+    /**
+     * Writes an {@link HttpObject} or a {@link FileRegion} in the order of the request IDs.
+     */
+    private ChannelFuture write(int id, Object obj, boolean endStream) {
         if (id < currentId) {
             // Attempted to write something on a finished request/response; discard.
             // e.g. the request already timed out.
@@ -437,7 +462,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
             return future;
         } else {
             final ChannelPromise promise = ch.newPromise();
-            final Entry<HttpObject, ChannelPromise> entry = new SimpleImmutableEntry<>(obj, promise);
+            final Entry<Object, ChannelPromise> entry = new SimpleImmutableEntry<>(obj, promise);
             final PendingWrites pendingWrites;
             if (currentPendingWrites == null) {
                 pendingWrites = new PendingWrites();
@@ -459,7 +484,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
 
     private void flushPendingWrites(PendingWrites pendingWrites) {
         for (;;) {
-            final Entry<HttpObject, ChannelPromise> e = pendingWrites.poll();
+            final Entry<Object, ChannelPromise> e = pendingWrites.poll();
             if (e == null) {
                 break;
             }
@@ -477,7 +502,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         for (int i = minClosedId; i <= maxIdWithPendingWrites; i++) {
             final PendingWrites pendingWrites = pendingWritesMap.remove(i);
             for (;;) {
-                final Entry<HttpObject, ChannelPromise> e = pendingWrites.poll();
+                final Entry<Object, ChannelPromise> e = pendingWrites.poll();
                 if (e == null) {
                     break;
                 }
@@ -500,9 +525,9 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         final ClosedSessionException cause = ClosedSessionException.get();
-        for (Queue<Entry<HttpObject, ChannelPromise>> queue : pendingWritesMap.values()) {
+        for (Queue<Entry<Object, ChannelPromise>> queue : pendingWritesMap.values()) {
             for (;;) {
-                final Entry<HttpObject, ChannelPromise> e = queue.poll();
+                final Entry<Object, ChannelPromise> e = queue.poll();
                 if (e == null) {
                     break;
                 }
@@ -514,7 +539,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         pendingWritesMap.clear();
     }
 
-    private static final class PendingWrites extends ArrayDeque<Entry<HttpObject, ChannelPromise>> {
+    private static final class PendingWrites extends ArrayDeque<Entry<Object, ChannelPromise>> {
 
         private static final long serialVersionUID = 4241891747461017445L;
 
@@ -525,8 +550,8 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         @Override
-        public boolean add(Entry<HttpObject, ChannelPromise> httpObjectChannelPromiseEntry) {
-            return isEndOfStream() ? false : super.add(httpObjectChannelPromiseEntry);
+        public boolean add(Entry<Object, ChannelPromise> objectChannelPromiseEntry) {
+            return isEndOfStream() ? false : super.add(objectChannelPromiseEntry);
         }
 
         boolean isEndOfStream() {
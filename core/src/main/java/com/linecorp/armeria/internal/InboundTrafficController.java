@@ -57,12 +57,20 @@ public final class InboundTrafficController extends AtomicInteger {
 
     @Nullable
     private final ChannelConfig cfg;
+    @Nullable
+    private final TransportMetricsHandler metricsHandler;
     private final int highWatermark;
     private final int lowWatermark;
     private volatile boolean suspended;
 
     private InboundTrafficController(@Nullable Channel channel, int highWatermark, int lowWatermark) {
-        cfg = channel != null ? channel.config() : null;
+        if (channel != null) {
+            cfg = channel.config();
+            metricsHandler = TransportMetricsHandler.get(channel);
+        } else {
+            cfg = null;
+            metricsHandler = null;
+        }
         this.highWatermark = highWatermark;
         this.lowWatermark = lowWatermark;
     }
@@ -75,6 +83,9 @@ public final class InboundTrafficController extends AtomicInteger {
                 cfg.setAutoRead(false);
                 numDeferredReads++;
                 suspended = true;
+                if (metricsHandler != null) {
+                    metricsHandler.inboundTrafficSuspended();
+                }
             }
         }
     }
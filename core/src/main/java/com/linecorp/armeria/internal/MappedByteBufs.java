@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Creates a {@link ByteBuf} which wraps a read-only memory-mapped region of a file.
+ */
+public final class MappedByteBufs {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedByteBufs.class);
+
+    /**
+     * Maps the specified region of the file into memory. This method performs a blocking I/O, so it must be
+     * invoked from a blocking task executor rather than an event loop.
+     *
+     * <p>Unlike a {@link MappedByteBuffer}, which is unmapped only when it is garbage-collected, the region
+     * is unmapped as soon as the returned {@link ByteBuf} and all buffers derived from it are released.
+     * Therefore, accessing the content of the returned {@link ByteBuf} after it is released may crash
+     * the JVM rather than raising an exception.
+     *
+     * @param channel the {@link FileChannel} to map the region of
+     * @param position the offset of the region in the file
+     * @param length the length of the region
+     * @param closeable the {@link Closeable} to close when the region is unmapped, e.g. {@code channel}.
+     *                  {@code null} to close nothing.
+     */
+    public static ByteBuf map(FileChannel channel, long position, int length,
+                              @Nullable Closeable closeable) throws IOException {
+        return new MappedByteBuf(channel.map(MapMode.READ_ONLY, position, length), closeable);
+    }
+
+    /**
+     * A {@link CompositeByteBuf} of a single read-only {@link MappedByteBuffer}. It extends
+     * {@link CompositeByteBuf} because Netty does not expose any other {@link ByteBuf} implementation whose
+     * deallocation can be hooked.
+     */
+    private static final class MappedByteBuf extends CompositeByteBuf {
+
+        private final MappedByteBuffer mapped;
+        @Nullable
+        private final Closeable closeable;
+
+        MappedByteBuf(MappedByteBuffer mapped, @Nullable Closeable closeable) {
+            super(UnpooledByteBufAllocator.DEFAULT, true, 1, Unpooled.wrappedBuffer(mapped));
+            this.mapped = mapped;
+            this.closeable = closeable;
+        }
+
+        @Override
+        protected void deallocate() {
+            super.deallocate();
+            // Unmap the region immediately rather than waiting for the GC. This is a no-op if the cleaner
+            // of a direct buffer is not accessible, in which case the GC unmaps it eventually.
+            PlatformDependent.freeDirectBuffer(mapped);
+            if (closeable != null) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close: {}", closeable, e);
+                }
+            }
+        }
+    }
+
+    private MappedByteBufs() {}
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.netty.handler.codec.ByteToMessageDecoder.MERGE_CUMULATOR;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpHeadersBuilder;
+import com.linecorp.armeria.common.ProtocolViolationException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * A push parser of a multipart body, as defined in
+ * <a href="https://tools.ietf.org/html/rfc2046#section-5.1">RFC 2046, section 5.1</a>. The content of
+ * a part is emitted as slices of the received buffers as soon as it is known not to be a part of a boundary
+ * delimiter. Only the header section of a part and the few bytes which may be the beginning of a delimiter
+ * are copied and retained by the parser.
+ */
+public final class MultipartParser {
+
+    /**
+     * The maximum length of the header section of a part.
+     */
+    public static final int MAX_HEADERS_LENGTH = 16384;
+
+    private static final int MAX_BOUNDARY_LENGTH = 70;
+
+    /**
+     * Receives the parts decoded by a {@link MultipartParser}.
+     */
+    public interface Handler {
+        /**
+         * Invoked when the header section of a new part is decoded.
+         */
+        void onPartStart(HttpHeaders headers);
+
+        /**
+         * Invoked with the next slice of the content of the current part. The {@link ByteBuf} must be
+         * released by the {@link Handler}.
+         */
+        void onPartContent(ByteBuf content);
+
+        /**
+         * Invoked when the current part is complete.
+         */
+        void onPartEnd();
+
+        /**
+         * Invoked when the close delimiter is decoded. Nothing is emitted after this.
+         */
+        void onEnd();
+    }
+
+    private enum State {
+        PREAMBLE, DELIMITER_SUFFIX, HEADERS, CONTENT, EPILOGUE
+    }
+
+    private final ByteBufAllocator alloc;
+    private final Handler handler;
+    // CRLF "--" boundary
+    private final byte[] delimiter;
+
+    @Nullable
+    private ByteBuf cumulation;
+    private State state = State.PREAMBLE;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param boundary the {@code boundary} parameter of the {@code content-type} header
+     */
+    public MultipartParser(String boundary, Handler handler, ByteBufAllocator alloc) {
+        requireNonNull(boundary, "boundary");
+        checkArgument(!boundary.isEmpty() && boundary.length() <= MAX_BOUNDARY_LENGTH,
+                      "boundary: %s (expected: 1-%s characters)", boundary, MAX_BOUNDARY_LENGTH);
+        this.handler = requireNonNull(handler, "handler");
+        this.alloc = requireNonNull(alloc, "alloc");
+        delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+
+        // The first delimiter may appear without the preceding CRLF at the beginning of the body.
+        cumulation = alloc.buffer(2 * (delimiter.length - 1)).writeByte('\r').writeByte('\n');
+    }
+
+    /**
+     * Returns whether the close delimiter has been decoded.
+     */
+    public boolean isEnded() {
+        return state == State.EPILOGUE;
+    }
+
+    /**
+     * Parses the specified {@link ByteBuf}. The {@link ByteBuf} is released by this method.
+     *
+     * @throws ProtocolViolationException if the body is not a valid multipart body
+     */
+    public void parse(ByteBuf in) {
+        if (state == State.EPILOGUE) {
+            in.release();
+            return;
+        }
+
+        final ByteBuf buf;
+        final ByteBuf cumulation = this.cumulation;
+        this.cumulation = null;
+        if (cumulation == null) {
+            buf = in;
+        } else if (isScanning() && in.readableBytes() >= delimiter.length - 1) {
+            // Only the possible beginning of a delimiter has been carried over. Look for a delimiter
+            // which spans the carried-over bytes and 'in' by copying just enough bytes from 'in',
+            // so that the rest of 'in' is sliced without being copied.
+            final int carriedLength = cumulation.readableBytes();
+            try {
+                cumulation.writeBytes(in, in.readerIndex(), delimiter.length - 1);
+                final int readerIndex = cumulation.readerIndex();
+                parse0(cumulation);
+                // A delimiter which begins in the carried-over bytes ends in the copied bytes,
+                // so the carried-over bytes have always been consumed.
+                final int consumed = cumulation.readerIndex() - readerIndex;
+                assert consumed >= carriedLength;
+                in.skipBytes(consumed - carriedLength);
+            } catch (Throwable t) {
+                in.release();
+                throw t;
+            } finally {
+                cumulation.release();
+            }
+            buf = in;
+        } else {
+            buf = MERGE_CUMULATOR.cumulate(alloc, cumulation, in);
+        }
+
+        boolean success = false;
+        try {
+            parse0(buf);
+            success = true;
+        } finally {
+            if (!success || !buf.isReadable()) {
+                buf.release();
+            } else if (isScanning()) {
+                // Carry over only the bytes which may be the beginning of a delimiter, rather than
+                // retaining 'buf' whose content has been emitted as slices.
+                assert buf.readableBytes() < delimiter.length;
+                this.cumulation = alloc.buffer(2 * (delimiter.length - 1)).writeBytes(buf);
+                buf.release();
+            } else {
+                // The header section of a part or a transport padding is incomplete.
+                if (buf != in && buf.refCnt() == 1) {
+                    // Do not move the bytes under the content slices which share the buffer.
+                    buf.discardSomeReadBytes();
+                }
+                this.cumulation = buf;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the parser is looking for a delimiter while skipping or emitting the bytes before it.
+     */
+    private boolean isScanning() {
+        return state == State.PREAMBLE || state == State.CONTENT;
+    }
+
+    @VisibleForTesting
+    int bufferedBytes() {
+        return cumulation != null ? cumulation.capacity() : 0;
+    }
+
+    private void parse0(ByteBuf buf) {
+        for (;;) {
+            switch (state) {
+                case PREAMBLE: {
+                    final int idx = indexOfDelimiter(buf);
+                    if (idx < 0) {
+                        // Discard the preamble except the bytes which may be the beginning of a delimiter.
+                        buf.skipBytes(Math.max(0, buf.readableBytes() - (delimiter.length - 1)));
+                        return;
+                    }
+                    buf.readerIndex(idx + delimiter.length);
+                    state = State.DELIMITER_SUFFIX;
+                    continue;
+                }
+                case DELIMITER_SUFFIX: {
+                    if (buf.readableBytes() < 2) {
+                        return;
+                    }
+                    final int readerIndex = buf.readerIndex();
+                    if (buf.getByte(readerIndex) == '-' && buf.getByte(readerIndex + 1) == '-') {
+                        buf.skipBytes(buf.readableBytes());
+                        state = State.EPILOGUE;
+                        handler.onEnd();
+                        return;
+                    }
+
+                    // Skip the transport padding, which is linear whitespace followed by CRLF.
+                    final int lineEnd = indexOfCrlf(buf, readerIndex);
+                    if (lineEnd < 0) {
+                        if (buf.readableBytes() > MAX_HEADERS_LENGTH) {
+                            throw new ProtocolViolationException("too long transport padding");
+                        }
+                        return;
+                    }
+                    for (int i = readerIndex; i < lineEnd; i++) {
+                        final byte b = buf.getByte(i);
+                        if (b != ' ' && b != '\t') {
+                            throw new ProtocolViolationException("invalid boundary delimiter");
+                        }
+                    }
+                    buf.readerIndex(lineEnd + 2);
+                    state = State.HEADERS;
+                    continue;
+                }
+                case HEADERS: {
+                    if (!decodeHeaders(buf)) {
+                        return;
+                    }
+                    state = State.CONTENT;
+                    continue;
+                }
+                case CONTENT: {
+                    final int readerIndex = buf.readerIndex();
+                    final int idx = indexOfDelimiter(buf);
+                    if (idx >= 0) {
+                        if (idx > readerIndex) {
+                            handler.onPartContent(buf.retainedSlice(readerIndex, idx - readerIndex));
+                        }
+                        buf.readerIndex(idx + delimiter.length);
+                        state = State.DELIMITER_SUFFIX;
+                        handler.onPartEnd();
+                        continue;
+                    }
+
+                    // Keep the bytes which may be the beginning of a delimiter.
+                    final int length = buf.readableBytes() - (delimiter.length - 1);
+                    if (length > 0) {
+                        handler.onPartContent(buf.readRetainedSlice(length));
+                    }
+                    return;
+                }
+                case EPILOGUE:
+                    buf.skipBytes(buf.readableBytes());
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Decodes the header section of a part.
+     *
+     * @return {@code false} if more data is needed
+     */
+    private boolean decodeHeaders(ByteBuf buf) {
+        final int readerIndex = buf.readerIndex();
+        final int end;
+        final int contentStart;
+        if (buf.readableBytes() >= 2 && buf.getByte(readerIndex) == '\r' &&
+            buf.getByte(readerIndex + 1) == '\n') {
+            // No header fields.
+            end = readerIndex;
+            contentStart = end + 2;
+        } else {
+            end = indexOfEmptyLine(buf, readerIndex);
+            if (end < 0) {
+                if (buf.readableBytes() > MAX_HEADERS_LENGTH) {
+                    throw new ProtocolViolationException(
+                            "too long part headers (expected: <= " + MAX_HEADERS_LENGTH + " bytes)");
+                }
+                return false;
+            }
+            contentStart = end + 4;
+        }
+        if (end - readerIndex > MAX_HEADERS_LENGTH) {
+            throw new ProtocolViolationException(
+                    "too long part headers (expected: <= " + MAX_HEADERS_LENGTH + " bytes)");
+        }
+
+        final HttpHeadersBuilder headers = HttpHeaders.builder();
+        int lineStart = readerIndex;
+        while (lineStart < end) {
+            int lineEnd = indexOfCrlf(buf, lineStart);
+            if (lineEnd < 0 || lineEnd > end) {
+                lineEnd = end;
+            }
+            final String line = buf.toString(lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+            final int colonIdx = line.indexOf(':');
+            if (colonIdx <= 0) {
+                throw new ProtocolViolationException("invalid part header: " + line);
+            }
+            headers.add(HttpHeaderNames.of(line.substring(0, colonIdx).trim()),
+                        line.substring(colonIdx + 1).trim());
+            lineStart = lineEnd + 2;
+        }
+
+        // Skip the header fields and the empty line.
+        buf.readerIndex(contentStart);
+        handler.onPartStart(headers.build());
+        return true;
+    }
+
+    /**
+     * Finishes parsing.
+     *
+     * @throws ProtocolViolationException if the close delimiter has not been decoded
+     */
+    public void finish() {
+        destroy();
+        if (state != State.EPILOGUE) {
+            throw new ProtocolViolationException("unexpected end of a multipart body");
+        }
+    }
+
+    /**
+     * Releases the buffered data.
+     */
+    public void destroy() {
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+
+    /**
+     * Returns the value of the specified parameter of a {@code content-disposition} header value,
+     * e.g. {@code form-data; name="file"; filename="a.txt"}.
+     */
+    @Nullable
+    public static String dispositionParameter(String disposition, String name) {
+        final int length = disposition.length();
+        int i = disposition.indexOf(';');
+        while (i >= 0) {
+            final int eq = disposition.indexOf('=', i + 1);
+            if (eq < 0) {
+                return null;
+            }
+            final String param = disposition.substring(i + 1, eq).trim();
+
+            final StringBuilder value = new StringBuilder();
+            int j = eq + 1;
+            while (j < length && disposition.charAt(j) == ' ') {
+                j++;
+            }
+            if (j < length && disposition.charAt(j) == '"') {
+                // A quoted-string with backslash escapes.
+                for (j++; j < length; j++) {
+                    char c = disposition.charAt(j);
+                    if (c == '"') {
+                        j++;
+                        break;
+                    }
+                    if (c == '\\' && j + 1 < length) {
+                        c = disposition.charAt(++j);
+                    }
+                    value.append(c);
+                }
+            } else {
+                for (; j < length && disposition.charAt(j) != ';'; j++) {
+                    value.append(disposition.charAt(j));
+                }
+            }
+
+            if (name.equalsIgnoreCase(param)) {
+                return value.toString().trim();
+            }
+            i = disposition.indexOf(';', j);
+        }
+        return null;
+    }
+
+    private int indexOfDelimiter(ByteBuf buf) {
+        final byte[] delimiter = this.delimiter;
+        final int last = buf.writerIndex() - delimiter.length;
+        int i = buf.readerIndex();
+        while (i <= last) {
+            i = buf.indexOf(i, last + 1, (byte) '\r');
+            if (i < 0) {
+                return -1;
+            }
+            if (matches(buf, i, delimiter)) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static boolean matches(ByteBuf buf, int index, byte[] bytes) {
+        for (int j = 1; j < bytes.length; j++) {
+            if (buf.getByte(index + j) != bytes[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfCrlf(ByteBuf buf, int fromIndex) {
+        final int writerIndex = buf.writerIndex();
+        int i = fromIndex;
+        while (i < writerIndex - 1) {
+            i = buf.indexOf(i, writerIndex - 1, (byte) '\r');
+            if (i < 0) {
+                return -1;
+            }
+            if (buf.getByte(i + 1) == '\n') {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the CRLF which terminates the last header field, i.e. the first CRLF of
+     * CRLF CRLF.
+     */
+    private static int indexOfEmptyLine(ByteBuf buf, int fromIndex) {
+        int i = fromIndex;
+        for (;;) {
+            i = indexOfCrlf(buf, i);
+            if (i < 0 || i + 3 >= buf.writerIndex()) {
+                return -1;
+            }
+            if (buf.getByte(i + 2) == '\r' && buf.getByte(i + 3) == '\n') {
+                return i;
+            }
+            i += 2;
+        }
+    }
+}
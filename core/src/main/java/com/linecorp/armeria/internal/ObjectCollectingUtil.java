@@ -56,6 +56,15 @@ public final class ObjectCollectingUtil {
         }
     }
 
+    /**
+     * Returns whether the specified {@link Publisher} is a {@code reactor.core.publisher.Mono}, which
+     * publishes at most one object.
+     */
+    public static boolean isMono(Publisher<?> publisher) {
+        requireNonNull(publisher, "publisher");
+        return MONO_CLASS != null && MONO_CLASS.isAssignableFrom(publisher.getClass());
+    }
+
     /**
      * Collects objects published from the specified {@link Stream}.
      *
@@ -86,7 +95,7 @@ public final class ObjectCollectingUtil {
     public static CompletableFuture<Object> collectFrom(Publisher<?> publisher) {
         requireNonNull(publisher, "publisher");
         final CompletableFuture<Object> future = new CompletableFuture<>();
-        if (MONO_CLASS != null && MONO_CLASS.isAssignableFrom(publisher.getClass())) {
+        if (isMono(publisher)) {
             publisher.subscribe(new CollectingSingleObjectSubscriber<>(future));
         } else {
             publisher.subscribe(new CollectingMultipleObjectsSubscriber<>(future));
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.collect.MapMaker;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+
+/**
+ * Serializes objects into JSON directly in pooled {@link ByteBuf}s rather than in a growing
+ * {@code byte[]}, reusing an {@link ObjectWriter} for each type of the serialized objects.
+ */
+public final class PooledJsonWriter {
+
+    /**
+     * The number of bytes to accumulate before sending a chunk of a streaming JSON array.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    // A PooledJsonWriter references its ObjectMapper, so the values have to be weak as well for the entries
+    // to be collected.
+    private static final ConcurrentMap<ObjectMapper, PooledJsonWriter> writers =
+            new MapMaker().weakKeys().weakValues().makeMap();
+
+    /**
+     * Returns the {@link PooledJsonWriter} which serializes objects with the specified
+     * {@link ObjectMapper}.
+     */
+    public static PooledJsonWriter of(ObjectMapper mapper) {
+        requireNonNull(mapper, "mapper");
+        final PooledJsonWriter writer = writers.get(mapper);
+        if (writer != null) {
+            return writer;
+        }
+        return writers.computeIfAbsent(mapper, PooledJsonWriter::new);
+    }
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter defaultWriter;
+    private final ConcurrentMap<Class<?>, ObjectWriter> typedWriters = new ConcurrentHashMap<>();
+
+    private PooledJsonWriter(ObjectMapper mapper) {
+        this.mapper = mapper;
+        defaultWriter = mapper.writer();
+    }
+
+    /**
+     * Appends the specified {@code value} serialized as JSON to the specified {@link ByteBuf}.
+     */
+    public void writeValue(ByteBuf out, @Nullable Object value) throws IOException {
+        writerFor(value).writeValue((OutputStream) new ByteBufOutputStream(out), value);
+    }
+
+    /**
+     * Serializes the specified {@code value} into a pooled {@link HttpData}.
+     */
+    public HttpData toHttpData(@Nullable Object value) {
+        final ByteBuf buf = ByteBufAllocator.DEFAULT.buffer();
+        boolean success = false;
+        try {
+            writeValue(buf, value);
+            success = true;
+            return new ByteBufHttpData(buf, false);
+        } catch (Exception e) {
+            return Exceptions.throwUnsafely(e);
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
+    }
+
+    /**
+     * Returns a new {@link HttpResponse} which sends the objects from the specified {@link Stream} as
+     * a JSON array. The array is sent in chunks of a few kilobytes, and the next chunk is not serialized
+     * until the client consumes the previous one, so that the whole array does not have to be held in memory.
+     */
+    public HttpResponse streamArray(Stream<?> stream, ResponseHeaders headers, HttpHeaders trailers,
+                                    Executor executor) {
+        requireNonNull(stream, "stream");
+        requireNonNull(executor, "executor");
+        final ArrayChunker chunker = new ArrayChunker(headers, trailers);
+        final Iterator<?> it = stream.sequential().iterator();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (it.hasNext()) {
+                        if (!chunker.add(it.next())) {
+                            chunker.finish();
+                            return;
+                        }
+                        if (chunker.flushed()) {
+                            // Resume when the client has consumed the chunk.
+                            chunker.writer.onDemand(() -> executor.execute(this));
+                            return;
+                        }
+                    }
+                    chunker.finish();
+                } catch (Exception e) {
+                    chunker.fail(e);
+                }
+            }
+        });
+        return chunker.writer;
+    }
+
+    /**
+     * Returns a new {@link HttpResponse} which sends the objects published by the specified
+     * {@link Publisher} as a JSON array. The array is sent in chunks of a few kilobytes, so that
+     * the whole array does not have to be held in memory.
+     */
+    public HttpResponse streamArray(Publisher<?> publisher, ResponseHeaders headers, HttpHeaders trailers) {
+        requireNonNull(publisher, "publisher");
+        final ArrayChunker chunker = new ArrayChunker(headers, trailers);
+        publisher.subscribe(new Subscriber<Object>() {
+            @Nullable
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                chunker.writer.closeFuture().handle((unused, cause) -> {
+                    if (cause != null) {
+                        s.cancel();
+                    }
+                    return null;
+                });
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(Object value) {
+                try {
+                    if (chunker.add(value)) {
+                        chunker.writer.onDemand(() -> {
+                            assert subscription != null;
+                            subscription.request(1);
+                        });
+                    }
+                } catch (Exception e) {
+                    onError(e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                chunker.fail(cause);
+            }
+
+            @Override
+            public void onComplete() {
+                chunker.finish();
+            }
+        });
+        return chunker.writer;
+    }
+
+    private ObjectWriter writerFor(@Nullable Object value) {
+        if (value == null) {
+            return defaultWriter;
+        }
+        final Class<?> type = value.getClass();
+        final ObjectWriter writer = typedWriters.get(type);
+        if (writer != null) {
+            return writer;
+        }
+        return typedWriters.computeIfAbsent(type, mapper::writerFor);
+    }
+
+    /**
+     * Accumulates the elements of a JSON array into a pooled {@link ByteBuf} and writes it to
+     * the {@link HttpResponseWriter} whenever it grows beyond {@link #CHUNK_SIZE}. The headers are not
+     * sent until the first chunk is ready, so that a failure in a small array still results in an error
+     * response.
+     */
+    private final class ArrayChunker {
+
+        final HttpResponseWriter writer = HttpResponse.streaming();
+        private final ResponseHeaders headers;
+        private final HttpHeaders trailers;
+        @Nullable
+        private ByteBuf buf;
+        private boolean headersSent;
+        private boolean empty = true;
+
+        ArrayChunker(ResponseHeaders headers, HttpHeaders trailers) {
+            this.headers = requireNonNull(headers, "headers");
+            this.trailers = requireNonNull(trailers, "trailers");
+        }
+
+        /**
+         * Adds the specified element and returns whether more elements can be added.
+         */
+        boolean add(@Nullable Object value) throws IOException {
+            if (!writer.isOpen()) {
+                return false;
+            }
+            if (buf == null) {
+                buf = ByteBufAllocator.DEFAULT.buffer();
+            }
+            buf.writeByte(empty ? '[' : ',');
+            empty = false;
+            writeValue(buf, value);
+            if (buf.readableBytes() >= CHUNK_SIZE) {
+                flush();
+            }
+            return writer.isOpen();
+        }
+
+        /**
+         * Returns whether the accumulated elements have been written to the {@link HttpResponseWriter}
+         * by the last {@link #add(Object)}.
+         */
+        boolean flushed() {
+            return buf == null;
+        }
+
+        void finish() {
+            if (!writer.isOpen()) {
+                release();
+                return;
+            }
+            if (buf == null) {
+                buf = ByteBufAllocator.DEFAULT.buffer(2);
+            }
+            if (empty) {
+                buf.writeByte('[');
+            }
+            buf.writeByte(']');
+            flush();
+            if (!trailers.isEmpty()) {
+                writer.tryWrite(trailers);
+            }
+            writer.close();
+        }
+
+        void fail(Throwable cause) {
+            release();
+            writer.close(cause);
+        }
+
+        private void flush() {
+            final ByteBuf buf = this.buf;
+            assert buf != null;
+            this.buf = null;
+            if (!headersSent) {
+                headersSent = true;
+                if (!writer.tryWrite(headers)) {
+                    buf.release();
+                    return;
+                }
+            }
+            // tryWrite() releases the data if the stream has been closed.
+            writer.tryWrite(new ByteBufHttpData(buf, false));
+        }
+
+        private void release() {
+            if (buf != null) {
+                buf.release();
+                buf = null;
+            }
+        }
+    }
+}
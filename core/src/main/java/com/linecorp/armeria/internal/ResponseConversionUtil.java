@@ -36,6 +36,8 @@ import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpResponseWriter;
 import com.linecorp.armeria.common.ResponseHeaders;
 
+import io.netty.util.ReferenceCountUtil;
+
 /**
  * A utility class which helps to send a streaming {@link HttpResponse}.
  */
@@ -93,8 +95,15 @@ public final class ResponseConversionUtil {
             }
             try {
                 final HttpData content = contentConverter.apply(result);
-                writer.write(headers);
-                writer.write(content);
+                if (!writer.tryWrite(headers)) {
+                    // The content may be a pooled buffer.
+                    ReferenceCountUtil.safeRelease(content);
+                    return null;
+                }
+                if (!writer.tryWrite(content)) {
+                    // tryWrite() released the content already.
+                    return null;
+                }
                 if (!trailers.isEmpty()) {
                     writer.write(trailers);
                 }
@@ -135,10 +144,15 @@ public final class ResponseConversionUtil {
                 while (it.hasNext()) {
                     final HttpData content = contentConverter.apply(it.next());
                     if (!headerSent) {
-                        writer.write(headers);
                         headerSent = true;
+                        if (!writer.tryWrite(headers)) {
+                            ReferenceCountUtil.safeRelease(content);
+                            return;
+                        }
+                    }
+                    if (!writer.tryWrite(content)) {
+                        return;
                     }
-                    writer.write(content);
                 }
                 if (!trailers.isEmpty()) {
                     writer.write(trailers);
@@ -214,10 +228,15 @@ public final class ResponseConversionUtil {
                 // To get an exception from the converter before sending the headers.
                 final HttpData content = contentConverter.apply(value);
                 if (!headersSent) {
-                    writer.write(headers);
                     headersSent = true;
+                    if (!writer.tryWrite(headers)) {
+                        ReferenceCountUtil.safeRelease(content);
+                        return;
+                    }
+                }
+                if (!writer.tryWrite(content)) {
+                    return;
                 }
-                writer.write(content);
                 writer.onDemand(() -> {
                     assert subscription != null;
                     subscription.request(1);
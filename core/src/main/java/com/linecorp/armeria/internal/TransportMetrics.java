@@ -0,0 +1,329 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.MapMaker;
+
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.common.metric.MoreMeters;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2Error;
+import io.netty.handler.codec.http2.Http2Flags;
+import io.netty.handler.codec.http2.Http2FrameLogger;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2RemoteFlowController;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.logging.LogLevel;
+
+/**
+ * The transport-level meters of the connections of a server or a client factory, which are registered
+ * under {@code "armeria.server.transport"} or {@code "armeria.client.transport"}:
+ * <ul>
+ *   <li>{@code bytes} - the number of bytes read from and written to the connections</li>
+ *   <li>{@code connection.bytes} - the number of bytes read from and written to each connection</li>
+ *   <li>{@code inboundTrafficSuspensions} - the number of times reading from a connection was suspended
+ *       because the received data was not consumed fast enough</li>
+ *   <li>{@code http2.frames} - the number of HTTP/2 frames sent and received, by their types</li>
+ *   <li>{@code http2.goAways} - the number of HTTP/2 GOAWAY frames sent and received, by their error codes</li>
+ *   <li>{@code http2.flowControlStalls} - the number of times an HTTP/2 stream could not be written
+ *       because of the flow-control window of the stream or the connection</li>
+ *   <li>{@code tls.handshakes} - the number of TLS handshakes, by their results</li>
+ *   <li>{@code tls.handshakeDuration} - the time taken from the connection establishment until the TLS
+ *       handshake is complete</li>
+ * </ul>
+ * The meters are updated by {@link TransportMetricsHandler} and the HTTP/2 hooks provided by this class.
+ */
+public final class TransportMetrics {
+
+    // Weak values, because a TransportMetrics holds its MeterRegistry strongly. Recreating a collected one
+    // is cheap since the registry returns the meters registered before.
+    private static final ConcurrentMap<MeterRegistry, TransportMetrics> serverMetrics =
+            new MapMaker().weakKeys().weakValues().makeMap();
+    private static final ConcurrentMap<MeterRegistry, TransportMetrics> clientMetrics =
+            new MapMaker().weakKeys().weakValues().makeMap();
+
+    /**
+     * Returns the {@link TransportMetrics} of the servers which use the specified {@link MeterRegistry}.
+     */
+    public static TransportMetrics ofServer(MeterRegistry registry) {
+        requireNonNull(registry, "registry");
+        return serverMetrics.computeIfAbsent(
+                registry, r -> new TransportMetrics(r, new MeterIdPrefix("armeria.server.transport"), true));
+    }
+
+    /**
+     * Returns the {@link TransportMetrics} of the clients which use the specified {@link MeterRegistry}.
+     */
+    public static TransportMetrics ofClient(MeterRegistry registry) {
+        requireNonNull(registry, "registry");
+        return clientMetrics.computeIfAbsent(
+                registry, r -> new TransportMetrics(r, new MeterIdPrefix("armeria.client.transport"), false));
+    }
+
+    private enum FrameType {
+        DATA("data"),
+        HEADERS("headers"),
+        PRIORITY("priority"),
+        RST_STREAM("rstStream"),
+        SETTINGS("settings"),
+        PUSH_PROMISE("pushPromise"),
+        PING("ping"),
+        GO_AWAY("goAway"),
+        WINDOW_UPDATE("windowUpdate"),
+        UNKNOWN("unknown");
+
+        final String tagValue;
+
+        FrameType(String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final MeterIdPrefix idPrefix;
+
+    private final Counter bytesRead;
+    private final Counter bytesWritten;
+    private final DistributionSummary connectionBytesRead;
+    private final DistributionSummary connectionBytesWritten;
+    private final Counter inboundTrafficSuspensions;
+
+    /**
+     * The frame counters, indexed by {@link Http2FrameLogger.Direction} and then {@link FrameType}.
+     */
+    private final Counter[][] frames;
+    private final Counter flowControlStalls;
+    private final Http2FrameLogger frameLogger;
+
+    private final Counter fullHandshakes;
+    private final Counter resumedHandshakes;
+    private final Counter failedHandshakes;
+    private final Timer handshakeDuration;
+
+    private TransportMetrics(MeterRegistry registry, MeterIdPrefix idPrefix, boolean server) {
+        this.registry = registry;
+        this.idPrefix = idPrefix;
+
+        final String bytesName = idPrefix.name("bytes");
+        bytesRead = Counter.builder(bytesName).tags(idPrefix.tags("direction", "read"))
+                           .baseUnit("bytes").register(registry);
+        bytesWritten = Counter.builder(bytesName).tags(idPrefix.tags("direction", "written"))
+                              .baseUnit("bytes").register(registry);
+
+        final String connectionBytesName = idPrefix.name("connection.bytes");
+        connectionBytesRead = MoreMeters.newDistributionSummary(
+                registry, connectionBytesName, idPrefix.tags("direction", "read"));
+        connectionBytesWritten = MoreMeters.newDistributionSummary(
+                registry, connectionBytesName, idPrefix.tags("direction", "written"));
+
+        inboundTrafficSuspensions = registry.counter(idPrefix.name("inboundTrafficSuspensions"),
+                                                     idPrefix.tags());
+
+        final Http2FrameLogger.Direction[] directions = Http2FrameLogger.Direction.values();
+        final FrameType[] frameTypes = FrameType.values();
+        frames = new Counter[directions.length][frameTypes.length];
+        for (Http2FrameLogger.Direction d : directions) {
+            for (FrameType t : frameTypes) {
+                frames[d.ordinal()][t.ordinal()] =
+                        registry.counter(idPrefix.name("http2.frames"),
+                                         idPrefix.tags("direction", directionTagValue(d), "type", t.tagValue));
+            }
+        }
+        flowControlStalls = registry.counter(idPrefix.name("http2.flowControlStalls"), idPrefix.tags());
+        frameLogger = new CountingFrameLogger(server);
+
+        final String handshakesName = idPrefix.name("tls.handshakes");
+        fullHandshakes = registry.counter(handshakesName, idPrefix.tags("result", "full"));
+        resumedHandshakes = registry.counter(handshakesName, idPrefix.tags("result", "resumed"));
+        failedHandshakes = registry.counter(handshakesName, idPrefix.tags("result", "failure"));
+        handshakeDuration = MoreMeters.newTimer(registry, idPrefix.name("tls.handshakeDuration"),
+                                                idPrefix.tags());
+    }
+
+    /**
+     * Returns the {@link Http2FrameLogger} which counts the HTTP/2 frames. It also logs the frames at
+     * {@code TRACE} level, like {@link TrafficLoggingHandler} does for the bytes.
+     */
+    public Http2FrameLogger frameLogger() {
+        return frameLogger;
+    }
+
+    /**
+     * Starts counting the flow-control stalls of the HTTP/2 streams written by the specified
+     * {@link Http2ConnectionEncoder}.
+     */
+    public void monitorFlowControl(Http2ConnectionEncoder encoder) {
+        final Http2RemoteFlowController flowController = encoder.flowController();
+        flowController.listener(stream -> {
+            if (!flowController.isWritable(stream)) {
+                flowControlStalls.increment();
+            }
+        });
+    }
+
+    void bytesRead(long numBytes) {
+        bytesRead.increment(numBytes);
+    }
+
+    void bytesWritten(long numBytes) {
+        bytesWritten.increment(numBytes);
+    }
+
+    void connectionClosed(long numBytesRead, long numBytesWritten) {
+        connectionBytesRead.record(numBytesRead);
+        connectionBytesWritten.record(numBytesWritten);
+    }
+
+    void inboundTrafficSuspended() {
+        inboundTrafficSuspensions.increment();
+    }
+
+    void handshakeSucceeded(long durationNanos, boolean resumed) {
+        (resumed ? resumedHandshakes : fullHandshakes).increment();
+        handshakeDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void handshakeFailed() {
+        failedHandshakes.increment();
+    }
+
+    private void frame(Http2FrameLogger.Direction direction, FrameType type) {
+        frames[direction.ordinal()][type.ordinal()].increment();
+    }
+
+    private void goAway(Http2FrameLogger.Direction direction, long errorCode) {
+        final Http2Error error = Http2Error.valueOf(errorCode);
+        // GOAWAY frames are rare enough to look up the counter every time.
+        registry.counter(idPrefix.name("http2.goAways"),
+                         idPrefix.tags("direction", directionTagValue(direction),
+                                       "error", error != null ? error.name() : "UNKNOWN"))
+                .increment();
+    }
+
+    private static String directionTagValue(Http2FrameLogger.Direction direction) {
+        return direction == Http2FrameLogger.Direction.INBOUND ? "inbound" : "outbound";
+    }
+
+    private final class CountingFrameLogger extends Http2FrameLogger {
+
+        CountingFrameLogger(boolean server) {
+            super(LogLevel.TRACE, "com.linecorp.armeria.logging.traffic." +
+                                  (server ? "server" : "client") + ".http2");
+        }
+
+        @Override
+        public void logData(Direction direction, ChannelHandlerContext ctx, int streamId, ByteBuf data,
+                            int padding, boolean endStream) {
+            frame(direction, FrameType.DATA);
+            super.logData(direction, ctx, streamId, data, padding, endStream);
+        }
+
+        @Override
+        public void logHeaders(Direction direction, ChannelHandlerContext ctx, int streamId,
+                               Http2Headers headers, int padding, boolean endStream) {
+            frame(direction, FrameType.HEADERS);
+            super.logHeaders(direction, ctx, streamId, headers, padding, endStream);
+        }
+
+        @Override
+        public void logHeaders(Direction direction, ChannelHandlerContext ctx, int streamId,
+                               Http2Headers headers, int streamDependency, short weight, boolean exclusive,
+                               int padding, boolean endStream) {
+            frame(direction, FrameType.HEADERS);
+            super.logHeaders(direction, ctx, streamId, headers, streamDependency, weight, exclusive,
+                             padding, endStream);
+        }
+
+        @Override
+        public void logPriority(Direction direction, ChannelHandlerContext ctx, int streamId,
+                                int streamDependency, short weight, boolean exclusive) {
+            frame(direction, FrameType.PRIORITY);
+            super.logPriority(direction, ctx, streamId, streamDependency, weight, exclusive);
+        }
+
+        @Override
+        public void logRstStream(Direction direction, ChannelHandlerContext ctx, int streamId,
+                                 long errorCode) {
+            frame(direction, FrameType.RST_STREAM);
+            super.logRstStream(direction, ctx, streamId, errorCode);
+        }
+
+        @Override
+        public void logSettingsAck(Direction direction, ChannelHandlerContext ctx) {
+            frame(direction, FrameType.SETTINGS);
+            super.logSettingsAck(direction, ctx);
+        }
+
+        @Override
+        public void logSettings(Direction direction, ChannelHandlerContext ctx, Http2Settings settings) {
+            frame(direction, FrameType.SETTINGS);
+            super.logSettings(direction, ctx, settings);
+        }
+
+        @Override
+        public void logPing(Direction direction, ChannelHandlerContext ctx, long data) {
+            frame(direction, FrameType.PING);
+            super.logPing(direction, ctx, data);
+        }
+
+        @Override
+        public void logPingAck(Direction direction, ChannelHandlerContext ctx, long data) {
+            frame(direction, FrameType.PING);
+            super.logPingAck(direction, ctx, data);
+        }
+
+        @Override
+        public void logPushPromise(Direction direction, ChannelHandlerContext ctx, int streamId,
+                                   int promisedStreamId, Http2Headers headers, int padding) {
+            frame(direction, FrameType.PUSH_PROMISE);
+            super.logPushPromise(direction, ctx, streamId, promisedStreamId, headers, padding);
+        }
+
+        @Override
+        public void logGoAway(Direction direction, ChannelHandlerContext ctx, int lastStreamId,
+                              long errorCode, ByteBuf debugData) {
+            frame(direction, FrameType.GO_AWAY);
+            goAway(direction, errorCode);
+            super.logGoAway(direction, ctx, lastStreamId, errorCode, debugData);
+        }
+
+        @Override
+        public void logWindowsUpdate(Direction direction, ChannelHandlerContext ctx, int streamId,
+                                     int windowSizeIncrement) {
+            frame(direction, FrameType.WINDOW_UPDATE);
+            super.logWindowsUpdate(direction, ctx, streamId, windowSizeIncrement);
+        }
+
+        @Override
+        public void logUnknownFrame(Direction direction, ChannelHandlerContext ctx, byte frameType,
+                                    int streamId, Http2Flags flags, ByteBuf data) {
+            frame(direction, FrameType.UNKNOWN);
+            super.logUnknownFrame(direction, ctx, frameType, streamId, flags, data);
+        }
+    }
+}
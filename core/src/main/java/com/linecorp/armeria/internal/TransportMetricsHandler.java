@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLSession;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
+
+/**
+ * A Netty handler that records the transport-level {@link TransportMetrics} of a connection. It must be the
+ * first handler of the pipeline so that it sees the bytes on the wire.
+ *
+ * <p>The numbers of bytes are accumulated in the fields of this handler, which are accessed only by the
+ * event loop, and added to the shared counters once per read and flush.
+ */
+public final class TransportMetricsHandler extends ChannelDuplexHandler {
+
+    /**
+     * Returns the {@link TransportMetricsHandler} of the specified {@link Channel}, or {@code null} if
+     * the {@link Channel} does not record the {@link TransportMetrics}.
+     */
+    @Nullable
+    public static TransportMetricsHandler get(Channel channel) {
+        return channel.pipeline().get(TransportMetricsHandler.class);
+    }
+
+    /**
+     * Records the result of a TLS handshake with the {@link TransportMetricsHandler} in the specified
+     * {@link ChannelPipeline}, if any.
+     */
+    public static void onHandshakeCompletion(ChannelPipeline pipeline, SslHandshakeCompletionEvent evt) {
+        final TransportMetricsHandler handler = pipeline.get(TransportMetricsHandler.class);
+        if (handler != null) {
+            handler.onHandshakeCompletion(pipeline.get(SslHandler.class), evt);
+        }
+    }
+
+    private final TransportMetrics metrics;
+
+    private long numBytesRead;
+    private long numBytesWritten;
+    private long unrecordedBytesRead;
+    private long unrecordedBytesWritten;
+
+    private long activeTimeNanos;
+    private long activeTimeMillis;
+    private boolean handshakeRecorded;
+
+    public TransportMetricsHandler(TransportMetrics metrics) {
+        this.metrics = requireNonNull(metrics, "metrics");
+    }
+
+    /**
+     * Records that reading from the connection has been suspended.
+     *
+     * @see InboundTrafficController
+     */
+    void inboundTrafficSuspended() {
+        metrics.inboundTrafficSuspended();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isActive()) {
+            markActive();
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        markActive();
+        ctx.fireChannelActive();
+    }
+
+    private void markActive() {
+        if (activeTimeNanos == 0) {
+            activeTimeNanos = System.nanoTime();
+            activeTimeMillis = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            final int numBytes = ((ByteBuf) msg).readableBytes();
+            numBytesRead += numBytes;
+            unrecordedBytesRead += numBytes;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        recordBytesRead();
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        final long numBytes;
+        if (msg instanceof ByteBuf) {
+            numBytes = ((ByteBuf) msg).readableBytes();
+        } else if (msg instanceof ByteBufHolder) {
+            numBytes = ((ByteBufHolder) msg).content().readableBytes();
+        } else if (msg instanceof FileRegion) {
+            numBytes = ((FileRegion) msg).count();
+        } else {
+            numBytes = 0;
+        }
+        numBytesWritten += numBytes;
+        unrecordedBytesWritten += numBytes;
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        recordBytesWritten();
+        ctx.flush();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        recordBytesRead();
+        recordBytesWritten();
+        metrics.connectionClosed(numBytesRead, numBytesWritten);
+        ctx.fireChannelInactive();
+    }
+
+    private void recordBytesRead() {
+        if (unrecordedBytesRead != 0) {
+            metrics.bytesRead(unrecordedBytesRead);
+            unrecordedBytesRead = 0;
+        }
+    }
+
+    private void recordBytesWritten() {
+        if (unrecordedBytesWritten != 0) {
+            metrics.bytesWritten(unrecordedBytesWritten);
+            unrecordedBytesWritten = 0;
+        }
+    }
+
+    private void onHandshakeCompletion(@Nullable SslHandler sslHandler, SslHandshakeCompletionEvent evt) {
+        if (handshakeRecorded) {
+            return;
+        }
+        handshakeRecorded = true;
+
+        if (!evt.isSuccess()) {
+            metrics.handshakeFailed();
+            return;
+        }
+
+        // A resumed session was created by an earlier handshake, i.e. before this connection was opened.
+        boolean resumed = false;
+        if (sslHandler != null) {
+            final SSLSession session = sslHandler.engine().getSession();
+            resumed = session != null && session.getCreationTime() < activeTimeMillis;
+        }
+        metrics.handshakeSucceeded(System.nanoTime() - activeTimeNanos, resumed);
+    }
+}
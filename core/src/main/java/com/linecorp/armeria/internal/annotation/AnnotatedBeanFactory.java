@@ -17,6 +17,10 @@ package com.linecorp.armeria.internal.annotation;
 
 import static java.util.Objects.requireNonNull;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -26,6 +30,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.ImmutableMap;
 
 import com.linecorp.armeria.internal.annotation.AnnotatedBeanFactoryRegistry.BeanFactoryId;
@@ -38,6 +44,16 @@ final class AnnotatedBeanFactory<T> {
     private final Map<Field, AnnotatedValueResolver> fields;
     private final Map<Method, List<AnnotatedValueResolver>> methods;
 
+    // The MethodHandles which are unreflected from the constructor, methods and fields above, so that
+    // a bean is created without reflective calls. A handle takes its arguments as an Object[].
+    @Nullable
+    private final MethodHandle constructorHandle;
+    private final MethodHandle[] methodHandles;
+    private final List<AnnotatedValueResolver>[] methodResolvers;
+    private final MethodHandle[] fieldSetters;
+    private final AnnotatedValueResolver[] fieldResolvers;
+
+    @SuppressWarnings("unchecked")
     AnnotatedBeanFactory(BeanFactoryId beanFactoryId,
                          Entry<Constructor<T>, List<AnnotatedValueResolver>> constructor,
                          Map<Method, List<AnnotatedValueResolver>> methods,
@@ -46,6 +62,42 @@ final class AnnotatedBeanFactory<T> {
         this.constructor = immutableEntry(requireNonNull(constructor, "constructor"));
         this.fields = ImmutableMap.copyOf(requireNonNull(fields, "fields"));
         this.methods = ImmutableMap.copyOf(requireNonNull(methods, "methods"));
+
+        final Lookup lookup = MethodHandles.lookup();
+        try {
+            final Constructor<T> ctor = this.constructor.getKey();
+            if (ctor != null) {
+                final int numParams = ctor.getParameterCount();
+                constructorHandle = lookup.unreflectConstructor(ctor)
+                                          .asType(MethodType.genericMethodType(numParams))
+                                          .asSpreader(Object[].class, numParams);
+            } else {
+                constructorHandle = null;
+            }
+
+            methodHandles = new MethodHandle[this.methods.size()];
+            methodResolvers = new List[this.methods.size()];
+            int i = 0;
+            for (Entry<Method, List<AnnotatedValueResolver>> e : this.methods.entrySet()) {
+                final int numParams = e.getKey().getParameterCount();
+                methodHandles[i] = lookup.unreflect(e.getKey())
+                                         .asType(MethodType.genericMethodType(numParams + 1)
+                                                           .changeReturnType(void.class))
+                                         .asSpreader(Object[].class, numParams);
+                methodResolvers[i++] = e.getValue();
+            }
+
+            fieldSetters = new MethodHandle[this.fields.size()];
+            fieldResolvers = new AnnotatedValueResolver[this.fields.size()];
+            i = 0;
+            for (Entry<Field, AnnotatedValueResolver> e : this.fields.entrySet()) {
+                fieldSetters[i] = lookup.unreflectSetter(e.getKey())
+                                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                fieldResolvers[i++] = e.getValue();
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("cannot access the members of: " + beanFactoryId, e);
+        }
     }
 
     private static <K, V> Entry<K, V> immutableEntry(Entry<K, V> entry) {
@@ -55,21 +107,23 @@ final class AnnotatedBeanFactory<T> {
         return new SimpleImmutableEntry<>(entry);
     }
 
+    @SuppressWarnings("unchecked")
     T create(ResolverContext resolverContext) {
         try {
+            assert constructorHandle != null;
             final Object[] constructorArgs = AnnotatedValueResolver.toArguments(
                     constructor.getValue(), resolverContext);
-            final T instance = constructor.getKey().newInstance(constructorArgs);
+            final T instance = (T) (Object) constructorHandle.invokeExact(constructorArgs);
 
-            for (final Entry<Method, List<AnnotatedValueResolver>> method : methods.entrySet()) {
+            for (int i = 0; i < methodHandles.length; i++) {
                 final Object[] methodArgs = AnnotatedValueResolver.toArguments(
-                        method.getValue(), resolverContext);
-                method.getKey().invoke(instance, methodArgs);
+                        methodResolvers[i], resolverContext);
+                methodHandles[i].invokeExact((Object) instance, methodArgs);
             }
 
-            for (final Entry<Field, AnnotatedValueResolver> field : fields.entrySet()) {
-                final Object fieldArg = field.getValue().resolve(resolverContext);
-                field.getKey().set(instance, fieldArg);
+            for (int i = 0; i < fieldSetters.length; i++) {
+                final Object fieldArg = fieldResolvers[i].resolve(resolverContext);
+                fieldSetters[i].invokeExact((Object) instance, fieldArg);
             }
 
             return instance;
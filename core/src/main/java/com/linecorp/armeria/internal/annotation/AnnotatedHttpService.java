@@ -19,6 +19,7 @@ package com.linecorp.armeria.internal.annotation;
 import static com.linecorp.armeria.internal.ObjectCollectingUtil.collectFrom;
 import static com.linecorp.armeria.internal.annotation.AnnotatedValueResolver.AggregationStrategy.aggregationRequired;
 import static com.linecorp.armeria.internal.annotation.AnnotatedValueResolver.toArguments;
+import static com.linecorp.armeria.internal.annotation.AnnotationUtil.findFirst;
 import static java.util.Objects.requireNonNull;
 
 import java.lang.reflect.Method;
@@ -28,6 +29,8 @@ import java.util.List;
 import java.util.ServiceLoader;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -56,6 +59,7 @@ import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.ResponseHeaders;
 import com.linecorp.armeria.common.ResponseHeadersBuilder;
+import com.linecorp.armeria.common.util.BlockingTaskExecutors;
 import com.linecorp.armeria.common.util.Exceptions;
 import com.linecorp.armeria.common.util.SafeCloseable;
 import com.linecorp.armeria.internal.FallthroughException;
@@ -75,6 +79,7 @@ import com.linecorp.armeria.server.annotation.JacksonResponseConverterFunction;
 import com.linecorp.armeria.server.annotation.Path;
 import com.linecorp.armeria.server.annotation.ResponseConverterFunction;
 import com.linecorp.armeria.server.annotation.ResponseConverterFunctionProvider;
+import com.linecorp.armeria.server.annotation.RunOnVirtualThread;
 import com.linecorp.armeria.server.annotation.StringResponseConverterFunction;
 
 /**
@@ -98,8 +103,14 @@ public class AnnotatedHttpService implements HttpService {
                              new StringResponseConverterFunction(),
                              new ByteArrayResponseConverterFunction());
 
+    private static final Object[] EMPTY_ARGUMENTS = new Object[0];
+
+    private static final CompletableFuture<AggregatedHttpRequest> NO_AGGREGATION =
+            CompletableFuture.completedFuture(null);
+
     private final Object object;
     private final Method method;
+    private final AnnotatedMethodInvoker invoker;
     private final List<AnnotatedValueResolver> resolvers;
 
     private final AggregationStrategy aggregationStrategy;
@@ -112,6 +123,11 @@ public class AnnotatedHttpService implements HttpService {
 
     private final ResponseType responseType;
 
+    /**
+     * Whether the service method is annotated with {@link RunOnVirtualThread}.
+     */
+    private final boolean runOnVirtualThread;
+
     AnnotatedHttpService(Object object, Method method,
                          List<AnnotatedValueResolver> resolvers,
                          List<ExceptionHandlerFunction> exceptionHandlers,
@@ -141,7 +157,9 @@ public class AnnotatedHttpService implements HttpService {
             responseType = ResponseType.OTHER_OBJECTS;
         }
 
-        this.method.setAccessible(true);
+        invoker = AnnotatedMethodInvoker.of(object, method);
+        runOnVirtualThread = findFirst(method, RunOnVirtualThread.class).isPresent() ||
+                             findFirst(object.getClass(), RunOnVirtualThread.class).isPresent();
     }
 
     private static ResponseConverterFunction responseConverter(
@@ -220,43 +238,71 @@ public class AnnotatedHttpService implements HttpService {
     /**
      * Executes the service method in different ways regarding its return type and whether the request is
      * required to be aggregated. If the return type of the method is not a {@link CompletionStage} or
-     * {@link HttpResponse}, it will be executed in the blocking task executor.
+     * {@link HttpResponse}, it will be executed in the blocking task executor. A method annotated with
+     * {@link RunOnVirtualThread} is always executed in a virtual thread, or in the blocking task executor
+     * if virtual threads are not supported by the JVM.
      */
     private CompletionStage<HttpResponse> serve0(ServiceRequestContext ctx, HttpRequest req) {
         final CompletableFuture<AggregatedHttpRequest> f =
-                aggregationRequired(aggregationStrategy, req) ? req.aggregate()
-                                                              : CompletableFuture.completedFuture(null);
+                aggregationRequired(aggregationStrategy, ctx, req, resolvers) ? req.aggregate()
+                                                                              : NO_AGGREGATION;
 
         ctx.setAdditionalResponseHeaders(defaultHttpHeaders);
         ctx.setAdditionalResponseTrailers(defaultHttpTrailers);
 
         switch (responseType) {
-            case HTTP_RESPONSE:
-                return f.thenApply(
+            case HTTP_RESPONSE: {
+                final Function<AggregatedHttpRequest, HttpResponse> fn =
                         msg -> new ExceptionFilteredHttpResponse(ctx, req, (HttpResponse) invoke(ctx, req, msg),
-                                                                 exceptionHandler));
-            case COMPLETION_STAGE:
-                return f.thenCompose(msg -> toCompletionStage(invoke(ctx, req, msg)))
-                        .handle((result, cause) -> cause == null ? convertResponse(ctx, req, null, result,
-                                                                                   HttpHeaders.of())
-                                                                 : exceptionHandler.handleException(ctx, req,
-                                                                                                    cause));
+                                                                 exceptionHandler);
+                return runOnVirtualThread ? f.thenApplyAsync(fn, blockingTaskExecutor(ctx))
+                                          : f.thenApply(fn);
+            }
+            case COMPLETION_STAGE: {
+                final CompletableFuture<?> composed =
+                        runOnVirtualThread ? f.thenComposeAsync(msg -> toCompletionStage(invoke(ctx, req, msg)),
+                                                                blockingTaskExecutor(ctx))
+                                           : f.thenCompose(msg -> toCompletionStage(invoke(ctx, req, msg)));
+                return composed.handle(
+                        (result, cause) -> cause == null ? convertResponse(ctx, req, null, result,
+                                                                           HttpHeaders.of())
+                                                         : exceptionHandler.handleException(ctx, req, cause));
+            }
             default:
                 return f.thenApplyAsync(msg -> convertResponse(ctx, req, null, invoke(ctx, req, msg),
                                                                HttpHeaders.of()),
-                                        ctx.blockingTaskExecutor());
+                                        blockingTaskExecutor(ctx));
         }
     }
 
+    /**
+     * Returns the {@link Executor} which invokes a blocking service method. A method annotated with
+     * {@link RunOnVirtualThread} is invoked in a new virtual thread if supported by the JVM.
+     */
+    private Executor blockingTaskExecutor(ServiceRequestContext ctx) {
+        if (runOnVirtualThread) {
+            final ExecutorService executor = VirtualThreadExecutorHolder.executor;
+            if (executor != null) {
+                return ctx.makeContextAware(executor);
+            }
+        }
+        return ctx.blockingTaskExecutor();
+    }
+
     /**
      * Invokes the service method with arguments.
      */
     private Object invoke(ServiceRequestContext ctx, HttpRequest req,
                           @Nullable AggregatedHttpRequest aggregatedRequest) {
         try (SafeCloseable ignored = ctx.push(false)) {
-            final ResolverContext resolverContext = new ResolverContext(ctx, req, aggregatedRequest);
-            final Object[] arguments = toArguments(resolvers, resolverContext);
-            return method.invoke(object, arguments);
+            final Object[] arguments;
+            if (resolvers.isEmpty()) {
+                // No need to create a context for a method without parameters.
+                arguments = EMPTY_ARGUMENTS;
+            } else {
+                arguments = toArguments(resolvers, new ResolverContext(ctx, req, aggregatedRequest));
+            }
+            return invoker.invoke(arguments);
         } catch (Throwable cause) {
             return exceptionHandler.handleException(ctx, req, cause);
         }
@@ -548,6 +594,17 @@ public class AnnotatedHttpService implements HttpService {
         }
     }
 
+    /**
+     * Holds the {@link ExecutorService} which runs the methods annotated with {@link RunOnVirtualThread},
+     * which is created only when such a method is invoked for the first time.
+     */
+    private static final class VirtualThreadExecutorHolder {
+        @Nullable
+        static final ExecutorService executor =
+                BlockingTaskExecutors.isVirtualThreadAvailable() ?
+                BlockingTaskExecutors.newVirtualThreadExecutor("armeria-annotated-virtual-threads") : null;
+    }
+
     /**
      * Response type classification of the annotated {@link Method}.
      */
@@ -113,5 +113,34 @@ final class AnnotatedHttpServiceTypeUtil {
                 "Can't convert '" + str + "' to type '" + clazz.getSimpleName() + "'.");
     }
 
+    /**
+     * Returns a {@link Function} which converts a string to the specified {@link Class}, so that
+     * the conversion function is looked up only once rather than for every conversion. The returned
+     * {@link Function} throws exceptions in the same way as {@link #stringToType(String, Class)}.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Function<String, T> stringConverter(Class<T> clazz) {
+        final Function<String, T> func = (Function<String, T>) supportedElementTypes.get(clazz);
+        if (func == null) {
+            return str -> {
+                throw new IllegalArgumentException(
+                        "Can't convert '" + str + "' to type '" + clazz.getSimpleName() + "'.");
+            };
+        }
+        if (clazz == String.class) {
+            return func;
+        }
+        return str -> {
+            try {
+                return func.apply(str);
+            } catch (NumberFormatException e) {
+                throw e;
+            } catch (Throwable cause) {
+                throw new IllegalArgumentException(
+                        "Can't convert '" + str + "' to type '" + clazz.getSimpleName() + "'.", cause);
+            }
+        };
+    }
+
     private AnnotatedHttpServiceTypeUtil() {}
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal.annotation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes an annotated service method via a {@link MethodHandle} which is bound to the service object
+ * when the service is built. Unlike {@link Method#invoke(Object, Object...)}, it does not check the access
+ * and copy the arguments on every invocation, and a method with a few parameters is invoked without
+ * spreading the argument array.
+ */
+final class AnnotatedMethodInvoker {
+
+    /**
+     * The maximum number of parameters which are passed to {@link MethodHandle#invokeExact(Object...)}
+     * one by one. A method with more parameters is invoked with a spread argument array.
+     */
+    private static final int MAX_UNSPREAD_PARAMETERS = 4;
+
+    static AnnotatedMethodInvoker of(Object object, Method method) {
+        requireNonNull(object, "object");
+        requireNonNull(method, "method");
+
+        method.setAccessible(true);
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("failed to access the method: " + method, e);
+        }
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(object);
+        }
+
+        final int parameterCount = method.getParameterCount();
+        handle = handle.asType(MethodType.genericMethodType(parameterCount));
+        if (parameterCount > MAX_UNSPREAD_PARAMETERS) {
+            handle = handle.asSpreader(Object[].class, parameterCount);
+        }
+        return new AnnotatedMethodInvoker(handle, parameterCount);
+    }
+
+    private final MethodHandle handle;
+    private final int parameterCount;
+
+    private AnnotatedMethodInvoker(MethodHandle handle, int parameterCount) {
+        this.handle = handle;
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * Invokes the method with the specified {@code arguments}. Unlike
+     * {@link Method#invoke(Object, Object...)}, the exception raised by the method is thrown as it is
+     * without being wrapped.
+     */
+    Object invoke(Object[] arguments) throws Throwable {
+        switch (parameterCount) {
+            case 0:
+                return (Object) handle.invokeExact();
+            case 1:
+                return (Object) handle.invokeExact(arguments[0]);
+            case 2:
+                return (Object) handle.invokeExact(arguments[0], arguments[1]);
+            case 3:
+                return (Object) handle.invokeExact(arguments[0], arguments[1], arguments[2]);
+            case 4:
+                return (Object) handle.invokeExact(arguments[0], arguments[1], arguments[2], arguments[3]);
+            default:
+                return (Object) handle.invokeExact(arguments);
+        }
+    }
+}
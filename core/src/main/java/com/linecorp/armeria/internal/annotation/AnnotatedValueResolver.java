@@ -25,11 +25,15 @@ import static com.linecorp.armeria.internal.annotation.AnnotatedBeanFactoryRegis
 import static com.linecorp.armeria.internal.annotation.AnnotatedElementNameUtil.findName;
 import static com.linecorp.armeria.internal.annotation.AnnotatedHttpServiceFactory.findDescription;
 import static com.linecorp.armeria.internal.annotation.AnnotatedHttpServiceTypeUtil.normalizeContainerType;
+import static com.linecorp.armeria.internal.annotation.AnnotatedHttpServiceTypeUtil.stringConverter;
 import static com.linecorp.armeria.internal.annotation.AnnotatedHttpServiceTypeUtil.stringToType;
 import static com.linecorp.armeria.internal.annotation.AnnotatedHttpServiceTypeUtil.validateElementType;
 import static com.linecorp.armeria.internal.annotation.AnnotationUtil.findDeclared;
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Constructor;
@@ -39,16 +43,22 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -56,16 +66,19 @@ import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Ascii;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MapMaker;
 
 import com.linecorp.armeria.common.AggregatedHttpRequest;
+import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpParameters;
@@ -74,8 +87,11 @@ import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.RequestContext;
 import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.multipart.Multipart;
+import com.linecorp.armeria.common.stream.StreamMessage;
 import com.linecorp.armeria.common.util.Exceptions;
 import com.linecorp.armeria.internal.FallthroughException;
+import com.linecorp.armeria.internal.MultipartParser;
 import com.linecorp.armeria.internal.annotation.AnnotatedBeanFactoryRegistry.BeanFactoryId;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.annotation.ByteArrayRequestConverterFunction;
@@ -83,12 +99,16 @@ import com.linecorp.armeria.server.annotation.Cookies;
 import com.linecorp.armeria.server.annotation.Default;
 import com.linecorp.armeria.server.annotation.Header;
 import com.linecorp.armeria.server.annotation.JacksonRequestConverterFunction;
+import com.linecorp.armeria.server.annotation.JacksonRequestDecoder;
 import com.linecorp.armeria.server.annotation.Param;
 import com.linecorp.armeria.server.annotation.RequestConverter;
 import com.linecorp.armeria.server.annotation.RequestConverterFunction;
 import com.linecorp.armeria.server.annotation.RequestObject;
 import com.linecorp.armeria.server.annotation.StringRequestConverterFunction;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.handler.codec.http.HttpConstants;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.codec.http.cookie.Cookie;
@@ -120,7 +140,12 @@ final class AnnotatedValueResolver {
         if (resolvers.isEmpty()) {
             return emptyArguments;
         }
-        return resolvers.stream().map(resolver -> resolver.resolve(resolverContext)).toArray();
+        final int size = resolvers.size();
+        final Object[] arguments = new Object[size];
+        for (int i = 0; i < size; i++) {
+            arguments[i] = resolvers.get(i).resolve(resolverContext);
+        }
+        return arguments;
     }
 
     /**
@@ -491,6 +516,13 @@ final class AnnotatedValueResolver {
                                                           Class<?> type, Set<String> pathParams,
                                                           List<RequestObjectResolver> objectResolvers,
                                                           @Nullable String description) {
+        // Decode a stream of JSON only when a user did not specify a request converter for the types.
+        if ((type == StreamMessage.class || type == Publisher.class ||
+             type == CompletableFuture.class || type == CompletionStage.class) &&
+            !hasUserRequestConverters(objectResolvers)) {
+            return ofStreamingJsonRequest(annotatedElement, type, description);
+        }
+
         // To do recursive resolution like a bean inside another bean, the original object resolvers should
         // be passed into the AnnotatedBeanFactoryRegistry#register.
         final BeanFactoryId beanFactoryId = AnnotatedBeanFactoryRegistry.register(type, pathParams,
@@ -504,6 +536,46 @@ final class AnnotatedValueResolver {
                 .build();
     }
 
+    /**
+     * Returns whether the specified {@link RequestObjectResolver}s contain the ones which are created from
+     * the {@link RequestConverter}s or {@link RequestConverterFunction}s specified by a user.
+     */
+    private static boolean hasUserRequestConverters(List<RequestObjectResolver> objectResolvers) {
+        return objectResolvers.stream().anyMatch(r -> !defaultRequestConverters.contains(r));
+    }
+
+    /**
+     * Returns a resolver which decodes a JSON request body as it arrives, without aggregating the request.
+     * A {@link StreamMessage} or a {@link Publisher} emits the elements of a JSON array, and
+     * a {@link CompletionStage} is completed with the decoded JSON document.
+     */
+    private static AnnotatedValueResolver ofStreamingJsonRequest(AnnotatedElement annotatedElement,
+                                                                 Class<?> type,
+                                                                 @Nullable String description) {
+        final Type parameterizedType = parameterizedTypeOf(annotatedElement);
+        final Type valueType =
+                parameterizedType instanceof ParameterizedType
+                ? ((ParameterizedType) parameterizedType).getActualTypeArguments()[0] : Object.class;
+        final boolean array = type == StreamMessage.class || type == Publisher.class;
+
+        return builder(annotatedElement, type)
+                .annotationType(RequestObject.class)
+                .description(description)
+                .resolver((unused, ctx) -> {
+                    final MediaType contentType = ctx.request().contentType();
+                    if (contentType == null || !(contentType.is(MediaType.JSON) ||
+                                                 contentType.subtype().endsWith("+json"))) {
+                        throw new IllegalArgumentException(
+                                "cannot decode a non-JSON request as a stream: " + contentType);
+                    }
+                    final JacksonRequestDecoder decoder = JacksonRequestDecoder.of();
+                    final ServiceRequestContext sctx = ctx.context();
+                    return array ? decoder.decodeArray(ctx.request(), valueType, sctx.eventLoop())
+                                 : decoder.decode(ctx.request(), valueType, sctx.eventLoop());
+                })
+                .build();
+    }
+
     @Nullable
     private static AnnotatedValueResolver ofInjectableTypes(AnnotatedElement annotatedElement,
                                                             Class<?> type) {
@@ -554,6 +626,19 @@ final class AnnotatedValueResolver {
                     .build();
         }
 
+        if (actual == Multipart.class) {
+            return builder(annotatedElement, type)
+                    .supportOptional(true)
+                    .resolver((unused, ctx) -> {
+                        // Decode the aggregated request if the request has been aggregated for other
+                        // parameters, e.g. 'AggregatedHttpRequest'.
+                        final AggregatedHttpRequest aggregatedRequest = ctx.aggregatedRequest();
+                        return Multipart.from(aggregatedRequest != null ? HttpRequest.of(aggregatedRequest)
+                                                                        : ctx.request());
+                    })
+                    .build();
+        }
+
         if (actual == HttpParameters.class) {
             return builder(annotatedElement, type)
                     .supportOptional(true)
@@ -608,14 +693,13 @@ final class AnnotatedValueResolver {
             }
 
             try {
-                assert resolver.containerType() != null;
-                @SuppressWarnings("unchecked")
-                final Collection<Object> resolvedValues =
-                        (Collection<Object>) resolver.containerType().getDeclaredConstructor().newInstance();
+                final Collection<Object> resolvedValues = resolver.newContainer();
 
                 // Do not convert value here because the element type is String.
                 if (values != null && !values.isEmpty()) {
-                    values.stream().map(resolver::convert).forEach(resolvedValues::add);
+                    for (final String value : values) {
+                        resolvedValues.add(resolver.convert(value));
+                    }
                 } else {
                     final Object defaultValue = resolver.defaultOrException();
                     if (defaultValue != null) {
@@ -693,6 +777,19 @@ final class AnnotatedValueResolver {
     @Nullable
     private final EnumConverter<?> enumConverter;
 
+    /**
+     * Converts a string into the {@link #elementType}, which is chosen when this resolver is built
+     * so that it is not looked up for every request.
+     */
+    private final Function<String, ?> stringConverter;
+
+    /**
+     * Creates a new instance of the {@link #containerType}, or {@code null} if this resolver
+     * does not have a container.
+     */
+    @Nullable
+    private final Supplier<Collection<Object>> containerFactory;
+
     @Nullable
     private final BeanFactoryId beanFactoryId;
 
@@ -722,6 +819,8 @@ final class AnnotatedValueResolver {
         this.beanFactoryId = beanFactoryId;
         this.aggregationStrategy = requireNonNull(aggregationStrategy, "aggregationStrategy");
         enumConverter = enumConverter(elementType);
+        stringConverter = enumConverter != null ? enumConverter::toEnum : stringConverter(elementType);
+        containerFactory = hasContainer() ? containerFactory(containerType) : null;
 
         // Must be called after initializing 'enumConverter'.
         this.defaultValue = defaultValue != null ? convert(defaultValue, elementType, enumConverter)
@@ -739,6 +838,30 @@ final class AnnotatedValueResolver {
         });
     }
 
+    @SuppressWarnings("unchecked")
+    private static Supplier<Collection<Object>> containerFactory(Class<?> containerType) {
+        if (containerType == ArrayList.class) {
+            return ArrayList::new;
+        }
+        if (containerType == LinkedHashSet.class) {
+            return LinkedHashSet::new;
+        }
+
+        final Constructor<?> constructor;
+        try {
+            constructor = containerType.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Unsupported container type: " + containerType.getName(), e);
+        }
+        return () -> {
+            try {
+                return (Collection<Object>) constructor.newInstance();
+            } catch (Exception e) {
+                return Exceptions.throwUnsafely(e);
+            }
+        };
+    }
+
     @Nullable
     Class<? extends Annotation> annotationType() {
         return annotationType;
@@ -814,7 +937,12 @@ final class AnnotatedValueResolver {
         if (value == null) {
             return defaultOrException();
         }
-        return convert(value, elementType, enumConverter);
+        return stringConverter.apply(value);
+    }
+
+    private Collection<Object> newContainer() {
+        assert containerFactory != null;
+        return containerFactory.get();
     }
 
     @Nullable
@@ -1095,29 +1223,87 @@ final class AnnotatedValueResolver {
         return contentType != null && contentType.belongsTo(MediaType.FORM_DATA);
     }
 
+    private static boolean isMultipartFormData(@Nullable MediaType contentType) {
+        return contentType != null && contentType.belongsTo(MediaType.MULTIPART_FORM_DATA);
+    }
+
+    /**
+     * Returns whether the specified type is injected with the request which has not been aggregated.
+     */
+    private static boolean isStreamingRequestType(Class<?> type) {
+        return type == Request.class || type == HttpRequest.class || type == Multipart.class;
+    }
+
     enum AggregationStrategy {
-        NONE, ALWAYS, FOR_FORM_DATA;
+        /**
+         * Never aggregates the request.
+         */
+        NONE,
+        /**
+         * Always aggregates the request.
+         */
+        ALWAYS,
+        /**
+         * Aggregates a URL-encoded form request, and a {@code multipart/form-data} request whose fields
+         * may be needed to resolve the parameters which are not found in the query string.
+         */
+        FOR_FORM_DATA,
+        /**
+         * Aggregates a URL-encoded form request only. Used instead of {@link #FOR_FORM_DATA} when
+         * the method receives the request as a stream, e.g. {@link Multipart} or {@link HttpRequest}.
+         */
+        FOR_URL_ENCODED_FORM_DATA;
 
         /**
          * Returns whether the request should be aggregated.
          */
-        static boolean aggregationRequired(AggregationStrategy strategy, HttpRequest req) {
+        static boolean aggregationRequired(AggregationStrategy strategy, ServiceRequestContext ctx,
+                                           HttpRequest req, List<AnnotatedValueResolver> resolvers) {
             requireNonNull(strategy, "strategy");
             switch (strategy) {
                 case ALWAYS:
                     return true;
-                case FOR_FORM_DATA:
+                case FOR_FORM_DATA: {
+                    final MediaType contentType = req.contentType();
+                    if (isMultipartFormData(contentType)) {
+                        return !resolvableFromQuery(ctx.query(), resolvers);
+                    }
+                    return isFormData(contentType);
+                }
+                case FOR_URL_ENCODED_FORM_DATA:
                     return isFormData(req.contentType());
             }
             return false;
         }
 
+        /**
+         * Returns whether all the values which may come from form data can be resolved from
+         * the specified query string, so that a {@code multipart/form-data} request does not have to be
+         * aggregated.
+         */
+        private static boolean resolvableFromQuery(@Nullable String query,
+                                                   List<AnnotatedValueResolver> resolvers) {
+            final Map<String, List<String>> parameters =
+                    query != null ? new QueryStringDecoder(query, false).parameters() : ImmutableMap.of();
+            for (final AnnotatedValueResolver r : resolvers) {
+                if (r.aggregationStrategy() != FOR_FORM_DATA) {
+                    continue;
+                }
+                // e.g. 'HttpParameters' or a bean may need any of the fields.
+                if (r.annotationType() != Param.class || !parameters.containsKey(r.httpElementName())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         /**
          * Returns {@link AggregationStrategy} which specifies how to aggregate the request
          * for injecting its parameters.
          */
         static AggregationStrategy from(List<AnnotatedValueResolver> resolvers) {
             AggregationStrategy strategy = NONE;
+            boolean streaming = false;
             for (final AnnotatedValueResolver r : resolvers) {
                 switch (r.aggregationStrategy()) {
                     case ALWAYS:
@@ -1126,8 +1312,12 @@ final class AnnotatedValueResolver {
                         strategy = FOR_FORM_DATA;
                         break;
                 }
+                if (r.annotationType() == null && isStreamingRequestType(r.elementType())) {
+                    streaming = true;
+                }
             }
-            return strategy;
+            // Do not aggregate a multipart request which the method is going to stream.
+            return strategy == FOR_FORM_DATA && streaming ? FOR_URL_ENCODED_FORM_DATA : strategy;
         }
     }
 
@@ -1209,16 +1399,20 @@ final class AnnotatedValueResolver {
                     parameters = new QueryStringDecoder(query, false).parameters();
                 }
 
-                if (message != null && isFormData(contentType)) {
-                    // Respect 'charset' attribute of the 'content-type' header if it exists.
-                    final String body = message.content(
-                            contentType.charset().orElse(StandardCharsets.US_ASCII));
-                    if (!body.isEmpty()) {
-                        final Map<String, List<String>> p =
-                                new QueryStringDecoder(body, false).parameters();
+                if (message != null && (isFormData(contentType) || isMultipartFormData(contentType))) {
+                    final Map<String, List<String>> p;
+                    if (isMultipartFormData(contentType)) {
+                        p = multipartFormFields(contentType, message.content());
+                    } else {
+                        // Respect 'charset' attribute of the 'content-type' header if it exists.
+                        final String body = message.content(
+                                contentType.charset().orElse(StandardCharsets.US_ASCII));
+                        p = body.isEmpty() ? null : new QueryStringDecoder(body, false).parameters();
+                    }
+                    if (p != null && !p.isEmpty()) {
                         if (parameters == null) {
                             parameters = p;
-                        } else if (p != null) {
+                        } else {
                             parameters.putAll(p);
                         }
                     }
@@ -1236,6 +1430,77 @@ final class AnnotatedValueResolver {
                 return EMPTY_PARAMETERS;
             }
         }
+
+        /**
+         * Decodes the fields of a {@code multipart/form-data} body. The parts with a {@code filename} are
+         * skipped because they are meant to be received as a {@link Multipart}.
+         */
+        private static Map<String, List<String>> multipartFormFields(MediaType contentType,
+                                                                     HttpData content) {
+            final List<String> boundary = contentType.parameters().get("boundary");
+            if (boundary == null || boundary.isEmpty()) {
+                return ImmutableMap.of();
+            }
+
+            final MultipartFormFieldCollector collector = new MultipartFormFieldCollector();
+            final MultipartParser parser =
+                    new MultipartParser(boundary.get(0), collector, UnpooledByteBufAllocator.DEFAULT);
+            parser.parse(Unpooled.wrappedBuffer(content.array()));
+            parser.finish();
+            return collector.fields;
+        }
+    }
+
+    /**
+     * Collects the values of the {@code multipart/form-data} fields without a {@code filename}.
+     */
+    private static final class MultipartFormFieldCollector implements MultipartParser.Handler {
+
+        final Map<String, List<String>> fields = new LinkedHashMap<>();
+        private final ByteArrayOutputStream value = new ByteArrayOutputStream();
+
+        @Nullable
+        private String name;
+        private Charset charset = StandardCharsets.UTF_8;
+
+        @Override
+        public void onPartStart(HttpHeaders headers) {
+            final String disposition = headers.get(HttpHeaderNames.CONTENT_DISPOSITION);
+            if (disposition != null && MultipartParser.dispositionParameter(disposition, "filename") == null) {
+                name = MultipartParser.dispositionParameter(disposition, "name");
+            } else {
+                name = null;
+            }
+            final MediaType contentType = headers.contentType();
+            charset = contentType != null ? contentType.charset().orElse(StandardCharsets.UTF_8)
+                                          : StandardCharsets.UTF_8;
+            value.reset();
+        }
+
+        @Override
+        public void onPartContent(ByteBuf content) {
+            try {
+                if (name != null) {
+                    content.readBytes(value, content.readableBytes());
+                }
+            } catch (IOException e) {
+                // Never happens with a ByteArrayOutputStream.
+                throw new UncheckedIOException(e);
+            } finally {
+                content.release();
+            }
+        }
+
+        @Override
+        public void onPartEnd() {
+            if (name != null) {
+                fields.computeIfAbsent(name, unused -> new ArrayList<>())
+                      .add(new String(value.toByteArray(), charset));
+            }
+        }
+
+        @Override
+        public void onEnd() {}
     }
 
     private static final class EnumConverter<T extends Enum<T>> {
@@ -39,6 +39,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -88,6 +89,9 @@ abstract class AbstractServiceBindingBuilder {
     @Nullable
     private AccessLogWriter accessLogWriter;
     private boolean shutdownAccessLogWriterOnStop;
+    @Nullable
+    private ExecutorService blockingTaskExecutor;
+    private boolean shutdownBlockingTaskExecutorOnStop;
 
     /**
      * Sets the path pattern that a {@link Service} will be bound to.
@@ -410,6 +414,21 @@ abstract class AbstractServiceBindingBuilder {
         return this;
     }
 
+    /**
+     * Sets the {@link ExecutorService} dedicated to the blocking tasks of this {@link Service}, which is
+     * returned by {@link ServiceRequestContext#blockingTaskExecutor()}. If not set,
+     * {@link ServerConfig#blockingTaskExecutor()} is used. Specify a {@link BlockingTaskBulkhead} to
+     * limit the number of the threads and reject the tasks which waited too long.
+     *
+     * @param shutdownOnStop whether to shut down the {@link ExecutorService} when the {@link Server} stops
+     */
+    public AbstractServiceBindingBuilder blockingTaskExecutor(ExecutorService blockingTaskExecutor,
+                                                              boolean shutdownOnStop) {
+        this.blockingTaskExecutor = requireNonNull(blockingTaskExecutor, "blockingTaskExecutor");
+        shutdownBlockingTaskExecutorOnStop = shutdownOnStop;
+        return this;
+    }
+
     /**
      * Decorates a {@link Service} with the specified {@code decorator}.
      *
@@ -470,6 +489,10 @@ abstract class AbstractServiceBindingBuilder {
             if (accessLogWriter != null) {
                 serviceConfigBuilder.accessLogWriter(accessLogWriter, shutdownAccessLogWriterOnStop);
             }
+            if (blockingTaskExecutor != null) {
+                serviceConfigBuilder.blockingTaskExecutor(blockingTaskExecutor,
+                                                          shutdownBlockingTaskExecutorOnStop);
+            }
             serviceConfigBuilder(serviceConfigBuilder);
         }
     }
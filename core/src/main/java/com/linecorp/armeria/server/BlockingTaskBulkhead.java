@@ -0,0 +1,264 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.util.ThreadFactories;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A bounded {@link ExecutorService} which is dedicated to the blocking tasks of one or more services, so that
+ * a slow service does not starve the other services which share the
+ * {@linkplain ServerConfig#blockingTaskExecutor() server-wide blocking task executor}. Use
+ * {@link ServiceBindingBuilder#blockingTaskExecutor(ExecutorService, boolean)} to bind a bulkhead to a
+ * service, which makes {@link ServiceRequestContext#blockingTaskExecutor()} submit the tasks to it.
+ *
+ * <p>A task submitted via {@link ServiceRequestContext#blockingTaskExecutor()} is rejected when the queue of
+ * the bulkhead is full or the task has waited in the queue longer than the
+ * {@linkplain BlockingTaskBulkheadBuilder#maxQueueWaitMillis(long) maximum queue wait}. A rejected task is
+ * not run, and its request is timed out immediately so that the client gets a
+ * {@code 503 Service Unavailable} response rather than a late one. A task submitted to the bulkhead directly
+ * is run regardless of its queue wait, and {@link #execute(Runnable)} throws a
+ * {@link RejectedExecutionException} when the queue is full.
+ *
+ * <p>A bulkhead exports the following meters, tagged with its name:
+ * <ul>
+ *   <li>{@code armeria.server.blockingTaskBulkhead.queueWait} - how long the tasks waited in the queue,
+ *       with a percentile histogram</li>
+ *   <li>{@code armeria.server.blockingTaskBulkhead.pending} - the number of the tasks in the queue</li>
+ *   <li>{@code armeria.server.blockingTaskBulkhead.active} - the number of the running tasks</li>
+ *   <li>{@code armeria.server.blockingTaskBulkhead.rejected} - the number of the rejected tasks, tagged with
+ *       the {@code reason}, which is either {@code queueFull} or {@code queueWait}</li>
+ * </ul>
+ */
+public final class BlockingTaskBulkhead extends AbstractExecutorService {
+
+    private static final String METER_NAME_PREFIX = "armeria.server.blockingTaskBulkhead";
+
+    /**
+     * Returns a new {@link BlockingTaskBulkheadBuilder} which builds a {@link BlockingTaskBulkhead} with
+     * the specified {@code name}.
+     *
+     * @param name the name of the bulkhead, which is used as the prefix of the thread names and
+     *             the {@code name} tag of the meters
+     */
+    public static BlockingTaskBulkheadBuilder builder(String name) {
+        return new BlockingTaskBulkheadBuilder(name);
+    }
+
+    private final String name;
+    private final long maxQueueWaitNanos;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer queueWait;
+    private final Counter queueFullRejections;
+    private final Counter queueWaitRejections;
+
+    BlockingTaskBulkhead(String name, int maxThreads, int maxQueueSize, long maxQueueWaitMillis,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis);
+        executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                                          new ArrayBlockingQueue<>(maxQueueSize),
+                                          ThreadFactories.newThreadFactory(name, true));
+        executor.allowCoreThreadTimeOut(true);
+
+        queueWait = Timer.builder(METER_NAME_PREFIX + ".queueWait")
+                         .tag("name", name)
+                         .publishPercentileHistogram()
+                         .register(meterRegistry);
+        queueFullRejections = meterRegistry.counter(METER_NAME_PREFIX + ".rejected",
+                                                    "name", name, "reason", "queueFull");
+        queueWaitRejections = meterRegistry.counter(METER_NAME_PREFIX + ".rejected",
+                                                    "name", name, "reason", "queueWait");
+        Gauge.builder(METER_NAME_PREFIX + ".pending", executor, e -> e.getQueue().size())
+             .tag("name", name)
+             .register(meterRegistry);
+        Gauge.builder(METER_NAME_PREFIX + ".active", executor, ThreadPoolExecutor::getActiveCount)
+             .tag("name", name)
+             .register(meterRegistry);
+    }
+
+    /**
+     * Returns the name of this bulkhead.
+     */
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        requireNonNull(command, "command");
+        try {
+            executor.execute(new QueuedTask(null, command, command));
+        } catch (RejectedExecutionException e) {
+            if (!executor.isShutdown()) {
+                queueFullRejections.increment();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns an {@link ExecutorService} which submits the tasks to this bulkhead within the specified
+     * {@link ServiceRequestContext}, rejecting the request when a task is rejected.
+     */
+    ExecutorService contextAwareExecutor(ServiceRequestContext ctx) {
+        return new ContextAwareExecutor(ctx);
+    }
+
+    private void execute(ServiceRequestContext ctx, Runnable command) {
+        requireNonNull(command, "command");
+        try {
+            executor.execute(new QueuedTask(ctx, command, ctx.makeContextAware(command)));
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                throw e;
+            }
+            queueFullRejections.increment();
+            reject(ctx, command);
+        }
+    }
+
+    private static void reject(ServiceRequestContext ctx, Runnable command) {
+        if (command instanceof Future) {
+            ((Future<?>) command).cancel(false);
+        }
+        // Time out the request right away, which sends a '503 Service Unavailable' response
+        // unless a custom request timeout handler has been set.
+        ctx.setRequestTimeoutMillis(1);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("name", name)
+                          .add("maxThreads", executor.getMaximumPoolSize())
+                          .add("maxQueueWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos))
+                          .add("pending", executor.getQueue().size())
+                          .add("active", executor.getActiveCount())
+                          .toString();
+    }
+
+    private final class QueuedTask implements Runnable {
+
+        @Nullable
+        private final ServiceRequestContext ctx;
+        private final Runnable command;
+        private final Runnable task;
+        private final long enqueuedNanos = System.nanoTime();
+
+        QueuedTask(@Nullable ServiceRequestContext ctx, Runnable command, Runnable task) {
+            this.ctx = ctx;
+            this.command = command;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            final long waitNanos = System.nanoTime() - enqueuedNanos;
+            queueWait.record(waitNanos, TimeUnit.NANOSECONDS);
+            if (ctx != null && maxQueueWaitNanos > 0 && waitNanos > maxQueueWaitNanos) {
+                queueWaitRejections.increment();
+                reject(ctx, command);
+                return;
+            }
+            task.run();
+        }
+    }
+
+    private final class ContextAwareExecutor extends AbstractExecutorService {
+
+        private final ServiceRequestContext ctx;
+
+        ContextAwareExecutor(ServiceRequestContext ctx) {
+            this.ctx = ctx;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            BlockingTaskBulkhead.this.execute(ctx, command);
+        }
+
+        @Override
+        public void shutdown() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return BlockingTaskBulkhead.this.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return BlockingTaskBulkhead.this.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return BlockingTaskBulkhead.this.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Builds a new {@link BlockingTaskBulkhead}.
+ * <pre>{@code
+ * BlockingTaskBulkhead reportBulkhead =
+ *         BlockingTaskBulkhead.builder("report-export")
+ *                             .maxThreads(8)
+ *                             .maxQueueSize(256)
+ *                             .maxQueueWait(Duration.ofSeconds(2))
+ *                             .meterRegistry(meterRegistry)
+ *                             .build();
+ *
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.route().get("/reports/export")
+ *           .blockingTaskExecutor(reportBulkhead, true)
+ *           .build(new ReportExportService());
+ * }</pre>
+ */
+public final class BlockingTaskBulkheadBuilder {
+
+    static final int DEFAULT_MAX_THREADS = 16;
+    static final int DEFAULT_MAX_QUEUE_SIZE = 1024;
+    static final long DEFAULT_MAX_QUEUE_WAIT_MILLIS = 1000;
+
+    private final String name;
+    private int maxThreads = DEFAULT_MAX_THREADS;
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+    private long maxQueueWaitMillis = DEFAULT_MAX_QUEUE_WAIT_MILLIS;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    BlockingTaskBulkheadBuilder(String name) {
+        this.name = requireNonNull(name, "name");
+        checkArgument(!name.isEmpty(), "name is empty.");
+    }
+
+    /**
+     * Sets the maximum number of the threads which run the tasks.
+     * {@value #DEFAULT_MAX_THREADS} is used if unspecified.
+     */
+    public BlockingTaskBulkheadBuilder maxThreads(int maxThreads) {
+        checkArgument(maxThreads > 0, "maxThreads: %s (expected: > 0)", maxThreads);
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the tasks which wait for a thread. A task is rejected if the queue is full.
+     * {@value #DEFAULT_MAX_QUEUE_SIZE} is used if unspecified.
+     */
+    public BlockingTaskBulkheadBuilder maxQueueSize(int maxQueueSize) {
+        checkArgument(maxQueueSize > 0, "maxQueueSize: %s (expected: > 0)", maxQueueSize);
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of time a task of a request may wait for a thread. A task which waited longer
+     * is rejected rather than run. {@code 0} disables the limit.
+     * {@value #DEFAULT_MAX_QUEUE_WAIT_MILLIS} milliseconds are used if unspecified.
+     */
+    public BlockingTaskBulkheadBuilder maxQueueWait(Duration maxQueueWait) {
+        requireNonNull(maxQueueWait, "maxQueueWait");
+        checkArgument(!maxQueueWait.isNegative(), "maxQueueWait: %s (expected: >= 0)", maxQueueWait);
+        return maxQueueWaitMillis(maxQueueWait.toMillis());
+    }
+
+    /**
+     * Sets the maximum amount of time in milliseconds a task of a request may wait for a thread. A task
+     * which waited longer is rejected rather than run. {@code 0} disables the limit.
+     * {@value #DEFAULT_MAX_QUEUE_WAIT_MILLIS} milliseconds are used if unspecified.
+     */
+    public BlockingTaskBulkheadBuilder maxQueueWaitMillis(long maxQueueWaitMillis) {
+        checkArgument(maxQueueWaitMillis >= 0,
+                      "maxQueueWaitMillis: %s (expected: >= 0)", maxQueueWaitMillis);
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+        return this;
+    }
+
+    /**
+     * Sets the {@link MeterRegistry} which collects the metrics of the bulkhead.
+     * {@link Metrics#globalRegistry} is used if unspecified.
+     */
+    public BlockingTaskBulkheadBuilder meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link BlockingTaskBulkhead} based on the properties of this builder.
+     */
+    public BlockingTaskBulkhead build() {
+        return new BlockingTaskBulkhead(name, maxThreads, maxQueueSize, maxQueueWaitMillis, meterRegistry);
+    }
+}
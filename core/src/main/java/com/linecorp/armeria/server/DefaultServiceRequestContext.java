@@ -308,7 +308,14 @@ public class DefaultServiceRequestContext extends NonWrappingRequestContext impl
             return blockingTaskExecutor;
         }
 
-        return blockingTaskExecutor = makeContextAware(server().config().blockingTaskExecutor());
+        final ExecutorService serviceExecutor = cfg.blockingTaskExecutor().orElse(null);
+        if (serviceExecutor == null) {
+            return blockingTaskExecutor = makeContextAware(server().config().blockingTaskExecutor());
+        }
+        if (serviceExecutor instanceof BlockingTaskBulkhead) {
+            return blockingTaskExecutor = ((BlockingTaskBulkhead) serviceExecutor).contextAwareExecutor(this);
+        }
+        return blockingTaskExecutor = makeContextAware(new InterminableExecutorService(serviceExecutor));
     }
 
     @Override
@@ -32,6 +32,7 @@ import com.linecorp.armeria.common.HttpMethod;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.ProtocolViolationException;
+import com.linecorp.armeria.common.RequestHeaders;
 import com.linecorp.armeria.common.ResponseHeaders;
 import com.linecorp.armeria.internal.ArmeriaHttpUtil;
 import com.linecorp.armeria.internal.Http1ObjectEncoder;
@@ -91,6 +92,13 @@ final class Http1RequestDecoder extends ChannelDuplexHandler {
     private int receivedRequests;
     private boolean discarding;
 
+    /**
+     * Set when a WebSocket upgrade request is received. The request is kept open, so that the WebSocket
+     * frames sent by the client after the request become its content. If the upgrade is rejected,
+     * {@link Http1ServerCodec} resumes decoding HTTP requests and the next request clears this flag.
+     */
+    private boolean webSocketUpgraded;
+
     Http1RequestDecoder(ServerConfig cfg, Channel channel, AsciiString scheme,
                         Http1ObjectEncoder writer) {
         this.cfg = cfg;
@@ -117,6 +125,13 @@ final class Http1RequestDecoder extends ChannelDuplexHandler {
 
         // this.req can be set to null by fail(), so we keep it in a local variable.
         DecodedHttpRequest req = this.req;
+        if (req != null && webSocketUpgraded && msg instanceof HttpRequest) {
+            // The WebSocket upgrade has been rejected and a new request follows. The upgrade request has
+            // been closed already unless its service failed to close it.
+            req.close();
+            this.req = req = null;
+            webSocketUpgraded = false;
+        }
         final int id = req != null ? req.id() : ++receivedRequests;
         try {
             if (discarding) {
@@ -168,17 +183,29 @@ final class Http1RequestDecoder extends ChannelDuplexHandler {
 
                     nettyHeaders.set(ExtensionHeaderNames.SCHEME.text(), scheme);
 
+                    // Read the connection-specific headers before they are removed from 'nettyHeaders'
+                    // by the in-place conversion below.
+                    webSocketUpgraded = Http1ServerCodec.isWebSocketUpgradeRequest(nettyReq);
+                    final boolean keepAlive = HttpUtil.isKeepAlive(nettyReq);
+                    final boolean chunked = HttpUtil.isTransferEncodingChunked(nettyReq);
+                    RequestHeaders headers = ArmeriaHttpUtil.toArmeria(ctx, nettyReq, cfg);
+                    if (webSocketUpgraded) {
+                        // Leave the 'upgrade' header, which is removed when converted into HTTP/2 headers,
+                        // so that WebSocketService knows the connection has been switched.
+                        headers = headers.toBuilder().set(HttpHeaderNames.UPGRADE, "websocket").build();
+                    }
+
                     this.req = req = new DecodedHttpRequest(
                             ctx.channel().eventLoop(),
                             id, 1,
-                            ArmeriaHttpUtil.toArmeria(ctx, nettyReq, cfg),
-                            HttpUtil.isKeepAlive(nettyReq),
+                            headers,
+                            keepAlive,
                             inboundTrafficController,
                             cfg.maxRequestLength());
 
                     // Close the request early when it is sure that there will be
                     // neither content nor trailers.
-                    if (contentEmpty && !HttpUtil.isTransferEncodingChunked(nettyReq)) {
+                    if (!webSocketUpgraded && contentEmpty && !chunked) {
                         req.close();
                     }
 
@@ -214,7 +241,7 @@ final class Http1RequestDecoder extends ChannelDuplexHandler {
                     }
                 }
 
-                if (msg instanceof LastHttpContent) {
+                if (msg instanceof LastHttpContent && !webSocketUpgraded) {
                     final HttpHeaders trailingHeaders = ((LastHttpContent) msg).trailingHeaders();
                     if (!trailingHeaders.isEmpty()) {
                         req.write(ArmeriaHttpUtil.toArmeria(trailingHeaders));
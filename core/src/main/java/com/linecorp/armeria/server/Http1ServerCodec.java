@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Splitter;
+
+import com.linecorp.armeria.common.RequestHeadersBuilder;
+import com.linecorp.armeria.internal.Http1HeadersAdapter;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.CombinedChannelDuplexHandler;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpVersion;
+
+/**
+ * A combination of {@link HttpRequestDecoder} and {@link HttpResponseEncoder} which decodes the request
+ * headers directly into a {@link RequestHeadersBuilder}, so that {@link Http1RequestDecoder} does not have to
+ * copy them from Netty {@link io.netty.handler.codec.http.HttpHeaders} into Armeria
+ * {@link com.linecorp.armeria.common.RequestHeaders}. The limits on the length of an initial line and
+ * the size of the headers are enforced by {@link HttpRequestDecoder} as usual.
+ *
+ * @see HttpServerCodec
+ */
+final class Http1ServerCodec extends CombinedChannelDuplexHandler<HttpRequestDecoder, HttpResponseEncoder>
+        implements HttpServerUpgradeHandler.SourceCodec {
+
+    // Forked from Netty 4.1.42
+    // - Decode the request headers into Http1HeadersAdapter rather than DefaultHttpHeaders.
+    // - Pause decoding after a WebSocket upgrade request until its response is encoded, and pass the bytes
+    //   through as they are after a '101 Switching Protocols' response.
+
+    private static final Splitter TOKEN_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    /**
+     * Returns whether the specified {@link HttpRequest} is a
+     * <a href="https://tools.ietf.org/html/rfc6455#section-4.1">WebSocket opening handshake</a> request.
+     */
+    static boolean isWebSocketUpgradeRequest(HttpRequest req) {
+        if (!HttpMethod.GET.equals(req.method()) || !HttpVersion.HTTP_1_1.equals(req.protocolVersion())) {
+            return false;
+        }
+        final HttpHeaders headers = req.headers();
+        return containsToken(headers, HttpHeaderNames.UPGRADE, "websocket") &&
+               containsToken(headers, HttpHeaderNames.CONNECTION, "upgrade");
+    }
+
+    private static boolean containsToken(HttpHeaders headers, CharSequence name, String token) {
+        for (String value : headers.getAll(name)) {
+            for (String v : TOKEN_SPLITTER.split(value)) {
+                if (Ascii.equalsIgnoreCase(token, v)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** A queue that is used for correlating a request and a response. */
+    private final Queue<HttpMethod> queue = new ArrayDeque<>();
+
+    /**
+     * Set when a WebSocket upgrade request is decoded, and cleared when the upgrade is rejected by
+     * a non-informational response. Nothing is decoded meanwhile, because whether the following bytes are
+     * WebSocket frames or another HTTP request depends on the response, i.e. whether the request was routed
+     * to a {@link WebSocketService}. A client does not send anything until it receives the response anyway.
+     */
+    private boolean webSocketUpgradeRequested;
+
+    /**
+     * Set when a '101 Switching Protocols' response to a WebSocket upgrade request is encoded. The bytes
+     * are passed through as they are in both directions since then.
+     */
+    private boolean webSocketUpgraded;
+
+    /**
+     * Creates a new instance with the specified decoder options.
+     */
+    Http1ServerCodec(int maxInitialLineLength, int maxHeaderSize, int maxChunkSize) {
+        init(new Decoder(maxInitialLineLength, maxHeaderSize, maxChunkSize), new Encoder());
+    }
+
+    /**
+     * Upgrades to another protocol from HTTP. Removes the {@link HttpRequestDecoder} and
+     * {@link HttpResponseEncoder} from the pipeline.
+     */
+    @Override
+    public void upgradeFrom(ChannelHandlerContext ctx) {
+        ctx.pipeline().remove(this);
+    }
+
+    private final class Decoder extends HttpRequestDecoder {
+
+        Decoder(int maxInitialLineLength, int maxHeaderSize, int maxChunkSize) {
+            super(maxInitialLineLength, maxHeaderSize, maxChunkSize);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> out) throws Exception {
+            if (webSocketUpgraded) {
+                final int readableBytes = buffer.readableBytes();
+                if (readableBytes > 0) {
+                    out.add(new DefaultHttpContent(buffer.readRetainedSlice(readableBytes)));
+                }
+                return;
+            }
+            if (webSocketUpgradeRequested) {
+                // Leave the received bytes, if any, in the cumulation until the upgrade is accepted or
+                // rejected.
+                return;
+            }
+
+            final int oldSize = out.size();
+            super.decode(ctx, buffer, out);
+            final int size = out.size();
+            for (int i = oldSize; i < size; i++) {
+                final Object obj = out.get(i);
+                if (obj instanceof HttpRequest) {
+                    final HttpRequest req = (HttpRequest) obj;
+                    queue.add(req.method());
+                    if (isWebSocketUpgradeRequest(req)) {
+                        webSocketUpgradeRequested = true;
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected HttpMessage createMessage(String[] initialLine) throws Exception {
+            return new DefaultHttpRequest(HttpVersion.valueOf(initialLine[2]),
+                                          HttpMethod.valueOf(initialLine[0]), initialLine[1],
+                                          new Http1HeadersAdapter());
+        }
+    }
+
+    private final class Encoder extends HttpResponseEncoder {
+
+        @Nullable
+        private HttpMethod method;
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+            if (webSocketUpgraded) {
+                if (msg instanceof HttpContent) {
+                    out.add(((HttpContent) msg).content().retain());
+                    return;
+                }
+                if (msg instanceof ByteBuf) {
+                    out.add(((ByteBuf) msg).retain());
+                    return;
+                }
+            }
+
+            boolean switchingProtocols = false;
+            if (webSocketUpgradeRequested && msg instanceof HttpResponse) {
+                final HttpResponse res = (HttpResponse) msg;
+                if (HttpResponseStatus.SWITCHING_PROTOCOLS.equals(res.status()) &&
+                    containsToken(res.headers(), HttpHeaderNames.UPGRADE, "websocket")) {
+                    switchingProtocols = true;
+                } else if (res.status().codeClass() != HttpStatusClass.INFORMATIONAL) {
+                    // The upgrade has been rejected, e.g. the request was not routed to a WebSocketService.
+                    // Keep decoding HTTP requests from the bytes received after this response.
+                    webSocketUpgradeRequested = false;
+                }
+            }
+
+            super.encode(ctx, msg, out);
+            if (switchingProtocols) {
+                webSocketUpgraded = true;
+            }
+        }
+
+        @Override
+        protected void sanitizeHeadersBeforeEncode(HttpResponse msg, boolean isAlwaysEmpty) {
+            if (!isAlwaysEmpty && method == HttpMethod.CONNECT &&
+                msg.status().codeClass() == HttpStatusClass.SUCCESS) {
+                // Stripping Transfer-Encoding:
+                // See https://tools.ietf.org/html/rfc7230#section-3.3.1
+                msg.headers().remove(HttpHeaderNames.TRANSFER_ENCODING);
+                return;
+            }
+
+            super.sanitizeHeadersBeforeEncode(msg, isAlwaysEmpty);
+        }
+
+        @Override
+        protected boolean isContentAlwaysEmpty(HttpResponse msg) {
+            method = queue.poll();
+            return HttpMethod.HEAD.equals(method) || super.isContentAlwaysEmpty(msg);
+        }
+    }
+}
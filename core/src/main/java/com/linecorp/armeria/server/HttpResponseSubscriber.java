@@ -170,12 +170,16 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
 
                 ResponseHeaders headers = (ResponseHeaders) o;
                 final HttpStatus status = headers.status();
-                if (status.codeClass() == HttpStatusClass.INFORMATIONAL) {
+                // '101 Switching Protocols' is followed by the data of the new protocol, e.g. WebSocket.
+                // HTTP/2 does not allow it, so it is handled as other informational headers.
+                final boolean switchingProtocols = status.code() == HttpStatus.SWITCHING_PROTOCOLS.code() &&
+                                                   !reqCtx.sessionProtocol().isMultiplex();
+                if (status.codeClass() == HttpStatusClass.INFORMATIONAL && !switchingProtocols) {
                     // Needs non-informational headers.
                     break;
                 }
 
-                if (req.method() == HttpMethod.HEAD || status.isContentAlwaysEmpty()) {
+                if (req.method() == HttpMethod.HEAD || !switchingProtocols && status.isContentAlwaysEmpty()) {
                     // We're done with the response if it is a response to a HEAD request or one of the
                     // no-content response statuses.
                     endOfStream = true;
@@ -349,6 +349,18 @@ final class HttpServerHandler extends ChannelInboundHandlerAdapter implements Ht
         final RoutingResult routingResult = routed.routingResult();
         final ServiceConfig serviceCfg = routed.value();
         final Service<HttpRequest, HttpResponse> service = serviceCfg.service();
+        if (!protocol.isMultiplex() && headers.contains(HttpHeaderNames.UPGRADE)) {
+            if (service.as(WebSocketService.class).isPresent()) {
+                // No more HTTP requests once the connection is switched to WebSocket,
+                // so close the connection when the WebSocket session ends.
+                handledLastRequest = true;
+            } else {
+                // Http1RequestDecoder kept the request open for the WebSocket frames, but the service does
+                // not accept them. End the request here; Http1ServerCodec keeps decoding HTTP requests
+                // after the response.
+                req.close();
+            }
+        }
         final Channel channel = ctx.channel();
         final InetAddress remoteAddress = ((InetSocketAddress) channel.remoteAddress()).getAddress();
 
@@ -41,6 +41,8 @@ import com.linecorp.armeria.internal.ChannelUtil;
 import com.linecorp.armeria.internal.Http1ObjectEncoder;
 import com.linecorp.armeria.internal.ReadSuppressingHandler;
 import com.linecorp.armeria.internal.TrafficLoggingHandler;
+import com.linecorp.armeria.internal.TransportMetrics;
+import com.linecorp.armeria.internal.TransportMetricsHandler;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
@@ -54,7 +56,6 @@ import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import io.netty.handler.codec.haproxy.HAProxyMessage;
 import io.netty.handler.codec.haproxy.HAProxyMessageDecoder;
-import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerUpgradeHandler;
 import io.netty.handler.codec.http2.Http2CodecUtil;
 import io.netty.handler.codec.http2.Http2ConnectionHandler;
@@ -66,6 +67,7 @@ import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SniHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
 import io.netty.util.AsciiString;
 import io.netty.util.DomainNameMapping;
 import io.netty.util.NetUtil;
@@ -99,6 +101,7 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
     @Nullable
     private final DomainNameMapping<SslContext> sslContexts;
     private final GracefulShutdownSupport gracefulShutdownSupport;
+    private final TransportMetrics transportMetrics;
 
     /**
      * Creates a new instance.
@@ -112,6 +115,7 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
         this.port = requireNonNull(port, "port");
         this.sslContexts = sslContexts;
         this.gracefulShutdownSupport = requireNonNull(gracefulShutdownSupport, "gracefulShutdownSupport");
+        transportMetrics = TransportMetrics.ofServer(config.meterRegistry());
     }
 
     @Override
@@ -119,6 +123,7 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
         ChannelUtil.disableWriterBufferWatermark(ch);
 
         final ChannelPipeline p = ch.pipeline();
+        p.addLast(new TransportMetricsHandler(transportMetrics));
         p.addLast(new FlushConsolidationHandler());
         p.addLast(ReadSuppressingHandler.INSTANCE);
         configurePipeline(p, port.protocols(), null);
@@ -179,12 +184,16 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
     }
 
     private Http2ConnectionHandler newHttp2ConnectionHandler(ChannelPipeline pipeline, AsciiString scheme) {
-        return new Http2ServerConnectionHandlerBuilder(pipeline.channel(), config,
-                                                       gracefulShutdownSupport,
-                                                       scheme.toString())
-                .server(true)
-                .initialSettings(http2Settings())
-                .build();
+        final Http2ConnectionHandler handler =
+                new Http2ServerConnectionHandlerBuilder(pipeline.channel(), config,
+                                                        gracefulShutdownSupport,
+                                                        scheme.toString())
+                        .server(true)
+                        .initialSettings(http2Settings())
+                        .frameLogger(transportMetrics.frameLogger())
+                        .build();
+        transportMetrics.monitorFlowControl(handler.encoder());
+        return handler;
     }
 
     private Http2Settings http2Settings() {
@@ -387,6 +396,15 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
             throw new IllegalStateException("unknown protocol: " + protocol);
         }
 
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof SslHandshakeCompletionEvent) {
+                TransportMetricsHandler.onHandshakeCompletion(ctx.pipeline(),
+                                                              (SslHandshakeCompletionEvent) evt);
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
         private void addHttp2Handlers(ChannelHandlerContext ctx) {
             final ChannelPipeline p = ctx.pipeline();
             p.addLast(newHttp2ConnectionHandler(p, SCHEME_HTTPS));
@@ -399,7 +417,7 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
             final Channel ch = ctx.channel();
             final ChannelPipeline p = ctx.pipeline();
             final Http1ObjectEncoder writer = new Http1ObjectEncoder(ch, true, true);
-            p.addLast(new HttpServerCodec(
+            p.addLast(new Http1ServerCodec(
                     config.http1MaxInitialLineLength(),
                     config.http1MaxHeaderSize(),
                     config.http1MaxChunkSize()));
@@ -474,7 +492,7 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
 
         private void configureHttp1WithUpgrade(ChannelHandlerContext ctx) {
             final ChannelPipeline p = ctx.pipeline();
-            final HttpServerCodec http1codec = new HttpServerCodec(
+            final Http1ServerCodec http1codec = new Http1ServerCodec(
                     config.http1MaxInitialLineLength(),
                     config.http1MaxHeaderSize(),
                     config.http1MaxChunkSize());
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Splitter;
+
+import com.linecorp.armeria.common.ContentTooLargeException;
+import com.linecorp.armeria.common.ProtocolViolationException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * The compression state of a WebSocket session which negotiated the
+ * <a href="https://tools.ietf.org/html/rfc7692">permessage-deflate</a> extension.
+ */
+final class PerMessageDeflate {
+
+    static final String EXTENSION_NAME = "permessage-deflate";
+
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    private static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    private static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+
+    /**
+     * The JDK {@link Deflater} always uses the largest window.
+     */
+    private static final String MAX_WINDOW_BITS = "15";
+
+    private static final byte[] TAIL = { 0x00, 0x00, (byte) 0xff, (byte) 0xff };
+
+    private static final Splitter OFFER_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+    private static final Splitter PARAM_SPLITTER = Splitter.on(';').trimResults().omitEmptyStrings();
+
+    /**
+     * Returns a new {@link PerMessageDeflate} if the specified {@code Sec-WebSocket-Extensions} header value
+     * contains an acceptable {@code permessage-deflate} offer, or {@code null} otherwise.
+     */
+    @Nullable
+    static PerMessageDeflate negotiate(@Nullable String extensions) {
+        if (extensions == null) {
+            return null;
+        }
+
+        for (String offer : OFFER_SPLITTER.split(extensions)) {
+            final PerMessageDeflate deflate = accept(offer);
+            if (deflate != null) {
+                return deflate;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static PerMessageDeflate accept(String offer) {
+        boolean first = true;
+        boolean serverNoContextTakeover = false;
+        for (String param : PARAM_SPLITTER.split(offer)) {
+            if (first) {
+                if (!Ascii.equalsIgnoreCase(EXTENSION_NAME, param)) {
+                    return null;
+                }
+                first = false;
+                continue;
+            }
+
+            final int equalsIdx = param.indexOf('=');
+            final String name = equalsIdx < 0 ? param : param.substring(0, equalsIdx).trim();
+            final String value = equalsIdx < 0 ? null : unquote(param.substring(equalsIdx + 1).trim());
+            switch (Ascii.toLowerCase(name)) {
+                case SERVER_NO_CONTEXT_TAKEOVER:
+                    serverNoContextTakeover = true;
+                    break;
+                case CLIENT_NO_CONTEXT_TAKEOVER:
+                case CLIENT_MAX_WINDOW_BITS:
+                    // The inflater uses the largest window, which can decompress any window size.
+                    break;
+                case SERVER_MAX_WINDOW_BITS:
+                    if (!MAX_WINDOW_BITS.equals(value)) {
+                        // Can't limit the window of the deflater; decline this offer.
+                        return null;
+                    }
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return first ? null : new PerMessageDeflate(serverNoContextTakeover);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private final boolean serverNoContextTakeover;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Inflater inflater = new Inflater(true);
+
+    private PerMessageDeflate(boolean serverNoContextTakeover) {
+        this.serverNoContextTakeover = serverNoContextTakeover;
+    }
+
+    /**
+     * Returns the {@code Sec-WebSocket-Extensions} header value which accepts the offer.
+     */
+    String responseHeaderValue() {
+        return serverNoContextTakeover ? EXTENSION_NAME + "; " + SERVER_NO_CONTEXT_TAKEOVER : EXTENSION_NAME;
+    }
+
+    /**
+     * Compresses a fragment of a message. The trailing {@code 0x00 0x00 0xff 0xff} is removed from the last
+     * fragment as specified in <a href="https://tools.ietf.org/html/rfc7692#section-7.2.1">RFC 7692</a>.
+     */
+    ByteBuf compress(ByteBuf payload, boolean finalFragment, ByteBufAllocator alloc) {
+        deflater.setInput(ByteBufUtil.getBytes(payload));
+        final ByteBuf out = alloc.heapBuffer(Math.max(64, payload.readableBytes() / 2));
+        try {
+            for (;;) {
+                out.ensureWritable(256);
+                final int writable = out.writableBytes();
+                final int written = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(),
+                                                     writable, Deflater.SYNC_FLUSH);
+                out.writerIndex(out.writerIndex() + written);
+                if (written < writable) {
+                    break;
+                }
+            }
+
+            if (finalFragment) {
+                if (endsWithTail(out)) {
+                    out.writerIndex(out.writerIndex() - TAIL.length);
+                } else if (!out.isReadable()) {
+                    // The deflater writes nothing when it has nothing to flush, e.g. an empty last fragment.
+                    // Write the header of an empty stored block, which is completed by the tail appended
+                    // by the receiver.
+                    out.writeByte(0);
+                }
+                if (serverNoContextTakeover) {
+                    deflater.reset();
+                }
+            }
+            return out;
+        } catch (Throwable t) {
+            out.release();
+            throw t;
+        }
+    }
+
+    private static boolean endsWithTail(ByteBuf buf) {
+        final int length = buf.readableBytes();
+        if (length < TAIL.length) {
+            return false;
+        }
+        final int start = buf.writerIndex() - TAIL.length;
+        for (int i = 0; i < TAIL.length; i++) {
+            if (buf.getByte(start + i) != TAIL[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decompresses a fragment of a message.
+     *
+     * @throws ContentTooLargeException if the decompressed payload is longer than {@code maxLength}
+     * @throws ProtocolViolationException if the payload is not a valid deflate stream
+     */
+    ByteBuf decompress(ByteBuf payload, boolean finalFragment, int maxLength, ByteBufAllocator alloc) {
+        final int length = payload.readableBytes();
+        final byte[] input = new byte[finalFragment ? length + TAIL.length : length];
+        payload.getBytes(payload.readerIndex(), input, 0, length);
+        if (finalFragment) {
+            System.arraycopy(TAIL, 0, input, length, TAIL.length);
+        }
+        inflater.setInput(input);
+
+        final ByteBuf out = alloc.heapBuffer(Math.min(maxLength, Math.max(64, length * 2)));
+        boolean success = false;
+        try {
+            for (;;) {
+                out.ensureWritable(256);
+                final int read = inflater.inflate(out.array(), out.arrayOffset() + out.writerIndex(),
+                                                  out.writableBytes());
+                out.writerIndex(out.writerIndex() + read);
+                if (out.readableBytes() > maxLength) {
+                    throw ContentTooLargeException.get();
+                }
+                if (read == 0 && (inflater.needsInput() || inflater.finished() ||
+                                  inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            if (inflater.finished()) {
+                // The peer ended the deflate stream; the next message starts a new one.
+                inflater.reset();
+            }
+            success = true;
+            return out;
+        } catch (DataFormatException e) {
+            throw new ProtocolViolationException(e);
+        } finally {
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * Releases the native resources held by the deflater and the inflater.
+     */
+    void destroy() {
+        deflater.end();
+        inflater.end();
+    }
+}
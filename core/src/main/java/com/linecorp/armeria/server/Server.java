@@ -507,21 +507,18 @@ public final class Server implements AutoCloseable {
                 } else {
                     executor = blockingTaskExecutor;
                 }
-
-                try {
-                    executor.shutdown();
-                    while (!executor.isTerminated()) {
-                        try {
-                            executor.awaitTermination(1, TimeUnit.DAYS);
-                        } catch (InterruptedException ignore) {
-                            // Do nothing.
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.warn("Failed to shutdown the blockingTaskExecutor: {}", executor, e);
-                }
+                shutdownBlockingTaskExecutor(executor);
             }
 
+            config.serviceConfigs()
+                  .stream()
+                  .filter(ServiceConfig::shutdownBlockingTaskExecutorOnStop)
+                  .map(ServiceConfig::blockingTaskExecutor)
+                  .filter(Optional::isPresent)
+                  .map(Optional::get)
+                  .distinct()
+                  .forEach(this::shutdownBlockingTaskExecutor);
+
             if (!config.shutdownAccessLogWriterOnStop()) {
                 future.complete(null);
                 return;
@@ -555,6 +552,21 @@ public final class Server implements AutoCloseable {
                               .thenRunAsync(() -> future.complete(null), config.startStopExecutor());
         }
 
+        private void shutdownBlockingTaskExecutor(ExecutorService executor) {
+            try {
+                executor.shutdown();
+                while (!executor.isTerminated()) {
+                    try {
+                        executor.awaitTermination(1, TimeUnit.DAYS);
+                    } catch (InterruptedException ignore) {
+                        // Do nothing.
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to shutdown the blockingTaskExecutor: {}", executor, e);
+            }
+        }
+
         @Override
         protected void notifyStarting(ServerListener listener, @Nullable Void arg) throws Exception {
             listener.serverStarting(Server.this);
@@ -21,6 +21,7 @@ import static com.linecorp.armeria.server.ServerConfig.validateRequestTimeoutMil
 import static java.util.Objects.requireNonNull;
 
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
@@ -63,6 +64,9 @@ public final class ServiceConfig {
     private final ContentPreviewerFactory responseContentPreviewerFactory;
     private final AccessLogWriter accessLogWriter;
     private final boolean shutdownAccessLogWriterOnStop;
+    @Nullable
+    private final ExecutorService blockingTaskExecutor;
+    private final boolean shutdownBlockingTaskExecutorOnStop;
 
     /**
      * Creates a new instance.
@@ -74,9 +78,26 @@ public final class ServiceConfig {
                   ContentPreviewerFactory requestContentPreviewerFactory,
                   ContentPreviewerFactory responseContentPreviewerFactory, AccessLogWriter accessLogWriter,
                   boolean shutdownAccessLogWriterOnStop) {
+        this(route, service, loggerName, requestTimeoutMillis, maxRequestLength, verboseResponses,
+             requestContentPreviewerFactory, responseContentPreviewerFactory, accessLogWriter,
+             shutdownAccessLogWriterOnStop, null, false);
+    }
+
+    /**
+     * Creates a new instance.
+     */
+    ServiceConfig(Route route,
+                  Service<HttpRequest, HttpResponse> service,
+                  @Nullable String loggerName, long requestTimeoutMillis,
+                  long maxRequestLength, boolean verboseResponses,
+                  ContentPreviewerFactory requestContentPreviewerFactory,
+                  ContentPreviewerFactory responseContentPreviewerFactory, AccessLogWriter accessLogWriter,
+                  boolean shutdownAccessLogWriterOnStop,
+                  @Nullable ExecutorService blockingTaskExecutor, boolean shutdownBlockingTaskExecutorOnStop) {
         this(null, route, service, loggerName, requestTimeoutMillis, maxRequestLength,
              verboseResponses, requestContentPreviewerFactory, responseContentPreviewerFactory,
-             accessLogWriter, shutdownAccessLogWriterOnStop);
+             accessLogWriter, shutdownAccessLogWriterOnStop, blockingTaskExecutor,
+             shutdownBlockingTaskExecutorOnStop);
     }
 
     /**
@@ -88,7 +109,9 @@ public final class ServiceConfig {
                           long maxRequestLength, boolean verboseResponses,
                           ContentPreviewerFactory requestContentPreviewerFactory,
                           ContentPreviewerFactory responseContentPreviewerFactory,
-                          AccessLogWriter accessLogWriter, boolean shutdownAccessLogWriterOnStop) {
+                          AccessLogWriter accessLogWriter, boolean shutdownAccessLogWriterOnStop,
+                          @Nullable ExecutorService blockingTaskExecutor,
+                          boolean shutdownBlockingTaskExecutorOnStop) {
         this.virtualHost = virtualHost;
         this.route = requireNonNull(route, "route");
         this.service = requireNonNull(service, "service");
@@ -102,6 +125,8 @@ public final class ServiceConfig {
                                                               "responseContentPreviewerFactory");
         this.accessLogWriter = requireNonNull(accessLogWriter, "accessLogWriter");
         this.shutdownAccessLogWriterOnStop = shutdownAccessLogWriterOnStop;
+        this.blockingTaskExecutor = blockingTaskExecutor;
+        this.shutdownBlockingTaskExecutorOnStop = shutdownBlockingTaskExecutorOnStop;
     }
 
     static String validateLoggerName(String value, String propertyName) {
@@ -117,7 +142,8 @@ public final class ServiceConfig {
         return new ServiceConfig(virtualHost, route, service, loggerName, requestTimeoutMillis,
                                  maxRequestLength, verboseResponses, requestContentPreviewerFactory,
                                  responseContentPreviewerFactory, accessLogWriter,
-                                 shutdownAccessLogWriterOnStop);
+                                 shutdownAccessLogWriterOnStop, blockingTaskExecutor,
+                                 shutdownBlockingTaskExecutorOnStop);
     }
 
     ServiceConfig withDecoratedService(
@@ -126,7 +152,8 @@ public final class ServiceConfig {
         return new ServiceConfig(virtualHost, route, service.decorate(decorator), loggerName,
                                  requestTimeoutMillis, maxRequestLength, verboseResponses,
                                  requestContentPreviewerFactory, responseContentPreviewerFactory,
-                                 accessLogWriter, shutdownAccessLogWriterOnStop);
+                                 accessLogWriter, shutdownAccessLogWriterOnStop, blockingTaskExecutor,
+                                 shutdownBlockingTaskExecutorOnStop);
     }
 
     /**
@@ -226,6 +253,21 @@ public final class ServiceConfig {
         return shutdownAccessLogWriterOnStop;
     }
 
+    /**
+     * Returns the {@link ExecutorService} dedicated to the blocking tasks of this {@link Service}.
+     * If empty, {@link ServerConfig#blockingTaskExecutor()} is used.
+     */
+    public Optional<ExecutorService> blockingTaskExecutor() {
+        return Optional.ofNullable(blockingTaskExecutor);
+    }
+
+    /**
+     * Tells whether the {@link #blockingTaskExecutor()} is shut down when the {@link Server} stops.
+     */
+    public boolean shutdownBlockingTaskExecutorOnStop() {
+        return shutdownBlockingTaskExecutorOnStop;
+    }
+
     @Override
     public String toString() {
         final ToStringHelper toStringHelper = MoreObjects.toStringHelper(this).omitNullValues();
@@ -242,6 +284,8 @@ public final class ServiceConfig {
                              .add("responseContentPreviewerFactory", responseContentPreviewerFactory)
                              .add("accessLogWriter", accessLogWriter)
                              .add("shutdownAccessLogWriterOnStop", shutdownAccessLogWriterOnStop)
+                             .add("blockingTaskExecutor", blockingTaskExecutor)
+                             .add("shutdownBlockingTaskExecutorOnStop", shutdownBlockingTaskExecutorOnStop)
                              .toString();
     }
 }
@@ -18,6 +18,8 @@ package com.linecorp.armeria.server;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.concurrent.ExecutorService;
+
 import javax.annotation.Nullable;
 
 import com.google.common.base.MoreObjects;
@@ -47,6 +49,9 @@ final class ServiceConfigBuilder {
     @Nullable
     private AccessLogWriter accessLogWriter;
     private boolean shutdownAccessLogWriterOnStop;
+    @Nullable
+    private ExecutorService blockingTaskExecutor;
+    private boolean shutdownBlockingTaskExecutorOnStop;
 
     ServiceConfigBuilder(Route route, Service<HttpRequest, HttpResponse> service) {
         this.route = requireNonNull(route, "route");
@@ -121,6 +126,12 @@ final class ServiceConfigBuilder {
         return this;
     }
 
+    ServiceConfigBuilder blockingTaskExecutor(ExecutorService blockingTaskExecutor, boolean shutdownOnStop) {
+        this.blockingTaskExecutor = blockingTaskExecutor;
+        shutdownBlockingTaskExecutorOnStop = shutdownOnStop;
+        return this;
+    }
+
     ServiceConfig build() {
         assert requestTimeoutMillis != null;
         assert maxRequestLength != null;
@@ -131,7 +142,8 @@ final class ServiceConfigBuilder {
         return new ServiceConfig(route, service, loggerName, requestTimeoutMillis,
                                  maxRequestLength, verboseResponses, requestContentPreviewerFactory,
                                  responseContentPreviewerFactory, accessLogWriter,
-                                 shutdownAccessLogWriterOnStop);
+                                 shutdownAccessLogWriterOnStop, blockingTaskExecutor,
+                                 shutdownBlockingTaskExecutorOnStop);
     }
 
     @Override
@@ -147,6 +159,8 @@ final class ServiceConfigBuilder {
                           .add("responseContentPreviewerFactory", responseContentPreviewerFactory)
                           .add("accessLogWriter", accessLogWriter)
                           .add("shutdownAccessLogWriterOnStop", shutdownAccessLogWriterOnStop)
+                          .add("blockingTaskExecutor", blockingTaskExecutor)
+                          .add("shutdownBlockingTaskExecutorOnStop", shutdownBlockingTaskExecutorOnStop)
                           .toString();
     }
 }
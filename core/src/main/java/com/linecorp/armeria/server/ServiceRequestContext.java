@@ -201,6 +201,9 @@ public interface ServiceRequestContext extends RequestContext {
      *
      * <p>Note that performing a long-running task in {@link Service#serve(ServiceRequestContext, Request)}
      * may block the {@link Server}'s I/O event loop and thus should be executed in other threads.
+     *
+     * <p>The tasks are executed by the {@linkplain ServiceConfig#blockingTaskExecutor() executor of the
+     * service} if specified, or by the {@linkplain ServerConfig#blockingTaskExecutor() server-wide one}.
      */
     ExecutorService blockingTaskExecutor();
 
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.ContentTooLargeException;
+import com.linecorp.armeria.common.ProtocolViolationException;
+import com.linecorp.armeria.common.websocket.WebSocketFrame;
+import com.linecorp.armeria.common.websocket.WebSocketFrameType;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+/**
+ * Decodes the masked frames sent by a WebSocket client. The payload of a decoded frame is a slice of
+ * the received buffer, which is unmasked in place, unless the frame is compressed.
+ */
+final class WebSocketFrameDecoder {
+
+    private final ByteBufAllocator alloc;
+    private final int maxFramePayloadLength;
+    @Nullable
+    private final PerMessageDeflate deflate;
+
+    @Nullable
+    private ByteBuf cumulation;
+    private boolean inMessage;
+    private boolean messageCompressed;
+
+    WebSocketFrameDecoder(ByteBufAllocator alloc, int maxFramePayloadLength,
+                          @Nullable PerMessageDeflate deflate) {
+        this.alloc = alloc;
+        this.maxFramePayloadLength = maxFramePayloadLength;
+        this.deflate = deflate;
+    }
+
+    /**
+     * Decodes the frames in the specified {@link ByteBuf}. The {@link ByteBuf} is released by this method.
+     *
+     * @throws ProtocolViolationException if a frame violates the protocol
+     * @throws ContentTooLargeException if the payload of a frame is longer than the limit
+     */
+    void decode(ByteBuf in, List<WebSocketFrame> out) {
+        if (cumulation == null) {
+            cumulation = in;
+        } else {
+            cumulation = ByteToMessageDecoder.MERGE_CUMULATOR.cumulate(alloc, cumulation, in);
+        }
+
+        final ByteBuf buf = cumulation;
+        try {
+            boolean decoded;
+            do {
+                decoded = decodeFrame(buf, out);
+            } while (decoded);
+        } finally {
+            if (!buf.isReadable()) {
+                buf.release();
+                cumulation = null;
+            } else if (buf.refCnt() == 1) {
+                // Discard the decoded frames so that the cumulation does not grow with every partial frame.
+                // Skip it while the payload slices of the decoded frames share the buffer, in which case
+                // the next cumulation copies only the readable bytes anyway.
+                buf.discardSomeReadBytes();
+            }
+        }
+    }
+
+    private boolean decodeFrame(ByteBuf buf, List<WebSocketFrame> out) {
+        final int readableBytes = buf.readableBytes();
+        if (readableBytes < 2) {
+            return false;
+        }
+
+        final int readerIndex = buf.readerIndex();
+        final int b0 = buf.getUnsignedByte(readerIndex);
+        final int b1 = buf.getUnsignedByte(readerIndex + 1);
+        final boolean finalFragment = (b0 & 0x80) != 0;
+        final boolean compressed = (b0 & 0x40) != 0;
+        final int length7 = b1 & 0x7F;
+
+        final int lengthFieldLength = length7 == 126 ? 2 : length7 == 127 ? 8 : 0;
+        final int headerLength = 2 + lengthFieldLength + 4;
+        if (readableBytes < headerLength) {
+            return false;
+        }
+
+        final WebSocketFrameType type = WebSocketFrameType.ofOpcode(b0 & 0x0F);
+        if (type == null) {
+            throw new ProtocolViolationException("reserved opcode: " + (b0 & 0x0F));
+        }
+        if ((b1 & 0x80) == 0) {
+            throw new ProtocolViolationException("received an unmasked frame from a client");
+        }
+        if ((b0 & 0x30) != 0 ||
+            compressed && (deflate == null || type != WebSocketFrameType.TEXT &&
+                                              type != WebSocketFrameType.BINARY)) {
+            throw new ProtocolViolationException("unexpected RSV bits: " + (b0 & 0x70));
+        }
+
+        final long length;
+        switch (lengthFieldLength) {
+            case 2:
+                length = buf.getUnsignedShort(readerIndex + 2);
+                break;
+            case 8:
+                length = buf.getLong(readerIndex + 2);
+                break;
+            default:
+                length = length7;
+        }
+
+        if (type.isControl()) {
+            if (!finalFragment) {
+                throw new ProtocolViolationException("received a fragmented control frame: " + type);
+            }
+            if (length > WebSocketFrame.MAX_CONTROL_FRAME_PAYLOAD_LENGTH) {
+                throw new ProtocolViolationException("received a too long control frame: " + type);
+            }
+        } else if (type == WebSocketFrameType.CONTINUATION) {
+            if (!inMessage) {
+                throw new ProtocolViolationException("received a continuation frame without a message");
+            }
+        } else if (inMessage) {
+            throw new ProtocolViolationException("received a new message before the final fragment: " +
+                                                 type);
+        }
+
+        if (length < 0 || length > maxFramePayloadLength) {
+            throw ContentTooLargeException.get();
+        }
+        if (readableBytes - headerLength < length) {
+            return false;
+        }
+
+        final int mask = buf.getInt(readerIndex + headerLength - 4);
+        ByteBuf payload = buf.retainedSlice(readerIndex + headerLength, (int) length);
+        buf.skipBytes(headerLength + (int) length);
+        unmask(payload, mask);
+
+        if (!type.isControl()) {
+            if (type != WebSocketFrameType.CONTINUATION) {
+                messageCompressed = compressed;
+            }
+            inMessage = !finalFragment;
+            if (messageCompressed) {
+                assert deflate != null;
+                final ByteBuf compressedPayload = payload;
+                try {
+                    payload = deflate.decompress(compressedPayload, finalFragment,
+                                                 maxFramePayloadLength, alloc);
+                } finally {
+                    compressedPayload.release();
+                }
+            }
+        }
+
+        out.add(WebSocketFrame.of(type, payload, finalFragment));
+        return true;
+    }
+
+    private static void unmask(ByteBuf payload, int mask) {
+        int i = payload.readerIndex();
+        final int end = payload.writerIndex();
+        // Unmask 4 bytes at a time, so that the mask is applied without looking up each byte of it.
+        for (; i + 3 < end; i += 4) {
+            payload.setInt(i, payload.getInt(i) ^ mask);
+        }
+        for (int shift = 24; i < end; i++, shift -= 8) {
+            payload.setByte(i, payload.getByte(i) ^ (mask >>> shift));
+        }
+    }
+
+    /**
+     * Releases the partially received frame if exists.
+     */
+    void destroy() {
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.websocket.WebSocketFrame;
+import com.linecorp.armeria.common.websocket.WebSocketFrameType;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * Encodes the frames sent by a WebSocket server. A frame whose payload is longer than the limit is split
+ * into the fragments which are slices of the original payload, so that a large message is sent without
+ * copying its payload.
+ */
+final class WebSocketFrameEncoder {
+
+    /**
+     * The payload shorter than this is copied into the buffer of a frame header rather than composed with
+     * it, because a composite buffer costs more than copying a few bytes.
+     */
+    private static final int COPY_THRESHOLD = 1024;
+
+    private static final int MAX_HEADER_LENGTH = 10;
+
+    private final ByteBufAllocator alloc;
+    private final int maxFramePayloadLength;
+    @Nullable
+    private final PerMessageDeflate deflate;
+
+    WebSocketFrameEncoder(ByteBufAllocator alloc, int maxFramePayloadLength,
+                          @Nullable PerMessageDeflate deflate) {
+        this.alloc = alloc;
+        this.maxFramePayloadLength = maxFramePayloadLength;
+        this.deflate = deflate;
+    }
+
+    /**
+     * Encodes the specified {@link WebSocketFrame} into one or more frames. The {@link WebSocketFrame} is
+     * released by this method.
+     */
+    void encode(WebSocketFrame frame, List<ByteBuf> out) {
+        final WebSocketFrameType type = frame.type();
+        final boolean finalFragment = frame.isFinalFragment();
+        final boolean compressed = deflate != null && !type.isControl();
+        final ByteBuf payload;
+        try {
+            if (compressed) {
+                payload = deflate.compress(frame.content(), finalFragment, alloc);
+            } else {
+                payload = frame.content().retain();
+            }
+        } finally {
+            frame.release();
+        }
+
+        try {
+            final int length = payload.readableBytes();
+            // Every data frame is compressed, but RSV1 is set only in the first fragment of a message.
+            boolean rsv1 = compressed && type != WebSocketFrameType.CONTINUATION;
+            if (type.isControl() || length <= maxFramePayloadLength) {
+                out.add(encode(type, rsv1, finalFragment, payload, payload.readerIndex(), length));
+                return;
+            }
+
+            WebSocketFrameType fragmentType = type;
+            int offset = payload.readerIndex();
+            int remaining = length;
+            while (remaining > 0) {
+                final int fragmentLength = Math.min(remaining, maxFramePayloadLength);
+                remaining -= fragmentLength;
+                out.add(encode(fragmentType, rsv1, finalFragment && remaining == 0,
+                               payload, offset, fragmentLength));
+                offset += fragmentLength;
+                fragmentType = WebSocketFrameType.CONTINUATION;
+                rsv1 = false;
+            }
+        } finally {
+            payload.release();
+        }
+    }
+
+    private ByteBuf encode(WebSocketFrameType type, boolean rsv1, boolean finalFragment,
+                           ByteBuf payload, int offset, int length) {
+        final boolean copy = length < COPY_THRESHOLD;
+        final ByteBuf header = alloc.buffer(copy ? MAX_HEADER_LENGTH + length : MAX_HEADER_LENGTH);
+        header.writeByte((finalFragment ? 0x80 : 0) | (rsv1 ? 0x40 : 0) | type.opcode());
+        if (length <= 125) {
+            header.writeByte(length);
+        } else if (length <= 0xFFFF) {
+            header.writeByte(126);
+            header.writeShort(length);
+        } else {
+            header.writeByte(127);
+            header.writeLong(length);
+        }
+
+        if (copy) {
+            header.writeBytes(payload, offset, length);
+            return header;
+        }
+        return alloc.compositeBuffer(2).addComponents(true, header, payload.retainedSlice(offset, length));
+    }
+}
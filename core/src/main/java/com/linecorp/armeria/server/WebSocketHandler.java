@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import com.linecorp.armeria.common.stream.StreamMessage;
+import com.linecorp.armeria.common.websocket.WebSocketFrame;
+
+/**
+ * Handles a WebSocket session established by a {@link WebSocketService}.
+ */
+@FunctionalInterface
+public interface WebSocketHandler {
+
+    /**
+     * Handles a WebSocket session. This method is invoked once the opening handshake is accepted.
+     *
+     * @param ctx the {@link ServiceRequestContext} of the opening handshake request
+     * @param in the {@link WebSocketFrame}s received from the client. The next frame is not read from
+     *           the connection until the {@link org.reactivestreams.Subscriber} requests it.
+     * @return the {@link WebSocketFrame}s to send to the client. The next frame is not requested until
+     *         the previous one is written to the connection.
+     */
+    StreamMessage<WebSocketFrame> handle(ServiceRequestContext ctx, StreamMessage<WebSocketFrame> in);
+}
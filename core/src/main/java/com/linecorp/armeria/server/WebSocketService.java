@@ -0,0 +1,251 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Splitter;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.ResponseHeadersBuilder;
+import com.linecorp.armeria.common.stream.StreamMessage;
+import com.linecorp.armeria.common.websocket.WebSocketFrame;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * An {@link HttpService} which accepts a <a href="https://tools.ietf.org/html/rfc6455">WebSocket</a>
+ * opening handshake and lets a {@link WebSocketHandler} exchange {@link WebSocketFrame}s with the client,
+ * e.g.
+ * <pre>{@code
+ * // An echo server
+ * Server server = new ServerBuilder()
+ *         .service("/ws", WebSocketService.of((ctx, in) -> in))
+ *         .build();
+ * }</pre>
+ *
+ * <p>A WebSocket session runs on the event loop of its connection, as an ordinary request does.
+ * Both directions are backpressured; the frames are read from the connection only as fast as
+ * the {@link WebSocketHandler} consumes them, and the frames are requested from the {@link WebSocketHandler}
+ * only as fast as they are written to the connection. A session replies to a ping frame and completes
+ * the closing handshake automatically, so a ping frame is not delivered to the {@link WebSocketHandler}, and
+ * the frames sent by the {@link WebSocketHandler} after a close frame are discarded.
+ *
+ * <p>The payload of a received frame is a slice of the received buffer, and a sent frame whose payload is
+ * longer than {@linkplain WebSocketServiceBuilder#maxOutboundFramePayloadLength(int) the limit} is split
+ * into the fragments which are slices of the original payload. If a client offers
+ * the <a href="https://tools.ietf.org/html/rfc7692">permessage-deflate</a> extension, the messages are
+ * compressed and decompressed transparently.
+ *
+ * <p>The opening handshake is accepted only from an HTTP/1.1 connection. A {@link WebSocketService} exports
+ * the following meters to the {@link MeterRegistry} of the {@link Server}, tagged with the {@code route}:
+ * <ul>
+ *   <li>{@code armeria.server.websocket.sessions} - the number of the open sessions</li>
+ *   <li>{@code armeria.server.websocket.frames} - the number of the frames, tagged with the
+ *       {@code direction} which is either {@code inbound} or {@code outbound}</li>
+ * </ul>
+ */
+public final class WebSocketService implements HttpService {
+
+    private static final String METER_NAME_PREFIX = "armeria.server.websocket";
+
+    private static final String WEBSOCKET = "websocket";
+    private static final String VERSION = "13";
+
+    /**
+     * The GUID appended to a {@code Sec-WebSocket-Key} to compute a {@code Sec-WebSocket-Accept}.
+     */
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private static final Splitter PROTOCOL_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    /**
+     * Returns a new {@link WebSocketService} which handles a session with the specified
+     * {@link WebSocketHandler}, using the default settings.
+     */
+    public static WebSocketService of(WebSocketHandler handler) {
+        return builder(handler).build();
+    }
+
+    /**
+     * Returns a new {@link WebSocketServiceBuilder} which builds a {@link WebSocketService} which handles
+     * a session with the specified {@link WebSocketHandler}.
+     */
+    public static WebSocketServiceBuilder builder(WebSocketHandler handler) {
+        return new WebSocketServiceBuilder(requireNonNull(handler, "handler"));
+    }
+
+    private final WebSocketHandler handler;
+    private final int maxFramePayloadLength;
+    private final int maxOutboundFramePayloadLength;
+    private final boolean perMessageDeflate;
+    private final Set<String> subprotocols;
+    private final long closeTimeoutMillis;
+
+    private final ConcurrentMap<String, Metrics> metrics = new ConcurrentHashMap<>();
+
+    WebSocketService(WebSocketHandler handler, int maxFramePayloadLength, int maxOutboundFramePayloadLength,
+                     boolean perMessageDeflate, Set<String> subprotocols, long closeTimeoutMillis) {
+        this.handler = handler;
+        this.maxFramePayloadLength = maxFramePayloadLength;
+        this.maxOutboundFramePayloadLength = maxOutboundFramePayloadLength;
+        this.perMessageDeflate = perMessageDeflate;
+        this.subprotocols = subprotocols;
+        this.closeTimeoutMillis = closeTimeoutMillis;
+    }
+
+    @Override
+    public HttpResponse serve(ServiceRequestContext ctx, HttpRequest req) throws Exception {
+        final RequestHeaders headers = req.headers();
+        // Http1RequestDecoder leaves the 'upgrade' header only when it has switched the connection
+        // to a WebSocket connection.
+        if (ctx.sessionProtocol().isMultiplex() || headers.method() != HttpMethod.GET ||
+            !Ascii.equalsIgnoreCase(WEBSOCKET, headers.get(HttpHeaderNames.UPGRADE, ""))) {
+            return HttpResponse.of(HttpStatus.BAD_REQUEST, MediaType.PLAIN_TEXT_UTF_8,
+                                   "Not a WebSocket upgrade request");
+        }
+        if (!VERSION.equals(headers.get(HttpHeaderNames.SEC_WEBSOCKET_VERSION))) {
+            return HttpResponse.of(ResponseHeaders.of(HttpStatus.UPGRADE_REQUIRED,
+                                                      HttpHeaderNames.SEC_WEBSOCKET_VERSION, VERSION));
+        }
+        final String key = headers.get(HttpHeaderNames.SEC_WEBSOCKET_KEY);
+        if (!isValidKey(key)) {
+            return HttpResponse.of(HttpStatus.BAD_REQUEST, MediaType.PLAIN_TEXT_UTF_8,
+                                   "Invalid Sec-WebSocket-Key");
+        }
+
+        final ResponseHeadersBuilder resHeaders =
+                ResponseHeaders.builder(HttpStatus.SWITCHING_PROTOCOLS)
+                               .add(HttpHeaderNames.UPGRADE, WEBSOCKET)
+                               .add(HttpHeaderNames.SEC_WEBSOCKET_ACCEPT, accept(key));
+        final String subprotocol = selectSubprotocol(headers.get(HttpHeaderNames.SEC_WEBSOCKET_PROTOCOL));
+        if (subprotocol != null) {
+            resHeaders.add(HttpHeaderNames.SEC_WEBSOCKET_PROTOCOL, subprotocol);
+        }
+        final PerMessageDeflate deflate =
+                perMessageDeflate ? PerMessageDeflate.negotiate(
+                        headers.get(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS)) : null;
+        if (deflate != null) {
+            resHeaders.add(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, deflate.responseHeaderValue());
+        }
+
+        // A session lasts as long as the both ends want, and its frames are limited by their own limit.
+        ctx.setRequestTimeoutMillis(0);
+        ctx.setMaxRequestLength(0);
+
+        final HttpResponseWriter res = HttpResponse.streaming();
+        final WebSocketSession session = new WebSocketSession(
+                ctx, res, new WebSocketFrameDecoder(ctx.alloc(), maxFramePayloadLength, deflate),
+                new WebSocketFrameEncoder(ctx.alloc(), maxOutboundFramePayloadLength, deflate),
+                deflate, closeTimeoutMillis, metrics.computeIfAbsent(
+                        ctx.route().meterTag(), route -> new Metrics(ctx.meterRegistry(), route)));
+
+        final StreamMessage<WebSocketFrame> out;
+        try {
+            out = handler.handle(ctx, session.inbound());
+        } catch (Throwable t) {
+            session.abort(t);
+            throw t;
+        }
+        requireNonNull(out, "handler.handle() returned null");
+
+        res.write(resHeaders.build());
+        if (ctx.eventLoop().inEventLoop()) {
+            session.start(req, out);
+        } else {
+            ctx.eventLoop().execute(() -> session.start(req, out));
+        }
+        return res;
+    }
+
+    private static boolean isValidKey(@Nullable String key) {
+        if (key == null) {
+            return false;
+        }
+        try {
+            return Base64.getDecoder().decode(key).length == 16;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String accept(String key) {
+        final MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform implementation is required to support SHA-1.
+            throw new Error(e);
+        }
+        final byte[] digest = sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    @Nullable
+    private String selectSubprotocol(@Nullable String requested) {
+        if (requested == null || subprotocols.isEmpty()) {
+            return null;
+        }
+        for (String subprotocol : PROTOCOL_SPLITTER.split(requested)) {
+            if (subprotocols.contains(subprotocol)) {
+                return subprotocol;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The meters of the sessions served by a route.
+     */
+    static final class Metrics {
+
+        final AtomicInteger sessions;
+        final Counter inboundFrames;
+        final Counter outboundFrames;
+
+        Metrics(MeterRegistry registry, String route) {
+            sessions = registry.gauge(METER_NAME_PREFIX + ".sessions",
+                                      Tags.of("route", route), new AtomicInteger());
+            inboundFrames = registry.counter(METER_NAME_PREFIX + ".frames",
+                                             "route", route, "direction", "inbound");
+            outboundFrames = registry.counter(METER_NAME_PREFIX + ".frames",
+                                              "route", route, "direction", "outbound");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Builds a new {@link WebSocketService}.
+ */
+public final class WebSocketServiceBuilder {
+
+    static final int DEFAULT_MAX_FRAME_PAYLOAD_LENGTH = 65536;
+    static final int DEFAULT_MAX_OUTBOUND_FRAME_PAYLOAD_LENGTH = 16384;
+    static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final WebSocketHandler handler;
+    private int maxFramePayloadLength = DEFAULT_MAX_FRAME_PAYLOAD_LENGTH;
+    private int maxOutboundFramePayloadLength = DEFAULT_MAX_OUTBOUND_FRAME_PAYLOAD_LENGTH;
+    private boolean perMessageDeflate = true;
+    private ImmutableSet<String> subprotocols = ImmutableSet.of();
+    private long closeTimeoutMillis = DEFAULT_CLOSE_TIMEOUT_MILLIS;
+
+    WebSocketServiceBuilder(WebSocketHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Sets the maximum length of the payload of a frame received from a client. If a client sends a longer
+     * frame, the session is closed with {@code 1009 Message Too Big}. The limit applies to the decompressed
+     * payload of a compressed frame. The default is {@value #DEFAULT_MAX_FRAME_PAYLOAD_LENGTH}.
+     */
+    public WebSocketServiceBuilder maxFramePayloadLength(int maxFramePayloadLength) {
+        checkArgument(maxFramePayloadLength > 0,
+                      "maxFramePayloadLength: %s (expected: > 0)", maxFramePayloadLength);
+        this.maxFramePayloadLength = maxFramePayloadLength;
+        return this;
+    }
+
+    /**
+     * Sets the maximum length of the payload of a frame sent to a client. A longer text or binary frame is
+     * split into fragments. The default is {@value #DEFAULT_MAX_OUTBOUND_FRAME_PAYLOAD_LENGTH}.
+     */
+    public WebSocketServiceBuilder maxOutboundFramePayloadLength(int maxOutboundFramePayloadLength) {
+        checkArgument(maxOutboundFramePayloadLength > 0,
+                      "maxOutboundFramePayloadLength: %s (expected: > 0)", maxOutboundFramePayloadLength);
+        this.maxOutboundFramePayloadLength = maxOutboundFramePayloadLength;
+        return this;
+    }
+
+    /**
+     * Sets whether the <a href="https://tools.ietf.org/html/rfc7692">permessage-deflate</a> extension is
+     * accepted when a client offers it. The default is {@code true}.
+     */
+    public WebSocketServiceBuilder perMessageDeflate(boolean perMessageDeflate) {
+        this.perMessageDeflate = perMessageDeflate;
+        return this;
+    }
+
+    /**
+     * Sets the subprotocols supported by the {@link WebSocketService}. The first subprotocol requested by
+     * a client among them is selected. No subprotocol is selected by default.
+     */
+    public WebSocketServiceBuilder subprotocols(String... subprotocols) {
+        return subprotocols(ImmutableSet.copyOf(requireNonNull(subprotocols, "subprotocols")));
+    }
+
+    /**
+     * Sets the subprotocols supported by the {@link WebSocketService}. The first subprotocol requested by
+     * a client among them is selected. No subprotocol is selected by default.
+     */
+    public WebSocketServiceBuilder subprotocols(Iterable<String> subprotocols) {
+        this.subprotocols = ImmutableSet.copyOf(requireNonNull(subprotocols, "subprotocols"));
+        return this;
+    }
+
+    /**
+     * Sets the amount of time to wait for the close frame from a client after sending a close frame.
+     * The connection is closed when the time passes. The default is
+     * {@value #DEFAULT_CLOSE_TIMEOUT_MILLIS} milliseconds.
+     */
+    public WebSocketServiceBuilder closeTimeout(Duration closeTimeout) {
+        requireNonNull(closeTimeout, "closeTimeout");
+        checkArgument(!closeTimeout.isNegative() && !closeTimeout.isZero(),
+                      "closeTimeout: %s (expected: > 0)", closeTimeout);
+        return closeTimeoutMillis(closeTimeout.toMillis());
+    }
+
+    /**
+     * Sets the amount of time in milliseconds to wait for the close frame from a client after sending
+     * a close frame. The connection is closed when the time passes. The default is
+     * {@value #DEFAULT_CLOSE_TIMEOUT_MILLIS} milliseconds.
+     */
+    public WebSocketServiceBuilder closeTimeoutMillis(long closeTimeoutMillis) {
+        checkArgument(closeTimeoutMillis > 0, "closeTimeoutMillis: %s (expected: > 0)", closeTimeoutMillis);
+        this.closeTimeoutMillis = closeTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link WebSocketService} based on the properties of this builder.
+     */
+    public WebSocketService build() {
+        return new WebSocketService(handler, maxFramePayloadLength, maxOutboundFramePayloadLength,
+                                    perMessageDeflate, subprotocols, closeTimeoutMillis);
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.ContentTooLargeException;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.ProtocolViolationException;
+import com.linecorp.armeria.common.stream.AbortedStreamException;
+import com.linecorp.armeria.common.stream.DefaultStreamMessage;
+import com.linecorp.armeria.common.stream.StreamMessage;
+import com.linecorp.armeria.common.stream.SubscriptionOption;
+import com.linecorp.armeria.common.websocket.WebSocketFrame;
+import com.linecorp.armeria.common.websocket.WebSocketFrameType;
+import com.linecorp.armeria.server.WebSocketService.Metrics;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * A WebSocket session which decodes the request of an accepted opening handshake into the inbound
+ * {@link WebSocketFrame}s and encodes the outbound {@link WebSocketFrame}s into the response.
+ * All methods are invoked from the event loop of the connection.
+ */
+final class WebSocketSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketSession.class);
+
+    private final ServiceRequestContext ctx;
+    private final HttpResponseWriter res;
+    private final WebSocketFrameDecoder decoder;
+    private final WebSocketFrameEncoder encoder;
+    @Nullable
+    private final PerMessageDeflate deflate;
+    private final long closeTimeoutMillis;
+    private final Metrics metrics;
+
+    private final DefaultStreamMessage<WebSocketFrame> inbound = new DefaultStreamMessage<>();
+    private final List<WebSocketFrame> decodedFrames = new ArrayList<>();
+    private final List<ByteBuf> encodedFrames = new ArrayList<>();
+
+    @Nullable
+    private Subscription requestSubscription;
+    @Nullable
+    private Subscription outboundSubscription;
+    @Nullable
+    private ScheduledFuture<?> closeTimeoutFuture;
+    private boolean closeSent;
+    private boolean closeReceived;
+    private boolean destroyed;
+
+    WebSocketSession(ServiceRequestContext ctx, HttpResponseWriter res,
+                     WebSocketFrameDecoder decoder, WebSocketFrameEncoder encoder,
+                     @Nullable PerMessageDeflate deflate, long closeTimeoutMillis, Metrics metrics) {
+        this.ctx = ctx;
+        this.res = res;
+        this.decoder = decoder;
+        this.encoder = encoder;
+        this.deflate = deflate;
+        this.closeTimeoutMillis = closeTimeoutMillis;
+        this.metrics = metrics;
+    }
+
+    StreamMessage<WebSocketFrame> inbound() {
+        return inbound;
+    }
+
+    /**
+     * Starts to exchange the frames once the opening handshake has been accepted.
+     */
+    void start(HttpRequest req, StreamMessage<WebSocketFrame> outbound) {
+        metrics.sessions.incrementAndGet();
+        res.completionFuture().handleAsync((unused, cause) -> {
+            destroy();
+            return null;
+        }, ctx.eventLoop());
+
+        req.subscribe(new RequestSubscriber(), ctx.eventLoop(), SubscriptionOption.WITH_POOLED_OBJECTS);
+        outbound.subscribe(new OutboundSubscriber(), ctx.eventLoop(), SubscriptionOption.WITH_POOLED_OBJECTS);
+    }
+
+    /**
+     * Aborts the session which has not been started because the {@link WebSocketHandler} failed.
+     */
+    void abort(Throwable cause) {
+        inbound.close(cause);
+        if (deflate != null) {
+            deflate.destroy();
+        }
+    }
+
+    private void onInboundFrame(WebSocketFrame frame) {
+        if (closeReceived) {
+            // No frame is expected after a close frame.
+            frame.release();
+            return;
+        }
+
+        metrics.inboundFrames.increment();
+        switch (frame.type()) {
+            case PING:
+                // Reply with the same payload; a ping frame is not delivered to the handler.
+                if (closeSent) {
+                    frame.release();
+                } else {
+                    send(WebSocketFrame.of(WebSocketFrameType.PONG, frame.content(), true));
+                }
+                break;
+            case CLOSE:
+                closeReceived = true;
+                final int status = frame.closeStatus();
+                inbound.tryWrite(frame);
+                inbound.close();
+                if (!closeSent) {
+                    closeSent = true;
+                    send(closeFrame(status));
+                }
+                // The closing handshake is complete; the server closes the connection first.
+                res.close();
+                break;
+            default:
+                inbound.tryWrite(frame);
+        }
+    }
+
+    private void fail(int status, Throwable cause) {
+        inbound.close(cause);
+        if (!closeSent) {
+            closeSent = true;
+            send(closeFrame(status));
+        }
+        res.close();
+    }
+
+    private void send(WebSocketFrame frame) {
+        metrics.outboundFrames.increment();
+        encoder.encode(frame, encodedFrames);
+        for (ByteBuf buf : encodedFrames) {
+            // Released by the response if it has been closed already.
+            res.tryWrite(HttpData.wrap(buf));
+        }
+        encodedFrames.clear();
+    }
+
+    private void onCloseSent() {
+        if (closeReceived) {
+            res.close();
+        } else {
+            closeTimeoutFuture = ctx.eventLoop().schedule(res::close, closeTimeoutMillis,
+                                                          TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static WebSocketFrame closeFrame(int status) {
+        if (status == WebSocketFrame.NO_STATUS_RECEIVED) {
+            return WebSocketFrame.of(WebSocketFrameType.CLOSE, Unpooled.EMPTY_BUFFER, true);
+        }
+        return WebSocketFrame.of(WebSocketFrameType.CLOSE, Unpooled.buffer(2).writeShort(status), true);
+    }
+
+    private void destroy() {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+
+        metrics.sessions.decrementAndGet();
+        if (closeTimeoutFuture != null) {
+            closeTimeoutFuture.cancel(false);
+        }
+        if (requestSubscription != null) {
+            requestSubscription.cancel();
+        }
+        if (outboundSubscription != null) {
+            outboundSubscription.cancel();
+        }
+        inbound.close(AbortedStreamException.get());
+        decoder.destroy();
+        if (deflate != null) {
+            deflate.destroy();
+        }
+    }
+
+    private final class RequestSubscriber implements Subscriber<HttpObject> {
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            requestSubscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(HttpObject obj) {
+            if (destroyed || closeReceived || !(obj instanceof HttpData)) {
+                ReferenceCountUtil.safeRelease(obj);
+                if (!destroyed && !closeReceived) {
+                    requestNext();
+                }
+                return;
+            }
+
+            final HttpData data = (HttpData) obj;
+            final ByteBuf buf;
+            if (data instanceof ByteBufHolder) {
+                buf = ((ByteBufHolder) data).content();
+            } else {
+                buf = Unpooled.wrappedBuffer(data.array());
+            }
+
+            try {
+                decoder.decode(buf, decodedFrames);
+                for (WebSocketFrame frame : decodedFrames) {
+                    onInboundFrame(frame);
+                }
+            } catch (ProtocolViolationException e) {
+                decodedFrames.forEach(WebSocketFrame::release);
+                fail(WebSocketFrame.PROTOCOL_ERROR, e);
+                return;
+            } catch (ContentTooLargeException e) {
+                decodedFrames.forEach(WebSocketFrame::release);
+                fail(WebSocketFrame.MESSAGE_TOO_BIG, e);
+                return;
+            } finally {
+                decodedFrames.clear();
+            }
+
+            if (!closeReceived) {
+                requestNext();
+            }
+        }
+
+        private void requestNext() {
+            final Subscription s = requestSubscription;
+            assert s != null;
+            // Read the next frames only when the handler wants them, so that the inbound traffic is
+            // suppressed while the handler is busy. Keep reading even if the handler is not interested
+            // in the frames anymore, because a close frame has to be received.
+            inbound.onDemand(() -> s.request(1)).exceptionally(unused -> {
+                s.request(1);
+                return null;
+            });
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            inbound.close(cause);
+        }
+
+        @Override
+        public void onComplete() {
+            inbound.close();
+        }
+    }
+
+    private final class OutboundSubscriber implements Subscriber<WebSocketFrame> {
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            outboundSubscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(WebSocketFrame frame) {
+            final Subscription s = outboundSubscription;
+            assert s != null;
+            if (destroyed || closeSent) {
+                // No frame is allowed after a close frame.
+                frame.release();
+                s.cancel();
+                return;
+            }
+
+            final boolean close = frame.type() == WebSocketFrameType.CLOSE;
+            send(frame);
+            if (close) {
+                closeSent = true;
+                s.cancel();
+                onCloseSent();
+            } else {
+                res.onDemand(() -> s.request(1)).exceptionally(unused -> {
+                    s.cancel();
+                    return null;
+                });
+            }
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            if (!(cause instanceof AbortedStreamException)) {
+                logger.warn("{} Unexpected exception from a WebSocketHandler:", ctx, cause);
+            }
+            if (!destroyed && !closeSent) {
+                closeSent = true;
+                send(closeFrame(WebSocketFrame.INTERNAL_ERROR));
+                onCloseSent();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!destroyed && !closeSent) {
+                closeSent = true;
+                send(closeFrame(WebSocketFrame.NORMAL_CLOSURE));
+                onCloseSent();
+            }
+        }
+    }
+}
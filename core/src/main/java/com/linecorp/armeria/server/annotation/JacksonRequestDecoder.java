@@ -0,0 +1,401 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.annotation;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import com.linecorp.armeria.common.AggregatedHttpRequest;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.stream.DefaultStreamMessage;
+import com.linecorp.armeria.common.stream.StreamMessage;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Decodes a JSON content of an {@link HttpRequest} as it arrives, without aggregating the request into
+ * an {@link AggregatedHttpRequest}. The {@link HttpData}s are fed into a non-blocking {@link JsonParser}
+ * one by one, and only the tokens of the value being decoded are buffered.
+ *
+ * <p>An annotated service method receives a request decoded by this decoder if its parameter is one of
+ * the following types and the {@code content-type} of the request is JSON:
+ * <ul>
+ *   <li>{@link StreamMessage StreamMessage&lt;T&gt;} or
+ *       {@link org.reactivestreams.Publisher Publisher&lt;T&gt;}
+ *       - the elements of a JSON array, decoded by {@link #decodeArray(StreamMessage, Type)}</li>
+ *   <li>{@link CompletableFuture CompletableFuture&lt;T&gt;} or
+ *       {@link java.util.concurrent.CompletionStage CompletionStage&lt;T&gt;}
+ *       - a JSON document, decoded by {@link #decode(StreamMessage, Type)}</li>
+ * </ul>
+ * <pre>{@code
+ * > public class MyService {
+ * >     @Post("/items")
+ * >     public HttpResponse upload(StreamMessage<Item> items) {
+ * >         // Each item is decoded and emitted as soon as its last byte is received.
+ * >         ...
+ * >     }
+ * > }
+ * }</pre>
+ */
+public final class JacksonRequestDecoder {
+
+    private static final JacksonRequestDecoder DEFAULT = new JacksonRequestDecoder(new ObjectMapper());
+
+    /**
+     * Returns the {@link JacksonRequestDecoder} which uses the default {@link ObjectMapper}.
+     */
+    public static JacksonRequestDecoder of() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a new {@link JacksonRequestDecoder} which uses the specified {@link ObjectMapper}.
+     */
+    public static JacksonRequestDecoder of(ObjectMapper mapper) {
+        return new JacksonRequestDecoder(requireNonNull(mapper, "mapper"));
+    }
+
+    private final ObjectMapper mapper;
+
+    private JacksonRequestDecoder(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Decodes the JSON document in the specified {@code content} into an object of the specified
+     * {@link Type}. The returned {@link CompletableFuture} is completed exceptionally with
+     * an {@link IllegalArgumentException} if the content is not a valid JSON document.
+     */
+    public <T> CompletableFuture<T> decode(StreamMessage<? extends HttpObject> content, Type type) {
+        requireNonNull(content, "content");
+        final ValueSubscriber<T> subscriber = new ValueSubscriber<>(readerFor(type));
+        content.subscribe(subscriber);
+        return subscriber.future;
+    }
+
+    /**
+     * Decodes the JSON document in the specified {@code content} into an object of the specified
+     * {@link Type}, subscribing the {@code content} with the specified {@link EventExecutor}.
+     *
+     * @see #decode(StreamMessage, Type)
+     */
+    public <T> CompletableFuture<T> decode(StreamMessage<? extends HttpObject> content, Type type,
+                                           EventExecutor executor) {
+        requireNonNull(content, "content");
+        requireNonNull(executor, "executor");
+        final ValueSubscriber<T> subscriber = new ValueSubscriber<>(readerFor(type));
+        content.subscribe(subscriber, executor);
+        return subscriber.future;
+    }
+
+    /**
+     * Decodes the JSON array in the specified {@code content} into a {@link StreamMessage} of its elements
+     * of the specified {@link Type}. An element is emitted as soon as it is received completely, and
+     * the {@code content} is not requested further until the emitted elements are consumed. The returned
+     * {@link StreamMessage} is closed with an {@link IllegalArgumentException} if the content is not
+     * a valid JSON array or it contains a {@code null} element.
+     */
+    public <T> StreamMessage<T> decodeArray(StreamMessage<? extends HttpObject> content, Type elementType) {
+        requireNonNull(content, "content");
+        final ArraySubscriber<T> subscriber = new ArraySubscriber<>(readerFor(elementType));
+        content.subscribe(subscriber);
+        return subscriber.elements;
+    }
+
+    /**
+     * Decodes the JSON array in the specified {@code content} into a {@link StreamMessage} of its elements
+     * of the specified {@link Type}, subscribing the {@code content} with the specified
+     * {@link EventExecutor}.
+     *
+     * @see #decodeArray(StreamMessage, Type)
+     */
+    public <T> StreamMessage<T> decodeArray(StreamMessage<? extends HttpObject> content, Type elementType,
+                                            EventExecutor executor) {
+        requireNonNull(content, "content");
+        requireNonNull(executor, "executor");
+        final ArraySubscriber<T> subscriber = new ArraySubscriber<>(readerFor(elementType));
+        content.subscribe(subscriber, executor);
+        return subscriber.elements;
+    }
+
+    private ObjectReader readerFor(Type type) {
+        requireNonNull(type, "type");
+        return mapper.readerFor(mapper.constructType(type));
+    }
+
+    private abstract static class JsonSubscriber implements Subscriber<HttpObject> {
+
+        private final ObjectReader reader;
+        private final JsonParser parser;
+        @Nullable
+        private Subscription subscription;
+        @Nullable
+        private TokenBuffer tokens;
+        private boolean done;
+
+        JsonSubscriber(ObjectReader reader) {
+            this.reader = reader;
+            try {
+                parser = reader.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException("failed to create a non-blocking JSON parser", e);
+            }
+        }
+
+        @Override
+        public final void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            requestMore();
+        }
+
+        @Override
+        public final void onNext(HttpObject obj) {
+            if (done) {
+                return;
+            }
+            if (obj instanceof HttpData) {
+                final HttpData data = (HttpData) obj;
+                if (!data.isEmpty()) {
+                    try {
+                        ((ByteArrayFeeder) parser.getNonBlockingInputFeeder())
+                                .feedInput(data.array(), 0, data.length());
+                        parseAvailableTokens();
+                    } catch (Throwable cause) {
+                        fail(cause);
+                        return;
+                    }
+                }
+            }
+            if (!done) {
+                requestMore();
+            }
+        }
+
+        @Override
+        public final void onError(Throwable cause) {
+            if (!done) {
+                done = true;
+                onFailure(cause);
+            }
+        }
+
+        @Override
+        public final void onComplete() {
+            if (done) {
+                return;
+            }
+            try {
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+                parseAvailableTokens();
+                if (!done) {
+                    done = true;
+                    onEndOfInput();
+                }
+            } catch (Throwable cause) {
+                fail(cause);
+            }
+        }
+
+        private void parseAvailableTokens() throws IOException {
+            for (JsonToken token; !done && (token = parser.nextToken()) != null;) {
+                if (token == JsonToken.NOT_AVAILABLE) {
+                    break;
+                }
+                onToken(token);
+            }
+        }
+
+        final Subscription subscription() {
+            assert subscription != null;
+            return subscription;
+        }
+
+        /**
+         * Buffers the current token and returns the decoded value if the token completes a value
+         * at the specified depth, or {@code null} otherwise.
+         */
+        @Nullable
+        final <T> T bufferToken(JsonToken token, int depth, int completionDepth) throws IOException {
+            if (tokens == null) {
+                tokens = new TokenBuffer(parser);
+            }
+            tokens.copyCurrentEvent(parser);
+            if (depth != completionDepth) {
+                return null;
+            }
+
+            final TokenBuffer tokens = this.tokens;
+            this.tokens = null;
+            try (JsonParser tokenParser = tokens.asParser(reader)) {
+                final T value = reader.readValue(tokenParser);
+                if (value == null) {
+                    throw new IllegalArgumentException("a JSON null cannot be decoded: " + token);
+                }
+                return value;
+            }
+        }
+
+        final void fail(Throwable cause) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            if (cause instanceof JsonProcessingException) {
+                cause = new IllegalArgumentException("failed to parse a JSON document: " + cause, cause);
+            }
+            onFailure(cause);
+        }
+
+        abstract void requestMore();
+
+        abstract void onToken(JsonToken token) throws IOException;
+
+        abstract void onEndOfInput();
+
+        abstract void onFailure(Throwable cause);
+    }
+
+    private static final class ValueSubscriber<T> extends JsonSubscriber {
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        private int depth;
+        @Nullable
+        private T value;
+
+        ValueSubscriber(ObjectReader reader) {
+            super(reader);
+        }
+
+        @Override
+        void requestMore() {
+            subscription().request(1);
+        }
+
+        @Override
+        void onToken(JsonToken token) throws IOException {
+            if (value != null) {
+                fail(new IllegalArgumentException("unexpected token after a JSON document: " + token));
+                return;
+            }
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            value = bufferToken(token, depth, 0);
+        }
+
+        @Override
+        void onEndOfInput() {
+            if (value != null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(new IllegalArgumentException("incomplete JSON document"));
+            }
+        }
+
+        @Override
+        void onFailure(Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    private static final class ArraySubscriber<T> extends JsonSubscriber {
+
+        final DefaultStreamMessage<T> elements = new DefaultStreamMessage<>();
+        private int depth;
+        private boolean started;
+        private boolean ended;
+
+        ArraySubscriber(ObjectReader reader) {
+            super(reader);
+        }
+
+        @Override
+        void requestMore() {
+            // Request the next chunk only when the subscriber of the elements wants more.
+            elements.onDemand(() -> subscription().request(1))
+                    .exceptionally(unused -> {
+                        subscription().cancel();
+                        return null;
+                    });
+        }
+
+        @Override
+        void onToken(JsonToken token) throws IOException {
+            if (depth == 0) {
+                if (started || token != JsonToken.START_ARRAY) {
+                    fail(new IllegalArgumentException("expected a single JSON array but got: " + token));
+                    return;
+                }
+                started = true;
+                depth = 1;
+                return;
+            }
+            if (depth == 1 && token == JsonToken.END_ARRAY) {
+                depth = 0;
+                ended = true;
+                return;
+            }
+
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            final T element = bufferToken(token, depth, 1);
+            if (element != null && !elements.tryWrite(element)) {
+                // The subscriber of the elements has gone away.
+                fail(new IllegalStateException("the stream of the decoded elements has been closed"));
+            }
+        }
+
+        @Override
+        void onEndOfInput() {
+            if (ended) {
+                elements.close();
+            } else {
+                elements.close(new IllegalArgumentException("incomplete JSON array"));
+            }
+        }
+
+        @Override
+        void onFailure(Throwable cause) {
+            elements.close(cause);
+        }
+    }
+}
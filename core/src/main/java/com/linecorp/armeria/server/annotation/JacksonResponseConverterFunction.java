@@ -15,6 +15,7 @@
  */
 package com.linecorp.armeria.server.annotation;
 
+import static com.linecorp.armeria.internal.ObjectCollectingUtil.isMono;
 import static com.linecorp.armeria.internal.ResponseConversionUtil.aggregateFrom;
 import static java.util.Objects.requireNonNull;
 
@@ -29,12 +30,11 @@ import org.reactivestreams.Publisher;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.ResponseHeaders;
-import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.internal.PooledJsonWriter;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.streaming.JsonTextSequences;
 
@@ -42,7 +42,8 @@ import com.linecorp.armeria.server.streaming.JsonTextSequences;
  * A response converter implementation which creates an {@link HttpResponse} with
  * {@code content-type: application/json; charset=utf-8} or {@code content-type: application/json-seq}.
  * The objects published from a {@link Publisher} or {@link Stream} would be converted into JSON Text Sequences
- * if a {@link ProducesJsonSequences} annotation is specified on an annotated service method.
+ * if a {@link ProducesJsonSequences} annotation is specified on an annotated service method. Otherwise,
+ * they would be sent as a JSON array in chunks of a few kilobytes, without collecting them first.
  *
  * @see <a href="https://tools.ietf.org/html/rfc7464">JavaScript Object Notation (JSON) Text Sequences</a>
  */
@@ -51,6 +52,7 @@ public class JacksonResponseConverterFunction implements ResponseConverterFuncti
     private static final ObjectMapper defaultObjectMapper = new ObjectMapper();
 
     private final ObjectMapper mapper;
+    private final PooledJsonWriter writer;
 
     /**
      * Creates an instance with the default {@link ObjectMapper}.
@@ -64,6 +66,7 @@ public class JacksonResponseConverterFunction implements ResponseConverterFuncti
      */
     public JacksonResponseConverterFunction(ObjectMapper mapper) {
         this.mapper = requireNonNull(mapper, "mapper");
+        writer = PooledJsonWriter.of(mapper);
     }
 
     @Override
@@ -81,13 +84,17 @@ public class JacksonResponseConverterFunction implements ResponseConverterFuncti
                 // because ObjectMapper always writes JSON document as UTF-8.
                 if (charset.contains(StandardCharsets.UTF_8)) {
                     if (result instanceof Publisher) {
-                        return aggregateFrom((Publisher<?>) result, headers, trailers, this::toJsonHttpData);
+                        final Publisher<?> publisher = (Publisher<?>) result;
+                        if (isMono(publisher)) {
+                            return aggregateFrom(publisher, headers, trailers, writer::toHttpData);
+                        }
+                        return writer.streamArray(publisher, headers, trailers);
                     }
                     if (result instanceof Stream) {
-                        return aggregateFrom((Stream<?>) result, headers, trailers,
-                                             this::toJsonHttpData, ctx.blockingTaskExecutor());
+                        return writer.streamArray((Stream<?>) result, headers, trailers,
+                                                  ctx.blockingTaskExecutor());
                     }
-                    return HttpResponse.of(headers, toJsonHttpData(result), trailers);
+                    return HttpResponse.of(headers, writer.toHttpData(result), trailers);
                 }
             }
 
@@ -105,17 +112,9 @@ public class JacksonResponseConverterFunction implements ResponseConverterFuncti
         } else if (result instanceof JsonNode) {
             // No media type is specified, but the result is a JsonNode type.
             return HttpResponse.of(headers.toBuilder().contentType(MediaType.JSON_UTF_8).build(),
-                                   toJsonHttpData(result), trailers);
+                                   writer.toHttpData(result), trailers);
         }
 
         return ResponseConverterFunction.fallthrough();
     }
-
-    private HttpData toJsonHttpData(@Nullable Object value) {
-        try {
-            return HttpData.wrap(mapper.writeValueAsBytes(value));
-        } catch (Exception e) {
-            return Exceptions.throwUnsafely(e);
-        }
-    }
 }
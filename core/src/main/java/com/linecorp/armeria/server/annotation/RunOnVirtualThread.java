@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.linecorp.armeria.common.Flags;
+import com.linecorp.armeria.common.util.BlockingTaskExecutors;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * Specifies that an annotated HTTP service method blocks, so that it is invoked in a new virtual thread
+ * rather than in an event loop or the {@linkplain ServiceRequestContext#blockingTaskExecutor() blocking
+ * task executor}. This annotation is useful for a method which mostly waits for a slow downstream, because
+ * a large number of such methods can be in flight without exhausting the threads of the blocking task
+ * executor. If specified on a class, it applies to all the service methods of the class.
+ *
+ * <p>If the JVM does not support virtual threads, the annotated method is invoked in the
+ * {@linkplain ServiceRequestContext#blockingTaskExecutor() blocking task executor} regardless of its return
+ * type. See {@link BlockingTaskExecutors} and {@link Flags#useVirtualThreadBlockingTaskExecutor()} to run
+ * all blocking tasks of a server in virtual threads.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+public @interface RunOnVirtualThread {
+}
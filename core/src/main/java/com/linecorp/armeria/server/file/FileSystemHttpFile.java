@@ -15,8 +15,10 @@
  */
 package com.linecorp.armeria.server.file;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -24,18 +26,35 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Clock;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 
 import javax.annotation.Nullable;
 
 import com.google.common.base.MoreObjects;
 
+import com.linecorp.armeria.common.Flags;
 import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.internal.FileRegionHttpData;
+import com.linecorp.armeria.internal.MappedByteBufs;
 
 import io.netty.buffer.ByteBuf;
 
 final class FileSystemHttpFile extends StreamingHttpFile<ByteChannel> {
 
+    /**
+     * The minimum length of a file to transfer without copying its content into the heap.
+     */
+    private static final long MIN_ZERO_COPY_LENGTH = 1024 * 1024;
+
+    /**
+     * The maximum length of a {@link FileRegionHttpData}.
+     */
+    private static final int MAX_REGION_LENGTH = 4 * 1024 * 1024;
+
     private final Path path;
 
     FileSystemHttpFile(Path path,
@@ -82,6 +101,77 @@ final class FileSystemHttpFile extends StreamingHttpFile<ByteChannel> {
         }
     }
 
+    @Nullable
+    @Override
+    HttpResponse doReadWithoutCopy(ResponseHeaders headers, long length, Executor fileReadExecutor) {
+        if (!Flags.useZeroCopyFileTransfer() || length < MIN_ZERO_COPY_LENGTH) {
+            return null;
+        }
+
+        // Emit the memory-mapped regions of the file rather than its content. The encoder transfers them via
+        // sendfile() or their mapped content depending on the protocol. The file is opened and mapped by
+        // the fileReadExecutor, just like it is read by it in the other case.
+        final HttpResponseWriter res = HttpResponse.streaming();
+        res.write(headers);
+        fileReadExecutor.execute(() -> writeRegion(res, 0, length, fileReadExecutor));
+        return res;
+    }
+
+    private void writeRegion(HttpResponseWriter res, long position, long end, Executor fileReadExecutor) {
+        final int regionLength = (int) Math.min(MAX_REGION_LENGTH, end - position);
+        final long nextPosition = position + regionLength;
+        final boolean endOfStream = nextPosition == end;
+        final FileRegionHttpData data;
+        try {
+            data = FileRegionHttpData.of(path, position, regionLength, endOfStream);
+        } catch (Exception e) {
+            res.close(e);
+            return;
+        }
+
+        if (!res.tryWrite(data)) {
+            return;
+        }
+
+        if (endOfStream) {
+            res.close();
+            return;
+        }
+
+        res.onDemand(() -> {
+            try {
+                fileReadExecutor.execute(() -> writeRegion(res, nextPosition, end, fileReadExecutor));
+            } catch (Exception e) {
+                res.close(e);
+            }
+        });
+    }
+
+    /**
+     * Returns a new {@link AggregatedHttpFile} whose content is a read-only memory-mapped buffer of the file.
+     * Note that the content reflects any in-place modification of the file and that accessing the content
+     * after the file is truncated may fail.
+     *
+     * @param attrs the attributes of the file, which were read before mapping the file
+     */
+    AggregatedHttpFile aggregateMapped(HttpFileAttributes attrs) throws IOException {
+        final long length = attrs.length();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("too large to map: " + length + " bytes");
+        }
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < length) {
+                // Mapping beyond the end of the file leads to an unspecified behavior.
+                throw new EOFException("truncated file: " + path);
+            }
+            // A mapping remains valid even after the channel is closed. It is unmapped when the cache entry
+            // is evicted and all responses which share its content have been written.
+            final ByteBuf buf = MappedByteBufs.map(ch, 0, (int) length, null);
+            return newAggregatedFile(new MappedHttpData(buf), attrs);
+        }
+    }
+
     @Override
     protected int read(ByteChannel src, ByteBuf dst) throws IOException {
         if (src instanceof ScatteringByteChannel) {
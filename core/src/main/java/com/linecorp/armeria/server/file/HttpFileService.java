@@ -18,11 +18,20 @@ package com.linecorp.armeria.server.file;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nullable;
 
@@ -32,11 +41,14 @@ import org.slf4j.LoggerFactory;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.RemovalListener;
+import com.github.benmanes.caffeine.cache.Weigher;
 import com.google.common.base.Splitter;
+import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
@@ -68,6 +80,19 @@ public final class HttpFileService extends AbstractHttpService {
 
     private static final Splitter COMMA_SPLITTER = Splitter.on(',');
 
+    private static final Predicate<MediaType> COMPRESSIBLE_CONTENT_TYPE_PREDICATE =
+            contentType -> Stream.of(MediaType.ANY_TEXT_TYPE,
+                                     MediaType.APPLICATION_XML_UTF_8,
+                                     MediaType.JAVASCRIPT_UTF_8,
+                                     MediaType.JSON_UTF_8,
+                                     MediaType.SVG_UTF_8)
+                                 .anyMatch(contentType::is);
+
+    /**
+     * The minimum length of a file to compress. Compressing a smaller file does not save much.
+     */
+    private static final int MIN_COMPRESSIBLE_LENGTH = 1024;
+
     /**
      * Creates a new {@link HttpFileService} for the specified {@code rootDir} in an O/S file system.
      */
@@ -108,22 +133,69 @@ public final class HttpFileService extends AbstractHttpService {
     @Nullable
     private final Cache<PathAndEncoding, AggregatedHttpFile> cache;
 
+    /**
+     * The keys of the compressed variants which are being generated in the background.
+     */
+    private final Set<PathAndEncoding> pendingCompressions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The total length of the cached file entries copied into the heap.
+     */
+    private final LongAdder heapCacheBytes = new LongAdder();
+
+    /**
+     * The total length of the memory-mapped cached file entries.
+     */
+    private final LongAdder mappedCacheBytes = new LongAdder();
+
+    /**
+     * The additional headers of the served files, which include {@code "vary: accept-encoding"} if
+     * {@link HttpFileServiceConfig#autoCompress()} is in effect.
+     */
+    private final HttpHeaders fileHeaders;
+
     HttpFileService(HttpFileServiceConfig config) {
         this.config = requireNonNull(config, "config");
         if (config.maxCacheEntries() != 0) {
-            cache = newCache(config);
+            cache = newCache(config, heapCacheBytes, mappedCacheBytes);
         } else {
             cache = null;
         }
+
+        if (cache != null && config.autoCompress()) {
+            // Any cached file may be served compressed or not depending on the accept-encoding header,
+            // so the uncompressed responses need to tell caches to vary on it as well as the compressed ones.
+            fileHeaders = config.headers().toBuilder()
+                                .add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING.toString())
+                                .build();
+        } else {
+            fileHeaders = config.headers();
+        }
     }
 
-    private static Cache<PathAndEncoding, AggregatedHttpFile> newCache(HttpFileServiceConfig config) {
+    private static Cache<PathAndEncoding, AggregatedHttpFile> newCache(HttpFileServiceConfig config,
+                                                                       LongAdder heapCacheBytes,
+                                                                       LongAdder mappedCacheBytes) {
         final Caffeine<Object, Object> b = Caffeine.newBuilder();
-        b.maximumSize(config.maxCacheEntries())
-         .recordStats()
+        if (config.maxCacheSizeBytes() > 0) {
+            b.maximumWeight(config.maxCacheSizeBytes())
+             .weigher((Weigher<PathAndEncoding, AggregatedHttpFile>) (key, value) -> {
+                 final HttpData content = value.content();
+                 return content != null ? content.length() : 0;
+             });
+        } else {
+            b.maximumSize(config.maxCacheEntries());
+        }
+        b.recordStats()
          .removalListener((RemovalListener<PathAndEncoding, AggregatedHttpFile>) (key, value, cause) -> {
              if (value != null) {
                  final HttpData content = value.content();
+                 if (content == null) {
+                     return;
+                 }
+                 final LongAdder cacheBytes = content instanceof MappedHttpData ? mappedCacheBytes
+                                                                                : heapCacheBytes;
+                 cacheBytes.add(-content.length());
                  if (content instanceof ByteBufHolder) {
                      ((ByteBufHolder) content).release();
                  }
@@ -136,13 +208,17 @@ public final class HttpFileService extends AbstractHttpService {
     public void serviceAdded(ServiceConfig cfg) throws Exception {
         final MeterRegistry registry = cfg.server().meterRegistry();
         if (cache != null) {
-            CaffeineMetricSupport.setup(
-                    registry,
+            final MeterIdPrefix idPrefix =
                     new MeterIdPrefix("armeria.server.file.vfsCache",
                                       "hostnamePattern", cfg.virtualHost().hostnamePattern(),
                                       "route", cfg.route().meterTag(),
-                                      "vfs", config.vfs().meterTag()),
-                    cache);
+                                      "vfs", config.vfs().meterTag());
+            CaffeineMetricSupport.setup(registry, idPrefix, cache);
+
+            // The total length of the cached entries in each tier.
+            final String bytes = idPrefix.name("bytes");
+            registry.gauge(bytes, idPrefix.tags("tier", "heap"), heapCacheBytes, LongAdder::doubleValue);
+            registry.gauge(bytes, idPrefix.tags("tier", "mapped"), mappedCacheBytes, LongAdder::doubleValue);
         }
     }
 
@@ -175,7 +251,7 @@ public final class HttpFileService extends AbstractHttpService {
         final EnumSet<FileServiceContentEncoding> supportedEncodings =
                 EnumSet.noneOf(FileServiceContentEncoding.class);
 
-        if (config.serveCompressedFiles()) {
+        if (config.serveCompressedFiles() || config.autoCompress()) {
             // We do a simple parse of the accept-encoding header, without worrying about star values
             // or priorities.
             final String acceptEncoding = req.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
@@ -229,21 +305,30 @@ public final class HttpFileService extends AbstractHttpService {
     @Nullable
     private HttpFile findFile(ServiceRequestContext ctx, String path,
                               EnumSet<FileServiceContentEncoding> supportedEncodings) throws IOException {
-        for (FileServiceContentEncoding encoding : supportedEncodings) {
-            final String contentEncoding = encoding.headerValue;
-            final HttpFile file = findFile(ctx, path + encoding.extension, contentEncoding);
-            if (file != null) {
-                return file;
+        if (config.serveCompressedFiles()) {
+            for (FileServiceContentEncoding encoding : supportedEncodings) {
+                final String contentEncoding = encoding.headerValue;
+                final HttpFile file = findFile(ctx, path + encoding.extension, contentEncoding);
+                if (file != null) {
+                    return file;
+                }
             }
         }
 
-        return findFile(ctx, path, (String) null);
+        final HttpFile file = findFile(ctx, path, (String) null);
+        if (cache != null && config.autoCompress() && file instanceof AggregatedHttpFile &&
+            supportedEncodings.contains(FileServiceContentEncoding.GZIP)) {
+            // The file has been cached and the client accepts a compressed content.
+            return findCompressedFile(ctx, path, (AggregatedHttpFile) file);
+        }
+
+        return file;
     }
 
     @Nullable
     private HttpFile findFile(ServiceRequestContext ctx, String path,
                               @Nullable String contentEncoding) throws IOException {
-        final HttpFile uncachedFile = config.vfs().get(path, config.clock(), contentEncoding, config.headers());
+        final HttpFile uncachedFile = config.vfs().get(path, config.clock(), contentEncoding, fileHeaders);
         final HttpFileAttributes uncachedAttrs = uncachedFile.readAttributes();
         if (cache == null) {
             return uncachedAttrs != null ? uncachedFile : null;
@@ -252,20 +337,21 @@ public final class HttpFileService extends AbstractHttpService {
         final PathAndEncoding pathAndEncoding = new PathAndEncoding(path, contentEncoding);
         if (uncachedAttrs == null) {
             // Non-existent file. Invalidate the cache just in case it existed before.
-            cache.invalidate(pathAndEncoding);
+            invalidate(pathAndEncoding);
             return null;
         }
 
         if (uncachedAttrs.length() > config.maxCacheEntrySizeBytes()) {
             // Invalidate the cache just in case the file was small previously.
-            cache.invalidate(pathAndEncoding);
+            invalidate(pathAndEncoding);
             return uncachedFile;
         }
 
         final AggregatedHttpFile cachedFile = cache.getIfPresent(pathAndEncoding);
         if (cachedFile == null) {
-            // Cache miss. Add a new entry to the cache.
-            return cache(ctx, pathAndEncoding, uncachedFile);
+            // Cache miss. Add a new entry to the cache, dropping the compressed variants of the old content.
+            invalidateCompressedFiles(pathAndEncoding);
+            return cache(ctx, pathAndEncoding, uncachedFile, uncachedAttrs);
         }
 
         final HttpFileAttributes cachedAttrs = cachedFile.readAttributes();
@@ -276,18 +362,42 @@ public final class HttpFileService extends AbstractHttpService {
         }
 
         // Cache hit, but the cached file is out of date. Replace the old entry from the cache.
+        invalidate(pathAndEncoding);
+        return cache(ctx, pathAndEncoding, uncachedFile, uncachedAttrs);
+    }
+
+    private void invalidate(PathAndEncoding pathAndEncoding) {
+        assert cache != null;
         cache.invalidate(pathAndEncoding);
-        return cache(ctx, pathAndEncoding, uncachedFile);
+        invalidateCompressedFiles(pathAndEncoding);
     }
 
-    private HttpFile cache(ServiceRequestContext ctx, PathAndEncoding pathAndEncoding, HttpFile file) {
+    private void invalidateCompressedFiles(PathAndEncoding pathAndEncoding) {
+        assert cache != null;
+        if (config.autoCompress() && pathAndEncoding.contentEncoding == null) {
+            cache.invalidate(new PathAndEncoding(pathAndEncoding.path,
+                                                 FileServiceContentEncoding.GZIP.headerValue));
+        }
+    }
+
+    private HttpFile cache(ServiceRequestContext ctx, PathAndEncoding pathAndEncoding, HttpFile file,
+                           HttpFileAttributes attrs) {
         assert cache != null;
 
         // TODO(trustin): We assume here that the file being read is small enough that it will not block
         //                an event loop for a long time. Revisit if the assumption turns out to be false.
         final AggregatedHttpFile cachedFile = cache.get(pathAndEncoding, key -> {
             try {
-                return file.aggregateWithPooledObjects(MoreExecutors.directExecutor(), ctx.alloc()).get();
+                final AggregatedHttpFile newCachedFile;
+                if (shouldMap(file, attrs)) {
+                    // Large files are memory-mapped so that they do not occupy the heap.
+                    newCachedFile = ((FileSystemHttpFile) file).aggregateMapped(attrs);
+                } else {
+                    newCachedFile = file.aggregateWithPooledObjects(MoreExecutors.directExecutor(),
+                                                                    ctx.alloc()).get();
+                }
+                onCached(newCachedFile);
+                return newCachedFile;
             } catch (Exception e) {
                 logger.warn("{} Failed to cache a file: {}", ctx, file, Exceptions.peel(e));
                 return null;
@@ -297,6 +407,131 @@ public final class HttpFileService extends AbstractHttpService {
         return cachedFile != null ? cachedFile : file;
     }
 
+    private boolean shouldMap(HttpFile file, HttpFileAttributes attrs) {
+        final int minMappedCacheEntrySizeBytes = config.minMappedCacheEntrySizeBytes();
+        return minMappedCacheEntrySizeBytes > 0 &&
+               attrs.length() >= minMappedCacheEntrySizeBytes &&
+               file instanceof FileSystemHttpFile;
+    }
+
+    private void onCached(AggregatedHttpFile file) {
+        final HttpData content = file.content();
+        if (content != null) {
+            final LongAdder cacheBytes = content instanceof MappedHttpData ? mappedCacheBytes
+                                                                           : heapCacheBytes;
+            cacheBytes.add(content.length());
+        }
+    }
+
+    /**
+     * Returns the gzip-compressed variant of the specified cached {@code file} if it has been generated
+     * already. Otherwise, schedules its generation in the background and returns the {@code file} as it is.
+     */
+    private HttpFile findCompressedFile(ServiceRequestContext ctx, String path, AggregatedHttpFile file) {
+        assert cache != null;
+
+        final PathAndEncoding pathAndEncoding =
+                new PathAndEncoding(path, FileServiceContentEncoding.GZIP.headerValue);
+        final AggregatedHttpFile compressedFile = cache.getIfPresent(pathAndEncoding);
+        if (compressedFile != null) {
+            return compressedFile;
+        }
+
+        final ResponseHeaders headers = file.readHeaders();
+        final HttpData content = file.content();
+        if (headers == null || content == null || content.length() < MIN_COMPRESSIBLE_LENGTH ||
+            headers.contentType() == null ||
+            !COMPRESSIBLE_CONTENT_TYPE_PREDICATE.test(headers.contentType())) {
+            return file;
+        }
+
+        if (!pendingCompressions.add(pathAndEncoding)) {
+            // Being compressed by another request.
+            return file;
+        }
+
+        // Retain the content so that it is not released even if the file is evicted during compression.
+        final HttpData retainedContent = content instanceof ByteBufHolder ?
+                                         (HttpData) ((ByteBufHolder) content).retainedDuplicate() : content;
+        boolean submitted = false;
+        try {
+            ctx.blockingTaskExecutor().execute(() -> {
+                try {
+                    final AggregatedHttpFile newCompressedFile = compress(headers, retainedContent);
+                    // Do not cache the compressed variant if the original file has been replaced meanwhile.
+                    if (cache.getIfPresent(new PathAndEncoding(path, null)) == file) {
+                        onCached(newCompressedFile);
+                        cache.put(pathAndEncoding, newCompressedFile);
+                    }
+                } catch (Exception e) {
+                    logger.warn("{} Failed to compress a file: {}", ctx, file, e);
+                } finally {
+                    pendingCompressions.remove(pathAndEncoding);
+                    if (retainedContent instanceof ByteBufHolder) {
+                        ((ByteBufHolder) retainedContent).release();
+                    }
+                }
+            });
+            submitted = true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("{} Failed to schedule the compression of a file: {}", ctx, file, e);
+        } finally {
+            if (!submitted) {
+                pendingCompressions.remove(pathAndEncoding);
+                if (retainedContent instanceof ByteBufHolder) {
+                    ((ByteBufHolder) retainedContent).release();
+                }
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * Compresses the specified {@code content} with gzip into a new {@link AggregatedHttpFile} which has
+     * the same headers with the specified {@link ResponseHeaders}.
+     */
+    private AggregatedHttpFile compress(ResponseHeaders headers, HttpData content) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(content.length() / 2);
+        try (InputStream in = content.toInputStream();
+             GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            ByteStreams.copy(in, gzip);
+        }
+
+        final Long lastModifiedMillis = headers.getTimeMillis(HttpHeaderNames.LAST_MODIFIED);
+        final HttpFileBuilder builder =
+                HttpFileBuilder.of(HttpData.wrap(out.toByteArray()),
+                                   lastModifiedMillis != null ? lastModifiedMillis : System.currentTimeMillis())
+                               .clock(config.clock())
+                               .lastModified(lastModifiedMillis != null)
+                               .setHeaders(fileHeaders)
+                               .setHeader(HttpHeaderNames.CONTENT_ENCODING,
+                                          FileServiceContentEncoding.GZIP.headerValue);
+
+        final MediaType contentType = headers.contentType();
+        if (contentType != null) {
+            builder.contentType(contentType);
+        }
+
+        // Give the compressed variant its own entity tag, so that it is not confused with the original one.
+        final String etag = headers.get(HttpHeaderNames.ETAG);
+        if (etag != null) {
+            final String compressedEtag = unquote(etag) + '-' + FileServiceContentEncoding.GZIP.headerValue;
+            builder.entityTag((unused1, unused2) -> compressedEtag);
+        } else {
+            builder.entityTag(false);
+        }
+
+        return (AggregatedHttpFile) builder.build();
+    }
+
+    private static String unquote(String etag) {
+        if (etag.length() >= 2 && etag.charAt(0) == '"' && etag.charAt(etag.length() - 1) == '"') {
+            return etag.substring(1, etag.length() - 1);
+        }
+        return etag;
+    }
+
     /**
      * Creates a new {@link HttpService} that tries this {@link HttpFileService} first and then the specified
      * {@link HttpService} when this {@link HttpFileService} does not have a requested resource.
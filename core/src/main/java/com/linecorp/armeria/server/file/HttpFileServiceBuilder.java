@@ -80,7 +80,10 @@ public final class HttpFileServiceBuilder {
     private Clock clock = Clock.systemUTC();
     private int maxCacheEntries = DEFAULT_MAX_CACHE_ENTRIES;
     private int maxCacheEntrySizeBytes = DEFAULT_MAX_CACHE_ENTRY_SIZE_BYTES;
+    private long maxCacheSizeBytes;
+    private int minMappedCacheEntrySizeBytes;
     private boolean serveCompressedFiles;
+    private boolean autoCompress;
     private boolean autoIndex;
     @Nullable
     private HttpHeadersBuilder headers;
@@ -121,6 +124,32 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets whether {@link HttpFileService} compresses the cached files in the background and caches the
+     * compressed variants, so that a file without a pre-compressed sibling is compressed only once rather
+     * than on every request. A compressed variant is served only when the client accepts {@code gzip} and
+     * the file has a textual content type. Its entity tag is derived from the entity tag of the original
+     * file with the content encoding appended, e.g. {@code "<etag>-gzip"}. Every file response has
+     * a {@code "vary: accept-encoding"} header, whether compressed or not. By default, this feature is
+     * disabled. It is recommended to bound the cache with {@link #maxCacheSizeBytes(long)} when enabling
+     * this feature.
+     */
+    public HttpFileServiceBuilder autoCompress(boolean autoCompress) {
+        this.autoCompress = autoCompress;
+        return this;
+    }
+
+    /**
+     * Sets the maximum allowed total size of the cached file entries in bytes. If set to a positive value,
+     * the cache is bounded by the sum of the content lengths of its entries, including the compressed
+     * variants generated by {@link #autoCompress(boolean)}, rather than by {@link #maxCacheEntries(int)}.
+     * If not set or set to {@code 0}, the cache is bounded by {@link #maxCacheEntries(int)}.
+     */
+    public HttpFileServiceBuilder maxCacheSizeBytes(long maxCacheSizeBytes) {
+        this.maxCacheSizeBytes = HttpFileServiceConfig.validateMaxCacheSizeBytes(maxCacheSizeBytes);
+        return this;
+    }
+
     /**
      * Sets the maximum allowed size of a cached file entry. The file bigger than this value will not be
      * cached. If not set, {@value #DEFAULT_MAX_CACHE_ENTRY_SIZE_BYTES} is used by default.
@@ -131,6 +160,23 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets the minimum size of a cached file entry which is memory-mapped rather than copied into the heap.
+     * A file in an O/S file system whose size is between this value and
+     * {@link #maxCacheEntrySizeBytes(int)} is cached as a read-only memory-mapped buffer, so that large
+     * files do not occupy the heap. A file in the class path is always copied into the heap.
+     * If not set or set to {@code 0}, no file entry is memory-mapped.
+     *
+     * <p>Note that a memory-mapped file must be replaced atomically, e.g. by renaming a new file over it,
+     * rather than being modified or truncated in place. Otherwise, a client may receive the partially
+     * modified content or the server may crash while reading the truncated content.
+     */
+    public HttpFileServiceBuilder minMappedCacheEntrySizeBytes(int minMappedCacheEntrySizeBytes) {
+        this.minMappedCacheEntrySizeBytes =
+                HttpFileServiceConfig.validateMinMappedCacheEntrySizeBytes(minMappedCacheEntrySizeBytes);
+        return this;
+    }
+
     /**
      * Sets whether {@link HttpFileService} auto-generates a directory listing for a directory without an
      * {@code index.html} file. By default, this feature is disabled. Consider the security implications of
@@ -221,13 +267,14 @@ public final class HttpFileServiceBuilder {
      */
     public HttpFileService build() {
         return new HttpFileService(new HttpFileServiceConfig(
-                vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes,
-                serveCompressedFiles, autoIndex, buildHeaders()));
+                vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes, maxCacheSizeBytes,
+                minMappedCacheEntrySizeBytes, serveCompressedFiles, autoCompress, autoIndex, buildHeaders()));
     }
 
     @Override
     public String toString() {
         return HttpFileServiceConfig.toString(this, vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes,
-                                              serveCompressedFiles, autoIndex, headers);
+                                              maxCacheSizeBytes, minMappedCacheEntrySizeBytes,
+                                              serveCompressedFiles, autoCompress, autoIndex, headers);
     }
 }
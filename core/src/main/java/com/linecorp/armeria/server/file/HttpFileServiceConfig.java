@@ -38,17 +38,26 @@ public final class HttpFileServiceConfig {
     private final Clock clock;
     private final int maxCacheEntries;
     private final int maxCacheEntrySizeBytes;
+    private final long maxCacheSizeBytes;
+    private final int minMappedCacheEntrySizeBytes;
     private final boolean serveCompressedFiles;
+    private final boolean autoCompress;
     private final boolean autoIndex;
     private final HttpHeaders headers;
 
     HttpFileServiceConfig(HttpVfs vfs, Clock clock, int maxCacheEntries, int maxCacheEntrySizeBytes,
-                          boolean serveCompressedFiles, boolean autoIndex, HttpHeaders headers) {
+                          long maxCacheSizeBytes, int minMappedCacheEntrySizeBytes,
+                          boolean serveCompressedFiles, boolean autoCompress,
+                          boolean autoIndex, HttpHeaders headers) {
         this.vfs = requireNonNull(vfs, "vfs");
         this.clock = requireNonNull(clock, "clock");
         this.maxCacheEntries = validateMaxCacheEntries(maxCacheEntries);
         this.maxCacheEntrySizeBytes = validateMaxCacheEntrySizeBytes(maxCacheEntrySizeBytes);
+        this.maxCacheSizeBytes = validateMaxCacheSizeBytes(maxCacheSizeBytes);
+        this.minMappedCacheEntrySizeBytes =
+                validateMinMappedCacheEntrySizeBytes(minMappedCacheEntrySizeBytes);
         this.serveCompressedFiles = serveCompressedFiles;
+        this.autoCompress = autoCompress;
         this.autoIndex = autoIndex;
         this.headers = requireNonNull(headers, "headers");
     }
@@ -61,6 +70,18 @@ public final class HttpFileServiceConfig {
         return validateNonNegativeParameter(maxCacheEntrySizeBytes, "maxCacheEntrySizeBytes");
     }
 
+    static long validateMaxCacheSizeBytes(long maxCacheSizeBytes) {
+        if (maxCacheSizeBytes < 0) {
+            throw new IllegalArgumentException(
+                    "maxCacheSizeBytes: " + maxCacheSizeBytes + " (expected: >= 0)");
+        }
+        return maxCacheSizeBytes;
+    }
+
+    static int validateMinMappedCacheEntrySizeBytes(int minMappedCacheEntrySizeBytes) {
+        return validateNonNegativeParameter(minMappedCacheEntrySizeBytes, "minMappedCacheEntrySizeBytes");
+    }
+
     private static int validateNonNegativeParameter(int value, String name) {
         if (value < 0) {
             throw new IllegalArgumentException(name + ": " + value + " (expected: >= 0)");
@@ -97,6 +118,22 @@ public final class HttpFileServiceConfig {
         return maxCacheEntrySizeBytes;
     }
 
+    /**
+     * Returns the maximum allowed total size of the cached file entries in bytes. {@code 0} means the cache
+     * is bounded by {@link #maxCacheEntries()} rather than by the size of its entries.
+     */
+    public long maxCacheSizeBytes() {
+        return maxCacheSizeBytes;
+    }
+
+    /**
+     * Returns the minimum size of a cached file entry which is memory-mapped rather than copied into
+     * the heap. {@code 0} means no file entry is memory-mapped.
+     */
+    public int minMappedCacheEntrySizeBytes() {
+        return minMappedCacheEntrySizeBytes;
+    }
+
     /**
      * Returns whether pre-compressed files should be served.
      */
@@ -104,6 +141,13 @@ public final class HttpFileServiceConfig {
         return serveCompressedFiles;
     }
 
+    /**
+     * Returns whether the compressed variants of the cached files are generated and cached automatically.
+     */
+    public boolean autoCompress() {
+        return autoCompress;
+    }
+
     /**
      * Returns whether a directory listing for a directory without an {@code index.html} file will be
      * auto-generated.
@@ -122,12 +166,14 @@ public final class HttpFileServiceConfig {
     @Override
     public String toString() {
         return toString(this, vfs(), clock(), maxCacheEntries(), maxCacheEntrySizeBytes(),
-                        serveCompressedFiles(), autoIndex(), headers());
+                        maxCacheSizeBytes(), minMappedCacheEntrySizeBytes(), serveCompressedFiles(),
+                        autoCompress(), autoIndex(), headers());
     }
 
     static String toString(Object holder, HttpVfs vfs, Clock clock,
-                           int maxCacheEntries, int maxCacheEntrySizeBytes,
-                           boolean serveCompressedFiles, boolean autoIndex,
+                           int maxCacheEntries, int maxCacheEntrySizeBytes, long maxCacheSizeBytes,
+                           int minMappedCacheEntrySizeBytes, boolean serveCompressedFiles,
+                           boolean autoCompress, boolean autoIndex,
                            @Nullable Iterable<Entry<AsciiString, String>> headers) {
 
         return MoreObjects.toStringHelper(holder).omitNullValues()
@@ -135,7 +181,10 @@ public final class HttpFileServiceConfig {
                           .add("clock", clock)
                           .add("maxCacheEntries", maxCacheEntries)
                           .add("maxCacheEntrySizeBytes", maxCacheEntrySizeBytes)
+                          .add("maxCacheSizeBytes", maxCacheSizeBytes)
+                          .add("minMappedCacheEntrySizeBytes", minMappedCacheEntrySizeBytes)
                           .add("serveCompressedFiles", serveCompressedFiles)
+                          .add("autoCompress", autoCompress)
                           .add("autoIndex", autoIndex)
                           .add("headers", headers)
                           .toString();
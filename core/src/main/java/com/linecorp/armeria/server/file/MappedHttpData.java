@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.file;
+
+import java.nio.MappedByteBuffer;
+
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A {@link ByteBufHttpData} which is backed by a read-only {@link MappedByteBuffer}, so that
+ * {@link HttpFileService} can tell the memory-mapped cache entries from the ones on heap. The region is
+ * unmapped when this data and all its duplicates are released.
+ */
+final class MappedHttpData extends ByteBufHttpData {
+
+    MappedHttpData(ByteBuf buf) {
+        super(buf, true);
+    }
+}
@@ -79,6 +79,11 @@ public abstract class StreamingHttpFile<T extends Closeable> extends AbstractHtt
     @Override
     protected final HttpResponse doRead(ResponseHeaders headers, long length,
                                         Executor fileReadExecutor, ByteBufAllocator alloc) throws IOException {
+        final HttpResponse zeroCopyRes = doReadWithoutCopy(headers, length, fileReadExecutor);
+        if (zeroCopyRes != null) {
+            return zeroCopyRes;
+        }
+
         final T in = newStream();
         if (in == null) {
             return null;
@@ -98,6 +103,16 @@ public abstract class StreamingHttpFile<T extends Closeable> extends AbstractHtt
         }
     }
 
+    /**
+     * Returns a new {@link HttpResponse} which streams the content of the file without copying it into
+     * the heap, or {@code null} to stream the content read via {@link #read(Closeable, ByteBuf)}.
+     * Any blocking file I/O must be performed by the specified {@code fileReadExecutor}.
+     */
+    @Nullable
+    HttpResponse doReadWithoutCopy(ResponseHeaders headers, long length, Executor fileReadExecutor) {
+        return null;
+    }
+
     private void doRead(HttpResponseWriter res, T in, long offset, long end,
                         Executor fileReadExecutor, ByteBufAllocator alloc) {
         final int chunkSize = (int) Math.min(MAX_CHUNK_SIZE, end - offset);
@@ -220,26 +235,8 @@ public abstract class StreamingHttpFile<T extends Closeable> extends AbstractHtt
                         }
                     }
 
-                    final HttpFileBuilder builder =
-                            HttpFileBuilder.of(array != null ? HttpData.wrap(array)
-                                                             : new ByteBufHttpData(buf, true),
-                                               attrs.lastModifiedMillis())
-                                           .date(isDateEnabled())
-                                           .lastModified(isLastModifiedEnabled());
-
-                    if (contentType() != null) {
-                        builder.contentType(contentType());
-                    }
-
-                    final String etag = generateEntityTag(attrs);
-                    if (etag != null) {
-                        builder.entityTag((unused1, unused2) -> etag);
-                    } else {
-                        builder.entityTag(false);
-                    }
-
-                    builder.setHeaders(headers());
-                    success = future.complete((AggregatedHttpFile) builder.build());
+                    success = future.complete(newAggregatedFile(
+                            array != null ? HttpData.wrap(array) : new ByteBufHttpData(buf, true), attrs));
                 } catch (Exception e) {
                     future.completeExceptionally(e);
                 } finally {
@@ -259,6 +256,30 @@ public abstract class StreamingHttpFile<T extends Closeable> extends AbstractHtt
         }
     }
 
+    /**
+     * Returns a new {@link AggregatedHttpFile} which has the specified {@code content} and the same
+     * properties with this file.
+     */
+    final AggregatedHttpFile newAggregatedFile(HttpData content, HttpFileAttributes attrs) {
+        final HttpFileBuilder builder = HttpFileBuilder.of(content, attrs.lastModifiedMillis())
+                                                       .date(isDateEnabled())
+                                                       .lastModified(isLastModifiedEnabled());
+
+        if (contentType() != null) {
+            builder.contentType(contentType());
+        }
+
+        final String etag = generateEntityTag(attrs);
+        if (etag != null) {
+            builder.entityTag((unused1, unused2) -> etag);
+        } else {
+            builder.entityTag(false);
+        }
+
+        builder.setHeaders(headers());
+        return (AggregatedHttpFile) builder.build();
+    }
+
     /**
      * Opens a new stream which reads from the file.
      *
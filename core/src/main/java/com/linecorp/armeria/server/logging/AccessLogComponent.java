@@ -25,6 +25,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.time.DateTimeException;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -32,12 +33,15 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
 
 import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpHeaders;
@@ -70,6 +74,48 @@ interface AccessLogComponent {
         return false;
     }
 
+    /**
+     * Returns the {@link Appender} which appends a part of a log message to a {@link StringBuilder}.
+     * This method is invoked only once when a log format is compiled into an {@link AccessLogFormatter},
+     * so an implementation is expected to make all decisions which do not depend on a {@link RequestLog}
+     * here rather than for every log message.
+     */
+    default Appender appender() {
+        return (log, buf) -> Appender.appendMessage(buf, getMessage(log));
+    }
+
+    /**
+     * Appends a part of a log message to a {@link StringBuilder}, without quotes.
+     */
+    @FunctionalInterface
+    interface Appender {
+
+        /**
+         * An {@link Appender} which never appends anything, i.e. always produces an empty field.
+         */
+        Appender EMPTY = (log, buf) -> false;
+
+        /**
+         * Appends the specified {@code message} to the specified {@link StringBuilder}.
+         *
+         * @return {@code false} if the {@code message} is {@code null}
+         */
+        static boolean appendMessage(StringBuilder buf, @Nullable Object message) {
+            if (message == null) {
+                return false;
+            }
+            buf.append(message);
+            return true;
+        }
+
+        /**
+         * Appends a part of a log message for the specified {@link RequestLog}.
+         *
+         * @return {@code false} if there is nothing to append, i.e. an empty field has to be appended
+         */
+        boolean append(RequestLog log, StringBuilder buf);
+    }
+
     static AccessLogComponent ofText(String text) {
         return new TextComponent(text);
     }
@@ -106,10 +152,22 @@ interface AccessLogComponent {
             this.text = requireNonNull(text, "text");
         }
 
+        String text() {
+            return text;
+        }
+
         @Override
         public Object getMessage(RequestLog log) {
             return text;
         }
+
+        @Override
+        public Appender appender() {
+            return (log, buf) -> {
+                buf.append(text);
+                return true;
+            };
+        }
     }
 
     /**
@@ -144,17 +202,61 @@ interface AccessLogComponent {
 
         private final boolean addQuote;
         private final DateTimeFormatter formatter;
+        private final boolean secondResolution;
+        @Nullable
+        private volatile CachedTimestamp cachedTimestamp;
 
         TimestampComponent(boolean addQuote, @Nullable String variable) {
             this.addQuote = addQuote;
             formatter = findFormatter(variable);
+            secondResolution = hasSecondResolution(formatter);
         }
 
         @Nullable
         @Override
         public Object getMessage(RequestLog log) {
-            return formatter.format(ZonedDateTime.ofInstant(
-                    Instant.ofEpochMilli(log.requestStartTimeMillis()), defaultZoneId));
+            return formatter.format(toDateTime(log.requestStartTimeMillis()));
+        }
+
+        @Override
+        public Appender appender() {
+            if (!secondResolution) {
+                return (log, buf) -> {
+                    formatter.formatTo(toDateTime(log.requestStartTimeMillis()), buf);
+                    return true;
+                };
+            }
+
+            // The formatted timestamp changes only once a second, so reuse the last one.
+            return (log, buf) -> {
+                final long epochSecond = Math.floorDiv(log.requestStartTimeMillis(), 1000L);
+                CachedTimestamp cachedTimestamp = this.cachedTimestamp;
+                if (cachedTimestamp == null || cachedTimestamp.epochSecond != epochSecond) {
+                    final String formatted = formatter.format(toDateTime(epochSecond * 1000));
+                    this.cachedTimestamp = cachedTimestamp = new CachedTimestamp(epochSecond, formatted);
+                }
+                buf.append(cachedTimestamp.formatted);
+                return true;
+            };
+        }
+
+        private static ZonedDateTime toDateTime(long epochMillis) {
+            return ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), defaultZoneId);
+        }
+
+        /**
+         * Returns whether the specified {@link DateTimeFormatter} yields the same text for any instant within
+         * the same second, i.e. it does not print any fraction of a second.
+         */
+        private static boolean hasSecondResolution(DateTimeFormatter formatter) {
+            final ZonedDateTime probe = toDateTime(TimeUnit.DAYS.toMillis(365 * 50));
+            try {
+                final String formatted = formatter.format(probe);
+                return formatted.equals(formatter.format(probe.plusNanos(123_456_789))) &&
+                       formatted.equals(formatter.format(probe.plusNanos(987_654_321)));
+            } catch (DateTimeException e) {
+                return false;
+            }
         }
 
         @Override
@@ -180,6 +282,16 @@ interface AccessLogComponent {
                                                    variable, cause);
             }
         }
+
+        private static final class CachedTimestamp {
+            final long epochSecond;
+            final String formatted;
+
+            CachedTimestamp(long epochSecond, String formatted) {
+                this.epochSecond = epochSecond;
+                this.formatted = formatted;
+            }
+        }
     }
 
     /**
@@ -216,6 +328,23 @@ interface AccessLogComponent {
         @Nullable
         abstract Object getMessage0(RequestLog log);
 
+        @Override
+        public final Appender appender() {
+            final Appender appender = appender0();
+            final Function<ResponseHeaders, Boolean> condition = this.condition;
+            if (condition == null || appender == Appender.EMPTY) {
+                return appender;
+            }
+            return (log, buf) -> condition.apply(log.responseHeaders()) && appender.append(log, buf);
+        }
+
+        /**
+         * Returns the {@link Appender} which is used when the condition is met.
+         */
+        Appender appender0() {
+            return (log, buf) -> Appender.appendMessage(buf, getMessage0(log));
+        }
+
         @Override
         public boolean addQuote() {
             return addQuote;
@@ -246,6 +375,7 @@ interface AccessLogComponent {
         private final AccessLogType type;
         @Nullable
         private final String variable;
+        private final Appender appender;
 
         CommonComponent(AccessLogType type, boolean addQuote,
                         @Nullable Function<ResponseHeaders, Boolean> condition,
@@ -256,61 +386,96 @@ interface AccessLogComponent {
                           CommonComponent.class.getName());
             this.type = type;
             this.variable = variable;
+            appender = findAppender(type, variable);
         }
 
         @Nullable
         @Override
         public Object getMessage0(RequestLog log) {
+            final StringBuilder buf = new StringBuilder();
+            return appender.append(log, buf) ? buf.toString() : null;
+        }
+
+        @Override
+        Appender appender0() {
+            return appender;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this).omitNullValues()
+                              .add("type", type)
+                              .add("variable", variable)
+                              .toString();
+        }
+
+        private static Appender findAppender(AccessLogType type, @Nullable String variable) {
             switch (type) {
                 case LOCAL_IP_ADDRESS:
-                    final InetSocketAddress local = log.context().localAddress();
-                    return local == null || local.isUnresolved() ? null : local.getAddress().getHostAddress();
+                    return (log, buf) -> {
+                        final InetSocketAddress local = log.context().localAddress();
+                        return local != null && !local.isUnresolved() &&
+                               Appender.appendMessage(buf, local.getAddress().getHostAddress());
+                    };
 
                 case REMOTE_IP_ADDRESS:
                     if ("c".equals(variable)) {
                         // %{c}a means the remote address of the underlying channel.
-                        final InetSocketAddress remote = log.context().remoteAddress();
-                        return remote == null || remote.isUnresolved() ? null
-                                                                       : remote.getAddress().getHostAddress();
+                        return (log, buf) -> {
+                            final InetSocketAddress remote = log.context().remoteAddress();
+                            return remote != null && !remote.isUnresolved() &&
+                                   Appender.appendMessage(buf, remote.getAddress().getHostAddress());
+                        };
                     } else {
                         // %a means the client address who initiated a request.
-                        final ServiceRequestContext ctx = (ServiceRequestContext) log.context();
-                        return ctx.clientAddress().getHostAddress();
+                        return (log, buf) -> {
+                            final ServiceRequestContext ctx = (ServiceRequestContext) log.context();
+                            return Appender.appendMessage(buf, ctx.clientAddress().getHostAddress());
+                        };
                     }
                 case REMOTE_HOST:
-                    final SocketAddress ra = log.context().remoteAddress();
-                    return ra instanceof InetSocketAddress ? ((InetSocketAddress) ra).getHostString() : null;
+                    return (log, buf) -> {
+                        final SocketAddress ra = log.context().remoteAddress();
+                        return ra instanceof InetSocketAddress &&
+                               Appender.appendMessage(buf, ((InetSocketAddress) ra).getHostString());
+                    };
 
                 case RFC931:
                 case AUTHENTICATED_USER:
                     // We do not support these kinds of log types now.
-                    return null;
+                    return Appender.EMPTY;
 
                 case REQUEST_LINE:
-                    final StringBuilder requestLine = new StringBuilder();
-
-                    requestLine.append(log.method())
-                               .append(' ')
-                               .append(log.requestHeaders().path());
-
-                    final Object requestContent = log.requestContent();
-                    if (requestContent instanceof RpcRequest) {
-                        requestLine.append('#')
-                                   .append(((RpcRequest) requestContent).method());
-                    }
+                    return (log, buf) -> {
+                        buf.append(log.method())
+                           .append(' ')
+                           .append(log.requestHeaders().path());
+
+                        final Object requestContent = log.requestContent();
+                        if (requestContent instanceof RpcRequest) {
+                            buf.append('#')
+                               .append(((RpcRequest) requestContent).method());
+                        }
 
-                    requestLine.append(' ')
-                               .append(firstNonNull(log.sessionProtocol(),
-                                                    log.context().sessionProtocol()).uriText());
-                    return requestLine.toString();
+                        buf.append(' ')
+                           .append(firstNonNull(log.sessionProtocol(),
+                                                log.context().sessionProtocol()).uriText());
+                        return true;
+                    };
 
                 case RESPONSE_STATUS_CODE:
-                    return log.statusCode();
+                    return (log, buf) -> {
+                        buf.append(log.statusCode());
+                        return true;
+                    };
 
                 case RESPONSE_LENGTH:
-                    return log.responseLength();
+                    return (log, buf) -> {
+                        buf.append(log.responseLength());
+                        return true;
+                    };
             }
-            return null;
+            return Appender.EMPTY;
         }
     }
 
@@ -392,11 +557,16 @@ interface AccessLogComponent {
         }
 
         private final Function<RequestLog, Object> resolver;
+        @Nullable
+        private final ToLongFunction<RequestLog> numericResolver;
 
         RequestLogComponent(String variable, boolean addQuote,
                             @Nullable Function<ResponseHeaders, Boolean> condition) {
             super(condition, addQuote);
-            resolver = findResolver(requireNonNull(variable, "variable"));
+            requireNonNull(variable, "variable");
+            final ToLongFunction<RequestLog> numericResolver = findNumericResolver(variable);
+            this.numericResolver = numericResolver;
+            resolver = numericResolver != null ? numericResolver::applyAsLong : findResolver(variable);
         }
 
         @Nullable
@@ -405,6 +575,19 @@ interface AccessLogComponent {
             return resolver.apply(log);
         }
 
+        @Override
+        Appender appender0() {
+            final ToLongFunction<RequestLog> numericResolver = this.numericResolver;
+            if (numericResolver == null) {
+                return super.appender0();
+            }
+            // Append a numeric property without boxing it.
+            return (log, buf) -> {
+                buf.append(numericResolver.applyAsLong(log));
+                return true;
+            };
+        }
+
         @Nullable
         private static String handleThrowable(@Nullable Throwable cause) {
             if (cause == null) {
@@ -416,16 +599,14 @@ interface AccessLogComponent {
                                    : cause.getClass().getSimpleName();
         }
 
-        private static Function<RequestLog, Object> findResolver(String variable) {
+        /**
+         * Returns the resolver of the specified {@code variable} if it is a numeric property,
+         * or {@code null} otherwise.
+         */
+        @Nullable
+        private static ToLongFunction<RequestLog> findNumericResolver(String variable) {
             // The same order as methods in the RequestLog interface.
             switch (variable) {
-                case "method":
-                    return RequestLog::method;
-                case "path":
-                    return RequestLog::path;
-                case "query":
-                    return RequestLog::query;
-
                 case "requestStartTimeMillis":
                     return RequestLog::requestStartTimeMillis;
                 case "requestEndTimeMillis":
@@ -437,10 +618,6 @@ interface AccessLogComponent {
                     return RequestLog::requestDurationNanos;
                 case "requestLength":
                     return RequestLog::requestLength;
-                case "requestCause":
-                    return log -> handleThrowable(log.requestCause());
-                case "requestContentPreview":
-                    return RequestLog::requestContentPreview;
 
                 case "responseStartTimeMillis":
                     return RequestLog::responseStartTimeMillis;
@@ -453,16 +630,40 @@ interface AccessLogComponent {
                     return RequestLog::responseDurationNanos;
                 case "responseLength":
                     return RequestLog::responseLength;
-                case "responseCause":
-                    return log -> handleThrowable(log.responseCause());
-                case "responseContentPreview":
-                    return RequestLog::responseContentPreview;
 
                 case "totalDurationMillis":
                     return log -> Duration.ofNanos(log.totalDurationNanos()).toMillis();
                 case "totalDurationNanos":
                     return RequestLog::totalDurationNanos;
 
+                case "statusCode":
+                    return RequestLog::statusCode;
+
+                default:
+                    return null;
+            }
+        }
+
+        private static Function<RequestLog, Object> findResolver(String variable) {
+            // The same order as methods in the RequestLog interface.
+            switch (variable) {
+                case "method":
+                    return RequestLog::method;
+                case "path":
+                    return RequestLog::path;
+                case "query":
+                    return RequestLog::query;
+
+                case "requestCause":
+                    return log -> handleThrowable(log.requestCause());
+                case "requestContentPreview":
+                    return RequestLog::requestContentPreview;
+
+                case "responseCause":
+                    return log -> handleThrowable(log.responseCause());
+                case "responseContentPreview":
+                    return RequestLog::responseContentPreview;
+
                 case "sessionProtocol":
                     return RequestLog::sessionProtocol;
                 case "serializationFormat":
@@ -481,8 +682,6 @@ interface AccessLogComponent {
                     };
                 case "status":
                     return RequestLog::status;
-                case "statusCode":
-                    return RequestLog::statusCode;
 
                 default:
                     throw new IllegalArgumentException("unexpected request log variable: " + variable);
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.server.logging.AccessLogComponent.Appender;
+import com.linecorp.armeria.server.logging.AccessLogComponent.TextComponent;
+
+import io.netty.util.internal.InternalThreadLocalMap;
+
+/**
+ * An access log format compiled from a list of {@link AccessLogComponent}s.
+ *
+ * <p>The {@link Appender} of each {@link AccessLogComponent} is resolved only once, adjacent texts are
+ * merged into one, and the components which always produce an empty field are replaced with a text.
+ * As a result, formatting a log message involves neither a per-component type check nor an intermediate
+ * {@link String} for most components.
+ */
+final class AccessLogFormatter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogFormatter.class);
+
+    static final AccessLogFormatter COMMON = compile(AccessLogFormats.COMMON);
+    static final AccessLogFormatter COMBINED = compile(AccessLogFormats.COMBINED);
+
+    /**
+     * Compiles the specified list of {@link AccessLogComponent}s into an {@link AccessLogFormatter}.
+     */
+    static AccessLogFormatter compile(List<AccessLogComponent> format) {
+        final List<Segment> segments = new ArrayList<>(format.size());
+        final StringBuilder text = new StringBuilder();
+        for (AccessLogComponent component : format) {
+            if (component instanceof TextComponent) {
+                text.append(((TextComponent) component).text());
+                continue;
+            }
+
+            final Appender appender = component.appender();
+            final boolean addQuote = component.addQuote();
+            if (appender == Appender.EMPTY) {
+                appendEmptyField(text, addQuote);
+                continue;
+            }
+
+            if (text.length() != 0) {
+                segments.add(textSegment(text.toString()));
+                text.setLength(0);
+            }
+            segments.add(addQuote ? quotedSegment(appender) : unquotedSegment(appender));
+        }
+
+        if (text.length() != 0) {
+            segments.add(textSegment(text.toString()));
+        }
+        return new AccessLogFormatter(segments.toArray(new Segment[0]));
+    }
+
+    private final Segment[] segments;
+
+    private AccessLogFormatter(Segment[] segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Returns {@code true} if this formatter always produces an empty log message.
+     */
+    boolean isEmpty() {
+        return segments.length == 0;
+    }
+
+    /**
+     * Returns an access log message for the specified {@link RequestLog}.
+     */
+    String format(RequestLog log) {
+        return format(log, InternalThreadLocalMap.get().stringBuilder()).toString();
+    }
+
+    /**
+     * Appends an access log message for the specified {@link RequestLog} to the specified
+     * {@link StringBuilder}.
+     */
+    StringBuilder format(RequestLog log, StringBuilder buf) {
+        for (Segment segment : segments) {
+            segment.append(log, buf);
+        }
+        return buf;
+    }
+
+    private static Segment textSegment(String text) {
+        return (log, buf) -> buf.append(text);
+    }
+
+    private static Segment unquotedSegment(Appender appender) {
+        return (log, buf) -> {
+            final int mark = buf.length();
+            try {
+                if (appender.append(log, buf)) {
+                    return;
+                }
+            } catch (Throwable e) {
+                logger.debug("Caught an exception while formatting an access log:", e);
+            }
+            buf.setLength(mark);
+            appendEmptyField(buf, false);
+        };
+    }
+
+    private static Segment quotedSegment(Appender appender) {
+        return (log, buf) -> {
+            final int mark = buf.length();
+            try {
+                buf.append('"');
+                if (appender.append(log, buf)) {
+                    AccessLogger.escape(buf, mark + 1);
+                    buf.append('"');
+                    return;
+                }
+            } catch (Throwable e) {
+                logger.debug("Caught an exception while formatting an access log:", e);
+            }
+            buf.setLength(mark);
+            appendEmptyField(buf, true);
+        };
+    }
+
+    private static void appendEmptyField(StringBuilder buf, boolean addQuote) {
+        if (addQuote) {
+            buf.append("\"-\"");
+        } else {
+            buf.append('-');
+        }
+    }
+
+    @FunctionalInterface
+    private interface Segment {
+        void append(RequestLog log, StringBuilder buf);
+    }
+}
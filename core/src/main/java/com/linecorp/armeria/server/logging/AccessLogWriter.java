@@ -35,14 +35,14 @@ public interface AccessLogWriter {
      * Returns an access log writer with a common format.
      */
     static AccessLogWriter common() {
-        return requestLog -> AccessLogger.write(AccessLogFormats.COMMON, requestLog);
+        return requestLog -> AccessLogger.write(AccessLogFormatter.COMMON, requestLog);
     }
 
     /**
      * Returns an access log writer with a combined format.
      */
     static AccessLogWriter combined() {
-        return requestLog -> AccessLogger.write(AccessLogFormats.COMBINED, requestLog);
+        return requestLog -> AccessLogger.write(AccessLogFormatter.COMBINED, requestLog);
     }
 
     /**
@@ -59,7 +59,8 @@ public interface AccessLogWriter {
         requireNonNull(formatStr, "formatStr");
         final List<AccessLogComponent> accessLogFormat = parseCustom(formatStr);
         checkArgument(!accessLogFormat.isEmpty(), "Invalid access log format string: %s", formatStr);
-        return requestLog -> AccessLogger.write(accessLogFormat, requestLog);
+        final AccessLogFormatter formatter = AccessLogFormatter.compile(accessLogFormat);
+        return requestLog -> AccessLogger.write(formatter, requestLog);
     }
 
     /**
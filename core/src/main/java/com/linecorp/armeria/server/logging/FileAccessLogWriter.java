@@ -0,0 +1,262 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.common.util.ThreadFactories;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.internal.InternalThreadLocalMap;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * An {@link AccessLogWriter} which writes access logs to a file from a dedicated writer thread.
+ *
+ * @see FileAccessLogWriterBuilder
+ */
+final class FileAccessLogWriter implements AccessLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileAccessLogWriter.class);
+
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Path file;
+    private final AccessLogFormatter formatter;
+    private final long maxFileSizeBytes;
+    private final int maxHistory;
+
+    private final Queue<ByteBuf> queue;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+
+    private final Thread writerThread;
+    private final CompletableFuture<Void> shutdownFuture = new CompletableFuture<>();
+    private volatile boolean shutdownRequested;
+    private volatile boolean terminated;
+
+    // Accessed only by the writer thread.
+    private FileChannel channel;
+    private long fileSize;
+
+    FileAccessLogWriter(Path file, AccessLogFormatter formatter, int maxQueueSize,
+                        long maxFileSizeBytes, int maxHistory, MeterRegistry meterRegistry) throws IOException {
+        this.file = file;
+        this.formatter = formatter;
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        this.maxHistory = maxHistory;
+
+        queue = PlatformDependent.newFixedMpscQueue(maxQueueSize);
+        openFile();
+
+        final MeterIdPrefix idPrefix = new MeterIdPrefix("armeria.server.accessLogs",
+                                                         "file", file.toString());
+        meterRegistry.gauge(idPrefix.name("pending"), idPrefix.tags(), queue, Queue::size);
+        writtenCounter = meterRegistry.counter(idPrefix.name("written"), idPrefix.tags());
+        droppedCounter = meterRegistry.counter(idPrefix.name("dropped"), idPrefix.tags());
+
+        writerThread = ThreadFactories.newThreadFactory("armeria-access-log-writer", true)
+                                      .newThread(this::run);
+        writerThread.start();
+    }
+
+    @Override
+    public void log(RequestLog log) {
+        if (shutdownRequested) {
+            droppedCounter.increment();
+            return;
+        }
+
+        // Format into a thread-local builder and encode it into a pooled buffer,
+        // so that no intermediate String or byte array is created.
+        final StringBuilder message = formatter.format(log, InternalThreadLocalMap.get().stringBuilder());
+        final ByteBuf buf = ByteBufAllocator.DEFAULT.directBuffer(ByteBufUtil.utf8MaxBytes(message) + 1);
+        ByteBufUtil.writeUtf8(buf, message);
+        buf.writeByte('\n');
+
+        if (!queue.offer(buf)) {
+            buf.release();
+            droppedCounter.increment();
+            return;
+        }
+
+        if (terminated) {
+            // The writer thread has drained the queue for the last time before the log was enqueued.
+            drain();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> shutdown() {
+        if (!shutdownRequested) {
+            shutdownRequested = true;
+            LockSupport.unpark(writerThread);
+        }
+        return shutdownFuture;
+    }
+
+    private void run() {
+        final ByteBuf[] batch = new ByteBuf[MAX_BATCH_SIZE];
+        final ByteBuffer[] nioBuffers = new ByteBuffer[MAX_BATCH_SIZE];
+        try {
+            for (;;) {
+                int numBuffers = 0;
+                for (ByteBuf buf; numBuffers < MAX_BATCH_SIZE && (buf = queue.poll()) != null;) {
+                    batch[numBuffers++] = buf;
+                }
+
+                if (numBuffers != 0) {
+                    write(batch, nioBuffers, numBuffers);
+                    continue;
+                }
+
+                if (shutdownRequested) {
+                    break;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        } catch (Throwable cause) {
+            logger.warn("Unexpected exception while writing access logs to: {}", file, cause);
+        } finally {
+            terminated = true;
+            // Release the messages enqueued after the writer thread decided to stop, if any.
+            drain();
+            closeFile();
+            shutdownFuture.complete(null);
+        }
+    }
+
+    private void drain() {
+        // The queue allows only a single consumer, so the callers of log() which found the writer thread
+        // terminated must not poll concurrently with each other or with the writer thread.
+        synchronized (queue) {
+            for (ByteBuf buf; (buf = queue.poll()) != null;) {
+                buf.release();
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    private void write(ByteBuf[] batch, ByteBuffer[] nioBuffers, int numBuffers) {
+        long remaining = 0;
+        for (int i = 0; i < numBuffers; i++) {
+            final ByteBuf buf = batch[i];
+            nioBuffers[i] = buf.internalNioBuffer(buf.readerIndex(), buf.readableBytes());
+            remaining += buf.readableBytes();
+        }
+
+        try {
+            rollIfNeeded(remaining);
+            final long length = remaining;
+            while (remaining > 0) {
+                remaining -= channel.write(nioBuffers, 0, numBuffers);
+            }
+            fileSize += length;
+            writtenCounter.increment(numBuffers);
+        } catch (IOException e) {
+            logger.warn("Failed to write {} access log(s) to: {}", numBuffers, file, e);
+            droppedCounter.increment(numBuffers);
+            if (!channel.isOpen()) {
+                reopenFile();
+            }
+        } finally {
+            for (int i = 0; i < numBuffers; i++) {
+                batch[i].release();
+                batch[i] = null;
+                nioBuffers[i] = null;
+            }
+        }
+    }
+
+    private void rollIfNeeded(long length) throws IOException {
+        if (maxFileSizeBytes == 0 || fileSize == 0 || fileSize + length <= maxFileSizeBytes) {
+            return;
+        }
+
+        channel.close();
+        if (maxHistory == 0) {
+            Files.delete(file);
+        } else {
+            Files.deleteIfExists(rolledFile(maxHistory));
+            for (int i = maxHistory - 1; i > 0; i--) {
+                final Path src = rolledFile(i);
+                if (Files.exists(src)) {
+                    Files.move(src, rolledFile(i + 1));
+                }
+            }
+            Files.move(file, rolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        openFile();
+    }
+
+    private Path rolledFile(int index) {
+        return Paths.get(file + "." + index);
+    }
+
+    private void openFile() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.APPEND);
+        fileSize = channel.size();
+    }
+
+    private void reopenFile() {
+        try {
+            openFile();
+        } catch (IOException e) {
+            logger.warn("Failed to reopen the access log file: {}", file, e);
+        }
+    }
+
+    private void closeFile() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the access log file: {}", file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("file", file)
+                          .add("maxFileSizeBytes", maxFileSizeBytes)
+                          .add("maxHistory", maxHistory)
+                          .toString();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.linecorp.armeria.server.logging.AccessLogFormats.parseCustom;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.linecorp.armeria.server.ServerBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Builds a new {@link AccessLogWriter} which writes access logs to a file asynchronously.
+ *
+ * <p>Unlike the {@link AccessLogWriter}s returned by {@link AccessLogWriter#common()} and its friends,
+ * the {@link AccessLogWriter} built by this builder does not write a message via SLF4J from an event loop
+ * thread. Instead, it encodes the message into a pooled buffer, enqueues it into a bounded queue and
+ * returns immediately. A dedicated writer thread drains the queue and writes the enqueued messages in
+ * batches using a gathering write. When the queue is full, a new message is dropped rather than blocking
+ * the caller, which is usually an event loop thread.
+ *
+ * <p>The following meters are registered to the {@link MeterRegistry} specified with
+ * {@link #meterRegistry(MeterRegistry)}, tagged with the path of the file:
+ * <ul>
+ *   <li>{@code armeria.server.accessLogs.pending} - the number of messages waiting to be written</li>
+ *   <li>{@code armeria.server.accessLogs.written} - the number of messages written to the file</li>
+ *   <li>{@code armeria.server.accessLogs.dropped} - the number of messages dropped because the queue
+ *       was full or the file could not be written</li>
+ * </ul>
+ *
+ * <p>Make sure to specify {@code true} for {@code shutdownOnStop} when registering the built
+ * {@link AccessLogWriter} with {@link ServerBuilder#accessLogWriter(AccessLogWriter, boolean)}, so that
+ * the pending messages are flushed and the file is closed when the server stops.
+ */
+public final class FileAccessLogWriterBuilder {
+
+    static final int DEFAULT_MAX_QUEUE_SIZE = 8192;
+
+    private final Path file;
+    private AccessLogFormatter formatter = AccessLogFormatter.COMMON;
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+    private long maxFileSizeBytes;
+    private int maxHistory = 1;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    /**
+     * Creates a new builder that builds an {@link AccessLogWriter} which writes to the specified
+     * {@code file}.
+     */
+    public FileAccessLogWriterBuilder(Path file) {
+        this.file = requireNonNull(file, "file");
+    }
+
+    /**
+     * Sets the format of the access logs. Uses the common log format if unspecified.
+     *
+     * @see AccessLogWriter#custom(String)
+     */
+    public FileAccessLogWriterBuilder format(String formatStr) {
+        requireNonNull(formatStr, "formatStr");
+        final List<AccessLogComponent> format = parseCustom(formatStr);
+        checkArgument(!format.isEmpty(), "Invalid access log format string: %s", formatStr);
+        formatter = AccessLogFormatter.compile(format);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of messages waiting to be written. {@value #DEFAULT_MAX_QUEUE_SIZE} is used
+     * if unspecified.
+     */
+    public FileAccessLogWriterBuilder maxQueueSize(int maxQueueSize) {
+        checkArgument(maxQueueSize > 0, "maxQueueSize: %s (expected: > 0)", maxQueueSize);
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    /**
+     * Sets the size of the file at which the file is rolled over, e.g. {@code access.log} is renamed to
+     * {@code access.log.1} and a new {@code access.log} is created. {@code 0} disables rolling, which is
+     * the default.
+     */
+    public FileAccessLogWriterBuilder maxFileSizeBytes(long maxFileSizeBytes) {
+        checkArgument(maxFileSizeBytes >= 0, "maxFileSizeBytes: %s (expected: >= 0)", maxFileSizeBytes);
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rolled-over files to keep. The oldest file is deleted when this limit is
+     * exceeded. {@code 0} means the content of the file is discarded when rolled over. {@code 1} is used
+     * if unspecified.
+     */
+    public FileAccessLogWriterBuilder maxHistory(int maxHistory) {
+        checkArgument(maxHistory >= 0, "maxHistory: %s (expected: >= 0)", maxHistory);
+        this.maxHistory = maxHistory;
+        return this;
+    }
+
+    /**
+     * Sets the {@link MeterRegistry} where the meters of the {@link AccessLogWriter} are registered.
+     * {@link Metrics#globalRegistry} is used if unspecified.
+     */
+    public FileAccessLogWriterBuilder meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link AccessLogWriter} based on the properties of this builder.
+     * The file is opened, or created if it does not exist, and a writer thread is started.
+     *
+     * @throws IOException if failed to open the file
+     */
+    public AccessLogWriter build() throws IOException {
+        return new FileAccessLogWriter(file, formatter, maxQueueSize, maxFileSizeBytes, maxHistory,
+                                       meterRegistry);
+    }
+}
@@ -18,26 +18,44 @@ package com.linecorp.armeria.server.metric;
 
 import static java.util.Objects.requireNonNull;
 
-import java.io.ByteArrayOutputStream;
-import java.io.OutputStreamWriter;
+import java.util.concurrent.Executor;
 
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.ResponseHeadersBuilder;
 import com.linecorp.armeria.server.AbstractHttpService;
 import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
 
+import io.netty.buffer.ByteBuf;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.exporter.common.TextFormat;
 
 /**
  * Exposes Prometheus metrics in <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">text
- * format 0.0.4</a>.
+ * format 0.0.4</a>, or in <a href="https://openmetrics.io/">OpenMetrics</a> text format when the client
+ * accepts {@code application/openmetrics-text}. The response is compressed with gzip if the client accepts it.
+ *
+ * <p>The metric families are collected and formatted one by one in the
+ * {@linkplain ServiceRequestContext#blockingTaskExecutor() blocking task executor} and streamed as pooled
+ * chunks while the client consumes them, so a large registry is never rendered into memory at once.
  */
 public class PrometheusExpositionService extends AbstractHttpService {
 
     private static final MediaType CONTENT_TYPE_004 = MediaType.parse(TextFormat.CONTENT_TYPE_004);
+    private static final MediaType CONTENT_TYPE_OPENMETRICS =
+            MediaType.parse("application/openmetrics-text; version=1.0.0; charset=utf-8");
+    private static final String OPENMETRICS_MEDIA_TYPE = "application/openmetrics-text";
+
+    private static final int CHUNK_SIZE = 32 * 1024;
 
     private final CollectorRegistry collectorRegistry;
 
@@ -53,15 +71,118 @@ public class PrometheusExpositionService extends AbstractHttpService {
 
     @Override
     protected HttpResponse doGet(ServiceRequestContext ctx, HttpRequest req) throws Exception {
-        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        try (OutputStreamWriter writer = new OutputStreamWriter(stream)) {
-            TextFormat.write004(writer, collectorRegistry.metricFamilySamples());
+        final RequestHeaders headers = req.headers();
+        final boolean openMetrics = acceptsOpenMetrics(headers.get(HttpHeaderNames.ACCEPT));
+        final boolean gzip = acceptsGzip(headers.get(HttpHeaderNames.ACCEPT_ENCODING));
+
+        final ResponseHeadersBuilder resHeaders = ResponseHeaders.builder(HttpStatus.OK)
+                .contentType(openMetrics ? CONTENT_TYPE_OPENMETRICS : CONTENT_TYPE_004);
+        if (gzip) {
+            resHeaders.set(HttpHeaderNames.CONTENT_ENCODING, "gzip");
+        }
+        resHeaders.set(HttpHeaderNames.VARY, "accept, accept-encoding");
+
+        final HttpResponseWriter res = HttpResponse.streaming();
+        res.write(resHeaders.build());
+
+        final PrometheusExpositionWriter writer =
+                new PrometheusExpositionWriter(collectorRegistry, openMetrics, gzip, ctx.alloc(), CHUNK_SIZE);
+        final Executor executor = ctx.blockingTaskExecutor();
+        try {
+            executor.execute(() -> writeChunk(ctx, res, writer, executor));
+        } catch (Exception e) {
+            writer.close();
+            res.close(e);
         }
-        return HttpResponse.of(HttpStatus.OK, CONTENT_TYPE_004, stream.toByteArray());
+        return res;
     }
 
     @Override
     protected HttpResponse doPost(ServiceRequestContext ctx, HttpRequest req) throws Exception {
         return doGet(ctx, req);
     }
+
+    private static void writeChunk(ServiceRequestContext ctx, HttpResponseWriter res,
+                                   PrometheusExpositionWriter writer, Executor executor) {
+        final ByteBuf chunk;
+        try {
+            chunk = writer.nextChunk();
+        } catch (Throwable cause) {
+            writer.close();
+            res.close(cause);
+            return;
+        }
+
+        final boolean endOfStream = writer.isEndOfStream();
+        if (chunk.isReadable()) {
+            if (!res.tryWrite(new ByteBufHttpData(chunk, endOfStream))) {
+                writer.close();
+                return;
+            }
+        } else {
+            chunk.release();
+        }
+
+        if (endOfStream) {
+            writer.close();
+            res.close();
+            return;
+        }
+
+        res.onDemand(() -> {
+            try {
+                executor.execute(() -> writeChunk(ctx, res, writer, executor));
+            } catch (Exception e) {
+                closeOnEventLoop(ctx, writer);
+                res.close(e);
+            }
+        }).exceptionally(unused -> {
+            // The response has been closed before the next chunk is requested.
+            closeOnEventLoop(ctx, writer);
+            return null;
+        });
+    }
+
+    /**
+     * Closes the specified {@link PrometheusExpositionWriter} from the event loop of the {@code ctx},
+     * because the callbacks of {@link HttpResponseWriter#onDemand(Runnable)} may be invoked by whichever
+     * thread completes the demand or aborts the response.
+     */
+    private static void closeOnEventLoop(ServiceRequestContext ctx, PrometheusExpositionWriter writer) {
+        if (ctx.eventLoop().inEventLoop()) {
+            writer.close();
+        } else {
+            ctx.eventLoop().execute(writer::close);
+        }
+    }
+
+    private static boolean acceptsOpenMetrics(@Nullable String accept) {
+        return accept != null && accept.contains(OPENMETRICS_MEDIA_TYPE);
+    }
+
+    private static boolean acceptsGzip(@Nullable String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            final int semicolonPos = encoding.indexOf(';');
+            final String coding = (semicolonPos < 0 ? encoding : encoding.substring(0, semicolonPos)).trim();
+            if (!"gzip".equalsIgnoreCase(coding)) {
+                continue;
+            }
+            if (semicolonPos < 0) {
+                return true;
+            }
+            final int equalsPos = encoding.indexOf('=', semicolonPos);
+            if (equalsPos < 0) {
+                return true;
+            }
+            try {
+                return Float.parseFloat(encoding.substring(equalsPos + 1).trim()) > 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
 }
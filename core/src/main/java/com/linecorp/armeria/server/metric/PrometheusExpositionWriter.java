@@ -0,0 +1,374 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.annotation.Nullable;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.prometheus.client.Collector;
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.Collector.MetricFamilySamples.Sample;
+import io.prometheus.client.CollectorRegistry;
+
+/**
+ * Renders the metric families of a {@link CollectorRegistry} into a sequence of pooled {@link ByteBuf}
+ * chunks, in either the Prometheus text format 0.0.4 or the OpenMetrics text format, optionally compressed
+ * with gzip. Metric families are collected and formatted one at a time, so the whole exposition is never
+ * held in memory at once. An instance is not thread-safe and must be {@linkplain #close() closed} once
+ * it is not used anymore.
+ */
+final class PrometheusExpositionWriter {
+
+    private static final byte[] HELP = { '#', ' ', 'H', 'E', 'L', 'P', ' ' };
+    private static final byte[] TYPE = { '#', ' ', 'T', 'Y', 'P', 'E', ' ' };
+    private static final byte[] EOF = { '#', ' ', 'E', 'O', 'F', '\n' };
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+    private static final int MIN_DEFLATE_SPACE = 512;
+
+    private final CollectorRegistry collectorRegistry;
+    private final boolean openMetrics;
+    private final ByteBufAllocator alloc;
+    private final int chunkSize;
+
+    @Nullable
+    private Enumeration<MetricFamilySamples> families;
+
+    // Only used when gzip is enabled.
+    @Nullable
+    private final Deflater deflater;
+    @Nullable
+    private final CRC32 crc;
+    @Nullable
+    private ByteBuf textBuf;
+
+    private boolean gzipHeaderWritten;
+    private boolean endOfStream;
+    private boolean closed;
+
+    PrometheusExpositionWriter(CollectorRegistry collectorRegistry, boolean openMetrics, boolean gzip,
+                               ByteBufAllocator alloc, int chunkSize) {
+        checkArgument(chunkSize > 0, "chunkSize: %s (expected: > 0)", chunkSize);
+        this.collectorRegistry = requireNonNull(collectorRegistry, "collectorRegistry");
+        this.openMetrics = openMetrics;
+        this.alloc = requireNonNull(alloc, "alloc");
+        this.chunkSize = chunkSize;
+        if (gzip) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            crc = new CRC32();
+        } else {
+            deflater = null;
+            crc = null;
+        }
+    }
+
+    /**
+     * Returns whether the last chunk has been returned by {@link #nextChunk()}.
+     */
+    boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    /**
+     * Formats the metric families until roughly {@code chunkSize} bytes are produced and returns them.
+     * The returned {@link ByteBuf} is owned by the caller and may be empty.
+     *
+     * @throws IllegalStateException if the last chunk has been returned already
+     */
+    ByteBuf nextChunk() {
+        if (endOfStream || closed) {
+            throw new IllegalStateException("no more chunks");
+        }
+
+        if (families == null) {
+            families = collectorRegistry.metricFamilySamples();
+        }
+
+        final ByteBuf buf;
+        if (deflater != null) {
+            if (textBuf == null) {
+                // Reused for all chunks; the deflater needs an array to read from.
+                textBuf = alloc.heapBuffer(chunkSize);
+            }
+            buf = textBuf.clear();
+        } else {
+            buf = alloc.buffer(chunkSize);
+        }
+
+        boolean success = false;
+        try {
+            while (buf.readableBytes() < chunkSize && families.hasMoreElements()) {
+                writeFamily(buf, families.nextElement());
+            }
+            if (!families.hasMoreElements()) {
+                if (openMetrics) {
+                    buf.writeBytes(EOF);
+                }
+                endOfStream = true;
+            }
+
+            final ByteBuf chunk = deflater != null ? deflate(buf) : buf;
+            success = true;
+            return chunk;
+        } finally {
+            if (!success && deflater == null) {
+                buf.release();
+            }
+        }
+    }
+
+    /**
+     * Releases the buffers and the deflater held by this writer.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (textBuf != null) {
+            textBuf.release();
+            textBuf = null;
+        }
+        if (deflater != null) {
+            deflater.end();
+        }
+    }
+
+    private void writeFamily(ByteBuf buf, MetricFamilySamples family) {
+        final String name = metadataName(family);
+        buf.writeBytes(HELP);
+        ByteBufUtil.writeAscii(buf, name);
+        buf.writeByte(' ');
+        writeEscaped(buf, family.help != null ? family.help : "", openMetrics);
+        buf.writeByte('\n');
+
+        buf.writeBytes(TYPE);
+        ByteBufUtil.writeAscii(buf, name);
+        buf.writeByte(' ');
+        ByteBufUtil.writeAscii(buf, typeString(family.type));
+        buf.writeByte('\n');
+
+        final List<Sample> samples = family.samples;
+        for (int i = 0; i < samples.size(); i++) {
+            writeSample(buf, samples.get(i));
+        }
+    }
+
+    private void writeSample(ByteBuf buf, Sample sample) {
+        ByteBufUtil.writeAscii(buf, sample.name);
+        final List<String> labelNames = sample.labelNames;
+        if (!labelNames.isEmpty()) {
+            final List<String> labelValues = sample.labelValues;
+            buf.writeByte('{');
+            for (int i = 0; i < labelNames.size(); i++) {
+                if (openMetrics && i > 0) {
+                    buf.writeByte(',');
+                }
+                ByteBufUtil.writeAscii(buf, labelNames.get(i));
+                buf.writeByte('=');
+                buf.writeByte('"');
+                writeEscaped(buf, labelValues.get(i), true);
+                buf.writeByte('"');
+                if (!openMetrics) {
+                    // Text format 0.0.4 as written by TextFormat.write004() has a trailing comma.
+                    buf.writeByte(',');
+                }
+            }
+            buf.writeByte('}');
+        }
+        buf.writeByte(' ');
+        writeDouble(buf, sample.value);
+
+        final Long timestampMs = sample.timestampMs;
+        if (timestampMs != null) {
+            buf.writeByte(' ');
+            if (openMetrics) {
+                // OpenMetrics timestamps are in seconds.
+                final long millis = timestampMs;
+                writeLong(buf, Math.floorDiv(millis, 1000L));
+                buf.writeByte('.');
+                final int fraction = (int) Math.floorMod(millis, 1000L);
+                buf.writeByte('0' + fraction / 100);
+                buf.writeByte('0' + fraction / 10 % 10);
+                buf.writeByte('0' + fraction % 10);
+            } else {
+                writeLong(buf, timestampMs);
+            }
+        }
+        buf.writeByte('\n');
+    }
+
+    private String metadataName(MetricFamilySamples family) {
+        if (openMetrics && family.type == Collector.Type.COUNTER && family.name.endsWith("_total")) {
+            // OpenMetrics names a counter family without the '_total' suffix of its samples.
+            return family.name.substring(0, family.name.length() - 6);
+        }
+        return family.name;
+    }
+
+    private String typeString(Collector.Type type) {
+        switch (type) {
+            case GAUGE:
+                return "gauge";
+            case COUNTER:
+                return "counter";
+            case SUMMARY:
+                return "summary";
+            case HISTOGRAM:
+                return "histogram";
+            default:
+                return openMetrics ? "unknown" : "untyped";
+        }
+    }
+
+    private ByteBuf deflate(ByteBuf text) {
+        assert deflater != null;
+        assert crc != null;
+
+        final int length = text.readableBytes();
+        final ByteBuf out = alloc.heapBuffer(Math.max(length / 4, MIN_DEFLATE_SPACE));
+        boolean success = false;
+        try {
+            if (!gzipHeaderWritten) {
+                out.writeBytes(GZIP_HEADER);
+                gzipHeaderWritten = true;
+            }
+
+            final byte[] array = text.array();
+            final int offset = text.arrayOffset() + text.readerIndex();
+            crc.update(array, offset, length);
+            deflater.setInput(array, offset, length);
+            if (endOfStream) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflateInto(out, Deflater.NO_FLUSH);
+                }
+                out.writeIntLE((int) crc.getValue());
+                out.writeIntLE((int) deflater.getBytesRead());
+            } else {
+                // Flush what has been compressed so far so that each chunk can be decoded as it arrives.
+                while (deflateInto(out, Deflater.SYNC_FLUSH)) {
+                    continue;
+                }
+            }
+            success = true;
+            return out;
+        } finally {
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * Compresses the pending input into {@code out} and returns {@code true} if the output space was
+     * exhausted, i.e. there may be more output to be flushed.
+     */
+    private boolean deflateInto(ByteBuf out, int flush) {
+        assert deflater != null;
+        out.ensureWritable(MIN_DEFLATE_SPACE);
+        final int writable = out.writableBytes();
+        final int writerIndex = out.writerIndex();
+        final int written = deflater.deflate(out.array(), out.arrayOffset() + writerIndex, writable, flush);
+        out.writerIndex(writerIndex + written);
+        return written == writable;
+    }
+
+    private static void writeEscaped(ByteBuf buf, String value, boolean escapeQuote) {
+        final int length = value.length();
+        int i = 0;
+        for (; i < length; i++) {
+            final char ch = value.charAt(i);
+            if (ch == '\\' || ch == '\n' || ch == '"' && escapeQuote) {
+                break;
+            }
+        }
+        if (i == length) {
+            // Nothing to escape, which is the usual case.
+            ByteBufUtil.writeUtf8(buf, value);
+            return;
+        }
+
+        final StringBuilder escaped = new StringBuilder(length + 8).append(value, 0, i);
+        for (; i < length; i++) {
+            final char ch = value.charAt(i);
+            switch (ch) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '"':
+                    escaped.append(escapeQuote ? "\\\"" : "\"");
+                    break;
+                default:
+                    escaped.append(ch);
+            }
+        }
+        ByteBufUtil.writeUtf8(buf, escaped);
+    }
+
+    /**
+     * Writes the specified {@code double} in the same form as {@link Collector#doubleToGoString(double)},
+     * but without creating a {@link String} for the common case of a small integral value.
+     */
+    static void writeDouble(ByteBuf buf, double value) {
+        if (value == (long) value && Math.abs(value) < 1.0e7 &&
+            Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS) {
+            // Double.toString() uses the plain notation for the values in this range, e.g. '42.0'.
+            writeLong(buf, (long) value);
+            buf.writeByte('.');
+            buf.writeByte('0');
+        } else {
+            ByteBufUtil.writeAscii(buf, Collector.doubleToGoString(value));
+        }
+    }
+
+    static void writeLong(ByteBuf buf, long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                ByteBufUtil.writeAscii(buf, Long.toString(value));
+                return;
+            }
+            buf.writeByte('-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        buf.ensureWritable(digits);
+        int index = buf.writerIndex() + digits;
+        buf.writerIndex(index);
+        do {
+            buf.setByte(--index, '0' + (int) (value % 10));
+            value /= 10;
+        } while (value != 0);
+    }
+}
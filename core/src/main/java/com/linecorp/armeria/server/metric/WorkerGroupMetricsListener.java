@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.metric.EventLoopGroupMetrics;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.server.Server;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServerListener;
+import com.linecorp.armeria.server.ServerListenerAdapter;
+
+/**
+ * A {@link ServerListener} which registers the {@link EventLoopGroupMetrics} of the worker group of a
+ * {@link Server} under {@code "armeria.server.workerGroup"} while the {@link Server} is running, and logs
+ * a warning when an event loop is starved. The meters are registered with {@link Server#meterRegistry()}.
+ *
+ * <pre>{@code
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.serverListener(new WorkerGroupMetricsListener());
+ * }</pre>
+ *
+ * <p>Note that the metrics of the blocking task executor are already recorded by every {@link Server}
+ * using Micrometer's {@code ExecutorServiceMetrics}, under the name {@code "armeriaBlockingTaskExecutor"}.
+ *
+ * @see ServerBuilder#serverListener(ServerListener)
+ */
+public final class WorkerGroupMetricsListener extends ServerListenerAdapter {
+
+    private static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_STARVATION_THRESHOLD = Duration.ofMillis(500);
+
+    private final Duration probeInterval;
+    private final Duration starvationThreshold;
+
+    @Nullable
+    private EventLoopGroupMetrics metrics;
+
+    /**
+     * Creates a new instance which probes the event loops every second and logs a warning when a probe
+     * is delayed for 500 milliseconds or more.
+     */
+    public WorkerGroupMetricsListener() {
+        this(DEFAULT_PROBE_INTERVAL, DEFAULT_STARVATION_THRESHOLD);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param probeInterval the interval between the probe tasks which measure the scheduling delay
+     * @param starvationThreshold the scheduling delay above which a warning is logged,
+     *                            or {@link Duration#ZERO} not to log a warning
+     */
+    public WorkerGroupMetricsListener(Duration probeInterval, Duration starvationThreshold) {
+        this.probeInterval = requireNonNull(probeInterval, "probeInterval");
+        this.starvationThreshold = requireNonNull(starvationThreshold, "starvationThreshold");
+        checkArgument(!probeInterval.isNegative() && !probeInterval.isZero(),
+                      "probeInterval: %s (expected: > 0)", probeInterval);
+        checkArgument(!starvationThreshold.isNegative(),
+                      "starvationThreshold: %s (expected: >= 0)", starvationThreshold);
+    }
+
+    @Override
+    public synchronized void serverStarting(Server server) {
+        if (metrics != null) {
+            return;
+        }
+        metrics = EventLoopGroupMetrics.of(server.config().workerGroup(),
+                                           new MeterIdPrefix("armeria.server.workerGroup"),
+                                           probeInterval, starvationThreshold);
+        metrics.bindTo(server.meterRegistry());
+    }
+
+    @Override
+    public synchronized void serverStopping(Server server) {
+        if (metrics != null) {
+            metrics.close();
+            metrics = null;
+        }
+    }
+}
@@ -18,7 +18,6 @@ package com.linecorp.armeria.server.streaming;
 import static com.linecorp.armeria.internal.ResponseConversionUtil.streamingFrom;
 import static java.util.Objects.requireNonNull;
 
-import java.io.ByteArrayOutputStream;
 import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
@@ -38,6 +37,11 @@ import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.ResponseHeaders;
 import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.internal.PooledJsonWriter;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 
 /**
  * A utility class which helps to create a <a href="https://tools.ietf.org/html/rfc7464">JavaScript Object
@@ -309,14 +313,20 @@ public final class JsonTextSequences {
     }
 
     private static HttpData toHttpData(ObjectMapper mapper, @Nullable Object value) {
+        final ByteBuf buf = ByteBufAllocator.DEFAULT.buffer();
+        boolean success = false;
         try {
-            final ByteArrayOutputStream out = new ByteArrayOutputStream();
-            out.write(RECORD_SEPARATOR);
-            mapper.writeValue(out, value);
-            out.write(LINE_FEED);
-            return HttpData.wrap(out.toByteArray());
+            buf.writeByte(RECORD_SEPARATOR);
+            PooledJsonWriter.of(mapper).writeValue(buf, value);
+            buf.writeByte(LINE_FEED);
+            success = true;
+            return new ByteBufHttpData(buf, false);
         } catch (Exception e) {
             return Exceptions.throwUnsafely(e);
+        } finally {
+            if (!success) {
+                buf.release();
+            }
         }
     }
 
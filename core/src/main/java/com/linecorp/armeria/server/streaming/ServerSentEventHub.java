@@ -0,0 +1,324 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.streaming;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.sse.ServerSentEvent;
+import com.linecorp.armeria.common.stream.DefaultStreamMessage;
+import com.linecorp.armeria.common.util.SafeCloseable;
+import com.linecorp.armeria.common.util.ThreadFactories;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+
+/**
+ * Broadcasts <a href="https://www.w3.org/TR/eventsource/">Server-Sent Events</a> to many subscribers.
+ * Unlike {@link ServerSentEvents#fromPublisher(org.reactivestreams.Publisher)}, which encodes an event for
+ * each response, a hub encodes a published event only once into a pooled {@link ByteBuf}, and sends
+ * the same {@link ByteBuf} to all subscribers, e.g.
+ * <pre>{@code
+ * ServerSentEventHub hub = ServerSentEventHub.builder("notifications")
+ *                                            .maxPendingEvents(256)
+ *                                            .build();
+ * Server server = new ServerBuilder()
+ *         .service("/notifications", (ctx, req) -> hub.subscribe())
+ *         .build();
+ *
+ * // Sent to all the clients connected to '/notifications'.
+ * hub.publish(ServerSentEvent.ofData("Hello!"));
+ * }</pre>
+ *
+ * <p>The events which were published but not sent to a subscriber yet are buffered for each subscriber.
+ * If a subscriber has {@linkplain ServerSentEventHubBuilder#maxPendingEvents(int) too many pending events},
+ * the {@link SlowSubscriberPolicy} is applied, so that a slow subscriber does not make the server keep
+ * an unbounded number of events. A heartbeat comment is sent to the subscribers which did not receive
+ * any event for {@linkplain ServerSentEventHubBuilder#heartbeatInterval(java.time.Duration) a while}.
+ *
+ * <p>A hub exports the following meters, tagged with its name:
+ * <ul>
+ *   <li>{@code armeria.server.sse.hub.subscribers} - the number of the subscribers</li>
+ *   <li>{@code armeria.server.sse.hub.maxLag} - the number of the pending events of the slowest
+ *       subscriber</li>
+ *   <li>{@code armeria.server.sse.hub.published} - the number of the published events</li>
+ *   <li>{@code armeria.server.sse.hub.dropped} - the number of the events which were not sent to
+ *       a subscriber due to {@link SlowSubscriberPolicy#DROP_EVENT}</li>
+ *   <li>{@code armeria.server.sse.hub.evicted} - the number of the subscribers which were disconnected
+ *       due to {@link SlowSubscriberPolicy#DISCONNECT}</li>
+ * </ul>
+ */
+public final class ServerSentEventHub implements SafeCloseable {
+
+    private static final String METER_NAME_PREFIX = "armeria.server.sse.hub";
+
+    /**
+     * A comment line which keeps an idle connection alive.
+     */
+    private static final HttpData HEARTBEAT = HttpData.ofUtf8(":\n");
+
+    /**
+     * Returns a new {@link ServerSentEventHubBuilder} which builds a {@link ServerSentEventHub} with
+     * the specified {@code name}.
+     *
+     * @param name the name of the hub, which is used as the {@code name} tag of the meters
+     */
+    public static ServerSentEventHubBuilder builder(String name) {
+        return new ServerSentEventHubBuilder(name);
+    }
+
+    private final String name;
+    private final int maxPendingEvents;
+    private final SlowSubscriberPolicy slowSubscriberPolicy;
+    private final long heartbeatIntervalNanos;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter evicted;
+
+    @Nullable
+    private volatile Timeout heartbeatTimeout;
+    private volatile boolean closed;
+
+    ServerSentEventHub(String name, int maxPendingEvents, SlowSubscriberPolicy slowSubscriberPolicy,
+                       long heartbeatIntervalMillis, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxPendingEvents = maxPendingEvents;
+        this.slowSubscriberPolicy = slowSubscriberPolicy;
+        heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+
+        published = meterRegistry.counter(METER_NAME_PREFIX + ".published", "name", name);
+        dropped = meterRegistry.counter(METER_NAME_PREFIX + ".dropped", "name", name);
+        evicted = meterRegistry.counter(METER_NAME_PREFIX + ".evicted", "name", name);
+        Gauge.builder(METER_NAME_PREFIX + ".subscribers", subscribers, Set::size)
+             .tag("name", name)
+             .register(meterRegistry);
+        Gauge.builder(METER_NAME_PREFIX + ".maxLag", this, ServerSentEventHub::maxLag)
+             .tag("name", name)
+             .register(meterRegistry);
+
+        if (heartbeatIntervalNanos > 0) {
+            scheduleHeartbeat();
+        }
+    }
+
+    /**
+     * Returns the name of this hub.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the number of the current subscribers.
+     */
+    public int numSubscribers() {
+        return subscribers.size();
+    }
+
+    /**
+     * Returns a new {@link HttpResponse} which sends the events published to this hub from now on.
+     * The subscriber is removed from this hub when the response is closed or aborted.
+     */
+    public HttpResponse subscribe() {
+        return subscribe(ServerSentEvents.defaultHttpHeaders);
+    }
+
+    /**
+     * Returns a new {@link HttpResponse} with the specified {@link ResponseHeaders} which sends the events
+     * published to this hub from now on.
+     * The subscriber is removed from this hub when the response is closed or aborted.
+     */
+    public HttpResponse subscribe(ResponseHeaders headers) {
+        requireNonNull(headers, "headers");
+        final Subscriber subscriber = new Subscriber();
+        subscriber.write(ServerSentEvents.sanitizeHeaders(headers));
+        if (closed) {
+            subscriber.close();
+            return subscriber;
+        }
+
+        subscribers.add(subscriber);
+        subscriber.completionFuture().handle((unused, cause) -> subscribers.remove(subscriber));
+        if (closed) {
+            // Closed while adding the subscriber.
+            subscribers.remove(subscriber);
+            subscriber.close();
+        }
+        return subscriber;
+    }
+
+    /**
+     * Sends the specified {@link ServerSentEvent} to all the current subscribers. The event is encoded only
+     * once, regardless of the number of the subscribers. The events published by concurrent calls are sent
+     * to all subscribers in the same order.
+     *
+     * @throws IllegalStateException if this hub has been closed
+     */
+    public void publish(ServerSentEvent sse) {
+        requireNonNull(sse, "sse");
+        final String text = ServerSentEvents.toText(sse);
+        if (text.isEmpty()) {
+            return;
+        }
+
+        final ByteBuf buf = ByteBufAllocator.DEFAULT.buffer(ByteBufUtil.utf8MaxBytes(text));
+        try {
+            ByteBufUtil.writeUtf8(buf, text);
+            synchronized (this) {
+                checkState(!closed, "hub closed: %s", name);
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.send(buf);
+                }
+            }
+            published.increment();
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * Ends the responses of all the subscribers and stops sending heartbeats.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        final Timeout heartbeatTimeout = this.heartbeatTimeout;
+        if (heartbeatTimeout != null) {
+            heartbeatTimeout.cancel();
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        subscribers.clear();
+    }
+
+    private void scheduleHeartbeat() {
+        if (!closed) {
+            heartbeatTimeout = HeartbeatTimerHolder.timer.newTimeout(
+                    unused -> heartbeat(), heartbeatIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void heartbeat() {
+        final long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            // Do not send a heartbeat to a subscriber which is busy or received an event recently.
+            if (subscriber.pendingEvents.get() == 0 &&
+                now - subscriber.lastWriteNanos >= heartbeatIntervalNanos) {
+                subscriber.lastWriteNanos = now;
+                subscriber.tryWrite(HEARTBEAT);
+            }
+        }
+        scheduleHeartbeat();
+    }
+
+    private int maxLag() {
+        int maxLag = 0;
+        for (Subscriber subscriber : subscribers) {
+            maxLag = Math.max(maxLag, subscriber.pendingEvents.get());
+        }
+        return maxLag;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("name", name)
+                          .add("subscribers", subscribers.size())
+                          .add("maxPendingEvents", maxPendingEvents)
+                          .add("slowSubscriberPolicy", slowSubscriberPolicy)
+                          .add("closed", closed)
+                          .toString();
+    }
+
+    private final class Subscriber extends DefaultStreamMessage<HttpObject> implements HttpResponseWriter {
+
+        final AtomicInteger pendingEvents = new AtomicInteger();
+        volatile long lastWriteNanos = System.nanoTime();
+
+        void send(ByteBuf buf) {
+            if (pendingEvents.get() >= maxPendingEvents) {
+                if (slowSubscriberPolicy == SlowSubscriberPolicy.DISCONNECT) {
+                    if (subscribers.remove(this)) {
+                        evicted.increment();
+                        close();
+                    }
+                } else {
+                    dropped.increment();
+                }
+                return;
+            }
+
+            pendingEvents.incrementAndGet();
+            lastWriteNanos = System.nanoTime();
+            // Share the content of the buffer, but not its reader index.
+            if (!tryWrite(new ByteBufHttpData(buf.retainedDuplicate(), false))) {
+                pendingEvents.decrementAndGet();
+            }
+        }
+
+        @Override
+        protected void onRemoval(HttpObject obj) {
+            if (obj instanceof ByteBufHttpData) {
+                pendingEvents.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                              .add("hub", name)
+                              .add("pendingEvents", pendingEvents)
+                              .toString();
+        }
+    }
+
+    private static final class HeartbeatTimerHolder {
+        static final HashedWheelTimer timer = new HashedWheelTimer(
+                ThreadFactories.newThreadFactory("armeria-sse-hub-heartbeat", true),
+                100, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.streaming;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Builds a new {@link ServerSentEventHub}.
+ */
+public final class ServerSentEventHubBuilder {
+
+    static final int DEFAULT_MAX_PENDING_EVENTS = 1024;
+    static final long DEFAULT_HEARTBEAT_INTERVAL_MILLIS = 15000;
+
+    private final String name;
+    private int maxPendingEvents = DEFAULT_MAX_PENDING_EVENTS;
+    private SlowSubscriberPolicy slowSubscriberPolicy = SlowSubscriberPolicy.DISCONNECT;
+    private long heartbeatIntervalMillis = DEFAULT_HEARTBEAT_INTERVAL_MILLIS;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    ServerSentEventHubBuilder(String name) {
+        this.name = requireNonNull(name, "name");
+        checkArgument(!name.isEmpty(), "name is empty.");
+    }
+
+    /**
+     * Sets the maximum number of the events which were published but not sent to a subscriber yet.
+     * {@value #DEFAULT_MAX_PENDING_EVENTS} is used if unspecified.
+     *
+     * @see #slowSubscriberPolicy(SlowSubscriberPolicy)
+     */
+    public ServerSentEventHubBuilder maxPendingEvents(int maxPendingEvents) {
+        checkArgument(maxPendingEvents > 0, "maxPendingEvents: %s (expected: > 0)", maxPendingEvents);
+        this.maxPendingEvents = maxPendingEvents;
+        return this;
+    }
+
+    /**
+     * Sets the {@link SlowSubscriberPolicy} which is applied when a subscriber has
+     * {@linkplain #maxPendingEvents(int) too many pending events}.
+     * {@link SlowSubscriberPolicy#DISCONNECT} is used if unspecified.
+     */
+    public ServerSentEventHubBuilder slowSubscriberPolicy(SlowSubscriberPolicy slowSubscriberPolicy) {
+        this.slowSubscriberPolicy = requireNonNull(slowSubscriberPolicy, "slowSubscriberPolicy");
+        return this;
+    }
+
+    /**
+     * Sets the interval of the heartbeat comments which are sent to the subscribers which did not receive
+     * any event during the interval, so that the idle connections are not closed by the intermediaries.
+     * {@code 0} disables the heartbeat. 15 seconds are used if unspecified.
+     */
+    public ServerSentEventHubBuilder heartbeatInterval(Duration heartbeatInterval) {
+        requireNonNull(heartbeatInterval, "heartbeatInterval");
+        checkArgument(!heartbeatInterval.isNegative(),
+                      "heartbeatInterval: %s (expected: >= 0)", heartbeatInterval);
+        return heartbeatIntervalMillis(heartbeatInterval.toMillis());
+    }
+
+    /**
+     * Sets the interval of the heartbeat comments in milliseconds.
+     * {@code 0} disables the heartbeat. 15 seconds are used if unspecified.
+     *
+     * @see #heartbeatInterval(Duration)
+     */
+    public ServerSentEventHubBuilder heartbeatIntervalMillis(long heartbeatIntervalMillis) {
+        checkArgument(heartbeatIntervalMillis >= 0,
+                      "heartbeatIntervalMillis: %s (expected: >= 0)", heartbeatIntervalMillis);
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        return this;
+    }
+
+    /**
+     * Sets the {@link MeterRegistry} which collects the metrics of the hub.
+     * {@link Metrics#globalRegistry} is used if unspecified.
+     */
+    public ServerSentEventHubBuilder meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link ServerSentEventHub} based on the properties of this builder.
+     */
+    public ServerSentEventHub build() {
+        return new ServerSentEventHub(name, maxPendingEvents, slowSubscriberPolicy,
+                                      heartbeatIntervalMillis, meterRegistry);
+    }
+}
@@ -78,7 +78,7 @@ public final class ServerSentEvents {
     /**
      * A default {@link ResponseHeaders} of Server-Sent Events.
      */
-    private static final ResponseHeaders defaultHttpHeaders =
+    static final ResponseHeaders defaultHttpHeaders =
             ResponseHeaders.of(HttpStatus.OK,
                                HttpHeaderNames.CONTENT_TYPE, MediaType.EVENT_STREAM);
 
@@ -286,7 +286,7 @@ public final class ServerSentEvents {
         return HttpResponse.of(sanitizeHeaders(headers), toHttpData(sse), trailers);
     }
 
-    private static ResponseHeaders sanitizeHeaders(ResponseHeaders headers) {
+    static ResponseHeaders sanitizeHeaders(ResponseHeaders headers) {
         if (headers == defaultHttpHeaders) {
             return headers;
         }
@@ -338,6 +338,15 @@ public final class ServerSentEvents {
     }
 
     private static HttpData toHttpData(ServerSentEvent sse) {
+        final String text = toText(sse);
+        return text.isEmpty() ? HttpData.EMPTY_DATA : HttpData.ofUtf8(text);
+    }
+
+    /**
+     * Encodes the specified {@link ServerSentEvent} into its text form, which ends with an empty line.
+     * An empty string is returned if the {@link ServerSentEvent} has no field.
+     */
+    static String toText(ServerSentEvent sse) {
         final StringBuilder sb = new StringBuilder();
 
         // Write a comment first because a user might want to explain his or her event at first line.
@@ -367,8 +376,7 @@ public final class ServerSentEvents {
             sb.append("retry:").append(retry.toMillis()).append(LINE_FEED);
         }
 
-        return sb.length() == 0 ? HttpData.EMPTY_DATA
-                                : HttpData.ofUtf8(sb.append(LINE_FEED).toString());
+        return sb.length() == 0 ? "" : sb.append(LINE_FEED).toString();
     }
 
     private static <T> HttpData toHttpData(
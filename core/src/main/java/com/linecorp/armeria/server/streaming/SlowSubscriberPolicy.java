@@ -0,0 +1,33 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.streaming;
+
+/**
+ * Specifies what a {@link ServerSentEventHub} does when a subscriber has as many pending events as
+ * {@linkplain ServerSentEventHubBuilder#maxPendingEvents(int) the maximum}, i.e. the subscriber consumes
+ * the events more slowly than they are published.
+ */
+public enum SlowSubscriberPolicy {
+    /**
+     * Ends the response of the subscriber after the pending events, and removes the subscriber from the hub.
+     * A client such as {@code EventSource} of a web browser reconnects to the server automatically.
+     */
+    DISCONNECT,
+    /**
+     * Does not send the new event to the subscriber, keeping the subscriber in the hub.
+     */
+    DROP_EVENT
+}
@@ -103,7 +103,7 @@ public class DefaultHttpHeadersBuilderTest {
         HttpHeadersBase oldDelegate = builder.delegate();
         final HttpHeaders headers2 = builder.build();
         assertThat(headers2).isNotSameAs(headers);
-        assertThat(((HttpHeadersBase) headers2).entries).isNotSameAs(((HttpHeadersBase) headers).entries);
+        assertThat(((HttpHeadersBase) headers2).names).isNotSameAs(((HttpHeadersBase) headers).names);
         assertThat(builder.parent()).isSameAs(oldDelegate);
         assertThat(builder.delegate()).isNull();
 
@@ -117,8 +117,8 @@ public class DefaultHttpHeadersBuilderTest {
         final HttpHeaders headers3 = builder.build();
         assertThat(headers3).isNotSameAs(headers);
         assertThat(headers3).isNotSameAs(headers2);
-        assertThat(((HttpHeadersBase) headers3).entries).isNotSameAs(((HttpHeadersBase) headers).entries);
-        assertThat(((HttpHeadersBase) headers3).entries).isNotSameAs(((HttpHeadersBase) headers2).entries);
+        assertThat(((HttpHeadersBase) headers3).names).isNotSameAs(((HttpHeadersBase) headers).names);
+        assertThat(((HttpHeadersBase) headers3).names).isNotSameAs(((HttpHeadersBase) headers2).names);
         assertThat(builder.parent()).isSameAs(oldDelegate);
         assertThat(builder.delegate()).isNull();
 
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+class HttpDataInputStreamTest {
+
+    @Test
+    void readContent() throws Exception {
+        final HttpRequest req = HttpRequest.of(RequestHeaders.of(HttpMethod.POST, "/"),
+                                               HttpData.ofUtf8("foo"), HttpData.EMPTY_DATA,
+                                               HttpData.ofUtf8("bar"));
+        try (HttpDataInputStream in = HttpDataInputStream.of(req)) {
+            assertThat(new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8)).isEqualTo("foobar");
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void skipHeadersAndTrailers() throws Exception {
+        final HttpResponse res = HttpResponse.of(ResponseHeaders.of(HttpStatus.OK),
+                                                 HttpData.ofUtf8("baz"),
+                                                 HttpHeaders.of(HttpHeaderNames.of("x-trailer"), "1"));
+        try (HttpDataInputStream in = HttpDataInputStream.of(res)) {
+            assertThat(in.read()).isEqualTo('b');
+            assertThat(in.read()).isEqualTo('a');
+            assertThat(in.read()).isEqualTo('z');
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void requestOnlyAsConsumed() throws Exception {
+        final AtomicLong requested = new AtomicLong();
+        final Publisher<HttpObject> publisher = s -> s.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                for (long i = 0; i < n; i++) {
+                    requested.incrementAndGet();
+                    s.onNext(HttpData.ofUtf8("abcd"));
+                }
+            }
+
+            @Override
+            public void cancel() {}
+        });
+
+        final HttpRequest req = HttpRequest.of(RequestHeaders.of(HttpMethod.POST, "/"), publisher);
+        try (HttpDataInputStream in = HttpDataInputStream.of(req, 3)) {
+            await().untilAsserted(() -> assertThat(in.available()).isEqualTo(12));
+            assertThat(requested).hasValue(3);
+
+            final byte[] buf = new byte[3];
+            assertThat(in.read(buf)).isEqualTo(3);
+            // The first chunk has not been consumed completely.
+            assertThat(requested).hasValue(3);
+            assertThat(in.read(buf)).isOne();
+            await().untilAsserted(() -> assertThat(requested).hasValue(4));
+        }
+    }
+
+    @Test
+    void releasePooledObjectsOnClose() throws Exception {
+        final ByteBuf first = Unpooled.copiedBuffer("first", StandardCharsets.UTF_8);
+        final ByteBuf second = Unpooled.copiedBuffer("second", StandardCharsets.UTF_8);
+        final HttpRequestWriter req = HttpRequest.streaming(HttpMethod.POST, "/");
+        req.write(new ByteBufHttpData(first, false));
+        req.write(new ByteBufHttpData(second, false));
+
+        final HttpDataInputStream in = HttpDataInputStream.of(req);
+        assertThat(in.read()).isEqualTo('f');
+        in.close();
+
+        assertThatThrownBy(in::read).isInstanceOf(IOException.class);
+        assertThat(first.refCnt()).isZero();
+        // Closing before the end of the content cancels the subscription.
+        await().untilAsserted(() -> assertThat(req.completionFuture()).isCompletedExceptionally());
+        await().untilAsserted(() -> assertThat(second.refCnt()).isZero());
+    }
+
+    @Test
+    void blockUntilContentArrives() throws Exception {
+        final HttpRequestWriter req = HttpRequest.streaming(HttpMethod.POST, "/");
+        final HttpDataInputStream in = HttpDataInputStream.of(req, 1);
+        final AtomicBoolean done = new AtomicBoolean();
+        final CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+            try (HttpDataInputStream body = in) {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteStreams.copy(body, out);
+                return out.toString("UTF-8");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                done.set(true);
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            req.write(HttpData.ofUtf8(String.valueOf(i)));
+            assertThat(req.onDemand(() -> {}).join()).isNull();
+        }
+        assertThat(done).isFalse();
+        req.close();
+        assertThat(future.join()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void propagateCause() throws Exception {
+        final HttpRequestWriter req = HttpRequest.streaming(HttpMethod.POST, "/");
+        req.write(HttpData.ofUtf8("a"));
+        req.close(new IllegalStateException("oops"));
+
+        try (HttpDataInputStream in = HttpDataInputStream.of(req)) {
+            // The content received before the failure is still readable.
+            assertThat(in.read()).isEqualTo('a');
+            assertThatThrownBy(in::read).isInstanceOf(IOException.class)
+                                        .hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+}
@@ -698,6 +698,39 @@ public class HttpHeadersBaseTest {
         assertThat(headers.uri()).isEqualTo(URI.create("https://netty.io/index.html"));
     }
 
+    @Test
+    public void testManyHeaders() {
+        final HttpHeadersBase headers = newEmptyHeaders();
+        final int numHeaders = HttpHeadersBase.HASH_INDEX_THRESHOLD * 4;
+        for (int i = 0; i < numHeaders; i++) {
+            headers.add("name" + i, "value" + i);
+            headers.add("Name" + i, "otherValue" + i);
+        }
+        headers.path("/index.html");
+        headers.method(HttpMethod.GET);
+        assertThat(headers.size()).isEqualTo(numHeaders * 2 + 2);
+        verifyPseudoHeadersFirst(headers);
+
+        for (int i = 0; i < numHeaders; i++) {
+            assertThat(headers.get("NAME" + i)).isEqualTo("value" + i);
+            assertThat(headers.getAll("name" + i)).containsExactly("value" + i, "otherValue" + i);
+            assertThat(headers.contains("name" + i, "otherValue" + i)).isTrue();
+        }
+        assertThat(headers.get("name" + numHeaders)).isNull();
+        assertThat(headers.path()).isEqualTo("/index.html");
+
+        // Remove the headers until the number of headers goes below the threshold.
+        for (int i = 0; i < numHeaders - 2; i++) {
+            assertThat(headers.getAndRemove("name" + i)).isEqualTo("value" + i);
+            assertThat(headers.contains("name" + i)).isFalse();
+        }
+        assertThat(headers.size()).isEqualTo(6);
+        assertThat(headers.getAll("name" + (numHeaders - 1))).containsExactly(
+                "value" + (numHeaders - 1), "otherValue" + (numHeaders - 1));
+        assertThat(headers.method()).isSameAs(HttpMethod.GET);
+        verifyPseudoHeadersFirst(headers);
+    }
+
     private static void verifyAllPseudoHeadersPresent(HttpHeadersBase headers) {
         for (PseudoHeaderName pseudoName : PseudoHeaderName.values()) {
             assertThat(headers.get(pseudoName.value())).isNotNull();
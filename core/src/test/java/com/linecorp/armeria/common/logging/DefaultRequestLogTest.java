@@ -22,6 +22,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -223,6 +231,71 @@ public class DefaultRequestLogTest {
                 cause.toString().length());
     }
 
+    @Test
+    public void listenersAreNotifiedInOrder() {
+        final ClientRequestContext ctx =
+                ClientRequestContextBuilder.of(HttpRequest.of(HttpMethod.GET, "/")).build();
+        final RequestLog requestLog = ctx.log();
+        final List<Integer> notified = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int index = i;
+            requestLog.addListener(unused -> notified.add(index), RequestLogAvailability.REQUEST_END);
+        }
+        assertThat(notified).isEmpty();
+
+        ctx.logBuilder().endRequest();
+        assertThat(notified).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+        // A listener is notified immediately if the availability is satisfied already.
+        requestLog.addListener(unused -> notified.add(10), RequestLogAvailability.REQUEST_END);
+        assertThat(notified).hasSize(11).endsWith(10);
+
+        ctx.logBuilder().endResponse();
+        assertThat(notified).hasSize(11);
+    }
+
+    @Test
+    public void listenersAreNotifiedOnceWhenAddedConcurrently() throws Exception {
+        final int numListenersPerThread = 32;
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 100; round++) {
+                final ClientRequestContext ctx =
+                        ClientRequestContextBuilder.of(HttpRequest.of(HttpMethod.GET, "/")).build();
+                final RequestLog requestLog = ctx.log();
+                final AtomicIntegerArray counts = new AtomicIntegerArray(numListenersPerThread * 2);
+                final CyclicBarrier barrier = new CyclicBarrier(3);
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 2; t++) {
+                    final int offset = t * numListenersPerThread;
+                    futures.add(executor.submit(() -> {
+                        barrier.await();
+                        for (int i = offset; i < offset + numListenersPerThread; i++) {
+                            final int index = i;
+                            requestLog.addListener(unused -> counts.incrementAndGet(index),
+                                            i % 2 == 0 ? RequestLogAvailability.REQUEST_END
+                                                       : RequestLogAvailability.COMPLETE);
+                        }
+                        return null;
+                    }));
+                }
+
+                barrier.await();
+                ctx.logBuilder().endRequest();
+                ctx.logBuilder().endResponse();
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+
+                for (int i = 0; i < counts.length(); i++) {
+                    assertThat(counts.get(i)).isOne();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void toStringResponseBuilderCapacity() {
         final RequestHeaders reqHeaders =
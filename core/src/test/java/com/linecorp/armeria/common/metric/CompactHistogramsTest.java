@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
+class CompactHistogramsTest {
+
+    @Test
+    void bucketBoundaries() {
+        assertThat(CompactHistograms.bucketBoundaries(4, 6)).containsExactly(16, 24, 32, 48, 64);
+    }
+
+    @Test
+    void prometheusHistogram() throws Exception {
+        final PrometheusMeterRegistry registry =
+                PrometheusMeterRegistries.enableCompactHistograms(PrometheusMeterRegistries.newRegistry());
+        final Timer timer = MoreMeters.newTimer(registry, "foo.duration",
+                                                ImmutableList.of(Tag.of("method", "GET")));
+        final DistributionSummary summary = MoreMeters.newDistributionSummary(
+                registry, "foo.length", ImmutableList.of(Tag.of("method", "GET")));
+
+        timer.record(1, TimeUnit.MILLISECONDS);
+        timer.record(3, TimeUnit.SECONDS);
+        summary.record(100);
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3001);
+        assertThat(summary.totalAmount()).isEqualTo(100);
+
+        // The snapshot has the bucket counts rather than the percentiles.
+        final HistogramSnapshot snapshot = summary.takeSnapshot();
+        assertThat(snapshot.percentileValues()).isEmpty();
+        assertThat(snapshot.histogramCounts()).hasSize(57);
+        assertThat(snapshot.histogramCounts()).filteredOn(c -> c.bucket() == 96)
+                                              .extracting(CountAtBucket::count).containsExactly(0.0);
+        assertThat(snapshot.histogramCounts()).filteredOn(c -> c.bucket() == 128)
+                                              .extracting(CountAtBucket::count).containsExactly(1.0);
+
+        final StringWriter writer = new StringWriter();
+        TextFormat.write004(writer, registry.getPrometheusRegistry().metricFamilySamples());
+        final String exposition = writer.toString();
+        assertThat(exposition).contains("# TYPE foo_duration_seconds histogram")
+                              .contains("foo_duration_seconds_bucket{method=\"GET\",le=\"+Inf\",} 2.0")
+                              .contains("foo_duration_seconds_count{method=\"GET\",} 2.0")
+                              .contains("foo_duration_seconds_sum{method=\"GET\",} 3.001")
+                              .contains("# TYPE foo_length histogram")
+                              .contains("foo_length_bucket{method=\"GET\",le=\"96.0\",} 0.0")
+                              .contains("foo_length_bucket{method=\"GET\",le=\"128.0\",} 1.0")
+                              .contains("foo_length_count{method=\"GET\",} 1.0")
+                              .doesNotContain("quantile");
+    }
+
+    @Test
+    void keyedByTags() {
+        final PrometheusMeterRegistry registry =
+                PrometheusMeterRegistries.enableCompactHistograms(PrometheusMeterRegistries.newRegistry());
+        final Timer get = MoreMeters.newTimer(registry, "foo", ImmutableList.of(Tag.of("method", "GET")));
+        final Timer post = MoreMeters.newTimer(registry, "foo", ImmutableList.of(Tag.of("method", "POST")));
+        assertThat(get).isNotSameAs(post);
+        assertThat(MoreMeters.newTimer(registry, "foo", ImmutableList.of(Tag.of("method", "GET"))))
+                .isSameAs(get);
+
+        get.record(1, TimeUnit.SECONDS);
+        assertThat(get.count()).isOne();
+        assertThat(post.count()).isZero();
+        assertThat(registry.getMeters()).contains(get, post);
+    }
+
+    @Test
+    void meterFilters() {
+        final PrometheusMeterRegistry registry =
+                PrometheusMeterRegistries.enableCompactHistograms(PrometheusMeterRegistries.newRegistry());
+        registry.config().meterFilter(MeterFilter.ignoreTags("method"))
+                .meterFilter(MeterFilter.denyNameStartsWith("denied"));
+
+        final Timer timer = MoreMeters.newTimer(registry, "foo", ImmutableList.of(Tag.of("method", "GET")));
+        assertThat(timer.getId().getTags()).isEmpty();
+        assertThat(registry.getMeters()).contains(timer);
+
+        MoreMeters.newTimer(registry, "denied", ImmutableList.of()).record(1, TimeUnit.SECONDS);
+        assertThat(registry.find("denied").meter()).isNull();
+    }
+
+    @Test
+    void disabledByDefault() throws Exception {
+        final PrometheusMeterRegistry registry = PrometheusMeterRegistries.newRegistry();
+        MoreMeters.newTimer(registry, "foo", ImmutableList.of()).record(1, TimeUnit.SECONDS);
+
+        final StringWriter writer = new StringWriter();
+        TextFormat.write004(writer, registry.getPrometheusRegistry().metricFamilySamples());
+        assertThat(writer.toString()).contains("quantile");
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import com.linecorp.armeria.common.util.EventLoopGroups;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.EventLoopGroup;
+
+class EventLoopGroupMetricsTest {
+
+    private EventLoopGroup eventLoopGroup;
+
+    @BeforeEach
+    void setUp() {
+        eventLoopGroup = EventLoopGroups.newEventLoopGroup(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    @Test
+    void schedulingDelay() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final EventLoopGroupMetrics metrics = EventLoopGroupMetrics.of(
+                eventLoopGroup, new MeterIdPrefix("foo"), Duration.ofMillis(10), Duration.ofMillis(50));
+        metrics.bindTo(registry);
+
+        // Keep the second event loop busy for a while.
+        Iterables.get(eventLoopGroup, 1).execute(
+                () -> Uninterruptibles.sleepUninterruptibly(300, TimeUnit.MILLISECONDS));
+
+        await().untilAsserted(() -> {
+            final Map<String, Double> measurements = MoreMeters.measureAll(registry);
+            assertThat(measurements).containsEntry("foo.pendingTasks#value{eventLoop=0}", 0.0);
+            assertThat(measurements.get("foo.schedulingDelay#count{eventLoop=0}")).isGreaterThan(1);
+            assertThat(measurements.get("foo.schedulingDelay#count{eventLoop=1}")).isGreaterThan(1);
+            assertThat(measurements.get("foo.schedulingDelay#max{eventLoop=1}")).isGreaterThan(0.1);
+        });
+
+        metrics.close();
+        final double count = MoreMeters.measureAll(registry).get("foo.schedulingDelay#count{eventLoop=0}");
+        Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+        // At most one probe could have been running while closing.
+        assertThat(MoreMeters.measureAll(registry).get("foo.schedulingDelay#count{eventLoop=0}"))
+                .isLessThanOrEqualTo(count + 1);
+    }
+}
@@ -17,6 +17,11 @@
 package com.linecorp.armeria.common.metric;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
@@ -30,10 +35,12 @@ import com.linecorp.armeria.common.RequestContext;
 import com.linecorp.armeria.common.ResponseHeaders;
 import com.linecorp.armeria.common.RpcRequest;
 import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.CardinalityLimitingMeterIdPrefixFunction.HyperLogLog;
 import com.linecorp.armeria.server.ServiceRequestContext;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 public class MeterIdPrefixFunctionTest {
 
@@ -76,6 +83,69 @@ public class MeterIdPrefixFunctionTest {
                 .isEqualTo(new MeterIdPrefix("oof.bar", ImmutableList.of()));
     }
 
+    @Test
+    public void withMaxTagValues() {
+        final AtomicInteger counter = new AtomicInteger();
+        final MeterIdPrefixFunction f =
+                (registry, log) -> new MeterIdPrefix("requests", "method", "GET",
+                                                     "path", "/" + counter.getAndIncrement());
+        final MeterIdPrefixFunction limited = f.withMaxTagValues(3, "path");
+        final MeterRegistry registry = new SimpleMeterRegistry();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limited.apply(registry, null))
+                    .isEqualTo(new MeterIdPrefix("requests", "method", "GET", "path", "/" + i));
+        }
+        for (int i = 3; i < 100; i++) {
+            assertThat(limited.apply(registry, null))
+                    .isEqualTo(new MeterIdPrefix("requests", "method", "GET", "path", "other"));
+        }
+
+        // A value accepted before is still accepted.
+        counter.set(1);
+        assertThat(limited.apply(registry, null))
+                .isEqualTo(new MeterIdPrefix("requests", "method", "GET", "path", "/1"));
+
+        final Map<String, Double> measurements = MoreMeters.measureAll(registry);
+        assertThat(measurements).containsEntry("requests.tagValues#value{tag=path}", 3.0)
+                                .doesNotContainKey("requests.tagValues#value{tag=method}");
+        assertThat(measurements.get("requests.collapsedTagValues#value{tag=path}")).isCloseTo(97.0,
+                                                                                          offset(5.0));
+    }
+
+    @Test
+    public void withMaxTagValuesPerMeterName() {
+        final AtomicInteger counter = new AtomicInteger();
+        final MeterIdPrefixFunction f =
+                (registry, log) -> new MeterIdPrefix(counter.get() < 100 ? "foo" : "bar",
+                                                     "path", "/" + counter.getAndIncrement());
+        final MeterIdPrefixFunction limited = f.withMaxTagValues(3, "path");
+        final MeterRegistry registry = new SimpleMeterRegistry();
+
+        for (int i = 0; i < 100; i++) {
+            limited.apply(registry, null);
+        }
+
+        // The values collapsed for 'foo' do not use up the budget for 'bar'.
+        assertThat(limited.apply(registry, null)).isEqualTo(new MeterIdPrefix("bar", "path", "/100"));
+
+        final Map<String, Double> measurements = MoreMeters.measureAll(registry);
+        assertThat(measurements).containsEntry("foo.tagValues#value{tag=path}", 3.0)
+                                .containsEntry("bar.tagValues#value{tag=path}", 1.0);
+    }
+
+    @Test
+    public void hyperLogLog() {
+        final HyperLogLog hll = new HyperLogLog();
+        assertThat(hll.estimate()).isZero();
+        for (int i = 0; i < 100_000; i++) {
+            hll.add("value-" + i);
+            // Adding the same value again must not change the estimate.
+            hll.add("value-" + i);
+        }
+        assertThat(hll.estimate()).isCloseTo(100_000, withinPercentage(10));
+    }
+
     @Test
     public void defaultApply() {
         final MeterRegistry registry = NoopMeterRegistry.get();
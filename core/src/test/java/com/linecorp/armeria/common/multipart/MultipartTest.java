@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.multipart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.ProtocolViolationException;
+import com.linecorp.armeria.common.RequestHeaders;
+
+class MultipartTest {
+
+    private static final String BOUNDARY = "----boundary7MA4YWxkTrZu0gW";
+
+    private static final String BODY =
+            "This is the preamble.\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"field\"\r\n" +
+            "\r\n" +
+            "value\r\n" +
+            "--" + BOUNDARY + "  \r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "line 1\r\n--not a boundary\r\nline 2\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "\r\n" +
+            "\r\n" +
+            "--" + BOUNDARY + "--\r\n" +
+            "This is the epilogue.\r\n";
+
+    @Test
+    void decodeParts() {
+        final List<String> parts = collect(Multipart.from(request(BODY, BODY.length())),
+                                           MultipartTest::describe).join();
+        assertThat(parts).containsExactly("field|null|null|value",
+                                          "file|a.txt|text/plain|line 1\r\n--not a boundary\r\nline 2",
+                                          "null|null|null|");
+    }
+
+    @Test
+    void decodeSplitParts() {
+        // Split the body at every byte so that the boundaries straddle the chunks.
+        final List<String> parts = collect(Multipart.from(request(BODY, 1)), MultipartTest::describe).join();
+        assertThat(parts).containsExactly("field|null|null|value",
+                                          "file|a.txt|text/plain|line 1\r\n--not a boundary\r\nline 2",
+                                          "null|null|null|");
+    }
+
+    @Test
+    void bodyWithoutPreamble() {
+        final String body = "--" + BOUNDARY + "\r\n" +
+                            "Content-Disposition: form-data; name=\"a\"\r\n\r\n" +
+                            "1\r\n" +
+                            "--" + BOUNDARY + "--";
+        assertThat(collect(Multipart.from(request(body, 7)), MultipartTest::describe).join())
+                .containsExactly("a|null|null|1");
+    }
+
+    @Test
+    void unexpectedEndOfBody() {
+        final String body = "--" + BOUNDARY + "\r\n" +
+                            "Content-Disposition: form-data; name=\"a\"\r\n\r\n" +
+                            "truncated";
+        assertThatThrownBy(() -> collect(Multipart.from(request(body, 16)), MultipartTest::describe).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(ProtocolViolationException.class);
+    }
+
+    @Test
+    void notMultipart() {
+        assertThatThrownBy(() -> Multipart.from(HttpRequest.of(HttpMethod.POST, "/", MediaType.PLAIN_TEXT_UTF_8,
+                                                               "foo")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Multipart.from(HttpRequest.of(HttpMethod.POST, "/",
+                                                               MediaType.MULTIPART_FORM_DATA, "foo")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("boundary");
+    }
+
+    @Test
+    void writeTo(@TempDir Path tempDir) throws Exception {
+        final byte[] content = new byte[1024 * 1024];
+        ThreadLocalRandom.current().nextBytes(content);
+        final String body = "--" + BOUNDARY + "\r\n" +
+                            "Content-Disposition: form-data; name=\"file\"; filename=\"random.bin\"\r\n" +
+                            "\r\n" +
+                            new String(content, StandardCharsets.ISO_8859_1) + "\r\n" +
+                            "--" + BOUNDARY + "--\r\n";
+
+        final Path file = tempDir.resolve("random.bin");
+        final List<Long> written = collect(Multipart.from(request(body, 8192)),
+                                           part -> part.writeTo(file)).join();
+        assertThat(written).containsExactly((long) content.length);
+        assertThat(Files.readAllBytes(file)).isEqualTo(content);
+    }
+
+    private static HttpRequest request(String body, int chunkSize) {
+        final byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        final List<HttpData> chunks = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            chunks.add(HttpData.wrap(bytes, i, Math.min(chunkSize, bytes.length - i)));
+        }
+        final RequestHeaders headers = RequestHeaders.of(
+                HttpMethod.POST, "/", HttpHeaderNames.CONTENT_TYPE,
+                "multipart/form-data; boundary=\"" + BOUNDARY + '"');
+        return HttpRequest.of(headers, chunks.toArray(new HttpData[0]));
+    }
+
+    private static CompletableFuture<String> describe(BodyPart part) {
+        return part.aggregate().thenApply(content -> part.name() + '|' + part.filename() + '|' +
+                                                     part.contentType() + '|' + content.toStringUtf8());
+    }
+
+    /**
+     * Subscribes to the parts one by one, requesting the next part only after the previous one is handled.
+     */
+    private static <T> CompletableFuture<List<T>> collect(Multipart multipart,
+                                                          Function<BodyPart, CompletableFuture<T>> handler) {
+        final CompletableFuture<List<T>> future = new CompletableFuture<>();
+        final List<T> results = new ArrayList<>();
+        multipart.parts().subscribe(new Subscriber<BodyPart>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(BodyPart part) {
+                handler.apply(part).handle((result, cause) -> {
+                    if (cause != null) {
+                        future.completeExceptionally(cause);
+                        subscription.cancel();
+                    } else {
+                        results.add(result);
+                        subscription.request(1);
+                    }
+                    return null;
+                });
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(results);
+            }
+        });
+        return future;
+    }
+}
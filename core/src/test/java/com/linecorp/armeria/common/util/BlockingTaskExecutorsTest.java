@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.common.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+class BlockingTaskExecutorsTest {
+
+    @Test
+    void virtualThreadAvailability() {
+        boolean hasOfVirtual;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            hasOfVirtual = true;
+        } catch (NoSuchMethodException e) {
+            hasOfVirtual = false;
+        }
+
+        // Virtual threads may be unavailable even if the method exists, e.g. a disabled preview feature.
+        if (!hasOfVirtual) {
+            assertThat(BlockingTaskExecutors.isVirtualThreadAvailable()).isFalse();
+        }
+    }
+
+    @Test
+    void virtualThreadExecutor() throws Exception {
+        final ExecutorService executor = BlockingTaskExecutors.newVirtualThreadExecutor("test-blocking");
+        try {
+            final Thread thread = executor.submit(Thread::currentThread).get();
+            assertThat(thread.getName()).startsWith("test-blocking-");
+            if (BlockingTaskExecutors.isVirtualThreadAvailable()) {
+                assertThat(thread.getClass().getName()).isEqualTo("java.lang.VirtualThread");
+                assertThat(executor).isNotInstanceOf(ThreadPoolExecutor.class);
+            } else {
+                assertThat(thread.isDaemon()).isTrue();
+                assertThat(executor).isInstanceOf(ThreadPoolExecutor.class);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void propagateRequestContext() throws Exception {
+        final ServiceRequestContext ctx = ServiceRequestContext.of(HttpRequest.of(HttpMethod.GET, "/"));
+        final ExecutorService executor = BlockingTaskExecutors.newVirtualThreadExecutor("test-blocking");
+        try {
+            final Callable<RequestContext> task = RequestContext::current;
+            assertThat(ctx.makeContextAware(executor).submit(task).get()).isSameAs(ctx);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void platformThreadExecutor() {
+        final ExecutorService executor = BlockingTaskExecutors.newPlatformThreadExecutor("test-blocking", 2);
+        try {
+            assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize()).isEqualTo(2);
+        } finally {
+            executor.shutdown();
+        }
+        assertThatThrownBy(() -> BlockingTaskExecutors.newPlatformThreadExecutor("test-blocking", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -53,7 +53,9 @@ import com.linecorp.armeria.server.ServerConfig;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.handler.codec.http2.Http2Exception;
@@ -476,6 +478,60 @@ class ArmeriaHttpUtilTest {
         assertThat(headers.authority()).isEqualTo("foo:36462");
     }
 
+    @Test
+    void toArmeriaRequestHeadersDecodedInPlace() throws Exception {
+        final InetSocketAddress socketAddress = new InetSocketAddress(36462);
+        final Channel channel = mock(Channel.class);
+        when(channel.localAddress()).thenReturn(socketAddress);
+
+        final ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+        when(ctx.channel()).thenReturn(channel);
+
+        final io.netty.handler.codec.http.HttpHeaders inPlace = new Http1HeadersAdapter();
+        final io.netty.handler.codec.http.HttpHeaders copied = new DefaultHttpHeaders();
+        for (io.netty.handler.codec.http.HttpHeaders in : Arrays.asList(inPlace, copied)) {
+            in.add("Host", "example.com");
+            in.add("Connection", "keep-alive, Foo");
+            in.add("Foo", "bar");
+            in.add("TE", "gzip, trailers");
+            in.add("Cookie", "a=1;b=2");
+            in.add("Cookie", "c=3");
+            in.add("Transfer-Encoding", "chunked");
+            in.add("X-Custom", "value");
+            in.set(ExtensionHeaderNames.SCHEME.text(), "http");
+        }
+
+        final RequestHeaders expected = toArmeria(
+                ctx, new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo?bar=baz", copied),
+                serverConfig());
+        final RequestHeaders actual = toArmeria(
+                ctx, new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo?bar=baz", inPlace),
+                serverConfig());
+
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual.method()).isSameAs(com.linecorp.armeria.common.HttpMethod.POST);
+        assertThat(actual.path()).isEqualTo("/foo?bar=baz");
+        assertThat(actual.scheme()).isEqualTo("http");
+        assertThat(actual.authority()).isEqualTo("example.com");
+        assertThat(actual.get(HttpHeaderNames.COOKIE)).isEqualTo("a=1; b=2; c=3");
+        assertThat(actual.getAll(HttpHeaderNames.TE)).containsExactly("trailers");
+        assertThat(actual.get(HttpHeaderNames.of("x-custom"))).isEqualTo("value");
+        assertThat(actual.contains(HttpHeaderNames.of("foo"))).isFalse();
+        assertThat(actual.contains(HttpHeaderNames.CONNECTION)).isFalse();
+        assertThat(actual.contains(HttpHeaderNames.TRANSFER_ENCODING)).isFalse();
+        assertThat(actual.contains(ExtensionHeaderNames.SCHEME.text())).isFalse();
+    }
+
+    @Test
+    void http1HeadersAdapterRejectsInvalidName() {
+        final io.netty.handler.codec.http.HttpHeaders headers = new Http1HeadersAdapter();
+        assertThatThrownBy(() -> headers.add("foo bar", "baz"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> headers.add("foo:", "baz"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(headers.isEmpty()).isTrue();
+    }
+
     @Test
     void isAbsoluteUri() {
         final String good = "none+http://a.com";
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.HttpHeaders;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+class MultipartParserTest {
+
+    private static final String BOUNDARY = "----boundary7MA4YWxkTrZu0gW";
+
+    @Test
+    void largePartIsNotAccumulated() {
+        final ContentCounter handler = new ContentCounter();
+        final MultipartParser parser = new MultipartParser(BOUNDARY, handler, ByteBufAllocator.DEFAULT);
+        final int maxBufferedBytes = 2 * ("\r\n--" + BOUNDARY).length();
+
+        parser.parse(ascii("--" + BOUNDARY + "\r\nContent-Type: application/octet-stream\r\n\r\n"));
+        final byte[] chunk = new byte[8192];
+        Arrays.fill(chunk, (byte) 'x');
+        final int numChunks = 1024;
+        for (int i = 0; i < numChunks; i++) {
+            final ByteBuf in = Unpooled.wrappedBuffer(chunk);
+            parser.parse(in);
+
+            // The content is emitted as a slice of the received buffer rather than a copy of it.
+            assertThat(handler.lastContent).isSameAs(in);
+            // Only the bytes which may be the beginning of a delimiter are carried over.
+            assertThat(parser.bufferedBytes()).isLessThanOrEqualTo(maxBufferedBytes);
+        }
+        parser.parse(ascii("\r\n--" + BOUNDARY + "--\r\n"));
+
+        assertThat(parser.isEnded()).isTrue();
+        assertThat(handler.numContentBytes).isEqualTo((long) chunk.length * numChunks);
+        assertThat(handler.numParts).isOne();
+        parser.finish();
+    }
+
+    @Test
+    void delimiterAcrossBuffers() {
+        final String body = "--" + BOUNDARY + "\r\n\r\n" + "0123456789" + "\r\n--" + BOUNDARY + "--";
+        final ContentCounter reference = new ContentCounter();
+        final MultipartParser referenceParser =
+                new MultipartParser(BOUNDARY, reference, ByteBufAllocator.DEFAULT);
+        referenceParser.parse(ascii(body));
+        referenceParser.finish();
+
+        for (int i = 1; i < body.length(); i++) {
+            final ContentCounter handler = new ContentCounter();
+            final MultipartParser parser = new MultipartParser(BOUNDARY, handler, ByteBufAllocator.DEFAULT);
+            parser.parse(ascii(body.substring(0, i)));
+            parser.parse(ascii(body.substring(i)));
+            parser.finish();
+            assertThat(handler.numParts).isOne();
+            assertThat(handler.numContentBytes).isEqualTo(reference.numContentBytes).isEqualTo(10);
+        }
+    }
+
+    private static ByteBuf ascii(String s) {
+        return Unpooled.copiedBuffer(s, StandardCharsets.US_ASCII);
+    }
+
+    private static final class ContentCounter implements MultipartParser.Handler {
+        ByteBuf lastContent;
+        long numContentBytes;
+        int numParts;
+
+        @Override
+        public void onPartStart(HttpHeaders headers) {}
+
+        @Override
+        public void onPartContent(ByteBuf content) {
+            lastContent = content.unwrap();
+            numContentBytes += content.readableBytes();
+            content.release();
+        }
+
+        @Override
+        public void onPartEnd() {
+            numParts++;
+        }
+
+        @Override
+        public void onEnd() {}
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.ResponseHeaders;
+
+import reactor.core.publisher.Flux;
+
+class PooledJsonWriterTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final PooledJsonWriter writer = PooledJsonWriter.of(mapper);
+    private static final ResponseHeaders headers = ResponseHeaders.of(HttpStatus.OK, "content-type",
+                                                                      MediaType.JSON_UTF_8);
+
+    @Test
+    void cachedPerMapper() {
+        assertThat(PooledJsonWriter.of(mapper)).isSameAs(writer);
+        assertThat(PooledJsonWriter.of(new ObjectMapper())).isNotSameAs(writer);
+    }
+
+    @Test
+    void toHttpData() throws Exception {
+        final HttpData data = writer.toHttpData(ImmutableMap.of("foo", 1));
+        assertThat(data.toStringUtf8()).isEqualTo(mapper.writeValueAsString(ImmutableMap.of("foo", 1)));
+        assertThat(writer.toHttpData(null).toStringUtf8()).isEqualTo("null");
+    }
+
+    @Test
+    void streamLargeArrayInChunks() throws Exception {
+        final List<String> values = IntStream.range(0, 10000).mapToObj(i -> "value-" + i)
+                                             .collect(Collectors.toList());
+        final HttpResponse res = writer.streamArray(values.stream(), headers, HttpHeaders.of(),
+                                                    MoreExecutors.directExecutor());
+        final List<HttpObject> objects = res.drainAll().join();
+        assertThat(objects.get(0)).isEqualTo(headers);
+        // More than one chunk should have been sent.
+        assertThat(objects.size()).isGreaterThan(2);
+
+        final AggregatedHttpResponse aggregated =
+                writer.streamArray(Flux.fromIterable(values), headers, HttpHeaders.of()).aggregate().join();
+        final JsonNode array = mapper.readTree(aggregated.contentUtf8());
+        assertThat(array.size()).isEqualTo(values.size());
+        assertThat(array.get(9999).asText()).isEqualTo("value-9999");
+        assertThat(aggregated.contentUtf8()).isEqualTo(mapper.writeValueAsString(values));
+    }
+
+    @Test
+    void streamArrayOnDemand() {
+        final int numValues = 100000;
+        final AtomicInteger numSerialized = new AtomicInteger();
+        final Stream<Integer> stream = IntStream.range(0, numValues).boxed()
+                                                .peek(unused -> numSerialized.incrementAndGet());
+        final HttpResponse res = writer.streamArray(stream, headers, HttpHeaders.of(),
+                                                    MoreExecutors.directExecutor());
+
+        final AtomicInteger numReceived = new AtomicInteger();
+        final CompletableFuture<Subscription> subscriptionFuture = new CompletableFuture<>();
+        final CompletableFuture<Void> completionFuture = new CompletableFuture<>();
+        res.subscribe(new Subscriber<HttpObject>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscriptionFuture.complete(s);
+                // The headers and the first chunk
+                s.request(2);
+            }
+
+            @Override
+            public void onNext(HttpObject obj) {
+                numReceived.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                completionFuture.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                completionFuture.complete(null);
+            }
+        });
+
+        await().untilAsserted(() -> assertThat(numReceived).hasValue(2));
+        // Only the first chunk has been serialized until the client requests more.
+        assertThat(numSerialized.get()).isLessThan(numValues / 10);
+
+        subscriptionFuture.join().request(Long.MAX_VALUE);
+        completionFuture.join();
+        assertThat(numSerialized).hasValue(numValues);
+    }
+
+    @Test
+    void streamEmptyArray() {
+        final AggregatedHttpResponse res =
+                writer.streamArray(Stream.empty(), headers, HttpHeaders.of(), MoreExecutors.directExecutor())
+                      .aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.contentUtf8()).isEqualTo("[]");
+    }
+}
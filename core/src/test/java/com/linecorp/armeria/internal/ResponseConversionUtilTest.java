@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.Unpooled;
+
+class ResponseConversionUtilTest {
+
+    private static final ResponseHeaders headers = ResponseHeaders.of(HttpStatus.OK);
+
+    @Test
+    void streamingFromCancelledMidStream() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = tasks::add;
+        final List<CountingHttpData> contents = new ArrayList<>();
+        final AtomicReference<HttpResponseWriter> res = new AtomicReference<>();
+        res.set(ResponseConversionUtil.streamingFrom(IntStream.range(0, 10).boxed(), headers,
+                                                     HttpHeaders.of(), i -> {
+                    if (i == 3) {
+                        // The client cancels the response while the stream is being converted.
+                        res.get().abort();
+                    }
+                    final CountingHttpData content = new CountingHttpData();
+                    contents.add(content);
+                    return content;
+                }, executor));
+        tasks.forEach(Runnable::run);
+
+        assertThat(contents).hasSize(4);
+        assertReleasedOnce(contents);
+    }
+
+    @Test
+    void aggregateFromCancelled() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = tasks::add;
+        final List<CountingHttpData> contents = new ArrayList<>();
+        final HttpResponseWriter res = ResponseConversionUtil.aggregateFrom(
+                IntStream.range(0, 10).boxed(), headers, HttpHeaders.of(), unused -> {
+                    final CountingHttpData content = new CountingHttpData();
+                    contents.add(content);
+                    return content;
+                }, executor);
+        res.abort();
+        tasks.forEach(Runnable::run);
+
+        assertThat(contents).hasSize(1);
+        assertReleasedOnce(contents);
+    }
+
+    private static void assertReleasedOnce(List<CountingHttpData> contents) {
+        for (CountingHttpData content : contents) {
+            // Not leaked and not released twice.
+            assertThat(content.refCnt()).isZero();
+            assertThat(content.releaseCount).hasValue(1);
+        }
+    }
+
+    /**
+     * A pooled {@link ByteBufHttpData} which counts how many times it has been released.
+     */
+    private static final class CountingHttpData extends ByteBufHttpData {
+
+        final AtomicInteger releaseCount = new AtomicInteger();
+
+        CountingHttpData() {
+            super(Unpooled.directBuffer().writeLong(0), false);
+        }
+
+        @Override
+        public boolean release() {
+            releaseCount.incrementAndGet();
+            return super.release();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.ClientFactoryBuilder;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+
+class TransportMetricsTest {
+
+    private static final MeterRegistry serverRegistry = new SimpleMeterRegistry();
+    private static final MeterRegistry clientRegistry = new SimpleMeterRegistry();
+
+    private static final ClientFactory clientFactory =
+            new ClientFactoryBuilder().sslContextCustomizer(
+                    b -> b.trustManager(InsecureTrustManagerFactory.INSTANCE))
+                                      .meterRegistry(clientRegistry)
+                                      .build();
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.meterRegistry(serverRegistry);
+            sb.http(0);
+            sb.https(0);
+            sb.tlsSelfSigned();
+            sb.service("/", (ctx, req) -> HttpResponse.of(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8,
+                                                          "Hello, world!"));
+        }
+    };
+
+    @AfterAll
+    static void closeClientFactory() {
+        clientFactory.close();
+    }
+
+    @Test
+    void http2() {
+        final AggregatedHttpResponse res =
+                HttpClient.of(clientFactory, server.uri(SessionProtocol.H2C, "/")).get("/").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+
+        await().untilAsserted(() -> {
+            final Map<String, Double> measurements = MoreMeters.measureAll(serverRegistry);
+            assertThat(measurements.get("armeria.server.transport.bytes#count{direction=read}"))
+                    .isPositive();
+            assertThat(measurements.get("armeria.server.transport.bytes#count{direction=written}"))
+                    .isPositive();
+            assertThat(measurements.get(
+                    "armeria.server.transport.http2.frames#count{direction=inbound,type=headers}"))
+                    .isGreaterThanOrEqualTo(1);
+            assertThat(measurements.get(
+                    "armeria.server.transport.http2.frames#count{direction=outbound,type=data}"))
+                    .isGreaterThanOrEqualTo(1);
+            assertThat(measurements.get(
+                    "armeria.server.transport.http2.frames#count{direction=outbound,type=settings}"))
+                    .isGreaterThanOrEqualTo(1);
+        });
+
+        final Map<String, Double> measurements = MoreMeters.measureAll(clientRegistry);
+        assertThat(measurements.get("armeria.client.transport.bytes#count{direction=read}")).isPositive();
+        assertThat(measurements.get(
+                "armeria.client.transport.http2.frames#count{direction=outbound,type=headers}"))
+                .isGreaterThanOrEqualTo(1);
+        assertThat(measurements.get(
+                "armeria.client.transport.http2.frames#count{direction=inbound,type=data}"))
+                .isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void tlsHandshake() {
+        final AggregatedHttpResponse res =
+                HttpClient.of(clientFactory, server.uri(SessionProtocol.H1, "/")).get("/").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+
+        await().untilAsserted(() -> {
+            final Map<String, Double> measurements = MoreMeters.measureAll(serverRegistry);
+            assertThat(measurements.get("armeria.server.transport.tls.handshakes#count{result=full}") +
+                       measurements.get("armeria.server.transport.tls.handshakes#count{result=resumed}"))
+                    .isGreaterThanOrEqualTo(1);
+            assertThat(measurements.get("armeria.server.transport.tls.handshakeDuration#count"))
+                    .isGreaterThanOrEqualTo(1);
+        });
+
+        final Map<String, Double> measurements = MoreMeters.measureAll(clientRegistry);
+        assertThat(measurements.get("armeria.client.transport.tls.handshakes#count{result=full}") +
+                   measurements.get("armeria.client.transport.tls.handshakes#count{result=resumed}"))
+                .isGreaterThanOrEqualTo(1);
+        assertThat(measurements.get("armeria.client.transport.tls.handshakes#count{result=failure}"))
+                .isZero();
+    }
+}
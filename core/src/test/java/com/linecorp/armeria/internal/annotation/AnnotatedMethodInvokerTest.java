@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal.annotation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+class AnnotatedMethodInvokerTest {
+
+    @Test
+    void invokeWithVariousArities() throws Throwable {
+        final Target target = new Target();
+        assertThat(invoker(target, "noArgs").invoke(new Object[0])).isEqualTo("none");
+        assertThat(invoker(target, "twoArgs", String.class, int.class).invoke(new Object[] { "a", 1 }))
+                .isEqualTo("a1");
+        assertThat(invoker(target, "sixArgs", int.class, int.class, int.class, int.class, int.class,
+                           int.class).invoke(new Object[] { 1, 2, 3, 4, 5, 6 }))
+                .isEqualTo(21L);
+    }
+
+    @Test
+    void invokeVoidMethod() throws Throwable {
+        final Target target = new Target();
+        assertThat(invoker(target, "voidMethod", String.class).invoke(new Object[] { "foo" })).isNull();
+        assertThat(target.lastValue).isEqualTo("foo");
+    }
+
+    @Test
+    void invokeNonPublicMethod() throws Throwable {
+        assertThat(invoker(new Target(), "privateMethod").invoke(new Object[0])).isEqualTo("private");
+    }
+
+    @Test
+    void exceptionIsNotWrapped() throws Exception {
+        final AnnotatedMethodInvoker invoker = invoker(new Target(), "throwingMethod");
+        assertThatThrownBy(() -> invoker.invoke(new Object[0]))
+                .isExactlyInstanceOf(IllegalStateException.class)
+                .hasMessage("expected");
+    }
+
+    private static AnnotatedMethodInvoker invoker(Object target, String name, Class<?>... parameterTypes)
+            throws Exception {
+        final Method method = Target.class.getDeclaredMethod(name, parameterTypes);
+        return AnnotatedMethodInvoker.of(target, method);
+    }
+
+    private static final class Target {
+        String lastValue;
+
+        public String noArgs() {
+            return "none";
+        }
+
+        public String twoArgs(String a, int b) {
+            return a + b;
+        }
+
+        public long sixArgs(int a, int b, int c, int d, int e, int f) {
+            return a + b + c + d + e + f;
+        }
+
+        public void voidMethod(String value) {
+            lastValue = value;
+        }
+
+        private String privateMethod() {
+            return "private";
+        }
+
+        public String throwingMethod() {
+            throw new IllegalStateException("expected");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BlockingTaskBulkheadTest {
+
+    private static final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private static final BlockingTaskBulkhead bulkhead =
+            BlockingTaskBulkhead.builder("test-bulkhead")
+                                .maxThreads(1)
+                                .maxQueueSize(1)
+                                .maxQueueWait(Duration.ofMillis(200))
+                                .meterRegistry(registry)
+                                .build();
+
+    private static volatile CountDownLatch latch = new CountDownLatch(0);
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            final HttpService blockingService = (ctx, req) -> HttpResponse.from(
+                    CompletableFuture.supplyAsync(() -> {
+                        try {
+                            latch.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return HttpResponse.of(HttpStatus.OK);
+                    }, ctx.blockingTaskExecutor()));
+
+            sb.route().get("/bulkhead")
+              .blockingTaskExecutor(bulkhead, true)
+              .build(blockingService);
+            sb.service("/shared", (ctx, req) -> HttpResponse.from(
+                    CompletableFuture.supplyAsync(() -> HttpResponse.of(HttpStatus.OK),
+                                                  ctx.blockingTaskExecutor())));
+        }
+    };
+
+    @AfterEach
+    void releaseTasks() {
+        latch.countDown();
+    }
+
+    @Test
+    void rejectWhenQueueIsFullOrWaitedTooLong() throws Exception {
+        latch = new CountDownLatch(1);
+        final HttpClient client = HttpClient.of(server.uri("/"));
+
+        // Occupies the only thread.
+        final CompletableFuture<AggregatedHttpResponse> running = client.get("/bulkhead").aggregate();
+        await().untilAsserted(() -> assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.blockingTaskBulkhead.active#value{name=test-bulkhead}", 1.0));
+
+        // Occupies the queue.
+        final CompletableFuture<AggregatedHttpResponse> queued = client.get("/bulkhead").aggregate();
+        await().untilAsserted(() -> assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.blockingTaskBulkhead.pending#value{name=test-bulkhead}", 1.0));
+
+        // Rejected because the queue is full.
+        assertThat(client.get("/bulkhead").aggregate().join().status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        // Let the queued task wait longer than the maximum queue wait.
+        Thread.sleep(300);
+        latch.countDown();
+        assertThat(running.join().status()).isEqualTo(HttpStatus.OK);
+
+        // Rejected rather than run late.
+        assertThat(queued.join().status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.blockingTaskBulkhead.rejected#count" +
+                               "{name=test-bulkhead,reason=queueFull}", 1.0)
+                .containsEntry("armeria.server.blockingTaskBulkhead.rejected#count" +
+                               "{name=test-bulkhead,reason=queueWait}", 1.0)
+                .containsKey("armeria.server.blockingTaskBulkhead.queueWait#count{name=test-bulkhead}");
+    }
+
+    @Test
+    void otherServicesAreNotAffected() throws Exception {
+        latch = new CountDownLatch(1);
+        final HttpClient client = HttpClient.of(server.uri("/"));
+        final CompletableFuture<AggregatedHttpResponse> running = client.get("/bulkhead").aggregate();
+        await().untilAsserted(() -> assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.blockingTaskBulkhead.active#value{name=test-bulkhead}", 1.0));
+
+        // A service on the shared blocking task executor is served while the bulkhead is busy.
+        assertThat(client.get("/shared").aggregate().get(10, TimeUnit.SECONDS).status())
+                .isEqualTo(HttpStatus.OK);
+
+        latch.countDown();
+        assertThat(running.join().status()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void runTasksSubmittedDirectly() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        bulkhead.execute(done::countDown);
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void validateBuilder() {
+        assertThatThrownBy(() -> BlockingTaskBulkhead.builder("foo").maxThreads(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BlockingTaskBulkhead.builder("foo").maxQueueSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BlockingTaskBulkhead.builder("foo").maxQueueWait(Duration.ofMillis(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BlockingTaskBulkhead.builder(""))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
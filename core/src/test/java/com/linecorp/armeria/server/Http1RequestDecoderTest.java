@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+import io.netty.util.NetUtil;
+
+class Http1RequestDecoderTest {
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service("/echo", (ctx, req) -> HttpResponse.from(
+                    req.aggregate().thenApply(agg -> HttpResponse.of(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8,
+                                                                     agg.contentUtf8()))));
+        }
+    };
+
+    @Test
+    void chunkedRequestBody() throws Exception {
+        try (Socket s = connect()) {
+            write(s, "POST /echo HTTP/1.1\r\n" +
+                     "Host: " + host() + "\r\n" +
+                     "Transfer-Encoding: chunked\r\n\r\n" +
+                     "3\r\nfoo\r\n");
+            write(s, "3\r\nbar\r\n" +
+                     "0\r\n\r\n");
+            assertThat(readResponse(s.getInputStream())).startsWith("HTTP/1.1 200 ").endsWith("foobar");
+
+            // The connection is still usable.
+            write(s, "POST /echo HTTP/1.1\r\n" +
+                     "Host: " + host() + "\r\n" +
+                     "Content-Length: 3\r\n\r\n" +
+                     "baz");
+            assertThat(readResponse(s.getInputStream())).startsWith("HTTP/1.1 200 ").endsWith("baz");
+        }
+    }
+
+    @Test
+    void connectionClose() throws Exception {
+        try (Socket s = connect()) {
+            write(s, "GET /echo HTTP/1.1\r\n" +
+                     "Host: " + host() + "\r\n" +
+                     "Connection: close\r\n\r\n");
+            assertThat(readResponse(s.getInputStream())).startsWith("HTTP/1.1 200 ");
+            assertThat(s.getInputStream().read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void http10KeepAlive() throws Exception {
+        try (Socket s = connect()) {
+            for (int i = 0; i < 2; i++) {
+                write(s, "GET /echo HTTP/1.0\r\n" +
+                         "Host: " + host() + "\r\n" +
+                         "Connection: keep-alive\r\n\r\n");
+                assertThat(readResponse(s.getInputStream())).contains(" 200 ");
+            }
+        }
+    }
+
+    @Test
+    void http10WithoutKeepAlive() throws Exception {
+        try (Socket s = connect()) {
+            write(s, "GET /echo HTTP/1.0\r\n" +
+                     "Host: " + host() + "\r\n\r\n");
+            assertThat(readResponse(s.getInputStream())).contains(" 200 ");
+            assertThat(s.getInputStream().read()).isEqualTo(-1);
+        }
+    }
+
+    private static Socket connect() throws IOException {
+        final Socket s = new Socket(NetUtil.LOCALHOST, server.httpPort());
+        s.setSoTimeout(10000);
+        return s;
+    }
+
+    private static String host() {
+        return "127.0.0.1:" + server.httpPort();
+    }
+
+    private static void write(Socket s, String data) throws IOException {
+        s.getOutputStream().write(data.getBytes(StandardCharsets.US_ASCII));
+        s.getOutputStream().flush();
+    }
+
+    /**
+     * Reads a response which has the {@code content-length} header.
+     */
+    private static String readResponse(InputStream in) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        while (buf.length() < 4 || !"\r\n\r\n".equals(buf.substring(buf.length() - 4))) {
+            buf.append((char) read(in));
+        }
+
+        final String headers = buf.toString().toLowerCase(Locale.ROOT);
+        final int start = headers.indexOf("\r\ncontent-length:");
+        assertThat(start).isPositive();
+        final int end = headers.indexOf("\r\n", start + 2);
+        final int contentLength = Integer.parseInt(headers.substring(start + 17, end).trim());
+        for (int i = 0; i < contentLength; i++) {
+            buf.append((char) read(in));
+        }
+        return buf.toString();
+    }
+
+    private static int read(InputStream in) throws IOException {
+        final int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.websocket.WebSocketFrame;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+import io.netty.util.NetUtil;
+
+class WebSocketServiceTest {
+
+    // The example key and accept value from RFC 6455, section 1.3.
+    private static final String KEY = "dGhlIHNhbXBsZSBub25jZQ==";
+    private static final String ACCEPT = "s3pPLMBiTxaQ9kYGzzhZRbK+xOo=";
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service("/echo", WebSocketService.builder((ctx, in) -> in)
+                                                .maxFramePayloadLength(32768)
+                                                .maxOutboundFramePayloadLength(16384)
+                                                .subprotocols("chat")
+                                                .build());
+            sb.service("/plain", (ctx, req) -> HttpResponse.of(HttpStatus.NO_CONTENT));
+        }
+    };
+
+    @Test
+    void handshake() throws Exception {
+        try (Socket s = connect()) {
+            final String res = handshake(s, "/echo", "Sec-WebSocket-Protocol: superchat, chat\r\n");
+            assertThat(res).startsWith("HTTP/1.1 101 ");
+            assertThat(res).containsIgnoringCase("upgrade: websocket\r\n")
+                           .containsIgnoringCase("connection: upgrade\r\n")
+                           .containsIgnoringCase("sec-websocket-accept: " + ACCEPT + "\r\n")
+                           .containsIgnoringCase("sec-websocket-protocol: chat\r\n")
+                           .doesNotContainIgnoringCase("sec-websocket-extensions");
+        }
+    }
+
+    @Test
+    void notUpgradeRequest() throws Exception {
+        try (Socket s = connect()) {
+            s.getOutputStream().write(("GET /echo HTTP/1.1\r\nHost: " + host() + "\r\n\r\n")
+                                              .getBytes(StandardCharsets.US_ASCII));
+            assertThat(readHeaders(s.getInputStream())).startsWith("HTTP/1.1 400 ");
+        }
+    }
+
+    @Test
+    void unsupportedVersion() throws Exception {
+        try (Socket s = connect()) {
+            s.getOutputStream().write(("GET /echo HTTP/1.1\r\nHost: " + host() + "\r\n" +
+                                       "Upgrade: websocket\r\nConnection: Upgrade\r\n" +
+                                       "Sec-WebSocket-Key: " + KEY + "\r\n" +
+                                       "Sec-WebSocket-Version: 8\r\n\r\n")
+                                              .getBytes(StandardCharsets.US_ASCII));
+            final String res = readHeaders(s.getInputStream());
+            assertThat(res).startsWith("HTTP/1.1 426 ")
+                           .containsIgnoringCase("sec-websocket-version: 13\r\n");
+        }
+    }
+
+    @Test
+    void upgradeToNonWebSocketService() throws Exception {
+        try (Socket s = connect()) {
+            final String res = handshake(s, "/plain", "");
+            assertThat(res).startsWith("HTTP/1.1 204 ")
+                           .doesNotContainIgnoringCase("connection: close");
+
+            // The connection is kept alive for the next HTTP request.
+            s.getOutputStream().write(("GET /plain HTTP/1.1\r\nHost: " + host() + "\r\n\r\n")
+                                              .getBytes(StandardCharsets.US_ASCII));
+            assertThat(readHeaders(s.getInputStream())).startsWith("HTTP/1.1 204 ");
+        }
+    }
+
+    @Test
+    void echo() throws Exception {
+        try (Socket s = connect()) {
+            handshake(s, "/echo", "");
+            final OutputStream out = s.getOutputStream();
+            final DataInputStream in = new DataInputStream(s.getInputStream());
+
+            writeFrame(out, 0x1, true, false, "hello".getBytes(StandardCharsets.UTF_8));
+            Frame frame = readFrame(in);
+            assertThat(frame.opcode).isEqualTo(0x1);
+            assertThat(frame.fin).isTrue();
+            assertThat(new String(frame.payload, StandardCharsets.UTF_8)).isEqualTo("hello");
+
+            // A ping frame is answered by the session and never reaches the handler.
+            writeFrame(out, 0x9, true, false, new byte[] { 1, 2, 3 });
+            frame = readFrame(in);
+            assertThat(frame.opcode).isEqualTo(0xA);
+            assertThat(frame.payload).containsExactly(1, 2, 3);
+
+            // A large message is split into fragments of maxOutboundFramePayloadLength.
+            final byte[] large = new byte[30000];
+            ThreadLocalRandom.current().nextBytes(large);
+            writeFrame(out, 0x2, true, false, large);
+            final ByteArrayOutputStream received = new ByteArrayOutputStream();
+            frame = readFrame(in);
+            assertThat(frame.opcode).isEqualTo(0x2);
+            assertThat(frame.fin).isFalse();
+            assertThat(frame.payload).hasSize(16384);
+            received.write(frame.payload);
+            frame = readFrame(in);
+            assertThat(frame.opcode).isZero();
+            assertThat(frame.fin).isTrue();
+            received.write(frame.payload);
+            assertThat(received.toByteArray()).isEqualTo(large);
+
+            assertClosingHandshake(out, in, WebSocketFrame.NORMAL_CLOSURE);
+        }
+    }
+
+    @Test
+    void tooLargeFrame() throws Exception {
+        try (Socket s = connect()) {
+            handshake(s, "/echo", "");
+            final OutputStream out = s.getOutputStream();
+            final DataInputStream in = new DataInputStream(s.getInputStream());
+
+            writeFrame(out, 0x2, true, false, new byte[32769]);
+            final Frame frame = readFrame(in);
+            assertThat(frame.opcode).isEqualTo(0x8);
+            assertThat(closeStatus(frame)).isEqualTo(WebSocketFrame.MESSAGE_TOO_BIG);
+            assertEndOfStream(in);
+        }
+    }
+
+    @Test
+    void unmaskedFrame() throws Exception {
+        try (Socket s = connect()) {
+            handshake(s, "/echo", "");
+            final OutputStream out = s.getOutputStream();
+            final DataInputStream in = new DataInputStream(s.getInputStream());
+
+            out.write(new byte[] { (byte) 0x81, 0x01, 'a' });
+            final Frame frame = readFrame(in);
+            assertThat(frame.opcode).isEqualTo(0x8);
+            assertThat(closeStatus(frame)).isEqualTo(WebSocketFrame.PROTOCOL_ERROR);
+            assertEndOfStream(in);
+        }
+    }
+
+    @Test
+    void perMessageDeflate() throws Exception {
+        try (Socket s = connect()) {
+            final String res = handshake(
+                    s, "/echo",
+                    "Sec-WebSocket-Extensions: permessage-deflate; server_max_window_bits=10, " +
+                    "permessage-deflate; client_max_window_bits\r\n");
+            assertThat(res).containsIgnoringCase("sec-websocket-extensions: permessage-deflate\r\n");
+
+            final OutputStream out = s.getOutputStream();
+            final DataInputStream in = new DataInputStream(s.getInputStream());
+            final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            final Inflater inflater = new Inflater(true);
+            try {
+                for (int i = 0; i < 3; i++) {
+                    final String text = "The quick brown fox jumps over the lazy dog #" + i;
+                    writeFrame(out, 0x1, true, true,
+                               deflate(deflater, text.getBytes(StandardCharsets.UTF_8)));
+                    final Frame frame = readFrame(in);
+                    assertThat(frame.opcode).isEqualTo(0x1);
+                    assertThat(frame.rsv1).isTrue();
+                    assertThat(new String(inflate(inflater, frame.payload), StandardCharsets.UTF_8))
+                            .isEqualTo(text);
+                }
+            } finally {
+                deflater.end();
+                inflater.end();
+            }
+
+            assertClosingHandshake(out, in, WebSocketFrame.GOING_AWAY);
+        }
+    }
+
+    private static void assertClosingHandshake(OutputStream out, DataInputStream in,
+                                               int status) throws IOException {
+        writeFrame(out, 0x8, true, false, new byte[] { (byte) (status >>> 8), (byte) status });
+        final Frame frame = readFrame(in);
+        assertThat(frame.opcode).isEqualTo(0x8);
+        assertThat(closeStatus(frame)).isEqualTo(status);
+        assertEndOfStream(in);
+    }
+
+    private static void assertEndOfStream(InputStream in) throws IOException {
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    private static Socket connect() throws IOException {
+        final Socket s = new Socket(NetUtil.LOCALHOST, server.httpPort());
+        s.setSoTimeout(10000);
+        return s;
+    }
+
+    private static String host() {
+        return "127.0.0.1:" + server.httpPort();
+    }
+
+    private static String handshake(Socket s, String path, String extraHeaders) throws IOException {
+        s.getOutputStream().write(("GET " + path + " HTTP/1.1\r\n" +
+                                   "Host: " + host() + "\r\n" +
+                                   "Upgrade: websocket\r\n" +
+                                   "Connection: Upgrade\r\n" +
+                                   "Sec-WebSocket-Key: " + KEY + "\r\n" +
+                                   "Sec-WebSocket-Version: 13\r\n" +
+                                   extraHeaders + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        return readHeaders(s.getInputStream());
+    }
+
+    private static String readHeaders(InputStream in) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        while (buf.length() < 4 || !"\r\n\r\n".equals(buf.substring(buf.length() - 4))) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException(buf.toString());
+            }
+            buf.append((char) b);
+        }
+        return buf.toString();
+    }
+
+    private static void writeFrame(OutputStream out, int opcode, boolean fin, boolean rsv1,
+                                   byte[] payload) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        buf.write((fin ? 0x80 : 0) | (rsv1 ? 0x40 : 0) | opcode);
+        if (payload.length < 126) {
+            buf.write(0x80 | payload.length);
+        } else if (payload.length < 65536) {
+            buf.write(0x80 | 126);
+            buf.write(payload.length >>> 8);
+            buf.write(payload.length);
+        } else {
+            buf.write(0x80 | 127);
+            for (int i = 7; i >= 0; i--) {
+                buf.write(i < 4 ? payload.length >>> (i * 8) : 0);
+            }
+        }
+        final byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+        buf.write(mask);
+        for (int i = 0; i < payload.length; i++) {
+            buf.write(payload[i] ^ mask[i & 3]);
+        }
+        out.write(buf.toByteArray());
+        out.flush();
+    }
+
+    private static Frame readFrame(DataInputStream in) throws IOException {
+        final int b0 = in.readUnsignedByte();
+        final int b1 = in.readUnsignedByte();
+        assertThat(b1 & 0x80).as("server frames must not be masked").isZero();
+        long length = b1 & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        final byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        return new Frame(b0 & 0x0F, (b0 & 0x80) != 0, (b0 & 0x40) != 0, payload);
+    }
+
+    private static int closeStatus(Frame frame) {
+        assertThat(frame.payload.length).isGreaterThanOrEqualTo(2);
+        return (frame.payload[0] & 0xFF) << 8 | frame.payload[1] & 0xFF;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] data) {
+        deflater.setInput(data);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buf = new byte[256];
+        int n;
+        while ((n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH)) > 0) {
+            out.write(buf, 0, n);
+        }
+        final byte[] compressed = out.toByteArray();
+        // Strip the trailing 0x00 0x00 0xff 0xff as RFC 7692 requires.
+        final byte[] stripped = new byte[compressed.length - 4];
+        System.arraycopy(compressed, 0, stripped, 0, stripped.length);
+        return stripped;
+    }
+
+    private static byte[] inflate(Inflater inflater, byte[] data) throws Exception {
+        final byte[] input = new byte[data.length + 4];
+        System.arraycopy(data, 0, input, 0, data.length);
+        input[data.length + 2] = (byte) 0xFF;
+        input[data.length + 3] = (byte) 0xFF;
+        inflater.setInput(input);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buf = new byte[256];
+        int n;
+        while ((n = inflater.inflate(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Frame {
+        final int opcode;
+        final boolean fin;
+        final boolean rsv1;
+        final byte[] payload;
+
+        Frame(int opcode, boolean fin, boolean rsv1, byte[] payload) {
+            this.opcode = opcode;
+            this.fin = fin;
+            this.rsv1 = rsv1;
+            this.payload = payload;
+        }
+    }
+}
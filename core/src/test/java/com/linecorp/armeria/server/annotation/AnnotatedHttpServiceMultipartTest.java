@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.annotation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.google.common.base.Strings;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpRequestWriter;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.multipart.BodyPart;
+import com.linecorp.armeria.common.multipart.Multipart;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+class AnnotatedHttpServiceMultipartTest {
+
+    private static final String BOUNDARY = "XyZ123";
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.annotatedService(new Object() {
+                @Post("/fields")
+                public String fields(@Param("name") String name, @Param("tag") List<String> tags,
+                                     @Param("file") Optional<String> file) {
+                    return name + ':' + tags + ':' + file.orElse("none");
+                }
+
+                @Post("/query")
+                public String query(@Param("id") String id) {
+                    return id;
+                }
+
+                @Post("/raw")
+                public CompletableFuture<String> raw(@Param("name") Optional<String> name, HttpRequest req) {
+                    return req.aggregate().thenApply(
+                            agg -> name.orElse("none") + ':' + (agg.content().length() > 100000));
+                }
+
+                @Post("/upload")
+                public CompletableFuture<String> upload(Multipart multipart) {
+                    final CompletableFuture<String> future = new CompletableFuture<>();
+                    final StringBuilder buf = new StringBuilder();
+                    multipart.parts().subscribe(new Subscriber<BodyPart>() {
+                        private Subscription subscription;
+
+                        @Override
+                        public void onSubscribe(Subscription s) {
+                            subscription = s;
+                            s.request(1);
+                        }
+
+                        @Override
+                        public void onNext(BodyPart part) {
+                            part.aggregate().thenAccept(content -> {
+                                buf.append(part.name()).append('=').append(content.length()).append(';');
+                                subscription.request(1);
+                            });
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            future.completeExceptionally(t);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            future.complete(buf.toString());
+                        }
+                    });
+                    return future;
+                }
+            });
+        }
+    };
+
+    @Test
+    void formFields() {
+        final AggregatedHttpResponse res = post("/fields");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        // The file part is not injected into '@Param'.
+        assertThat(res.contentUtf8()).isEqualTo("Armeria:[a, b]:none");
+    }
+
+    @Test
+    void parts() {
+        final AggregatedHttpResponse res = post("/upload");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.contentUtf8()).isEqualTo("name=7;tag=1;tag=1;file=100000;");
+    }
+
+    @Test
+    void notAggregatedIfParamsAreInQuery() {
+        final HttpRequestWriter req = HttpRequest.streaming(RequestHeaders.of(
+                HttpMethod.POST, "/query?id=foo", HttpHeaderNames.CONTENT_TYPE,
+                "multipart/form-data; boundary=" + BOUNDARY));
+        req.write(HttpData.ofUtf8("--" + BOUNDARY + "\r\n"));
+
+        // The method is invoked before the upload is complete.
+        final AggregatedHttpResponse res = HttpClient.of(server.uri("/")).execute(req).aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.contentUtf8()).isEqualTo("foo");
+        req.close();
+    }
+
+    @Test
+    void notAggregatedIfRequestIsStreamed() {
+        final AggregatedHttpResponse res = post("/raw");
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        // The multipart fields are not decoded for '@Param' so that the method can consume the request.
+        assertThat(res.contentUtf8()).isEqualTo("none:true");
+    }
+
+    @Test
+    void notMultipart() {
+        final AggregatedHttpResponse res =
+                HttpClient.of(server.uri("/")).post("/upload", "name=Armeria").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private static AggregatedHttpResponse post(String path) {
+        final String body = "--" + BOUNDARY + "\r\n" +
+                            "Content-Disposition: form-data; name=\"name\"\r\n\r\n" +
+                            "Armeria\r\n" +
+                            "--" + BOUNDARY + "\r\n" +
+                            "Content-Disposition: form-data; name=\"tag\"\r\n\r\n" +
+                            "a\r\n" +
+                            "--" + BOUNDARY + "\r\n" +
+                            "Content-Disposition: form-data; name=\"tag\"\r\n\r\n" +
+                            "b\r\n" +
+                            "--" + BOUNDARY + "\r\n" +
+                            "Content-Disposition: form-data; name=\"file\"; filename=\"big.txt\"\r\n" +
+                            "Content-Type: text/plain\r\n\r\n" +
+                            Strings.repeat("x", 100000) + "\r\n" +
+                            "--" + BOUNDARY + "--\r\n";
+        final RequestHeaders headers = RequestHeaders.of(
+                HttpMethod.POST, path, HttpHeaderNames.CONTENT_TYPE,
+                "multipart/form-data; boundary=" + BOUNDARY);
+        return HttpClient.of(server.uri("/")).execute(headers, body).aggregate().join();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.annotation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpRequest;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpRequestWriter;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.stream.StreamMessage;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+class JacksonRequestDecoderTest {
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.annotatedService(new Object() {
+                @Post("/array")
+                public CompletableFuture<String> array(StreamMessage<Item> items) {
+                    return items.drainAll().thenApply(JacksonRequestDecoderTest::names);
+                }
+
+                @Post("/value")
+                public CompletableFuture<String> value(CompletableFuture<Item> item) {
+                    return item.thenApply(i -> i.name + ':' + i.value);
+                }
+
+                @Post("/converted")
+                @RequestConverter(ItemFutureConverter.class)
+                public CompletableFuture<String> converted(CompletableFuture<Item> item) {
+                    return item.thenApply(i -> i.name + ':' + i.value);
+                }
+            });
+        }
+    };
+
+    @Test
+    void decodeArrayFromChunks() {
+        final HttpRequestWriter req = newRequest();
+        final StreamMessage<Item> items = JacksonRequestDecoder.of().decodeArray(req, Item.class);
+
+        // Split in the middle of the tokens.
+        req.write(HttpData.ofUtf8("[{\"name\":\"fo"));
+        req.write(HttpData.ofUtf8("o\",\"value\":1},{\"name\":\"bar\",\"va"));
+        req.write(HttpData.ofUtf8("lue\":23}, {\"name\":\"baz\",\"value\":-4"));
+        req.write(HttpData.ofUtf8("56}]"));
+        req.close();
+
+        final List<Item> decoded = items.drainAll().join();
+        assertThat(names(decoded)).isEqualTo("foo,bar,baz");
+        assertThat(decoded.get(2).value).isEqualTo(-456);
+    }
+
+    @Test
+    void decodeEmptyArray() {
+        final HttpRequestWriter req = newRequest();
+        final StreamMessage<Item> items = JacksonRequestDecoder.of().decodeArray(req, Item.class);
+        req.close(HttpData.ofUtf8(" [ ] "));
+        assertThat(items.drainAll().join()).isEmpty();
+    }
+
+    @Test
+    void decodeIncompleteArray() {
+        final HttpRequestWriter req = newRequest();
+        final StreamMessage<Item> items = JacksonRequestDecoder.of().decodeArray(req, Item.class);
+        req.close(HttpData.ofUtf8("[{\"name\":\"foo\",\"value\":1}"));
+        assertThatThrownBy(() -> items.drainAll().join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decodeNonArray() {
+        final HttpRequestWriter req = newRequest();
+        final StreamMessage<Item> items = JacksonRequestDecoder.of().decodeArray(req, Item.class);
+        req.close(HttpData.ofUtf8("{\"name\":\"foo\",\"value\":1}"));
+        assertThatThrownBy(() -> items.drainAll().join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decodeValueFromChunks() {
+        final HttpRequestWriter req = newRequest();
+        final CompletableFuture<Item> item = JacksonRequestDecoder.of().decode(req, Item.class);
+        req.write(HttpData.ofUtf8("{\"name\""));
+        req.write(HttpData.ofUtf8(":\"foo\", \"value\": 4"));
+        req.write(HttpData.ofUtf8("2}"));
+        assertThat(item).isNotDone();
+        req.close();
+
+        assertThat(item.join().name).isEqualTo("foo");
+        assertThat(item.join().value).isEqualTo(42);
+    }
+
+    @Test
+    void decodeMalformedValue() {
+        final HttpRequestWriter req = newRequest();
+        final CompletableFuture<Item> item = JacksonRequestDecoder.of().decode(req, Item.class);
+        req.close(HttpData.ofUtf8("{\"name\":}"));
+        assertThatThrownBy(item::join).hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void annotatedService() {
+        final HttpClient client = HttpClient.of(server.uri("/"));
+        AggregatedHttpResponse res = client.execute(
+                RequestHeaders.of(HttpMethod.POST, "/array", "content-type", MediaType.JSON),
+                "[{\"name\":\"foo\",\"value\":1},{\"name\":\"bar\",\"value\":2}]").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.contentUtf8()).isEqualTo("foo,bar");
+
+        res = client.execute(RequestHeaders.of(HttpMethod.POST, "/value", "content-type", MediaType.JSON),
+                             "{\"name\":\"foo\",\"value\":1}").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.contentUtf8()).isEqualTo("foo:1");
+
+        res = client.execute(RequestHeaders.of(HttpMethod.POST, "/array",
+                                               "content-type", MediaType.PLAIN_TEXT_UTF_8),
+                             "[]").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void declaredRequestConverterIsPreferred() {
+        final AggregatedHttpResponse res = HttpClient.of(server.uri("/")).execute(
+                RequestHeaders.of(HttpMethod.POST, "/converted", "content-type", MediaType.JSON),
+                "{\"name\":\"foo\",\"value\":1}").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.contentUtf8()).isEqualTo("converted:24");
+    }
+
+    private static HttpRequestWriter newRequest() {
+        return HttpRequest.streaming(RequestHeaders.of(HttpMethod.POST, "/", "content-type", MediaType.JSON));
+    }
+
+    private static String names(List<Item> items) {
+        return items.stream().map(item -> item.name).collect(Collectors.joining(","));
+    }
+
+    static class Item {
+        public String name;
+        public int value;
+    }
+
+    static class ItemFutureConverter implements RequestConverterFunction {
+        @Override
+        public Object convertRequest(ServiceRequestContext ctx, AggregatedHttpRequest request,
+                                     Class<?> expectedResultType) {
+            if (expectedResultType != CompletableFuture.class) {
+                return RequestConverterFunction.fallthrough();
+            }
+            final Item item = new Item();
+            item.name = "converted";
+            item.value = request.content().length();
+            return CompletableFuture.completedFuture(item);
+        }
+    }
+}
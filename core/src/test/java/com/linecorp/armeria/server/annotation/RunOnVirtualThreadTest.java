@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.annotation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.common.util.BlockingTaskExecutors;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+class RunOnVirtualThreadTest {
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.annotatedService("/method", new Object() {
+                @Get("/string")
+                @RunOnVirtualThread
+                public String string(ServiceRequestContext ctx) {
+                    return describeCurrentThread(ctx);
+                }
+
+                @Get("/response")
+                @RunOnVirtualThread
+                public HttpResponse response(ServiceRequestContext ctx) {
+                    return HttpResponse.of(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8,
+                                           describeCurrentThread(ctx));
+                }
+
+                @Get("/not-annotated")
+                public HttpResponse notAnnotated(ServiceRequestContext ctx) {
+                    return HttpResponse.of(HttpStatus.OK, MediaType.PLAIN_TEXT_UTF_8,
+                                           describeCurrentThread(ctx));
+                }
+            });
+            sb.annotatedService("/class", new VirtualThreadService());
+        }
+    };
+
+    @RunOnVirtualThread
+    static class VirtualThreadService {
+        @Get("/string")
+        public String string(ServiceRequestContext ctx) {
+            return describeCurrentThread(ctx);
+        }
+    }
+
+    private static String describeCurrentThread(ServiceRequestContext ctx) {
+        final Thread thread = Thread.currentThread();
+        final String kind;
+        if (thread.getClass().getName().equals("java.lang.VirtualThread")) {
+            kind = "virtual";
+        } else if (thread.getName().startsWith("armeria-common-blocking-tasks")) {
+            kind = "blocking";
+        } else {
+            kind = "other";
+        }
+        return kind + ':' + (RequestContext.currentOrNull() == ctx);
+    }
+
+    private static String expectedThreadKind() {
+        return BlockingTaskExecutors.isVirtualThreadAvailable() ? "virtual" : "blocking";
+    }
+
+    @Test
+    void annotatedMethods() {
+        final HttpClient client = HttpClient.of(server.uri("/method"));
+        assertThat(client.get("/string").aggregate().join().contentUtf8())
+                .isEqualTo(expectedThreadKind() + ":true");
+        assertThat(client.get("/response").aggregate().join().contentUtf8())
+                .isEqualTo(expectedThreadKind() + ":true");
+
+        // A method which returns an HttpResponse is invoked in an event loop if not annotated.
+        final AggregatedHttpResponse res = client.get("/not-annotated").aggregate().join();
+        assertThat(res.contentUtf8()).isEqualTo("other:true");
+    }
+
+    @Test
+    void annotatedClass() {
+        final HttpClient client = HttpClient.of(server.uri("/class"));
+        assertThat(client.get("/string").aggregate().join().contentUtf8())
+                .isEqualTo(expectedThreadKind() + ":true");
+    }
+}
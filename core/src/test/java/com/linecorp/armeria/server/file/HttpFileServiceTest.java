@@ -16,6 +16,7 @@
 package com.linecorp.armeria.server.file;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 import java.io.IOException;
 import java.net.URI;
@@ -42,6 +43,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.io.TempDir;
@@ -50,6 +52,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.ArgumentsProvider;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
+import com.google.common.base.Strings;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Resources;
 
@@ -100,6 +103,13 @@ class HttpFileServiceTest {
                                           .maxCacheEntries(0)
                                           .build());
 
+            sb.serviceUnder(
+                    "/cached/autoCompressed/fs/",
+                    HttpFileServiceBuilder.forFileSystem(tmpDir)
+                                          .autoCompress(true)
+                                          .maxCacheSizeBytes(1024 * 1024)
+                                          .build());
+
             sb.serviceUnder(
                     "/cached/classes/",
                     HttpFileService.forClassPath("/"));
@@ -486,6 +496,66 @@ class HttpFileServiceTest {
         }
     }
 
+    @Test
+    void testAutoCompressedFileSystemGet() throws Exception {
+        final Path barFile = tmpDir.resolve("autoCompressed.txt");
+        final String expectedContent = Strings.repeat("0123456789", 1024);
+        Files.write(barFile, expectedContent.getBytes(StandardCharsets.UTF_8));
+
+        final String uri = server.uri("/cached/autoCompressed/fs/autoCompressed.txt");
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            // A client which does not accept a compressed content should always get the original content.
+            final String etag;
+            try (CloseableHttpResponse res = hc.execute(new HttpGet(uri))) {
+                assert200Ok(res, "text/plain", expectedContent);
+                assertThat(res.getFirstHeader("Content-Encoding")).isNull();
+                // ..but it still needs to tell caches that the response varies on the accepted encodings.
+                assertThat(headerOrNull(res, "Vary")).isEqualTo("accept-encoding");
+                etag = header(res, HttpHeaders.ETAG);
+            }
+
+            // The compressed variant is generated in the background.
+            final HttpGet request = new HttpGet(uri);
+            request.setHeader("Accept-Encoding", "gzip");
+            await().untilAsserted(() -> {
+                try (CloseableHttpResponse res = hc.execute(request)) {
+                    assertThat(headerOrNull(res, "Content-Encoding")).isEqualTo("gzip");
+                    assertThat(headerOrNull(res, "Vary")).isEqualTo("accept-encoding");
+                    assertThat(headerOrNull(res, "Content-Type")).isEqualTo("text/plain; charset=utf-8");
+
+                    // The compressed variant must have its own entity tag.
+                    final String compressedEtag = header(res, HttpHeaders.ETAG);
+                    assertThat(compressedEtag).matches(ETAG_PATTERN).isNotEqualTo(etag);
+
+                    final byte[] content;
+                    try (GZIPInputStream unzipper = new GZIPInputStream(res.getEntity().getContent())) {
+                        content = ByteStreams.toByteArray(unzipper);
+                    }
+                    assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo(expectedContent);
+                }
+            });
+        }
+    }
+
+    @Test
+    void testAutoCompressedFileSystemGetTooSmall() throws Exception {
+        final Path smallFile = tmpDir.resolve("autoCompressedSmall.txt");
+        Files.write(smallFile, "small".getBytes(StandardCharsets.UTF_8));
+
+        final HttpGet request = new HttpGet(server.uri("/cached/autoCompressed/fs/autoCompressedSmall.txt"));
+        request.setHeader("Accept-Encoding", "gzip");
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            for (int i = 0; i < 2; i++) {
+                try (CloseableHttpResponse res = hc.execute(request)) {
+                    // Too small to be compressed, but the response would vary if the file grows.
+                    assert200Ok(res, "text/plain", "small");
+                    assertThat(res.getFirstHeader("Content-Encoding")).isNull();
+                    assertThat(headerOrNull(res, "Vary")).isEqualTo("accept-encoding");
+                }
+            }
+        }
+    }
+
     private static void assert200Ok(CloseableHttpResponse res,
                                     @Nullable String expectedContentType,
                                     String expectedContent) throws Exception {
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.common.metric.PrometheusMeterRegistries;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+class MappedHttpFileServiceTest {
+
+    private static final MeterRegistry registry = PrometheusMeterRegistries.newRegistry();
+
+    @TempDir
+    static Path tmpDir;
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.meterRegistry(registry);
+            sb.serviceUnder("/", HttpFileServiceBuilder.forFileSystem(tmpDir)
+                                                       .maxCacheEntrySizeBytes(1024 * 1024)
+                                                       .minMappedCacheEntrySizeBytes(4096)
+                                                       .build());
+        }
+    };
+
+    @Test
+    void smallAndLargeFiles() throws Exception {
+        final byte[] small = new byte[1024];
+        final byte[] large = new byte[65536];
+        ThreadLocalRandom.current().nextBytes(small);
+        ThreadLocalRandom.current().nextBytes(large);
+        Files.write(tmpDir.resolve("small.bin"), small);
+        Files.write(tmpDir.resolve("large.bin"), large);
+
+        final HttpClient client = HttpClient.of(server.uri("/"));
+        for (int i = 0; i < 2; i++) {
+            final AggregatedHttpResponse smallRes = client.get("/small.bin").aggregate().join();
+            assertThat(smallRes.status()).isEqualTo(HttpStatus.OK);
+            assertThat(smallRes.content().array()).isEqualTo(small);
+
+            final AggregatedHttpResponse largeRes = client.get("/large.bin").aggregate().join();
+            assertThat(largeRes.status()).isEqualTo(HttpStatus.OK);
+            assertThat(largeRes.content().array()).isEqualTo(large);
+        }
+
+        assertThat(cacheBytes("heap")).isEqualTo(small.length);
+        assertThat(cacheBytes("mapped")).isEqualTo(large.length);
+
+        // Replace the large file atomically so that the mapped entry is invalidated.
+        final byte[] newLarge = new byte[32768];
+        ThreadLocalRandom.current().nextBytes(newLarge);
+        final Path tmpFile = Files.write(tmpDir.resolve("large.bin.tmp"), newLarge);
+        Files.move(tmpFile, tmpDir.resolve("large.bin"), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        // Make sure the modification is detected even on a file system with a coarse timestamp.
+        Files.setLastModifiedTime(tmpDir.resolve("large.bin"),
+                                  FileTime.fromMillis(System.currentTimeMillis() + 60000));
+
+        final AggregatedHttpResponse largeRes = client.get("/large.bin").aggregate().join();
+        assertThat(largeRes.status()).isEqualTo(HttpStatus.OK);
+        assertThat(largeRes.content().array()).isEqualTo(newLarge);
+        assertThat(cacheBytes("mapped")).isEqualTo(newLarge.length);
+    }
+
+    @Test
+    void mappedContentIsReleasedWithLastReference() throws Exception {
+        final byte[] content = new byte[8192];
+        ThreadLocalRandom.current().nextBytes(content);
+        final Path path = Files.write(tmpDir.resolve("mapped.bin"), content);
+
+        final FileSystemHttpFile file = (FileSystemHttpFile) HttpFile.of(path);
+        final AggregatedHttpFile mapped = file.aggregateMapped(file.readAttributes());
+        final MappedHttpData data = (MappedHttpData) mapped.content();
+        assertThat(data.array()).isEqualTo(content);
+
+        // A response which shares the content keeps the region mapped after the cache entry is evicted.
+        final ByteBufHttpData duplicate = data.retainedDuplicate();
+        data.release();
+        assertThat(duplicate.refCnt()).isOne();
+        assertThat(duplicate.array()).isEqualTo(content);
+
+        duplicate.release();
+        assertThat(data.refCnt()).isZero();
+    }
+
+    private static double cacheBytes(String tier) {
+        final Map<String, Double> measurements = MoreMeters.measureAll(registry);
+        return measurements.entrySet().stream()
+                           .filter(e -> e.getKey().startsWith("armeria.server.file.vfsCache.bytes#value{") &&
+                                        e.getKey().contains("tier=" + tier))
+                           .mapToDouble(Map.Entry::getValue)
+                           .sum();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.file;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.ClientFactoryBuilder;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.stream.SubscriptionOption;
+import com.linecorp.armeria.internal.FileRegionHttpData;
+import com.linecorp.armeria.internal.Http1ObjectEncoder;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.internal.UniqueProtocolsProvider;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+
+class ZeroCopyHttpFileServiceTest {
+
+    private static final ClientFactory clientFactory =
+            new ClientFactoryBuilder().sslContextCustomizer(
+                    b -> b.trustManager(InsecureTrustManagerFactory.INSTANCE)).build();
+
+    @TempDir
+    static Path tmpDir;
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.http(0);
+            sb.https(0);
+            sb.tlsSelfSigned();
+            sb.serviceUnder("/", HttpFileServiceBuilder.forFileSystem(tmpDir)
+                                                       .maxCacheEntries(0)
+                                                       .build());
+        }
+    };
+
+    @ParameterizedTest
+    @ArgumentsSource(UniqueProtocolsProvider.class)
+    void largeFile(SessionProtocol protocol) throws Exception {
+        // Large enough to be split into more than one file region.
+        final byte[] content = new byte[8 * 1024 * 1024 + 12345];
+        ThreadLocalRandom.current().nextBytes(content);
+        final String fileName = "large_" + protocol.uriText() + ".bin";
+        Files.write(tmpDir.resolve(fileName), content);
+
+        final HttpClient client = HttpClient.of(clientFactory, server.uri(protocol, "/"));
+        final AggregatedHttpResponse res = client.get('/' + fileName).aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().getLong(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo((long) content.length);
+        assertThat(res.content().array()).isEqualTo(content);
+    }
+
+    @Test
+    void fileRegionOverCleartextHttp1() throws Exception {
+        final byte[] content = new byte[4 * 1024 * 1024 + 1];
+        ThreadLocalRandom.current().nextBytes(content);
+        final Path path = tmpDir.resolve("region.bin");
+        Files.write(path, content);
+
+        final List<HttpObject> objects =
+                HttpFile.of(path)
+                        .read(MoreExecutors.directExecutor(), ByteBufAllocator.DEFAULT)
+                        .drainAll(SubscriptionOption.WITH_POOLED_OBJECTS).join();
+        // The headers and two regions.
+        assertThat(objects).hasSize(3);
+        assertThat(objects.get(1)).isInstanceOf(FileRegionHttpData.class);
+        assertThat(objects.get(2)).isInstanceOf(FileRegionHttpData.class);
+        final FileRegionHttpData firstRegion = (FileRegionHttpData) objects.get(1);
+
+        final EmbeddedChannel ch = new EmbeddedChannel();
+        final Http1ObjectEncoder encoder = new Http1ObjectEncoder(ch, true, false);
+        encoder.writeHeaders(1, 1, (ResponseHeaders) objects.get(0), false);
+        encoder.writeData(1, 1, (HttpData) objects.get(1), false);
+        encoder.writeData(1, 1, (HttpData) objects.get(2), true);
+
+        assertThat((Object) ch.readOutbound()).isInstanceOf(HttpResponse.class);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final WritableByteChannel outChannel = Channels.newChannel(out);
+        for (int i = 0; i < 2; i++) {
+            final Object region = ch.readOutbound();
+            // The content is transferred via a FileRegion, e.g. sendfile(), rather than an HttpContent.
+            assertThat(region).isInstanceOf(FileRegion.class).isNotInstanceOf(HttpContent.class);
+            final FileRegion fileRegion = (FileRegion) region;
+            while (fileRegion.transferred() < fileRegion.count()) {
+                fileRegion.transferTo(outChannel, fileRegion.transferred());
+            }
+            fileRegion.release();
+        }
+        assertThat((Object) ch.readOutbound()).isSameAs(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertThat(out.toByteArray()).isEqualTo(content);
+
+        // The data is released, i.e. unmapped and closed, when its FileRegion is released.
+        assertThat(firstRegion.refCnt()).isZero();
+        assertThat(ch.finish()).isFalse();
+    }
+}
@@ -419,6 +419,46 @@ public class AccessLogFormatsTest {
                 .isEqualTo(formatString(DateTimeFormatter.ofPattern("yyyy MM dd"), requestStartTimeMillis));
     }
 
+    @Test
+    public void compiledTimestamp() {
+        final AccessLogFormatter secondResolution =
+                AccessLogFormatter.compile(AccessLogFormats.parseCustom("%t"));
+        final AccessLogFormatter subSecondResolution =
+                AccessLogFormatter.compile(AccessLogFormats.parseCustom("%{ISO_INSTANT}t"));
+
+        // Make sure the cached timestamp is not reused for a different second or a sub-second formatter.
+        for (long offsetMillis : new long[] { 0, 123, 999, 1000, 1500, 61000, 500 }) {
+            final long millis = requestStartTimeMillis + offsetMillis;
+            final RequestLog log = ServiceRequestContextBuilder.of(HttpRequest.of(HttpMethod.GET, "/"))
+                                                               .requestStartTime(requestStartTimeNanos,
+                                                                                 millis * 1000)
+                                                               .build()
+                                                               .log();
+            assertThat(secondResolution.format(log))
+                    .isEqualTo(formatString(defaultDateTimeFormatter, millis));
+            assertThat(subSecondResolution.format(log))
+                    .isEqualTo(formatString(ISO_INSTANT, millis));
+        }
+    }
+
+    @Test
+    public void compiledNumbersAndQuotes() {
+        final HttpRequest req = HttpRequest.of(
+                RequestHeaders.of(HttpMethod.GET, "/armeria/log",
+                                  HttpHeaderNames.USER_AGENT, "armeria \"x.y.z\""));
+        final ServiceRequestContext ctx = ServiceRequestContextBuilder.of(req).build();
+        final RequestLogBuilder logBuilder = ctx.logBuilder();
+        logBuilder.endRequest();
+        logBuilder.responseHeaders(ResponseHeaders.of(HttpStatus.OK));
+        logBuilder.responseLength(1024);
+        logBuilder.endResponse();
+
+        final AccessLogFormatter formatter = AccessLogFormatter.compile(AccessLogFormats.parseCustom(
+                "%s %b %{statusCode}L %{responseLength}L %l \"%r\" \"%{User-Agent}i\""));
+        assertThat(formatter.format(ctx.log())).isEqualTo(
+                "200 1024 200 1024 - \"GET /armeria/log h2c\" \"armeria \\\"x.y.z\\\"\"");
+    }
+
     private static String formatString(DateTimeFormatter formatter, long millis) {
         return formatter.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), defaultZoneId));
     }
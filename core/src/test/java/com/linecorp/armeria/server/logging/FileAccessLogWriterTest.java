@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogBuilder;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.ServiceRequestContextBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FileAccessLogWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesAllLogsOnShutdown() throws Exception {
+        final Path file = tempDir.resolve("access.log");
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final AccessLogWriter writer = new FileAccessLogWriterBuilder(file)
+                .format("%m %U %s")
+                .meterRegistry(registry)
+                .build();
+
+        for (int i = 0; i < 1000; i++) {
+            writer.log(newLog("/" + i));
+        }
+        writer.shutdown().join();
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(lines.get(i)).isEqualTo("GET /" + i + " 200");
+        }
+
+        final String tags = "{file=" + file + '}';
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.accessLogs.written#count" + tags, 1000.0)
+                .containsEntry("armeria.server.accessLogs.dropped#count" + tags, 0.0)
+                .containsEntry("armeria.server.accessLogs.pending#value" + tags, 0.0);
+
+        // Logs after shutdown are dropped.
+        writer.log(newLog("/after"));
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.accessLogs.dropped#count" + tags, 1.0);
+    }
+
+    @Test
+    void rollsOverBySize() throws Exception {
+        final Path file = tempDir.resolve("rolling.log");
+        final AccessLogWriter writer = new FileAccessLogWriterBuilder(file)
+                .format("%U")
+                .maxFileSizeBytes(64)
+                .maxHistory(2)
+                .meterRegistry(new SimpleMeterRegistry())
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            writer.log(newLog("/0123456789"));
+            // Give the writer thread a chance to write the logs in small batches.
+            Thread.sleep(1);
+        }
+        writer.shutdown().join();
+
+        assertThat(file).exists();
+        assertThat(Paths.get(file + ".1")).exists();
+        assertThat(Paths.get(file + ".2")).exists();
+        assertThat(Paths.get(file + ".3")).doesNotExist();
+        for (String suffix : new String[] { "", ".1", ".2" }) {
+            final List<String> lines = Files.readAllLines(Paths.get(file + suffix), StandardCharsets.UTF_8);
+            assertThat(lines).isNotEmpty().allMatch("/0123456789"::equals);
+        }
+    }
+
+    @Test
+    void invalidProperties() {
+        final FileAccessLogWriterBuilder builder = new FileAccessLogWriterBuilder(tempDir.resolve("a.log"));
+        assertThatThrownBy(() -> builder.maxQueueSize(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder.maxFileSizeBytes(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder.maxHistory(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder.format("%x")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static RequestLog newLog(String path) {
+        final ServiceRequestContext ctx =
+                ServiceRequestContextBuilder.of(HttpRequest.of(HttpMethod.GET, path)).build();
+        final RequestLogBuilder logBuilder = ctx.logBuilder();
+        logBuilder.endRequest();
+        logBuilder.responseHeaders(ResponseHeaders.of(HttpStatus.OK));
+        logBuilder.endResponse();
+        return ctx.log();
+    }
+}
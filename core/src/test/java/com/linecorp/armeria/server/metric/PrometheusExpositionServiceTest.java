@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.prometheus.client.Collector;
+import io.prometheus.client.Collector.MetricFamilySamples.Sample;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
+class PrometheusExpositionServiceTest {
+
+    // Large enough to span a few chunks.
+    private static final int NUM_FAMILIES = 2000;
+
+    private static final CollectorRegistry registry = new CollectorRegistry();
+
+    static {
+        new Collector() {
+            @Override
+            public List<MetricFamilySamples> collect() {
+                final List<MetricFamilySamples> families = new ArrayList<>();
+                for (int i = 0; i < NUM_FAMILIES; i++) {
+                    final String name = "requests_" + i + "_total";
+                    final String help = "The number of requests \\ " + i + "\nreceived";
+                    families.add(new MetricFamilySamples(name, Type.COUNTER, help, ImmutableList.of(
+                            new Sample(name, ImmutableList.of("method", "path"),
+                                       ImmutableList.of("GET", "/\"foo\"\\" + i), i),
+                            new Sample(name, ImmutableList.of("method", "path"),
+                                       ImmutableList.of("POST", "/bar"), i + 0.5, 1500L))));
+                }
+                families.add(new MetricFamilySamples(
+                        "temperature", Type.UNTYPED, "", ImmutableList.of(
+                        new Sample("temperature", ImmutableList.of(), ImmutableList.of(), -12345678.9),
+                        new Sample("temperature", ImmutableList.of(), ImmutableList.of(),
+                                   Double.POSITIVE_INFINITY))));
+                return families;
+            }
+        }.register(registry);
+    }
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service("/metrics", new PrometheusExpositionService(registry));
+        }
+    };
+
+    @Test
+    void textFormat004() throws Exception {
+        final AggregatedHttpResponse res = HttpClient.of(server.uri("/")).get("/metrics").aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.contentType()).isEqualTo(MediaType.parse(TextFormat.CONTENT_TYPE_004));
+        assertThat(res.headers().contains(HttpHeaderNames.CONTENT_ENCODING)).isFalse();
+
+        final StringWriter expected = new StringWriter();
+        TextFormat.write004(expected, registry.metricFamilySamples());
+        assertThat(res.contentUtf8()).isEqualTo(expected.toString());
+    }
+
+    @Test
+    void gzip() throws Exception {
+        final AggregatedHttpResponse res = HttpClient.of(server.uri("/")).execute(
+                RequestHeaders.of(HttpMethod.GET, "/metrics",
+                                  HttpHeaderNames.ACCEPT_ENCODING, "deflate, gzip;q=0.9")).aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+
+        final byte[] decompressed = ByteStreams.toByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(res.content().array())));
+        final StringWriter expected = new StringWriter();
+        TextFormat.write004(expected, registry.metricFamilySamples());
+        assertThat(new String(decompressed, StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+    }
+
+    @Test
+    void openMetrics() throws Exception {
+        final AggregatedHttpResponse res = HttpClient.of(server.uri("/")).execute(
+                RequestHeaders.of(HttpMethod.GET, "/metrics",
+                                  HttpHeaderNames.ACCEPT,
+                                  "application/openmetrics-text; version=1.0.0,text/plain;q=0.5"))
+                                                     .aggregate().join();
+        assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.contentType()).isEqualTo(
+                MediaType.parse("application/openmetrics-text; version=1.0.0; charset=utf-8"));
+
+        final String content = res.contentUtf8();
+        assertThat(content).startsWith(
+                "# HELP requests_0 The number of requests \\\\ 0\\nreceived\n" +
+                "# TYPE requests_0 counter\n" +
+                "requests_0_total{method=\"GET\",path=\"/\\\"foo\\\"\\\\0\"} 0.0\n" +
+                "requests_0_total{method=\"POST\",path=\"/bar\"} 0.5 1.500\n");
+        assertThat(content).endsWith("# TYPE temperature unknown\n" +
+                                     "temperature -1.23456789E7\n" +
+                                     "temperature +Inf\n" +
+                                     "# EOF\n");
+    }
+
+    @Test
+    void writeDouble() {
+        assertThat(formatDouble(0)).isEqualTo(Collector.doubleToGoString(0));
+        assertThat(formatDouble(-0.0)).isEqualTo(Collector.doubleToGoString(-0.0));
+        assertThat(formatDouble(42)).isEqualTo(Collector.doubleToGoString(42));
+        assertThat(formatDouble(-9999999)).isEqualTo(Collector.doubleToGoString(-9999999));
+        assertThat(formatDouble(1.0e7)).isEqualTo(Collector.doubleToGoString(1.0e7));
+        assertThat(formatDouble(0.25)).isEqualTo(Collector.doubleToGoString(0.25));
+        assertThat(formatDouble(Double.NaN)).isEqualTo(Collector.doubleToGoString(Double.NaN));
+        assertThat(formatDouble(Double.NEGATIVE_INFINITY))
+                .isEqualTo(Collector.doubleToGoString(Double.NEGATIVE_INFINITY));
+    }
+
+    private static String formatDouble(double value) {
+        final ByteBuf buf = Unpooled.buffer();
+        PrometheusExpositionWriter.writeDouble(buf, value);
+        return buf.toString(StandardCharsets.US_ASCII);
+    }
+}
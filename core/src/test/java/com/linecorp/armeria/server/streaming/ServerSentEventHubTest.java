@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.streaming;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.common.sse.ServerSentEvent;
+import com.linecorp.armeria.common.sse.ServerSentEventBuilder;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ServerSentEventHubTest {
+
+    private static final ServerSentEventHub serverHub = ServerSentEventHub.builder("server").build();
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service("/hub", (ctx, req) -> serverHub.subscribe());
+        }
+    };
+
+    @Test
+    void broadcast() {
+        final CompletableFuture<AggregatedHttpResponse> res1 =
+                HttpClient.of(server.uri("/")).get("/hub").aggregate();
+        final CompletableFuture<AggregatedHttpResponse> res2 =
+                HttpClient.of(server.uri("/")).get("/hub").aggregate();
+        await().until(() -> serverHub.numSubscribers() == 2);
+
+        serverHub.publish(ServerSentEvent.ofData("foo"));
+        serverHub.publish(new ServerSentEventBuilder().event("add").data("bar\nbaz").build());
+        serverHub.close();
+
+        for (AggregatedHttpResponse res : new AggregatedHttpResponse[] { res1.join(), res2.join() }) {
+            assertThat(res.headers().contentType()).isEqualTo(MediaType.EVENT_STREAM);
+            assertThat(res.contentUtf8()).isEqualTo("data:foo\n\n" +
+                                                    "event:add\ndata:bar\ndata:baz\n\n");
+        }
+        assertThat(serverHub.numSubscribers()).isZero();
+        assertThatThrownBy(() -> serverHub.publish(ServerSentEvent.ofData("qux")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void disconnectSlowSubscriber() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ServerSentEventHub hub = ServerSentEventHub.builder("slow")
+                                                         .maxPendingEvents(2)
+                                                         .meterRegistry(registry)
+                                                         .build();
+        final HttpResponse res = hub.subscribe();
+        hub.publish(ServerSentEvent.ofData("1"));
+        hub.publish(ServerSentEvent.ofData("2"));
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.sse.hub.subscribers#value{name=slow}", 1.0)
+                .containsEntry("armeria.server.sse.hub.maxLag#value{name=slow}", 2.0);
+
+        // Evicted because the subscriber has not consumed any event.
+        hub.publish(ServerSentEvent.ofData("3"));
+        assertThat(hub.numSubscribers()).isZero();
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.sse.hub.evicted#count{name=slow}", 1.0)
+                .containsEntry("armeria.server.sse.hub.published#count{name=slow}", 3.0);
+
+        // The pending events are sent before the response ends.
+        assertThat(contentOf(res)).isEqualTo("data:1\n\ndata:2\n\n");
+        hub.close();
+    }
+
+    @Test
+    void dropEventsForSlowSubscriber() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ServerSentEventHub hub = ServerSentEventHub.builder("drop")
+                                                         .maxPendingEvents(2)
+                                                         .slowSubscriberPolicy(SlowSubscriberPolicy.DROP_EVENT)
+                                                         .meterRegistry(registry)
+                                                         .build();
+        final HttpResponse res = hub.subscribe();
+        hub.publish(ServerSentEvent.ofData("1"));
+        hub.publish(ServerSentEvent.ofData("2"));
+        hub.publish(ServerSentEvent.ofData("3"));
+        assertThat(hub.numSubscribers()).isOne();
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.sse.hub.dropped#count{name=drop}", 1.0);
+
+        hub.close();
+        assertThat(contentOf(res)).isEqualTo("data:1\n\ndata:2\n\n");
+    }
+
+    @Test
+    void heartbeat() throws Exception {
+        final ServerSentEventHub hub = ServerSentEventHub.builder("heartbeat")
+                                                         .heartbeatInterval(Duration.ofMillis(100))
+                                                         .meterRegistry(new SimpleMeterRegistry())
+                                                         .build();
+        final HttpResponse res = hub.subscribe(ResponseHeaders.of(200));
+        Thread.sleep(1000);
+        hub.close();
+        assertThat(contentOf(res)).startsWith(":\n");
+    }
+
+    private static String contentOf(HttpResponse res) {
+        final List<HttpObject> objects = res.drainAll().join();
+        assertThat(objects.get(0)).isInstanceOf(ResponseHeaders.class);
+        return objects.stream()
+                      .skip(1)
+                      .map(o -> ((HttpData) o).toStringUtf8())
+                      .collect(Collectors.joining());
+    }
+}
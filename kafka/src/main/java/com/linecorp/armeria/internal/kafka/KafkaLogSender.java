@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.internal.kafka;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.util.ThreadFactories;
+
+/**
+ * Sends the logs enqueued with {@link #enqueue(Object)} to Kafka from a dedicated sender thread, so that
+ * {@link Producer#send} blocking for up to {@code max.block.ms} never blocks the caller. The sender thread
+ * is started when the first log is enqueued, and it waits on the bounded queue until a log is enqueued.
+ *
+ * @param <E> the type of the enqueued logs
+ */
+public abstract class KafkaLogSender<E> {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaLogSender.class);
+
+    /**
+     * How long the idle sender thread waits for a log before checking if a shutdown has been requested.
+     */
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final String threadName;
+    private final Producer<?, ?> producer;
+    private final String topic;
+    private final int maxBatchSize;
+    private final boolean dropOldest;
+    private final BlockingQueue<E> queue;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CompletableFuture<Void> shutdownFuture = new CompletableFuture<>();
+    private volatile boolean shutdownRequested;
+    private volatile boolean terminated;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param threadName the name of the sender thread
+     * @param producer the Kafka {@link Producer} which is closed when the sender thread terminates
+     * @param topic the name of the topic, which is used for logging
+     * @param maxQueueSize the maximum number of logs waiting to be sent
+     * @param maxBatchSize the maximum number of logs passed to {@link #add(Object)} before {@link #flush()}
+     * @param dropOldest whether to drop the oldest log instead of the new one when the queue is full
+     */
+    protected KafkaLogSender(String threadName, Producer<?, ?> producer, String topic,
+                             int maxQueueSize, int maxBatchSize, boolean dropOldest) {
+        this.threadName = requireNonNull(threadName, "threadName");
+        this.producer = requireNonNull(producer, "producer");
+        this.topic = requireNonNull(topic, "topic");
+        this.maxBatchSize = maxBatchSize;
+        this.dropOldest = dropOldest;
+        queue = new ArrayBlockingQueue<>(maxQueueSize);
+    }
+
+    /**
+     * Returns the number of the logs waiting to be sent.
+     */
+    public final int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Enqueues the specified log so that it is sent by the sender thread. The log is passed to
+     * {@link #discard(Object)} if it or the oldest log has to be dropped because the queue is full
+     * or the sender has been shut down.
+     */
+    public final void enqueue(E element) {
+        if (shutdownRequested) {
+            discard(element);
+            return;
+        }
+
+        startSender();
+        if (!queue.offer(element)) {
+            if (!dropOldest) {
+                discard(element);
+                return;
+            }
+            do {
+                final E oldest = queue.poll();
+                if (oldest != null) {
+                    discard(oldest);
+                }
+            } while (!queue.offer(element));
+        }
+
+        if (terminated) {
+            // The sender thread has drained the queue for the last time before the log was enqueued.
+            drain();
+        }
+    }
+
+    /**
+     * Requests the sender thread to send the remaining logs and to close the {@link Producer}.
+     *
+     * @return the {@link CompletableFuture} which is completed when the {@link Producer} is closed
+     */
+    public final CompletableFuture<Void> shutdown() {
+        shutdownRequested = true;
+        startSender();
+        return shutdownFuture;
+    }
+
+    /**
+     * Adds the specified log to the current batch. Invoked by the sender thread.
+     */
+    protected abstract void add(E element);
+
+    /**
+     * Sends the current batch. Invoked by the sender thread when {@code maxBatchSize} logs have been added
+     * or when there are no more logs in the queue.
+     */
+    protected abstract void flush();
+
+    /**
+     * Invoked when the specified log is dropped without being sent.
+     */
+    protected abstract void discard(E element);
+
+    private void startSender() {
+        if (started.compareAndSet(false, true)) {
+            ThreadFactories.newThreadFactory(threadName, true).newThread(this::run).start();
+        }
+    }
+
+    private void run() {
+        try {
+            for (;;) {
+                E element = shutdownRequested ? queue.poll()
+                                              : queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (element == null) {
+                    if (shutdownRequested) {
+                        break;
+                    }
+                    continue;
+                }
+
+                int batchSize = 0;
+                do {
+                    add(element);
+                    if (++batchSize == maxBatchSize) {
+                        flush();
+                        batchSize = 0;
+                    }
+                } while ((element = queue.poll()) != null);
+
+                if (batchSize != 0) {
+                    flush();
+                }
+            }
+        } catch (Throwable cause) {
+            logger.warn("Unexpected exception while sending logs to: {}", topic, cause);
+        } finally {
+            terminated = true;
+            drain();
+            try {
+                producer.close();
+            } catch (Throwable cause) {
+                logger.warn("Failed to close the Kafka producer for: {}", topic, cause);
+            }
+            shutdownFuture.complete(null);
+        }
+    }
+
+    private void drain() {
+        for (E element; (element = queue.poll()) != null;) {
+            discard(element);
+        }
+    }
+}
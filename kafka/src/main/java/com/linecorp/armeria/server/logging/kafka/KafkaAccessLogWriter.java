@@ -18,7 +18,7 @@ package com.linecorp.armeria.server.logging.kafka;
 import static java.util.Objects.requireNonNull;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -30,14 +30,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.internal.kafka.KafkaLogSender;
 import com.linecorp.armeria.server.logging.AccessLogWriter;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * An {@link AccessLogWriter} that sends access logs to a Kafka backend.
  *
- * <p>This method returns immediately after the {@link Producer#send(ProducerRecord, Callback)} returns rather
- * than waiting for returned {@link Future} completes so logs which are written and are not yet flushed can
- * be lost if an application crashes in unclean way.
+ * <p>{@link #log(RequestLog)} enqueues a record into a bounded queue and returns immediately. A dedicated
+ * sender thread, which is started when the first record is enqueued, drains the queue and sends the records
+ * via {@link Producer#send(ProducerRecord, Callback)} without waiting for the acknowledgements, so logs which
+ * are written and are not yet flushed can be lost if an application crashes in unclean way.
+ * Use {@link KafkaAccessLogWriterBuilder} to configure the queue and the metrics.
  */
 public final class KafkaAccessLogWriter<K, V> implements AccessLogWriter {
 
@@ -48,6 +57,12 @@ public final class KafkaAccessLogWriter<K, V> implements AccessLogWriter {
     private final Function<? super RequestLog, ? extends K> keyExtractor;
     private final Function<? super RequestLog, ? extends V> valueExtractor;
 
+    private final Sender sender;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter droppedCounter;
+    private final Timer sendDuration;
+
     /**
      * Creates a new instance.
      *
@@ -60,7 +75,9 @@ public final class KafkaAccessLogWriter<K, V> implements AccessLogWriter {
     public KafkaAccessLogWriter(Producer<K, V> producer, String topic,
                                 Function<? super RequestLog, ? extends V> valueExtractor) {
 
-        this(producer, topic, null, valueExtractor, 0);
+        this(producer, topic, null, valueExtractor,
+             KafkaAccessLogWriterBuilder.DEFAULT_MAX_QUEUE_SIZE, OverflowPolicy.DROP_NEWEST,
+             Metrics.globalRegistry);
     }
 
     /**
@@ -78,18 +95,31 @@ public final class KafkaAccessLogWriter<K, V> implements AccessLogWriter {
     public KafkaAccessLogWriter(Producer<K, V> producer, String topic,
                                 Function<? super RequestLog, ? extends K> keyExtractor,
                                 Function<? super RequestLog, ? extends V> valueExtractor) {
-        this(producer, topic, requireNonNull(keyExtractor, "keyExtractor"), valueExtractor, 0);
+        this(producer, topic, requireNonNull(keyExtractor, "keyExtractor"), valueExtractor,
+             KafkaAccessLogWriterBuilder.DEFAULT_MAX_QUEUE_SIZE, OverflowPolicy.DROP_NEWEST,
+             Metrics.globalRegistry);
     }
 
-    private KafkaAccessLogWriter(Producer<K, V> producer, String topic,
-                                 @Nullable Function<? super RequestLog, ? extends K> keyExtractor,
-                                 Function<? super RequestLog, ? extends V> valueExtractor,
-                                 @SuppressWarnings("unused") int dummy) {
+    KafkaAccessLogWriter(Producer<K, V> producer, String topic,
+                         @Nullable Function<? super RequestLog, ? extends K> keyExtractor,
+                         Function<? super RequestLog, ? extends V> valueExtractor,
+                         int maxQueueSize, OverflowPolicy overflowPolicy,
+                         MeterRegistry meterRegistry) {
 
         this.producer = requireNonNull(producer, "producer");
         this.topic = requireNonNull(topic, "topic");
         this.keyExtractor = keyExtractor == null ? log -> null : keyExtractor;
         this.valueExtractor = requireNonNull(valueExtractor, "valueExtractor");
+        sender = new Sender(maxQueueSize, overflowPolicy);
+
+        final MeterIdPrefix idPrefix = new MeterIdPrefix("armeria.server.kafkaAccessLogs", "topic", topic);
+        meterRegistry.gauge(idPrefix.name("pending"), idPrefix.tags(), sender, Sender::pending);
+        sentCounter = meterRegistry.counter(idPrefix.name("sent"), idPrefix.tags());
+        failedCounter = meterRegistry.counter(idPrefix.name("failed"), idPrefix.tags());
+        droppedCounter = meterRegistry.counter(idPrefix.name("dropped"), idPrefix.tags());
+        sendDuration = Timer.builder(idPrefix.name("sendDuration"))
+                            .tags(idPrefix.tags())
+                            .register(meterRegistry);
     }
 
     @Override
@@ -100,16 +130,50 @@ public final class KafkaAccessLogWriter<K, V> implements AccessLogWriter {
         }
 
         final K key = keyExtractor.apply(log);
-        final ProducerRecord<K, V> producerRecord = new ProducerRecord<>(topic, key, value);
-        producer.send(producerRecord, (metadata, exception) -> {
-            if (exception != null) {
-                logger.warn("Failed to send a record to Kafka: {}", producerRecord, exception);
-            }
-        });
+        sender.enqueue(new ProducerRecord<>(topic, key, value));
     }
 
     @Override
     public CompletableFuture<Void> shutdown() {
-        return CompletableFuture.runAsync(producer::close);
+        return sender.shutdown();
+    }
+
+    private void send(ProducerRecord<K, V> producerRecord) {
+        final long startTimeNanos = System.nanoTime();
+        try {
+            producer.send(producerRecord, (metadata, exception) -> {
+                sendDuration.record(System.nanoTime() - startTimeNanos, TimeUnit.NANOSECONDS);
+                if (exception == null) {
+                    sentCounter.increment();
+                } else {
+                    failedCounter.increment();
+                    logger.warn("Failed to send a record to Kafka: {}", producerRecord, exception);
+                }
+            });
+        } catch (Exception e) {
+            failedCounter.increment();
+            logger.warn("Failed to send a record to Kafka: {}", producerRecord, e);
+        }
+    }
+
+    private final class Sender extends KafkaLogSender<ProducerRecord<K, V>> {
+
+        Sender(int maxQueueSize, OverflowPolicy overflowPolicy) {
+            super("armeria-kafka-access-log-sender", producer, topic, maxQueueSize, Integer.MAX_VALUE,
+                  overflowPolicy == OverflowPolicy.DROP_OLDEST);
+        }
+
+        @Override
+        protected void add(ProducerRecord<K, V> producerRecord) {
+            send(producerRecord);
+        }
+
+        @Override
+        protected void flush() {}
+
+        @Override
+        protected void discard(ProducerRecord<K, V> producerRecord) {
+            droppedCounter.increment();
+        }
     }
 }
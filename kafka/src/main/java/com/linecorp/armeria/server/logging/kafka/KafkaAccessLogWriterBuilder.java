@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.kafka;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.apache.kafka.clients.producer.Producer;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.logging.AccessLogWriter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Builds a new {@link KafkaAccessLogWriter}.
+ *
+ * <p>The built {@link KafkaAccessLogWriter} never calls {@link Producer#send} from the caller thread,
+ * which is usually an event loop thread. Instead, it enqueues a record into a bounded queue and returns
+ * immediately. A dedicated sender thread waits on the queue and sends the enqueued records as they arrive,
+ * so that {@link Producer#send} blocking for up to {@code max.block.ms} when Kafka is slow does not
+ * block the event loop. When the queue is full, a record is dropped according to the
+ * {@link #overflowPolicy(OverflowPolicy)}.
+ *
+ * <p>The following meters are registered to the {@link MeterRegistry} specified with
+ * {@link #meterRegistry(MeterRegistry)}, tagged with the topic name:
+ * <ul>
+ *   <li>{@code armeria.server.kafkaAccessLogs.pending} - the number of records waiting to be sent</li>
+ *   <li>{@code armeria.server.kafkaAccessLogs.sent} - the number of records acknowledged by Kafka</li>
+ *   <li>{@code armeria.server.kafkaAccessLogs.failed} - the number of records failed to be sent</li>
+ *   <li>{@code armeria.server.kafkaAccessLogs.dropped} - the number of records dropped because the queue
+ *       was full or the writer was shut down</li>
+ *   <li>{@code armeria.server.kafkaAccessLogs.sendDuration} - the time taken from
+ *       {@link Producer#send} until the record is acknowledged or failed</li>
+ * </ul>
+ *
+ * <p>Make sure to specify {@code true} for {@code shutdownOnStop} when registering the built
+ * {@link AccessLogWriter} with {@link ServerBuilder#accessLogWriter(AccessLogWriter, boolean)}, so that
+ * the pending records are sent and the {@link Producer} is closed when the server stops.
+ *
+ * @param <K> the type of the record key
+ * @param <V> the type of the record value
+ */
+public final class KafkaAccessLogWriterBuilder<K, V> {
+
+    static final int DEFAULT_MAX_QUEUE_SIZE = 8192;
+
+    private final Producer<K, V> producer;
+    private final String topic;
+    private final Function<? super RequestLog, ? extends V> valueExtractor;
+    @Nullable
+    private Function<? super RequestLog, ? extends K> keyExtractor;
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    /**
+     * Creates a new builder.
+     *
+     * @param producer a Kafka {@link Producer} which is used to send logs to Kafka
+     * @param topic the name of topic which is used to send logs
+     * @param valueExtractor a {@link Function} that extracts a {@code V}-typed record value from
+     *                       a {@link RequestLog}. The {@link Function} is allowed to return {@code null}
+     *                       to skip logging for the given {@link RequestLog}.
+     */
+    public KafkaAccessLogWriterBuilder(Producer<K, V> producer, String topic,
+                                       Function<? super RequestLog, ? extends V> valueExtractor) {
+        this.producer = requireNonNull(producer, "producer");
+        this.topic = requireNonNull(topic, "topic");
+        this.valueExtractor = requireNonNull(valueExtractor, "valueExtractor");
+    }
+
+    /**
+     * Sets the {@link Function} that extracts a {@code K}-typed record key from a {@link RequestLog}.
+     * The {@link Function} is allowed to return {@code null} to leave the record key unspecified.
+     * The record key is left unspecified if unset.
+     */
+    public KafkaAccessLogWriterBuilder<K, V> keyExtractor(
+            Function<? super RequestLog, ? extends K> keyExtractor) {
+        this.keyExtractor = requireNonNull(keyExtractor, "keyExtractor");
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of records waiting to be sent. {@value #DEFAULT_MAX_QUEUE_SIZE} is used
+     * if unspecified.
+     */
+    public KafkaAccessLogWriterBuilder<K, V> maxQueueSize(int maxQueueSize) {
+        checkArgument(maxQueueSize > 0, "maxQueueSize: %s (expected: > 0)", maxQueueSize);
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    /**
+     * Sets which record is dropped when the queue is full. {@link OverflowPolicy#DROP_NEWEST} is used
+     * if unspecified.
+     */
+    public KafkaAccessLogWriterBuilder<K, V> overflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = requireNonNull(overflowPolicy, "overflowPolicy");
+        return this;
+    }
+
+    /**
+     * Sets the {@link MeterRegistry} where the metrics of the queue and the sent records are recorded.
+     * {@link Metrics#globalRegistry} is used if unspecified.
+     */
+    public KafkaAccessLogWriterBuilder<K, V> meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link KafkaAccessLogWriter} which starts its sender thread when
+     * the first record is written.
+     */
+    public KafkaAccessLogWriter<K, V> build() {
+        return new KafkaAccessLogWriter<>(producer, topic, keyExtractor, valueExtractor,
+                                          maxQueueSize, overflowPolicy, meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.kafka;
+
+/**
+ * Determines which record is dropped when the queue of a {@link KafkaAccessLogWriter} is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Drops the record being enqueued, keeping the records which are already in the queue.
+     */
+    DROP_NEWEST,
+    /**
+     * Drops the oldest record in the queue to make room for the record being enqueued.
+     */
+    DROP_OLDEST
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.structured.kafka;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.common.util.Sampler;
+import com.linecorp.armeria.internal.kafka.KafkaLogSender;
+import com.linecorp.armeria.server.logging.AccessLogWriter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * An {@link AccessLogWriter} which encodes structured logs into pooled buffers and sends them to Kafka
+ * in batches from a dedicated sender thread, which is started when the first log is written.
+ *
+ * @see KafkaStructuredLogWriterBuilder
+ */
+final class KafkaStructuredLogWriter<L> implements AccessLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaStructuredLogWriter.class);
+
+    static final int FORMAT_VERSION = 1;
+
+    private final Producer<byte[], byte[]> producer;
+    private final String topic;
+    private final Function<? super RequestLog, ? extends L> logBuilder;
+    private final StructuredLogEncoder<? super L> encoder;
+    private final Sampler<? super RequestLog> sampler;
+    private final int maxBatchSize;
+    private final int maxBatchBytes;
+
+    private final Sender sender;
+    private final Counter sentCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+
+    KafkaStructuredLogWriter(Producer<byte[], byte[]> producer, String topic,
+                             Function<? super RequestLog, ? extends L> logBuilder,
+                             StructuredLogEncoder<? super L> encoder, Sampler<? super RequestLog> sampler,
+                             int maxQueueSize, int maxBatchSize, int maxBatchBytes,
+                             MeterRegistry meterRegistry) {
+        this.producer = producer;
+        this.topic = topic;
+        this.logBuilder = logBuilder;
+        this.encoder = encoder;
+        this.sampler = sampler;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
+
+        sender = new Sender(maxQueueSize);
+
+        final MeterIdPrefix idPrefix = new MeterIdPrefix("armeria.server.structuredLogs", "topic", topic);
+        meterRegistry.gauge(idPrefix.name("pending"), idPrefix.tags(), sender, Sender::pending);
+        sentCounter = meterRegistry.counter(idPrefix.name("sent"), idPrefix.tags());
+        droppedCounter = meterRegistry.counter(idPrefix.name("dropped"), idPrefix.tags());
+        failedCounter = meterRegistry.counter(idPrefix.name("failed"), idPrefix.tags());
+    }
+
+    @Override
+    public void log(RequestLog log) {
+        if (!sampler.isSampled(log)) {
+            return;
+        }
+
+        final L structuredLog = logBuilder.apply(log);
+        if (structuredLog == null) {
+            return;
+        }
+
+        final ByteBuf buf = ByteBufAllocator.DEFAULT.buffer();
+        boolean success = false;
+        try {
+            encoder.encode(structuredLog, buf);
+            success = true;
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
+
+        // Released by the sender when the queue is full or the writer has been shut down.
+        sender.enqueue(buf);
+    }
+
+    @Override
+    public CompletableFuture<Void> shutdown() {
+        return sender.shutdown();
+    }
+
+    private void send(ByteBuf[] batch, int numRecords) {
+        final byte[] value;
+        try {
+            value = encodeBatch(batch, numRecords);
+        } finally {
+            for (int i = 0; i < numRecords; i++) {
+                batch[i].release();
+                batch[i] = null;
+            }
+        }
+
+        try {
+            producer.send(new ProducerRecord<>(topic, value), (metadata, exception) -> {
+                if (exception == null) {
+                    sentCounter.increment(numRecords);
+                } else {
+                    failedCounter.increment(numRecords);
+                    logger.warn("Failed to send {} structured log(s) to Kafka: {}",
+                                numRecords, topic, exception);
+                }
+            });
+        } catch (Exception e) {
+            failedCounter.increment(numRecords);
+            logger.warn("Failed to send {} structured log(s) to Kafka: {}", numRecords, topic, e);
+        }
+    }
+
+    /**
+     * Concatenates the encoded structured logs into a single Kafka record value, which consists of:
+     * <ul>
+     *   <li>the format version ({@value #FORMAT_VERSION}) in a byte</li>
+     *   <li>the number of the structured logs as a varint</li>
+     *   <li>each structured log prefixed with its length as a varint</li>
+     * </ul>
+     */
+    private static byte[] encodeBatch(ByteBuf[] batch, int numRecords) {
+        int length = 1 + varLongSize(numRecords);
+        for (int i = 0; i < numRecords; i++) {
+            final int recordLength = batch[i].readableBytes();
+            length += varLongSize(recordLength) + recordLength;
+        }
+
+        final byte[] value = new byte[length];
+        final ByteBuf out = Unpooled.wrappedBuffer(value).clear();
+        out.writeByte(FORMAT_VERSION);
+        StructuredLogEncoder.writeVarLong(out, numRecords);
+        for (int i = 0; i < numRecords; i++) {
+            final ByteBuf buf = batch[i];
+            StructuredLogEncoder.writeVarLong(out, buf.readableBytes());
+            out.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+        }
+        assert !out.isWritable();
+        return value;
+    }
+
+    private static int varLongSize(long value) {
+        long v = (value << 1) ^ (value >> 63);
+        int size = 1;
+        while ((v & ~0x7FL) != 0) {
+            size++;
+            v >>>= 7;
+        }
+        return size;
+    }
+
+    private final class Sender extends KafkaLogSender<ByteBuf> {
+
+        private final ByteBuf[] batch = new ByteBuf[maxBatchSize];
+        private int numRecords;
+        private int numBytes;
+
+        Sender(int maxQueueSize) {
+            super("armeria-structured-log-sender", producer, topic, maxQueueSize, maxBatchSize, false);
+        }
+
+        @Override
+        protected void add(ByteBuf buf) {
+            final int length = buf.readableBytes();
+            if (numRecords != 0 && numBytes + length > maxBatchBytes) {
+                flush();
+            }
+            batch[numRecords++] = buf;
+            numBytes += length;
+        }
+
+        @Override
+        protected void flush() {
+            if (numRecords != 0) {
+                final int count = numRecords;
+                numRecords = 0;
+                numBytes = 0;
+                send(batch, count);
+            }
+        }
+
+        @Override
+        protected void discard(ByteBuf buf) {
+            buf.release();
+            droppedCounter.increment();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("topic", topic)
+                          .add("maxBatchSize", maxBatchSize)
+                          .add("maxBatchBytes", maxBatchBytes)
+                          .toString();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.structured.kafka;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.Function;
+
+import org.apache.kafka.clients.producer.Producer;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.util.Sampler;
+import com.linecorp.armeria.server.logging.AccessLogWriter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Builds an {@link AccessLogWriter} which encodes structured logs into a compact binary form using
+ * a {@link StructuredLogEncoder} and sends them to Kafka in batches.
+ *
+ * <p>The structured logs are encoded into pooled buffers in the request threads and queued. A dedicated
+ * sender thread then concatenates up to {@link #maxBatchSize(int)} logs into a single Kafka record value
+ * which has the following layout:
+ * <pre>{@code
+ * batch  = version(1 byte, 0x01) count(varint) record*
+ * record = length(varint) bytes(length)
+ * }</pre>
+ * where a {@code varint} is written by {@link StructuredLogEncoder#writeVarLong}.
+ * A record is dropped if the queue is full, and the number of the dropped records is exported as
+ * the {@code armeria.server.structuredLogs.dropped} meter tagged with the topic name.
+ *
+ * <pre>{@code
+ * Producer<byte[], byte[]> producer = new KafkaProducer<>(config, new ByteArraySerializer(),
+ *                                                         new ByteArraySerializer());
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.accessLogWriter(
+ *         new KafkaStructuredLogWriterBuilder<>(producer, "access-logs", MyLog::new, MyLog.ENCODER)
+ *                 .sampler(Sampler.random(0.1))
+ *                 .build(), true);
+ * }</pre>
+ *
+ * @param <L> the type of the structured log
+ */
+public final class KafkaStructuredLogWriterBuilder<L> {
+
+    private static final int DEFAULT_MAX_QUEUE_SIZE = 8192;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    private static final int DEFAULT_MAX_BATCH_BYTES = 256 * 1024;
+
+    private final Producer<byte[], byte[]> producer;
+    private final String topic;
+    private final Function<? super RequestLog, ? extends L> logBuilder;
+    private final StructuredLogEncoder<? super L> encoder;
+
+    private Sampler<? super RequestLog> sampler = Sampler.always();
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param producer the Kafka {@link Producer} which sends the batches of the encoded logs
+     * @param topic the Kafka topic name
+     * @param logBuilder the {@link Function} which builds a structured log from a {@link RequestLog}.
+     *                   The {@link RequestLog} is not logged if the {@link Function} returns {@code null}.
+     * @param encoder the {@link StructuredLogEncoder} which encodes a structured log
+     */
+    public KafkaStructuredLogWriterBuilder(Producer<byte[], byte[]> producer, String topic,
+                                           Function<? super RequestLog, ? extends L> logBuilder,
+                                           StructuredLogEncoder<? super L> encoder) {
+        this.producer = requireNonNull(producer, "producer");
+        this.topic = requireNonNull(topic, "topic");
+        checkArgument(!topic.isEmpty(), "topic is empty");
+        this.logBuilder = requireNonNull(logBuilder, "logBuilder");
+        this.encoder = requireNonNull(encoder, "encoder");
+    }
+
+    /**
+     * Sets the {@link Sampler} which determines whether a {@link RequestLog} is sent to Kafka or not.
+     * All {@link RequestLog}s are sent by default.
+     */
+    public KafkaStructuredLogWriterBuilder<L> sampler(Sampler<? super RequestLog> sampler) {
+        this.sampler = requireNonNull(sampler, "sampler");
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the encoded logs waiting to be sent. The logs are dropped if the queue
+     * is full. {@value #DEFAULT_MAX_QUEUE_SIZE} is used by default.
+     */
+    public KafkaStructuredLogWriterBuilder<L> maxQueueSize(int maxQueueSize) {
+        checkArgument(maxQueueSize > 0, "maxQueueSize: %s (expected: > 0)", maxQueueSize);
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the encoded logs in a Kafka record. {@value #DEFAULT_MAX_BATCH_SIZE}
+     * is used by default.
+     */
+    public KafkaStructuredLogWriterBuilder<L> maxBatchSize(int maxBatchSize) {
+        checkArgument(maxBatchSize > 0, "maxBatchSize: %s (expected: > 0)", maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum total length of the encoded logs in a Kafka record. A Kafka record may exceed this
+     * limit only when it contains a single log. {@value #DEFAULT_MAX_BATCH_BYTES} is used by default.
+     */
+    public KafkaStructuredLogWriterBuilder<L> maxBatchBytes(int maxBatchBytes) {
+        checkArgument(maxBatchBytes > 0, "maxBatchBytes: %s (expected: > 0)", maxBatchBytes);
+        this.maxBatchBytes = maxBatchBytes;
+        return this;
+    }
+
+    /**
+     * Sets the {@link MeterRegistry} where the metrics of the sent and dropped logs are recorded.
+     * {@link Metrics#globalRegistry} is used by default.
+     */
+    public KafkaStructuredLogWriterBuilder<L> meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link AccessLogWriter} which starts its sender thread immediately.
+     * Shut it down with {@link AccessLogWriter#shutdown()}, which also closes the {@link Producer}.
+     */
+    public AccessLogWriter build() {
+        return new KafkaStructuredLogWriter<>(producer, topic, logBuilder, encoder, sampler,
+                                              maxQueueSize, maxBatchSize, maxBatchBytes, meterRegistry);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.structured.kafka;
+
+import static java.util.Objects.requireNonNull;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.server.logging.structured.StructuredLog;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * Encodes a structured log into a compact binary form. An encoder writes the fields of a structured log
+ * in a fixed order without any field names or tags, so the consumer has to know the layout, i.e. the
+ * sequence of the encoders used, to decode it.
+ *
+ * @param <L> the type of the structured log
+ *
+ * @see KafkaStructuredLogWriterBuilder
+ */
+@FunctionalInterface
+public interface StructuredLogEncoder<L> {
+
+    /**
+     * Returns a {@link StructuredLogEncoder} which writes the common fields of a {@link StructuredLog}
+     * as {@linkplain #writeVarLong(ByteBuf, long) variable-length integers} in the following order:
+     * {@code timestampMillis}, {@code responseTimeNanos}, {@code requestSize} and {@code responseSize}.
+     */
+    static StructuredLogEncoder<StructuredLog> ofCommonFields() {
+        return (log, out) -> {
+            writeVarLong(out, log.timestampMillis());
+            writeVarLong(out, log.responseTimeNanos());
+            writeVarLong(out, log.requestSize());
+            writeVarLong(out, log.responseSize());
+        };
+    }
+
+    /**
+     * Writes the specified {@code long} value with the ZigZag encoding followed by the base 128 varint
+     * encoding, which is the same as the {@code sint64} type of Protocol Buffers.
+     */
+    static void writeVarLong(ByteBuf out, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    /**
+     * Writes the specified {@link CharSequence} as the {@linkplain #writeVarLong(ByteBuf, long) length}
+     * of its UTF-8 encoding followed by the encoded bytes. {@code null} is written as the length of
+     * {@code -1}.
+     */
+    static void writeString(ByteBuf out, @Nullable CharSequence value) {
+        if (value == null) {
+            writeVarLong(out, -1);
+            return;
+        }
+        writeVarLong(out, ByteBufUtil.utf8Bytes(value));
+        ByteBufUtil.writeUtf8(out, value);
+    }
+
+    /**
+     * Writes the fields of the specified structured log into the specified {@link ByteBuf}.
+     */
+    void encode(L structuredLog, ByteBuf out);
+
+    /**
+     * Returns a {@link StructuredLogEncoder} which writes the fields with this encoder and then
+     * with the specified {@link StructuredLogEncoder}.
+     */
+    default <T extends L> StructuredLogEncoder<T> andThen(StructuredLogEncoder<? super T> next) {
+        requireNonNull(next, "next");
+        return (log, out) -> {
+            encode(log, out);
+            next.encode(log, out);
+        };
+    }
+}
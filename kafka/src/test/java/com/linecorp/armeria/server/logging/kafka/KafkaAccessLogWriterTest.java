@@ -16,12 +16,20 @@
 package com.linecorp.armeria.server.logging.kafka;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -34,6 +42,10 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
 import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.MoreMeters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 public class KafkaAccessLogWriterTest {
     @Rule
@@ -57,7 +69,7 @@ public class KafkaAccessLogWriterTest {
 
         service.log(log);
 
-        verify(producer, times(1)).send(captor.capture(), any(Callback.class));
+        verify(producer, timeout(10000).times(1)).send(captor.capture(), any(Callback.class));
 
         final ProducerRecord<String, String> record = captor.getValue();
         assertThat(record.key()).isNull();
@@ -76,7 +88,7 @@ public class KafkaAccessLogWriterTest {
 
         service.log(log);
 
-        verify(producer, times(1)).send(captor.capture(), any(Callback.class));
+        verify(producer, timeout(10000).times(1)).send(captor.capture(), any(Callback.class));
 
         final ProducerRecord<String, String> record = captor.getValue();
         assertThat(record.key()).isEqualTo("kyuto");
@@ -91,4 +103,70 @@ public class KafkaAccessLogWriterTest {
         service.shutdown().join();
         verify(producer, times(1)).close();
     }
+
+    @Test
+    public void dropAfterShutdown() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final KafkaAccessLogWriter<String, String> writer =
+                new KafkaAccessLogWriterBuilder<String, String>(producer, TOPIC_NAME, RequestLog::authority)
+                        .meterRegistry(registry)
+                        .build();
+
+        writer.shutdown().join();
+        writer.log(newLog("a"));
+
+        verify(producer, never()).send(any(), any(Callback.class));
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.kafkaAccessLogs.pending#value{topic=topic-test}", 0.0)
+                .containsEntry("armeria.server.kafkaAccessLogs.dropped#count{topic=topic-test}", 1.0);
+    }
+
+    @Test
+    public void dropNewest() throws Exception {
+        assertThat(sendWithFullQueue(OverflowPolicy.DROP_NEWEST)).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        assertThat(sendWithFullQueue(OverflowPolicy.DROP_OLDEST)).containsExactly("a", "c", "d");
+    }
+
+    private List<String> sendWithFullQueue(OverflowPolicy overflowPolicy) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            // Block the sender thread until the queue is full.
+            latch.await();
+            return null;
+        }).when(producer).send(any(), any(Callback.class));
+
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final KafkaAccessLogWriter<String, String> writer =
+                new KafkaAccessLogWriterBuilder<String, String>(producer, TOPIC_NAME, RequestLog::authority)
+                        .maxQueueSize(2)
+                        .overflowPolicy(overflowPolicy)
+                        .meterRegistry(registry)
+                        .build();
+
+        writer.log(newLog("a"));
+        await().untilAsserted(() -> verify(producer).send(any(), any(Callback.class)));
+
+        writer.log(newLog("b"));
+        writer.log(newLog("c"));
+        writer.log(newLog("d"));
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.kafkaAccessLogs.pending#value{topic=topic-test}", 2.0)
+                .containsEntry("armeria.server.kafkaAccessLogs.dropped#count{topic=topic-test}", 1.0);
+
+        latch.countDown();
+        writer.shutdown().join();
+
+        verify(producer, times(3)).send(captor.capture(), any(Callback.class));
+        return captor.getAllValues().stream().map(ProducerRecord::value).collect(Collectors.toList());
+    }
+
+    private static RequestLog newLog(String authority) {
+        final RequestLog log = mock(RequestLog.class);
+        when(log.authority()).thenReturn(authority);
+        return log;
+    }
 }
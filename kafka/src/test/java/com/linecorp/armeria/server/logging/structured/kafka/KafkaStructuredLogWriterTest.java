@@ -0,0 +1,226 @@
+/*
+ * Copyright 2019 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.linecorp.armeria.server.logging.structured.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.Test;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.common.util.Sampler;
+import com.linecorp.armeria.server.logging.AccessLogWriter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+public class KafkaStructuredLogWriterTest {
+
+    private static final String TOPIC_NAME = "topic-test";
+
+    private static final StructuredLogEncoder<String> ENCODER = StructuredLogEncoder::writeString;
+
+    @Test
+    public void sendInBatches() {
+        final MockProducer<byte[], byte[]> producer = newProducer();
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final AccessLogWriter writer =
+                new KafkaStructuredLogWriterBuilder<>(producer, TOPIC_NAME, RequestLog::authority, ENCODER)
+                        .maxBatchSize(3)
+                        .meterRegistry(registry)
+                        .build();
+
+        for (int i = 0; i < 10; i++) {
+            writer.log(newLog("foo" + i + ".com"));
+        }
+        writer.shutdown().join();
+        assertThat(producer.closed()).isTrue();
+
+        final List<String> decoded = new ArrayList<>();
+        for (ProducerRecord<byte[], byte[]> record : producer.history()) {
+            assertThat(record.topic()).isEqualTo(TOPIC_NAME);
+            assertThat(record.key()).isNull();
+            final List<String> batch = decodeBatch(record.value());
+            assertThat(batch).hasSizeBetween(1, 3);
+            decoded.addAll(batch);
+        }
+        assertThat(decoded).hasSize(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(decoded.get(i)).isEqualTo("foo" + i + ".com");
+        }
+
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.structuredLogs.sent#count{topic=topic-test}", 10.0)
+                .containsEntry("armeria.server.structuredLogs.dropped#count{topic=topic-test}", 0.0)
+                .containsEntry("armeria.server.structuredLogs.failed#count{topic=topic-test}", 0.0);
+    }
+
+    @Test
+    public void sampled() {
+        final MockProducer<byte[], byte[]> producer = newProducer();
+        final AccessLogWriter writer =
+                new KafkaStructuredLogWriterBuilder<>(producer, TOPIC_NAME, RequestLog::authority, ENCODER)
+                        .sampler(Sampler.never())
+                        .meterRegistry(new SimpleMeterRegistry())
+                        .build();
+
+        writer.log(newLog("foo.com"));
+        writer.shutdown().join();
+        assertThat(producer.history()).isEmpty();
+    }
+
+    @Test
+    public void maxBatchBytes() {
+        final MockProducer<byte[], byte[]> producer = newProducer();
+        final AccessLogWriter writer =
+                new KafkaStructuredLogWriterBuilder<>(producer, TOPIC_NAME, RequestLog::authority, ENCODER)
+                        .maxBatchBytes(1)
+                        .meterRegistry(new SimpleMeterRegistry())
+                        .build();
+
+        writer.log(newLog("foo.com"));
+        writer.log(newLog("bar.com"));
+        writer.shutdown().join();
+
+        // Every record exceeds the limit, so each batch must contain only one record.
+        assertThat(producer.history()).hasSize(2);
+        assertThat(decodeBatch(producer.history().get(0).value())).containsExactly("foo.com");
+        assertThat(decodeBatch(producer.history().get(1).value())).containsExactly("bar.com");
+    }
+
+    @Test
+    public void failedSend() {
+        final MockProducer<byte[], byte[]> producer =
+                new MockProducer<>(false, new ByteArraySerializer(), new ByteArraySerializer());
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final AccessLogWriter writer =
+                new KafkaStructuredLogWriterBuilder<>(producer, TOPIC_NAME, RequestLog::authority, ENCODER)
+                        .meterRegistry(registry)
+                        .build();
+
+        writer.log(newLog("foo.com"));
+        await().until(() -> !producer.history().isEmpty());
+        producer.errorNext(new RuntimeException());
+
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.structuredLogs.failed#count{topic=topic-test}", 1.0);
+        writer.shutdown().join();
+    }
+
+    @Test
+    public void dropAfterShutdown() {
+        final MockProducer<byte[], byte[]> producer = newProducer();
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final AccessLogWriter writer =
+                new KafkaStructuredLogWriterBuilder<>(producer, TOPIC_NAME, RequestLog::authority, ENCODER)
+                        .meterRegistry(registry)
+                        .build();
+
+        writer.shutdown().join();
+        writer.log(newLog("foo.com"));
+
+        assertThat(producer.history()).isEmpty();
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.structuredLogs.dropped#count{topic=topic-test}", 1.0);
+    }
+
+    @Test
+    public void logWhileShuttingDown() throws Exception {
+        final MockProducer<byte[], byte[]> producer = newProducer();
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final AccessLogWriter writer =
+                new KafkaStructuredLogWriterBuilder<>(producer, TOPIC_NAME, RequestLog::authority, ENCODER)
+                        .maxQueueSize(16)
+                        .meterRegistry(registry)
+                        .build();
+
+        final RequestLog log = newLog("foo.com");
+        final int numThreads = 4;
+        final int numLogs = 1000;
+        final Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < numLogs; j++) {
+                    writer.log(log);
+                }
+            });
+            threads[i].start();
+        }
+        writer.shutdown().join();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Every log must be either sent or dropped, even if it was enqueued after the last drain.
+        final Map<String, Double> measurements = MoreMeters.measureAll(registry);
+        assertThat(measurements.get("armeria.server.structuredLogs.sent#count{topic=topic-test}") +
+                   measurements.get("armeria.server.structuredLogs.dropped#count{topic=topic-test}"))
+                .isEqualTo(numThreads * numLogs);
+        assertThat(measurements)
+                .containsEntry("armeria.server.structuredLogs.pending#value{topic=topic-test}", 0.0);
+    }
+
+    private static MockProducer<byte[], byte[]> newProducer() {
+        return new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+    }
+
+    private static RequestLog newLog(String authority) {
+        final RequestLog log = mock(RequestLog.class);
+        when(log.authority()).thenReturn(authority);
+        return log;
+    }
+
+    private static List<String> decodeBatch(byte[] value) {
+        final ByteBuf in = Unpooled.wrappedBuffer(value);
+        assertThat(in.readByte()).isEqualTo((byte) KafkaStructuredLogWriter.FORMAT_VERSION);
+        final int count = (int) readVarLong(in);
+        final List<String> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int length = (int) readVarLong(in);
+            final ByteBuf record = in.readSlice(length);
+            final int stringLength = (int) readVarLong(record);
+            records.add(record.readCharSequence(stringLength, StandardCharsets.UTF_8).toString());
+            assertThat(record.isReadable()).isFalse();
+        }
+        assertThat(in.isReadable()).isFalse();
+        return records;
+    }
+
+    private static long readVarLong(ByteBuf in) {
+        long v = 0;
+        for (int shift = 0;; shift += 7) {
+            final byte b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        return (v >>> 1) ^ -(v & 1);
+    }
+}